@@ -0,0 +1,472 @@
+package com.qpark.survey.lime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.qpark.survey.lime.RestClient.Measurement;
+import com.qpark.survey.lime.concurrent.AsyncSemaphore;
+import com.qpark.survey.lime.limit.AimdLimiter;
+import com.qpark.survey.lime.limit.AimdLimiter.Outcome;
+import com.qpark.survey.lime.metrics.CountingInputStream;
+import com.qpark.survey.lime.metrics.CountingOutputStream;
+import com.qpark.survey.lime.model.ExportResponsesOptions;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.mapper.ExportResponsesCsvParser;
+import com.qpark.survey.lime.model.mapper.ExportResponsesParser;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.GetSessionKeyResponseType;
+import com.qpark.survey.lime.model.v25.ListQuestionsResponseType;
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+import com.qpark.survey.lime.model.v25.RequestType;
+
+/**
+ * Non-blocking client calling the lime survey rest service. All operations
+ * return a {@link CompletableFuture} and do not block the caller. The number
+ * of requests in flight per end point is capped by
+ * {@link #getMaxConcurrentRequests()}, further requests wait without holding
+ * a thread. Responses are parsed on the {@link #getParseExecutor()}.
+ * <p>
+ * The requests are built and the responses mapped by the {@link RestClient}
+ * given, so a <i>status</i> instead of a result fails with a
+ * {@link LimeSurveyException} as in the blocking calls. The requests share
+ * the {@link com.qpark.survey.lime.limit.ConcurrencyLimiters},
+ * {@link com.qpark.survey.lime.limit.RetryPolicy} and
+ * {@link com.qpark.survey.lime.metrics.MetricsRegistry} of that
+ * {@link RestClient}. Retries are delayed without holding a thread.
+ *
+ * @author bhausen
+ */
+public class AsyncRestClient {
+	/** Delays the retries. Created on the first retry. */
+	private static class RetryScheduler {
+		static final ScheduledExecutorService INSTANCE = create();
+
+		private static ScheduledExecutorService create() {
+			final ScheduledThreadPoolExecutor value = new ScheduledThreadPoolExecutor(
+					1, r -> {
+						final Thread t = new Thread(r, "lime-async-retry");
+						t.setDaemon(true);
+						return t;
+					});
+			value.setRemoveOnCancelPolicy(true);
+			return value;
+		}
+	}
+
+	/** The body of a response and the {@link Measurement} of its request. */
+	private static class Response {
+		final InputStream body;
+		final Measurement measurement;
+
+		Response(final InputStream body, final Measurement measurement) {
+			this.body = body;
+			this.measurement = measurement;
+		}
+	}
+
+	/** Parses the response body. */
+	@FunctionalInterface
+	private interface ResponseParser<T> {
+		T parse(InputStream body) throws IOException;
+	}
+
+	/** The end point URL to call, if not the one of the {@link RestClient}. */
+	private volatile String endPointUrl;
+	/** The maximum number of requests in flight per end point. */
+	private int maxConcurrentRequests = 16;
+	/** The {@link Executor} parsing the responses. */
+	private Executor parseExecutor = ForkJoinPool.commonPool();
+	/** The {@link AsyncSemaphore}s per end point URL. */
+	private final Map<String, AsyncSemaphore> permits = new ConcurrentHashMap<>();
+	/** The spring {@link AsyncRestTemplate}. */
+	private final AsyncRestTemplate restTemplate;
+	/** The {@link RestClient} building the requests and mapping responses. */
+	private final RestClient client;
+
+	/**
+	 * @param restTemplate
+	 *            the {@link AsyncRestTemplate}, e.g. created by the
+	 *            {@link com.qpark.survey.lime.transport.AsyncHttpTransport}.
+	 * @param client
+	 *            the {@link RestClient} building the requests, mapping the
+	 *            responses and providing the limiters, retry policy and
+	 *            metrics.
+	 */
+	public AsyncRestClient(final AsyncRestTemplate restTemplate,
+			final RestClient client) {
+		this.restTemplate = Objects.requireNonNull(restTemplate);
+		this.client = Objects.requireNonNull(client);
+	}
+
+	private <T> CompletableFuture<T> execute(final RequestType request,
+			final ResponseParser<T> parser) {
+		final String url = this.getEndPointUrl();
+		final AsyncSemaphore semaphore = this.permits.computeIfAbsent(url,
+				k -> new AsyncSemaphore(this.maxConcurrentRequests));
+		final int attempts = this.client.getRetryPolicy()
+				.isIdempotent(request.getMethod())
+						? this.client.getRetryPolicy().getMaxAttempts() : 1;
+		return semaphore.acquire().thenCompose(v -> {
+			final CompletableFuture<Response> value = this.attempt(url,
+					request, 1, attempts);
+			value.whenComplete((r, e) -> semaphore.release());
+			return value;
+		}).thenApplyAsync(response -> {
+			final Measurement m = response.measurement;
+			boolean failed = true;
+			try (CountingInputStream body = new CountingInputStream(
+					response.body)) {
+				final T value = parser.parse(body);
+				m.bytesIn = body.getCount();
+				failed = false;
+				return value;
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				m.extracted = System.nanoTime();
+				this.client.record(request.getMethod(), m, failed);
+			}
+		}, this.parseExecutor);
+	}
+
+	/**
+	 * Sends the request once it got a slot of the
+	 * {@link com.qpark.survey.lime.limit.ConcurrencyLimiters}. An overload
+	 * failure is sent again after the back off of the
+	 * {@link com.qpark.survey.lime.limit.RetryPolicy}, as long as attempts are
+	 * left.
+	 */
+	private CompletableFuture<Response> attempt(final String url,
+			final RequestType request, final int attempt, final int attempts) {
+		final Optional<AimdLimiter> limiter = this.client
+				.getConcurrencyLimiters().getLimiter(url, request.getMethod());
+		return limiter.map(AimdLimiter::acquireAsync)
+				.orElseGet(() -> CompletableFuture.completedFuture(null))
+				.thenCompose(v -> this.post(url, request, limiter))
+				.handle((response, e) -> {
+					if (Objects.isNull(e)) {
+						return CompletableFuture.completedFuture(response);
+					}
+					final RuntimeException cause = unwrap(e);
+					if (attempt < attempts && RestClient
+							.getOutcome(cause) == Outcome.OVERLOAD) {
+						this.client.getMetricsRegistry()
+								.getMethodMetrics(request.getMethod())
+								.recordRetry();
+						return this.retry(url, request, attempt, attempts);
+					}
+					final CompletableFuture<Response> value = new CompletableFuture<>();
+					value.completeExceptionally(cause);
+					return value;
+				}).thenCompose(value -> value);
+	}
+
+	private CompletableFuture<Response> retry(final String url,
+			final RequestType request, final int attempt, final int attempts) {
+		final CompletableFuture<Response> value = new CompletableFuture<>();
+		RetryScheduler.INSTANCE.schedule(
+				() -> this.attempt(url, request, attempt + 1, attempts)
+						.whenComplete((r, e) -> {
+							if (Objects.isNull(e)) {
+								value.complete(r);
+							} else {
+								value.completeExceptionally(unwrap(e));
+							}
+						}),
+				this.client.getRetryPolicy().getBackoff(attempt),
+				TimeUnit.MILLISECONDS);
+		return value;
+	}
+
+	/**
+	 * Posts the request. The limiter slot is returned once the response
+	 * arrived or the request failed, the latency is measured until the
+	 * response arrived. The response body of the HttpAsyncClient is read
+	 * into memory by the client, it stays readable after the
+	 * {@link AsyncRestTemplate} closed the response and is parsed from there
+	 * on the {@link #getParseExecutor()}.
+	 */
+	private CompletableFuture<Response> post(final String url,
+			final RequestType request, final Optional<AimdLimiter> limiter) {
+		final Measurement m = new Measurement();
+		final CompletableFuture<Response> value = new CompletableFuture<>();
+		try {
+			final ListenableFuture<InputStream> future = this.restTemplate
+					.execute(url, HttpMethod.POST, r -> {
+						r.getHeaders()
+								.setContentType(MediaType.APPLICATION_JSON);
+						final CountingOutputStream out = new CountingOutputStream(
+								r.getBody());
+						this.client.getMapper().writeValue(out, request);
+						m.bytesOut = out.getCount();
+						m.serialized = System.nanoTime();
+					}, r -> {
+						m.responded = System.nanoTime();
+						return r.getBody();
+					});
+			future.addCallback(body -> value.complete(new Response(body, m)),
+					value::completeExceptionally);
+		} catch (final RuntimeException e) {
+			value.completeExceptionally(e);
+		}
+		return value.whenComplete((r, e) -> {
+			final long end = m.responded != 0 ? m.responded
+					: System.nanoTime();
+			limiter.ifPresent(l -> l.release(m.started, end,
+					Objects.isNull(e) ? Outcome.SUCCESS
+							: RestClient.getOutcome(unwrap(e))));
+			if (Objects.nonNull(e)) {
+				this.client.record(request.getMethod(), m, true);
+			}
+		});
+	}
+
+	/**
+	 * @return the {@link RuntimeException} as the {@link RestClient} would
+	 *         have thrown it, I/O failures as {@link ResourceAccessException}.
+	 */
+	private static RuntimeException unwrap(final Throwable e) {
+		Throwable cause = e;
+		while ((cause instanceof CompletionException
+				|| cause instanceof ExecutionException)
+				&& Objects.nonNull(cause.getCause())) {
+			cause = cause.getCause();
+		}
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		} else if (cause instanceof IOException) {
+			return new ResourceAccessException(
+					String.format("I/O error on POST request: %s",
+							cause.getMessage()),
+					(IOException) cause);
+		}
+		return new CompletionException(cause);
+	}
+
+	/**
+	 * Calls the operation <i>get_session_key</i>
+	 *
+	 * @param userName
+	 * @param password
+	 * @return the {@link CompletableFuture} of the {@link Optional}
+	 *         {@link LimeSurveySession}.
+	 */
+	public CompletableFuture<Optional<LimeSurveySession>> getSessionKey(
+			final String userName, final char[] password) {
+		if (Objects.isNull(userName)) {
+			throw new IllegalStateException("User name not provided.");
+		} else if (Objects.isNull(password) || password.length == 0) {
+			throw new IllegalStateException("User password not provided.");
+		}
+		final RequestType request = this.client
+				.getRequestType("get_session_key", userName, new String(password));
+		final String url = this.getEndPointUrl();
+		return this.execute(request, body -> {
+			Optional<LimeSurveySession> value = Optional.empty();
+			final GetSessionKeyResponseType session = this.client
+					.readValue(body, GetSessionKeyResponseType.class);
+			if (Objects.nonNull(session)
+					&& Objects.nonNull(session.getResult())) {
+				final LimeSurveySession s = new LimeSurveySession();
+				s.setSessionKey(session.getResult());
+				s.setUserName(userName);
+				s.setEndPointUrl(url);
+				value = Optional.of(s);
+			}
+			return value;
+		});
+	}
+
+	/**
+	 * Calls the operation <i>list_surveys</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @return the {@link CompletableFuture} of the {@link Optional}
+	 *         {@link ListSurveysResponseType}.
+	 */
+	public CompletableFuture<Optional<ListSurveysResponseType>> listSurveys(
+			final LimeSurveySession session) {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		}
+		final RequestType request = this.client.getRequestType("list_surveys",
+				session.getSessionKey(), session.getUserName());
+		return this.execute(request, body -> Optional.ofNullable(
+				this.client.readValue(body, ListSurveysResponseType.class)));
+	}
+
+	/**
+	 * Calls the operation <i>list_questions</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @return the {@link CompletableFuture} of the {@link Optional}
+	 *         {@link ListQuestionsResponseType}.
+	 */
+	public CompletableFuture<Optional<ListQuestionsResponseType>> getListQuestions(
+			final LimeSurveySession session, final int surveyId) {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		}
+		final RequestType request = this.client.getRequestType(
+				"list_questions", session.getSessionKey(), surveyId);
+		return this.execute(request, body -> Optional.ofNullable(
+				this.client.readValue(body, ListQuestionsResponseType.class)));
+	}
+
+	/**
+	 * Calls the operation <i>export_responses</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param language
+	 *            the language.
+	 * @return the {@link CompletableFuture} of the {@link Optional}
+	 *         {@link ExportResponsesResponseType}.
+	 */
+	public CompletableFuture<Optional<ExportResponsesResponseType>> getExportResponses(
+			final LimeSurveySession session, final int surveyId,
+			final Optional<String> language) {
+		return this.getExportResponses(session, surveyId,
+				this.client.getExportResponsesOptions(language));
+	}
+
+	/**
+	 * Calls the operation <i>export_responses</i> with the given
+	 * {@link ExportResponsesOptions}, e.g. a response id range, a field list
+	 * or the document type <i>csv</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param options
+	 *            the {@link ExportResponsesOptions}.
+	 * @return the {@link CompletableFuture} of the {@link Optional}
+	 *         {@link ExportResponsesResponseType}.
+	 */
+	public CompletableFuture<Optional<ExportResponsesResponseType>> getExportResponses(
+			final LimeSurveySession session, final int surveyId,
+			final ExportResponsesOptions options) {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (Objects.isNull(options)) {
+			throw new IllegalStateException("Options not provided.");
+		}
+		final RequestType request = this.client
+				.getExportResponsesRequest(session, surveyId, options);
+		final ResponseParser<ExportResponsesResponseType> parser;
+		if (options.isCsv()) {
+			parser = new ExportResponsesCsvParser()::read;
+		} else {
+			parser = new ExportResponsesParser(
+					this.client.getMapper().getMapper())::read;
+		}
+		return this.execute(request, body -> {
+			final Optional<ExportResponsesResponseType> value = Optional
+					.ofNullable(this.client.checkSession(parser.parse(body)));
+			value.ifPresent(v -> this.client.recordRows(request.getMethod(),
+					v.getResponses().size()));
+			return value;
+		});
+	}
+
+	/**
+	 * Calls the operation <i>release_session_key</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession} to release.
+	 * @return the {@link CompletableFuture} completing after the release.
+	 */
+	public CompletableFuture<Void> releaseSessionKey(
+			final LimeSurveySession session) {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		}
+		final RequestType request = this.client.getRequestType(
+				"release_session_key", session.getSessionKey(),
+				session.getUserName());
+		return this.execute(request, body -> null);
+	}
+
+	/**
+	 * @return the endPointUrl, if not set the one of the {@link RestClient}.
+	 */
+	public String getEndPointUrl() {
+		return Optional.ofNullable(this.endPointUrl)
+				.orElseGet(this.client::getEndPointUrl);
+	}
+
+	/**
+	 * @param endPointUrl
+	 *            the endPointUrl to set
+	 */
+	public void setEndPointUrl(final String endPointUrl) {
+		this.endPointUrl = endPointUrl;
+	}
+
+	/**
+	 * @return the maximum number of requests in flight per end point.
+	 */
+	public int getMaxConcurrentRequests() {
+		return this.maxConcurrentRequests;
+	}
+
+	/**
+	 * @param maxConcurrentRequests
+	 *            the maximum number of requests in flight per end point. Only
+	 *            applies to end points not called yet.
+	 */
+	public void setMaxConcurrentRequests(final int maxConcurrentRequests) {
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	/**
+	 * @return the {@link Executor} parsing the responses.
+	 */
+	public Executor getParseExecutor() {
+		return this.parseExecutor;
+	}
+
+	/**
+	 * @param parseExecutor
+	 *            the {@link Executor} parsing the responses.
+	 */
+	public void setParseExecutor(final Executor parseExecutor) {
+		this.parseExecutor = Objects.requireNonNull(parseExecutor);
+	}
+
+	/**
+	 * @param url
+	 *            the end point URL.
+	 * @return the number of requests in flight to the end point.
+	 */
+	public int getInFlight(final String url) {
+		return Optional.ofNullable(this.permits.get(url))
+				.map(AsyncSemaphore::getInUse).orElse(0);
+	}
+}
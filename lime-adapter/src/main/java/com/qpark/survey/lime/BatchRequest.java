@@ -0,0 +1,282 @@
+package com.qpark.survey.lime;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.v25.ListQuestionsResponseType;
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+import com.qpark.survey.lime.model.v25.RequestType;
+
+/**
+ * Collects several JSON-RPC requests and sends them as one batch array. Each
+ * request gets a unique id, the results are routed back by id to the typed
+ * {@link BatchResult}s.
+ * <p>
+ * The results are mapped as the {@link RestClient} maps single calls, a
+ * <i>status</i> instead of a result fails the {@link BatchResult} with a
+ * {@link LimeSurveyException}.
+ * <p>
+ * If the server rejects the batch with a client error status or a JSON-RPC
+ * error object instead of an array, the {@link RestClient} is marked as not
+ * batch capable. If the server answers with anything else but an array, only
+ * this batch falls back. The requests are then sent as single calls, all in
+ * flight at the same time on the {@link Executor} of
+ * {@link #execute(Executor)}. If the server fails with a server error status,
+ * the single calls are sent one after the other on the calling thread, behind
+ * the concurrency limiter of the {@link RestClient}, and the first one failing
+ * with a server error or I/O failure fails the remaining requests unsent, so
+ * a failing server does not get more load.
+ *
+ * @author bhausen
+ */
+public class BatchRequest {
+	/** The {@link RestClient} sending the batch. */
+	private final RestClient client;
+	/** The queued requests with their results. */
+	private final Map<RequestType, BatchResult<?>> requests = new LinkedHashMap<>();
+
+	/**
+	 * @param client
+	 *            the {@link RestClient} sending the batch.
+	 */
+	BatchRequest(final RestClient client) {
+		this.client = client;
+	}
+
+	/**
+	 * Queue the request. The id of the request is replaced by a unique one.
+	 *
+	 * @param request
+	 *            the {@link RequestType}.
+	 * @param responseType
+	 *            the model {@link Class} to parse the response in.
+	 * @return the {@link BatchResult}.
+	 */
+	public synchronized <T> BatchResult<T> add(final RequestType request,
+			final Class<T> responseType) {
+		final RequestType value = this.client.getRequestType(
+				request.getMethod(), request.getParams().toArray());
+		final BatchResult<T> result = new BatchResult<>(value.getId(),
+				responseType);
+		this.requests.put(value, result);
+		return result;
+	}
+
+	/**
+	 * Queue the operation <i>list_surveys</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @return the {@link BatchResult} of the {@link ListSurveysResponseType}.
+	 */
+	public synchronized BatchResult<ListSurveysResponseType> listSurveys(
+			final LimeSurveySession session) {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		}
+		final RequestType request = this.client.getRequestType("list_surveys",
+				session.getSessionKey(), session.getUserName());
+		final BatchResult<ListSurveysResponseType> result = new BatchResult<>(
+				request.getId(), ListSurveysResponseType.class);
+		this.requests.put(request, result);
+		return result;
+	}
+
+	/**
+	 * Queue the operation <i>list_questions</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @return the {@link BatchResult} of the {@link ListQuestionsResponseType}.
+	 */
+	public synchronized BatchResult<ListQuestionsResponseType> listQuestions(
+			final LimeSurveySession session, final int surveyId) {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		}
+		final RequestType request = this.client.getRequestType(
+				"list_questions", session.getSessionKey(), surveyId);
+		final BatchResult<ListQuestionsResponseType> result = new BatchResult<>(
+				request.getId(), ListQuestionsResponseType.class);
+		this.requests.put(request, result);
+		return result;
+	}
+
+	/**
+	 * @return the number of queued requests.
+	 */
+	public synchronized int size() {
+		return this.requests.size();
+	}
+
+	/**
+	 * Send all queued requests. Single call fall back runs on the calling
+	 * thread.
+	 *
+	 * @throws IOException
+	 */
+	public void execute() throws IOException {
+		this.execute(Runnable::run);
+	}
+
+	/**
+	 * Send all queued requests.
+	 *
+	 * @param executor
+	 *            the {@link Executor} running the single calls if the server
+	 *            does not accept batches.
+	 * @throws IOException
+	 */
+	public void execute(final Executor executor) throws IOException {
+		final Map<RequestType, BatchResult<?>> pending;
+		synchronized (this) {
+			pending = new LinkedHashMap<>(this.requests);
+			this.requests.clear();
+		}
+		if (pending.isEmpty()) {
+			return;
+		}
+		if (this.client.isBatchSupported() && pending.size() > 1) {
+			JsonNode response = null;
+			boolean rejected = false;
+			try {
+				response = this.client.executeRequest(
+						new ArrayList<>(pending.keySet()),
+						r -> this.getObjectMapper().readTree(r.getBody()));
+			} catch (final HttpClientErrorException e) {
+				rejected = true;
+			} catch (final HttpServerErrorException e) {
+				this.executeSerial(pending);
+				return;
+			} catch (final RestClientException e) {
+				pending.values().forEach(r -> r.fail(new IOException(e)));
+				return;
+			}
+			if (Objects.nonNull(response) && response.isArray()) {
+				this.route(response, pending);
+				return;
+			}
+			if (rejected || isError(response)) {
+				this.client.setBatchSupported(false);
+			}
+		}
+		this.executeSingle(pending, executor);
+	}
+
+	/**
+	 * @return <code>true</code> if the response is a JSON-RPC error object.
+	 */
+	private static boolean isError(final JsonNode response) {
+		return Objects.nonNull(response) && response.isObject()
+				&& response.hasNonNull("error");
+	}
+
+	private ObjectMapper getObjectMapper() {
+		return this.client.getMapper().getMapper();
+	}
+
+	private void route(final JsonNode response,
+			final Map<RequestType, BatchResult<?>> pending) {
+		final Map<Integer, BatchResult<?>> byId = pending.values().stream()
+				.collect(Collectors.toMap(BatchResult::getId, r -> r));
+		response.forEach(node -> {
+			final JsonNode id = node.get("id");
+			final BatchResult<?> result = Objects.isNull(id) ? null
+					: byId.remove(id.asInt());
+			if (Objects.nonNull(result)) {
+				this.complete(result, node);
+			}
+		});
+		byId.values().forEach(result -> result.fail(new IOException(
+				String.format("No response for request id %s in batch.",
+						result.getId()))));
+	}
+
+	private <T> void complete(final BatchResult<T> result,
+			final JsonNode node) {
+		try {
+			result.complete(
+					this.client.readValue(node, result.getResponseType()));
+		} catch (final IOException e) {
+			result.fail(e);
+		}
+	}
+
+	/**
+	 * Sends the requests one after the other on the calling thread. After a
+	 * server error or I/O failure the remaining requests fail unsent.
+	 */
+	private void executeSerial(
+			final Map<RequestType, BatchResult<?>> pending) {
+		IOException failure = null;
+		for (final Map.Entry<RequestType, BatchResult<?>> entry : pending
+				.entrySet()) {
+			if (Objects.nonNull(failure)) {
+				entry.getValue().fail(failure);
+			} else {
+				failure = this.executeSingle(entry.getKey(), entry.getValue())
+						.orElse(null);
+			}
+		}
+	}
+
+	private void executeSingle(final Map<RequestType, BatchResult<?>> pending,
+			final Executor executor) {
+		final List<CompletableFuture<Void>> calls = new ArrayList<>(
+				pending.size());
+		pending.forEach((request, result) -> calls.add(CompletableFuture
+				.runAsync(() -> this.executeSingle(request, result),
+						executor)));
+		calls.forEach(CompletableFuture::join);
+	}
+
+	/**
+	 * @return the failure, if the server failed with a server error or the
+	 *         call with an I/O failure.
+	 */
+	private <T> Optional<IOException> executeSingle(final RequestType request,
+			final BatchResult<T> result) {
+		try {
+			result.complete(this.client.executeRequest(request, r -> {
+				try {
+					return this.client.readValue(r.getBody(),
+							result.getResponseType());
+				} catch (final IOException e) {
+					/* Passed by the RestTemplate unwrapped. */
+					throw new UncheckedIOException(e);
+				}
+			}));
+		} catch (final UncheckedIOException e) {
+			result.fail(e.getCause());
+		} catch (final IOException e) {
+			result.fail(e);
+		} catch (final HttpServerErrorException | ResourceAccessException e) {
+			final IOException failure = new IOException(e);
+			result.fail(failure);
+			return Optional.of(failure);
+		} catch (final RestClientException | CompletionException e) {
+			result.fail(new IOException(e));
+		}
+		return Optional.empty();
+	}
+}
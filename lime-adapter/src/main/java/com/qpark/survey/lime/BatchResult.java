@@ -0,0 +1,80 @@
+package com.qpark.survey.lime;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The typed result of one request of a {@link BatchRequest}. It is available
+ * after {@link BatchRequest#execute()}.
+ *
+ * @author bhausen
+ */
+public class BatchResult<T> {
+	/** The JSON-RPC request id. */
+	private final int id;
+	/** The type of the response. */
+	private final Class<T> responseType;
+	/** <code>true</code> once the result is set. */
+	private boolean done;
+	/** The response. */
+	private T value;
+	/** The failure. */
+	private IOException failure;
+
+	/**
+	 * @param id
+	 *            the JSON-RPC request id.
+	 * @param responseType
+	 *            the type of the response.
+	 */
+	BatchResult(final int id, final Class<T> responseType) {
+		this.id = id;
+		this.responseType = responseType;
+	}
+
+	/**
+	 * @return the JSON-RPC request id.
+	 */
+	public int getId() {
+		return this.id;
+	}
+
+	/**
+	 * @return the type of the response.
+	 */
+	public Class<T> getResponseType() {
+		return this.responseType;
+	}
+
+	/**
+	 * @return <code>true</code> once the batch executed.
+	 */
+	public synchronized boolean isDone() {
+		return this.done;
+	}
+
+	/**
+	 * @return the {@link Optional} of the response.
+	 * @throws IOException
+	 *             if the request failed.
+	 */
+	public synchronized Optional<T> get() throws IOException {
+		if (!this.done) {
+			throw new IllegalStateException("Batch not executed.");
+		} else if (Objects.nonNull(this.failure)) {
+			throw this.failure;
+		}
+		return Optional.ofNullable(this.value);
+	}
+
+	synchronized void complete(final T response) {
+		this.value = response;
+		this.done = true;
+	}
+
+	synchronized void fail(final IOException e) {
+		this.failure = e;
+		this.done = true;
+	}
+}
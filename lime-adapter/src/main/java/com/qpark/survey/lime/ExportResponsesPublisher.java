@@ -0,0 +1,221 @@
+package com.qpark.survey.lime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.http.client.ClientHttpResponse;
+
+import com.qpark.survey.lime.model.mapper.ExportResponsesParser;
+import com.qpark.survey.lime.model.mapper.ExportResponsesParser.ExportResponsesIterator;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.RequestType;
+import com.qpark.survey.lime.transport.AbortableClientHttpResponse;
+
+/**
+ * Reactive Streams {@link Publisher} of the responses of one
+ * <i>export_responses</i> call. Each subscription sends its own request, once
+ * the subscriber signals the first demand. The response is decoded on a
+ * thread of the {@link Executor} one entry per requested item: if the
+ * subscriber does not request more, decoding and reading the HTTP response
+ * pause. Cancelling aborts an {@link AbortableClientHttpResponse}, the rest
+ * of the body is not read and the connection is closed. Other responses are
+ * closed as usual, which reads the rest of the body.
+ * <p>
+ * A <i>No Data</i> or <i>No Response</i> status completes the subscription
+ * without items, any other error is signalled as
+ * {@link LimeSurveyException}.
+ *
+ * @author bhausen
+ */
+public class ExportResponsesPublisher
+		implements Publisher<ExportResponsesListEntryType> {
+	/** The {@link RestClient} executing the request. */
+	private final RestClient client;
+	/** The <i>export_responses</i> request. */
+	private final RequestType request;
+	/** The {@link Executor} reading the HTTP response. */
+	private final Executor executor;
+
+	ExportResponsesPublisher(final RestClient client, final RequestType request,
+			final Executor executor) {
+		this.client = client;
+		this.request = request;
+		this.executor = executor;
+	}
+
+	/**
+	 * @see org.reactivestreams.Publisher#subscribe(org.reactivestreams.Subscriber)
+	 */
+	@Override
+	public void subscribe(
+			final Subscriber<? super ExportResponsesListEntryType> subscriber) {
+		Objects.requireNonNull(subscriber);
+		final ExportSubscription subscription = new ExportSubscription(
+				subscriber);
+		subscriber.onSubscribe(subscription);
+	}
+
+	/**
+	 * The {@link Subscription} reading the HTTP response on demand.
+	 */
+	private final class ExportSubscription implements Subscription {
+		/** The {@link Subscriber}. */
+		private final Subscriber<? super ExportResponsesListEntryType> subscriber;
+		/** The outstanding demand. */
+		private final AtomicLong demand = new AtomicLong();
+		/** <code>true</code> once the reading is started. */
+		private final AtomicBoolean started = new AtomicBoolean();
+		/** <code>true</code> if cancelled or terminated. */
+		private volatile boolean cancelled;
+		/** The response being read, <code>null</code> before. */
+		private volatile ClientHttpResponse response;
+
+		ExportSubscription(
+				final Subscriber<? super ExportResponsesListEntryType> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		/**
+		 * @see org.reactivestreams.Subscription#request(long)
+		 */
+		@Override
+		public void request(final long n) {
+			if (this.cancelled) {
+				return;
+			} else if (n <= 0) {
+				this.cancel();
+				this.subscriber.onError(new IllegalArgumentException(
+						"Request needs to be positive (rule 3.9)."));
+				return;
+			}
+			this.demand.accumulateAndGet(n, (current, add) -> {
+				final long sum = current + add;
+				return sum < 0 ? Long.MAX_VALUE : sum;
+			});
+			synchronized (this) {
+				this.notifyAll();
+			}
+			if (this.started.compareAndSet(false, true)) {
+				try {
+					ExportResponsesPublisher.this.executor.execute(this::run);
+				} catch (final RuntimeException e) {
+					this.cancelled = true;
+					this.subscriber.onError(e);
+				}
+			}
+		}
+
+		/**
+		 * @see org.reactivestreams.Subscription#cancel()
+		 */
+		@Override
+		public void cancel() {
+			this.cancelled = true;
+			synchronized (this) {
+				this.notifyAll();
+			}
+			this.abort();
+		}
+
+		/**
+		 * Abort the response being read. A read blocked on the network fails
+		 * and is not signalled, since the subscription is cancelled.
+		 */
+		private void abort() {
+			final ClientHttpResponse r = this.response;
+			if (r instanceof AbortableClientHttpResponse) {
+				((AbortableClientHttpResponse) r).abort();
+			}
+		}
+
+		private void run() {
+			final ExportResponsesParser parser = new ExportResponsesParser(
+					ExportResponsesPublisher.this.client.getMapper()
+							.getMapper());
+			final ExportResponsesResponseType envelope;
+			try {
+				envelope = ExportResponsesPublisher.this.client.executeRequest(
+						ExportResponsesPublisher.this.request,
+						response -> this.emit(parser, response));
+			} catch (final Throwable e) {
+				if (!this.cancelled) {
+					this.cancelled = true;
+					this.subscriber.onError(e);
+				}
+				return;
+			}
+			if (this.cancelled) {
+				return;
+			}
+			this.cancelled = true;
+			final String error = Objects.isNull(envelope) ? null
+					: envelope.getError();
+			if (Objects.isNull(error)
+					|| LimeSurveyException.isNoResponses(error)) {
+				this.subscriber.onComplete();
+			} else {
+				this.subscriber.onError(new LimeSurveyException(error));
+			}
+		}
+
+		private ExportResponsesResponseType emit(
+				final ExportResponsesParser parser,
+				final ClientHttpResponse response) throws IOException {
+			this.response = response;
+			if (this.cancelled) {
+				this.abort();
+				return null;
+			}
+			long rows = 0;
+			final InputStream body = response.getBody();
+			try (ExportResponsesIterator iterator = parser.iterator(body)) {
+				/*
+				 * Wait for demand first, hasNext() reads the next entry from
+				 * the network.
+				 */
+				while (this.awaitDemand() && iterator.hasNext()) {
+					this.demand.decrementAndGet();
+					this.subscriber.onNext(iterator.next());
+					rows++;
+				}
+				if (this.cancelled) {
+					/* Before the iterator closes and drains the body. */
+					this.abort();
+					return null;
+				}
+				return iterator.getEnvelope();
+			} catch (final UncheckedIOException e) {
+				throw e.getCause();
+			} finally {
+				ExportResponsesPublisher.this.client.recordRows(
+						ExportResponsesPublisher.this.request.getMethod(),
+						rows);
+			}
+		}
+
+		private boolean awaitDemand() throws IOException {
+			synchronized (this) {
+				while (!this.cancelled && this.demand.get() == 0) {
+					try {
+						this.wait();
+					} catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new InterruptedIOException(
+								e.getMessage());
+					}
+				}
+			}
+			return !this.cancelled;
+		}
+	}
+}
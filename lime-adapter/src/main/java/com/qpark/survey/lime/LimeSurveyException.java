@@ -0,0 +1,113 @@
+package com.qpark.survey.lime;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+
+/**
+ * Lime survey answered a request with a <i>status</i> instead of a result,
+ * e.g. <code>{"status":"Invalid session key"}</code>.
+ *
+ * @author bhausen
+ */
+public class LimeSurveyException extends IOException {
+	/** The status lime survey reports for an unknown or expired session. */
+	public static final String INVALID_SESSION_KEY = "Invalid session key";
+	/** The status lime survey reports for a page without participants. */
+	public static final String NO_PARTICIPANTS_FOUND = "No survey participants found.";
+	/** The status of older lime survey versions for no participants. */
+	public static final String NO_TOKENS_FOUND = "No Tokens found.";
+	/** The status lime survey reports for a user without surveys. */
+	public static final String NO_SURVEYS_FOUND = "No surveys found";
+	/** The status prefix of an export of a survey without response table. */
+	public static final String NO_DATA = "No Data";
+	/** The status prefix of an export without responses in the range. */
+	public static final String NO_RESPONSE = "No Response";
+	private static final long serialVersionUID = -2305796853227478473L;
+	/** The status reported by lime survey. */
+	private final String status;
+
+	/**
+	 * @param status
+	 *            the status reported by lime survey.
+	 * @param cause
+	 *            the cause.
+	 */
+	public LimeSurveyException(final String status, final Throwable cause) {
+		super(status, cause);
+		this.status = status;
+	}
+
+	/**
+	 * @param status
+	 *            the status reported by lime survey.
+	 */
+	public LimeSurveyException(final String status) {
+		this(status, null);
+	}
+
+	/**
+	 * @return the status reported by lime survey.
+	 */
+	public String getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * @return <code>true</code> if the session key was not accepted.
+	 */
+	public boolean isInvalidSession() {
+		return INVALID_SESSION_KEY.equalsIgnoreCase(this.status);
+	}
+
+	/**
+	 * @return <code>true</code> if lime survey found no participants.
+	 */
+	public boolean isNoParticipants() {
+		return NO_PARTICIPANTS_FOUND.equalsIgnoreCase(this.status)
+				|| NO_TOKENS_FOUND.equalsIgnoreCase(this.status);
+	}
+
+	/**
+	 * @return <code>true</code> if lime survey found no surveys.
+	 */
+	public boolean isNoSurveys() {
+		return NO_SURVEYS_FOUND.equalsIgnoreCase(this.status);
+	}
+
+	/**
+	 * @return <code>true</code> if lime survey exported no responses.
+	 */
+	public boolean isNoResponses() {
+		return isNoResponses(this.status);
+	}
+
+	/**
+	 * @param status
+	 *            the status of an <i>export_responses</i>.
+	 * @return <code>true</code> if the status reports no responses, i.e. it
+	 *         starts with {@link #NO_DATA} or {@link #NO_RESPONSE}.
+	 */
+	public static boolean isNoResponses(final String status) {
+		return Objects.nonNull(status) && (status.startsWith(NO_DATA)
+				|| status.startsWith(NO_RESPONSE));
+	}
+
+	/**
+	 * Lime survey reports an export without responses as status. Any other
+	 * status is an error.
+	 *
+	 * @param envelope
+	 *            the {@link ExportResponsesResponseType} or <code>null</code>.
+	 * @throws LimeSurveyException
+	 *             if the envelope reports an error other than no responses.
+	 */
+	public static void checkExport(final ExportResponsesResponseType envelope)
+			throws LimeSurveyException {
+		if (Objects.nonNull(envelope) && Objects.nonNull(envelope.getError())
+				&& !isNoResponses(envelope.getError())) {
+			throw new LimeSurveyException(envelope.getError());
+		}
+	}
+}
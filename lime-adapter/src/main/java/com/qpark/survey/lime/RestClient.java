@@ -1,32 +1,74 @@
 package com.qpark.survey.lime;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.http.HttpEntity;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.qpark.survey.lime.limit.AimdLimiter;
+import com.qpark.survey.lime.limit.AimdLimiter.Outcome;
+import com.qpark.survey.lime.limit.ConcurrencyLimiters;
+import com.qpark.survey.lime.limit.RetryPolicy;
+import com.qpark.survey.lime.metrics.CountingInputStream;
+import com.qpark.survey.lime.metrics.CountingOutputStream;
+import com.qpark.survey.lime.metrics.MethodMetrics;
+import com.qpark.survey.lime.metrics.MetricsRegistry;
+import com.qpark.survey.lime.metrics.NoopMetricsRegistry;
+import com.qpark.survey.lime.model.ExportResponsesOptions;
+import com.qpark.survey.lime.model.ExportResponsesOptions.CompletionStatus;
+import com.qpark.survey.lime.model.ExportResponsesOptions.DocumentType;
+import com.qpark.survey.lime.model.ExportResponsesOptions.HeadingType;
+import com.qpark.survey.lime.model.ExportResponsesOptions.ResponseType;
 import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.mapper.CsvResponseReader;
+import com.qpark.survey.lime.model.mapper.ExportResponsesCsvParser;
+import com.qpark.survey.lime.model.mapper.ExportResponsesCsvParser.RowCallback;
+import com.qpark.survey.lime.model.mapper.ExportResponsesParser;
 import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.v25.AddParticipantsResponseType;
+import com.qpark.survey.lime.model.v25.DeleteParticipantsResponseType;
 import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
 import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.GetParticipantPropertiesResponseType;
 import com.qpark.survey.lime.model.v25.GetSessionKeyResponseType;
+import com.qpark.survey.lime.model.v25.ListGroupsResponseType;
+import com.qpark.survey.lime.model.v25.ListParticipantsResponseType;
 import com.qpark.survey.lime.model.v25.ListQuestionsResponseType;
 import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+import com.qpark.survey.lime.model.v25.ParticipantType;
 import com.qpark.survey.lime.model.v25.PropertyType;
 import com.qpark.survey.lime.model.v25.RequestType;
+import com.qpark.survey.lime.transport.AbortableClientHttpResponse;
 
 /**
  * Client calling the lime survey rest service.
@@ -34,41 +76,401 @@ import com.qpark.survey.lime.model.v25.RequestType;
  * @author bhausen
  */
 public class RestClient {
+	/** The {@link Logger}. */
+	private static final Logger logger = LoggerFactory
+			.getLogger(RestClient.class);
 	/** The end point URL to call. */
-	private String endPointUrl;
-	/** Content-type HTTP header. */
-	private final HttpHeaders headers;
+	private volatile String endPointUrl;
+	/** The source of the JSON-RPC request ids. */
+	private final AtomicInteger requestIds = new AtomicInteger();
+	/** <code>false</code> once the server rejected a batch request. */
+	private volatile boolean batchSupported = true;
 	/** The spring {@link RestTemplate}. */
-	@Autowired
-	@Qualifier("limeRestTemplate")
-	private RestTemplate restTemplate;
+	private final RestTemplate restTemplate;
 	/** The {@link Mapper}. */
-	@Autowired
-	private Mapper mapper;
+	private final Mapper mapper;
+	/** The {@link MetricsRegistry}. */
+	private MetricsRegistry metricsRegistry = NoopMetricsRegistry.INSTANCE;
+	/** The {@link ConcurrencyLimiters}. */
+	private ConcurrencyLimiters concurrencyLimiters = ConcurrencyLimiters.UNLIMITED;
+	/** The {@link RetryPolicy}. */
+	private RetryPolicy retryPolicy = RetryPolicy.NONE;
+	/** The request slots taken per HTTP call, if any. */
+	private Semaphore requestSlots;
 
 	/**
-	 * The REST service client implementation.
+	 * A client without end point URL yet, see
+	 * {@link #setEndPointUrl(String)}.
+	 *
+	 * @param restTemplate
+	 *            the {@link RestTemplate}, e.g. created by the
+	 *            {@link com.qpark.survey.lime.transport.HttpTransport}.
+	 * @param mapper
+	 *            the {@link Mapper}.
+	 */
+	public RestClient(final RestTemplate restTemplate, final Mapper mapper) {
+		this.restTemplate = Objects.requireNonNull(restTemplate);
+		this.mapper = Objects.requireNonNull(mapper);
+	}
+
+	/**
+	 * A client bound to one end point, e.g. one shard of an
+	 * {@link com.qpark.survey.lime.endpoint.EndpointRegistry}.
+	 *
+	 * @param endPointUrl
+	 *            the end point URL to call.
+	 * @param restTemplate
+	 *            the {@link RestTemplate} of the end point.
+	 * @param mapper
+	 *            the {@link Mapper}.
 	 */
-	public RestClient() {
-		this.headers = new HttpHeaders();
-		this.headers.setContentType(MediaType.APPLICATION_JSON);
+	public RestClient(final String endPointUrl,
+			final RestTemplate restTemplate, final Mapper mapper) {
+		this(restTemplate, mapper);
+		this.endPointUrl = Objects.requireNonNull(endPointUrl);
 	}
 
-	private String executeRequst(final RequestType request)
+	/**
+	 * Posts the request and passes the HTTP response to the extractor. The
+	 * request is serialised directly into the HTTP request body. This is the
+	 * raw access for callers streaming the response themselves, the
+	 * {@link ClientHttpResponse#getBody()} is only valid inside the extractor.
+	 * <p>
+	 * The requests in flight per end point and method are limited by the
+	 * {@link ConcurrencyLimiters}, which take the time until the response
+	 * arrives as latency, not the time to extract it. Idempotent requests
+	 * failing with a server error or I/O failure before the extractor is
+	 * called are sent again as the {@link RetryPolicy} allows. A request
+	 * failing while its response is extracted is never sent again, the
+	 * extractor may have passed parts of it on already.
+	 * <p>
+	 * If the {@link MetricsRegistry} is enabled or debug logging is on, the
+	 * serialize, network and deserialize phases are timed and the body bytes
+	 * counted. Otherwise the request is passed through unmeasured.
+	 *
+	 * @param request
+	 *            the {@link RequestType} or a list of them.
+	 * @param extractor
+	 *            the {@link ResponseExtractor}.
+	 * @return the extracted value.
+	 * @throws JsonProcessingException
+	 */
+	public <T> T executeRequest(final Object request,
+			final ResponseExtractor<T> extractor)
 			throws JsonProcessingException {
-		final HttpEntity<String> entity = new HttpEntity<String>(
-				this.mapper.writeValueAsString(request), this.headers);
-		final String value = this.restTemplate
-				.postForObject(this.getEndPointUrl(), entity, String.class);
+		final String method = request instanceof RequestType
+				? ((RequestType) request).getMethod() : MethodMetrics.BATCH;
+		final Optional<AimdLimiter> limiter = this.concurrencyLimiters
+				.getLimiter(this.getEndPointUrl(), method);
+		final int attempts = this.isIdempotent(request)
+				? this.retryPolicy.getMaxAttempts() : 1;
+		if (!limiter.isPresent() && attempts == 1) {
+			return this.send(method, request, extractor);
+		}
+		for (int attempt = 1;; attempt++) {
+			/* The time the response arrived, 0 before. */
+			final long[] responded = new long[1];
+			limiter.ifPresent(this::acquire);
+			final long start = System.nanoTime();
+			Outcome outcome = Outcome.IGNORE;
+			try {
+				final T value = this.send(method, request, response -> {
+					responded[0] = System.nanoTime();
+					return extractor.extractData(response);
+				});
+				outcome = Outcome.SUCCESS;
+				return value;
+			} catch (final RuntimeException e) {
+				outcome = getOutcome(e);
+				if (attempt >= attempts || outcome != Outcome.OVERLOAD
+						|| responded[0] != 0) {
+					throw e;
+				}
+				logger.debug("{} attempt {} failed: {}", method, attempt,
+						e.getMessage());
+				this.metricsRegistry.getMethodMetrics(method).recordRetry();
+			} finally {
+				final Outcome o = outcome;
+				final long end = responded[0] != 0 ? responded[0]
+						: System.nanoTime();
+				limiter.ifPresent(l -> l.release(start, end, o));
+			}
+			try {
+				Thread.sleep(this.retryPolicy.getBackoff(attempt));
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ResourceAccessException(
+						String.format("Retry of %s interrupted.", method),
+						new InterruptedIOException(e.getMessage()));
+			}
+		}
+	}
+
+	private boolean isIdempotent(final Object request) {
+		if (request instanceof RequestType) {
+			return this.retryPolicy
+					.isIdempotent(((RequestType) request).getMethod());
+		} else if (request instanceof List) {
+			return ((List<?>) request).stream()
+					.allMatch(r -> r instanceof RequestType && this.retryPolicy
+							.isIdempotent(((RequestType) r).getMethod()));
+		}
+		return false;
+	}
+
+	private void acquire(final AimdLimiter limiter) {
+		try {
+			if (!limiter.acquire()) {
+				throw new ResourceAccessException(String.format(
+						"No request slot of %s within %sms.",
+						limiter.getName(), this.concurrencyLimiters
+								.getProperties().getAcquireTimeout()));
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceAccessException(
+					String.format("Wait for %s interrupted.", limiter.getName()),
+					new InterruptedIOException(e.getMessage()));
+		}
+	}
+
+	/**
+	 * @return {@link Outcome#OVERLOAD} if the failure indicates an overloaded
+	 *         or unreachable server: a status 5xx or 429 or an I/O failure.
+	 *         Mapping failures and lime survey errors are
+	 *         {@link Outcome#IGNORE}.
+	 */
+	static Outcome getOutcome(final RuntimeException e) {
+		if (e instanceof HttpStatusCodeException) {
+			final HttpStatus status = ((HttpStatusCodeException) e)
+					.getStatusCode();
+			return status.is5xxServerError()
+					|| status == HttpStatus.TOO_MANY_REQUESTS
+							? Outcome.OVERLOAD : Outcome.IGNORE;
+		} else if (e instanceof ResourceAccessException
+				|| e instanceof UncheckedIOException) {
+			return e.getCause() instanceof JsonProcessingException
+					|| e.getCause() instanceof LimeSurveyException
+							? Outcome.IGNORE : Outcome.OVERLOAD;
+		}
+		return Outcome.IGNORE;
+	}
+
+	private <T> T send(final String method, final Object request,
+			final ResponseExtractor<T> extractor) {
+		final Semaphore slots = this.requestSlots;
+		if (Objects.isNull(slots)) {
+			return this.post(method, request, extractor);
+		}
+		try {
+			slots.acquire();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceAccessException(
+					String.format("Wait for a request slot of %s interrupted.",
+							this.getEndPointUrl()),
+					new InterruptedIOException(e.getMessage()));
+		}
+		try {
+			return this.post(method, request, extractor);
+		} finally {
+			slots.release();
+		}
+	}
+
+	private <T> T post(final String method, final Object request,
+			final ResponseExtractor<T> extractor) {
+		if (!this.metricsRegistry.isEnabled() && !logger.isDebugEnabled()) {
+			return this.restTemplate.execute(this.getEndPointUrl(),
+					HttpMethod.POST, r -> this.writeBody(r, request, null),
+					extractor);
+		}
+		final Measurement m = new Measurement();
+		boolean failed = true;
+		try {
+			final T value = this.restTemplate.execute(this.getEndPointUrl(),
+					HttpMethod.POST, r -> this.writeBody(r, request, m),
+					response -> {
+						m.responded = System.nanoTime();
+						final MeteredResponse metered = new MeteredResponse(
+								response);
+						try {
+							return extractor.extractData(metered);
+						} finally {
+							m.bytesIn = metered.getCount();
+							m.extracted = System.nanoTime();
+						}
+					});
+			failed = false;
+			return value;
+		} finally {
+			this.record(method, m, failed);
+		}
+	}
+
+	/**
+	 * Writes the request as JSON body. A streaming request, see
+	 * {@link org.springframework.http.client.HttpComponentsClientHttpRequestFactory#setBufferRequestBody(boolean)},
+	 * is written while it is sent, otherwise into the buffer of the request.
+	 *
+	 * @param m
+	 *            the {@link Measurement} or <code>null</code>.
+	 */
+	private void writeBody(final ClientHttpRequest r, final Object request,
+			final Measurement m) throws IOException {
+		r.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		final StreamingHttpOutputMessage.Body body = out -> {
+			if (Objects.isNull(m)) {
+				this.mapper.writeValue(out, request);
+			} else {
+				final CountingOutputStream counting = new CountingOutputStream(
+						out);
+				this.mapper.writeValue(counting, request);
+				m.bytesOut = counting.getCount();
+				m.serialized = System.nanoTime();
+			}
+		};
+		if (r instanceof StreamingHttpOutputMessage) {
+			((StreamingHttpOutputMessage) r).setBody(body);
+		} else {
+			body.writeTo(r.getBody());
+		}
+	}
+
+	void record(final String method, final Measurement m,
+			final boolean failed) {
+		final MethodMetrics metrics = this.metricsRegistry
+				.getMethodMetrics(method);
+		if (failed) {
+			metrics.recordError();
+			logger.debug("{} failed after {}us", method,
+					(System.nanoTime() - m.started) / 1000);
+		} else {
+			metrics.recordRequest(m.serialized - m.started,
+					m.responded - m.serialized, m.extracted - m.responded,
+					m.bytesOut, m.bytesIn);
+			logger.debug(
+					"{} serialize {}us network {}us deserialize {}us out {}B in {}B",
+					method, (m.serialized - m.started) / 1000,
+					(m.responded - m.serialized) / 1000,
+					(m.extracted - m.responded) / 1000, m.bytesOut,
+					m.bytesIn);
+		}
+	}
+
+	/**
+	 * Records the rows returned by the method, if the {@link MetricsRegistry}
+	 * is enabled.
+	 */
+	void recordRows(final String method, final long rows) {
+		if (this.metricsRegistry.isEnabled()) {
+			this.metricsRegistry.getMethodMetrics(method).recordRows(rows);
+		}
+	}
+
+	/**
+	 * Posts the request and maps the response body while it is read into the
+	 * value type. Mapping failures are thrown as they are, not wrapped by the
+	 * {@link RestTemplate}.
+	 */
+	private <T> T execute(final RequestType request, final Class<T> valueType)
+			throws IOException {
+		try {
+			return this.executeRequest(request, response -> {
+				try {
+					return this.readValue(response.getBody(), valueType);
+				} catch (final IOException e) {
+					/* Passed by the RestTemplate unwrapped. */
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Maps the response into the value type. If lime survey answered with a
+	 * <i>status</i> instead of a result, a {@link LimeSurveyException} is
+	 * thrown.
+	 *
+	 * @return the value or <code>null</code> if the response is empty.
+	 */
+	<T> T readValue(final InputStream body, final Class<T> valueType)
+			throws IOException {
+		try (JsonParser parser = this.mapper.getMapper().getFactory()
+				.createParser(body)) {
+			return this.readValue(parser, valueType);
+		}
+	}
+
+	/**
+	 * Maps one response of a batch into the value type, as
+	 * {@link #readValue(InputStream, Class)}.
+	 *
+	 * @return the value or <code>null</code> if the response is empty.
+	 */
+	<T> T readValue(final JsonNode response, final Class<T> valueType)
+			throws IOException {
+		try (JsonParser parser = this.mapper.getMapper()
+				.treeAsTokens(response)) {
+			return this.readValue(parser, valueType);
+		}
+	}
+
+	private <T> T readValue(final JsonParser parser, final Class<T> valueType)
+			throws IOException {
+		if (Objects.isNull(parser.nextToken())) {
+			return null;
+		}
+		try {
+			return this.mapper.getReader(valueType).readValue(parser);
+		} catch (final JsonMappingException e) {
+			final String status = readStatus(parser);
+			if (Objects.nonNull(status)) {
+				throw new LimeSurveyException(status, e);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the <i>status</i> if the parser stopped at the start of an
+	 *         object <i>result</i>.
+	 */
+	private static String readStatus(final JsonParser parser)
+			throws IOException {
+		if (parser.getCurrentToken() == JsonToken.START_OBJECT
+				&& "result".equals(parser.getCurrentName())) {
+			final JsonNode result = parser.readValueAsTree();
+			return result.path("status").asText(null);
+		}
+		return null;
+	}
+
+	ExportResponsesResponseType checkSession(
+			final ExportResponsesResponseType value)
+			throws LimeSurveyException {
+		if (Objects.nonNull(value) && LimeSurveyException.INVALID_SESSION_KEY
+				.equalsIgnoreCase(value.getError())) {
+			throw new LimeSurveyException(value.getError());
+		}
 		return value;
 	}
 
-	private RequestType getRequestType(final String method,
+	/**
+	 * @param method
+	 *            the method name.
+	 * @param params
+	 *            the parameters of the method.
+	 * @return the {@link RequestType} with a unique id.
+	 */
+	RequestType getRequestType(final String method,
 			final Object... params) {
 		final RequestType value = new RequestType();
 		value.setMethod(method);
 		Arrays.asList(params).stream().forEach(p -> value.getParams().add(p));
-		value.setId(1);
+		value.setId(this.requestIds.incrementAndGet());
 		return value;
 	}
 
@@ -94,24 +496,25 @@ public class RestClient {
 			final String method = "get_session_key";
 			final RequestType request = this.getRequestType(method, userName,
 					new String(password));
-			final String response = this.executeRequst(request);
-			if (Objects.nonNull(response)) {
-				final GetSessionKeyResponseType session = this.mapper.readValue(
-						response.getBytes(), GetSessionKeyResponseType.class);
-				if (Objects.nonNull(session.getResult())) {
-					value = Optional.of(new LimeSurveySession());
-					value.ifPresent(s -> {
-						s.setSessionKey(session.getResult());
-						s.setUserName(userName);
-					});
-				}
+			final GetSessionKeyResponseType session = this.execute(request,
+					GetSessionKeyResponseType.class);
+			if (Objects.nonNull(session)
+					&& Objects.nonNull(session.getResult())) {
+				value = Optional.of(new LimeSurveySession());
+				value.ifPresent(s -> {
+					s.setSessionKey(session.getResult());
+					s.setUserName(userName);
+					s.setEndPointUrl(this.getEndPointUrl());
+				});
 			}
 		}
 		return value;
 	}
 
 	/**
-	 * Get the list of surveys.
+	 * Get the list of surveys. A user without surveys, reported by lime survey
+	 * as status <i>No surveys found</i>, returns an empty
+	 * {@link ListSurveysResponseType#getResult()}.
 	 *
 	 * @param session
 	 *            the {@link LimeSurveySession}.
@@ -130,10 +533,16 @@ public class RestClient {
 			final String method = "list_surveys";
 			final RequestType request = this.getRequestType(method,
 					session.getSessionKey(), session.getUserName());
-			final String response = this.executeRequst(request);
-			if (Objects.nonNull(response)) {
-				value = Optional.ofNullable(this.mapper.readValue(
-						response.getBytes(), ListSurveysResponseType.class));
+			try {
+				value = Optional.ofNullable(
+						this.execute(request, ListSurveysResponseType.class));
+			} catch (final LimeSurveyException e) {
+				if (!e.isNoSurveys()) {
+					throw e;
+				}
+				final ListSurveysResponseType empty = new ListSurveysResponseType();
+				empty.setId(request.getId());
+				value = Optional.of(empty);
 			}
 		}
 		return value;
@@ -164,11 +573,7 @@ public class RestClient {
 			final RequestType request = this.getRequestType(method,
 					session.getSessionKey(), surveyId,
 					propertyNames.toArray(new String[propertyNames.size()]));
-			final String response = this.executeRequst(request);
-			if (Objects.nonNull(response)) {
-				// value = Optional.ofNullable(mapper.readValue(
-				// response.getBytes(), ListSurveysResponseType.class));
-			}
+			this.executeRequest(request, response -> null);
 		}
 	}
 
@@ -185,6 +590,25 @@ public class RestClient {
 	public Optional<ListQuestionsResponseType> getListQuestions(
 			final LimeSurveySession session, final int surveyId)
 			throws IOException {
+		return this.getListQuestions(session, surveyId, Optional.empty());
+	}
+
+	/**
+	 * Calls the operation <i>list_questions</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey to get the properties for.
+	 * @param language
+	 *            the language of the question texts. If empty the base
+	 *            language of the survey is used.
+	 * @return the {@link ListQuestionsResponseType}.
+	 * @throws IOException
+	 */
+	public Optional<ListQuestionsResponseType> getListQuestions(
+			final LimeSurveySession session, final int surveyId,
+			final Optional<String> language) throws IOException {
 		Optional<ListQuestionsResponseType> value = Optional.empty();
 		if (Objects.isNull(session)) {
 			throw new IllegalStateException("Session not provided.");
@@ -192,19 +616,50 @@ public class RestClient {
 			throw new IllegalStateException("SurveyId not provided.");
 		} else {
 			final String method = "list_questions";
+			final RequestType request = language.isPresent()
+					? this.getRequestType(method, session.getSessionKey(),
+							surveyId, null, language.get())
+					: this.getRequestType(method, session.getSessionKey(),
+							surveyId);
+			value = Optional.ofNullable(
+					this.execute(request, ListQuestionsResponseType.class));
+		}
+		return value;
+	}
+
+	/**
+	 * Calls the operation <i>list_groups</i>. The <i>group_order</i> of the
+	 * groups gives the order of the questions together with their
+	 * <i>question_order</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @return the {@link ListGroupsResponseType}.
+	 * @throws IOException
+	 */
+	public Optional<ListGroupsResponseType> listGroups(
+			final LimeSurveySession session, final int surveyId)
+			throws IOException {
+		Optional<ListGroupsResponseType> value = Optional.empty();
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else {
+			final String method = "list_groups";
 			final RequestType request = this.getRequestType(method,
 					session.getSessionKey(), surveyId);
-			final String response = this.executeRequst(request);
-			if (Objects.nonNull(response)) {
-				value = Optional.ofNullable(this.mapper.readValue(
-						response.getBytes(), ListQuestionsResponseType.class));
-			}
+			value = Optional.ofNullable(
+					this.execute(request, ListGroupsResponseType.class));
 		}
 		return value;
 	}
 
 	/**
-	 * Calls the operation <i>list_questions</i>.
+	 * Calls the operation <i>export_responses</i>. The base64 encoded result
+	 * is decoded while reading the HTTP response and collected into
+	 * {@link ExportResponsesResponseType#getResponses()}. The raw
+	 * {@link ExportResponsesResponseType#getResult()} is not kept.
 	 *
 	 * @param session
 	 *            the {@link LimeSurveySession}.
@@ -218,71 +673,456 @@ public class RestClient {
 	public Optional<ExportResponsesResponseType> getExportResponses(
 			final LimeSurveySession session, final int surveyId,
 			final Optional<String> language) throws IOException {
+		return this.getExportResponses(session, surveyId,
+				this.getExportResponsesOptions(language));
+	}
+
+	/**
+	 * Calls the operation <i>export_responses</i> with the given
+	 * {@link ExportResponsesOptions}, e.g. a response id range or a field
+	 * list.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey to get the properties for.
+	 * @param options
+	 *            the {@link ExportResponsesOptions}.
+	 * @return the {@link ExportResponsesResponseType}.
+	 * @throws IOException
+	 */
+	public Optional<ExportResponsesResponseType> getExportResponses(
+			final LimeSurveySession session, final int surveyId,
+			final ExportResponsesOptions options) throws IOException {
 		Optional<ExportResponsesResponseType> value = Optional.empty();
 		if (Objects.isNull(session)) {
 			throw new IllegalStateException("Session not provided.");
-		} else if (Objects.isNull(surveyId)) {
-			throw new IllegalStateException("SurveyId not provided.");
+		} else if (Objects.isNull(options)) {
+			throw new IllegalStateException("Options not provided.");
 		} else {
-			final String method = "export_responses";
+			final RequestType request = this.getExportResponsesRequest(session,
+					surveyId, options);
+			final ResponseExtractor<ExportResponsesResponseType> extractor;
+			if (options.isCsv()) {
+				final ExportResponsesCsvParser parser = new ExportResponsesCsvParser();
+				extractor = response -> parser.read(response.getBody());
+			} else {
+				final ExportResponsesParser parser = new ExportResponsesParser(
+						this.mapper.getMapper());
+				extractor = response -> parser.read(response.getBody());
+			}
+			value = Optional.ofNullable(this.checkSession(
+					this.executeRequest(request, extractor)));
+			value.ifPresent(v -> this.recordRows(request.getMethod(),
+					v.getResponses().size()));
+		}
+		return value;
+	}
+
+	/**
+	 * Calls the operation <i>export_responses</i> and passes each response to
+	 * the consumer while the HTTP response is read. Only one response is kept
+	 * in memory at a time.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey to get the properties for.
+	 * @param language
+	 *            the language.
+	 * @param consumer
+	 *            the {@link Consumer} of the {@link ExportResponsesListEntryType}
+	 *            s.
+	 * @return the {@link ExportResponsesResponseType} containing the <i>id</i>
+	 *         and <i>error</i> only.
+	 * @throws IOException
+	 */
+	public Optional<ExportResponsesResponseType> exportResponses(
+			final LimeSurveySession session, final int surveyId,
+			final Optional<String> language,
+			final Consumer<ExportResponsesListEntryType> consumer)
+			throws IOException {
+		return this.exportResponses(session, surveyId,
+				this.getExportResponsesOptions(language), consumer);
+	}
+
+	/**
+	 * Calls the operation <i>export_responses</i> with the given
+	 * {@link ExportResponsesOptions} and passes each response to the consumer
+	 * while the HTTP response is read.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey to get the properties for.
+	 * @param options
+	 *            the {@link ExportResponsesOptions}.
+	 * @param consumer
+	 *            the {@link Consumer} of the {@link ExportResponsesListEntryType}
+	 *            s.
+	 * @return the {@link ExportResponsesResponseType} containing the <i>id</i>
+	 *         and <i>error</i> only.
+	 * @throws IOException
+	 */
+	public Optional<ExportResponsesResponseType> exportResponses(
+			final LimeSurveySession session, final int surveyId,
+			final ExportResponsesOptions options,
+			final Consumer<ExportResponsesListEntryType> consumer)
+			throws IOException {
+		Optional<ExportResponsesResponseType> value = Optional.empty();
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (Objects.isNull(options)) {
+			throw new IllegalStateException("Options not provided.");
+		} else if (Objects.isNull(consumer)) {
+			throw new IllegalStateException("Consumer not provided.");
+		} else {
+			final RequestType request = this.getExportResponsesRequest(session,
+					surveyId, options);
+			final long[] rows = new long[1];
+			final Consumer<ExportResponsesListEntryType> counting = this.metricsRegistry
+					.isEnabled() ? consumer.andThen(entry -> rows[0]++)
+							: consumer;
+			final ResponseExtractor<ExportResponsesResponseType> extractor;
+			if (options.isCsv()) {
+				final ExportResponsesCsvParser parser = new ExportResponsesCsvParser();
+				extractor = response -> parser.parse(response.getBody(),
+						counting);
+			} else {
+				final ExportResponsesParser parser = new ExportResponsesParser(
+						this.mapper.getMapper());
+				extractor = response -> parser.parse(response.getBody(),
+						counting);
+			}
+			value = Optional.ofNullable(this.checkSession(
+					this.executeRequest(request, extractor)));
+			this.recordRows(request.getMethod(), rows[0]);
+		}
+		return value;
+	}
+
+	/**
+	 * Calls the operation <i>export_responses</i> with the document type
+	 * <i>csv</i> and passes each row to the callback while the HTTP response
+	 * is read. No {@link ExportResponsesListEntryType} is created, the
+	 * callback reads the cells it needs from the {@link CsvResponseReader}.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey to get the responses for.
+	 * @param options
+	 *            the {@link ExportResponsesOptions}, the document type is
+	 *            ignored.
+	 * @param callback
+	 *            the {@link RowCallback}.
+	 * @return the {@link ExportResponsesResponseType} containing the <i>id</i>
+	 *         and <i>error</i> only.
+	 * @throws IOException
+	 */
+	public Optional<ExportResponsesResponseType> exportResponseRows(
+			final LimeSurveySession session, final int surveyId,
+			final ExportResponsesOptions options, final RowCallback callback)
+			throws IOException {
+		Optional<ExportResponsesResponseType> value = Optional.empty();
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (Objects.isNull(options)) {
+			throw new IllegalStateException("Options not provided.");
+		} else if (Objects.isNull(callback)) {
+			throw new IllegalStateException("Callback not provided.");
+		} else {
+			final ExportResponsesOptions csv = options.copy();
+			csv.setDocumentType(DocumentType.CSV);
+			final RequestType request = this.getExportResponsesRequest(session,
+					surveyId, csv);
+			final ExportResponsesCsvParser parser = new ExportResponsesCsvParser();
+			final long[] rows = new long[1];
+			value = Optional.ofNullable(this.checkSession(
+					this.executeRequest(request, response -> parser
+							.parseRows(response.getBody(), row -> {
+								rows[0]++;
+								callback.row(row);
+							}))));
+			this.recordRows(request.getMethod(), rows[0]);
+		}
+		return value;
+	}
+
+	/**
+	 * Get a Reactive Streams {@link Publisher} of the responses of the
+	 * operation <i>export_responses</i>. The request is sent when the
+	 * subscriber signals demand, the response is decoded on a thread of the
+	 * executor no faster than the subscriber requests entries.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey to get the responses for.
+	 * @param language
+	 *            the language.
+	 * @param executor
+	 *            the {@link Executor} reading the HTTP response. The thread is
+	 *            blocked while the subscriber signals no demand.
+	 * @return the {@link Publisher} of the
+	 *         {@link ExportResponsesListEntryType}s.
+	 */
+	public Publisher<ExportResponsesListEntryType> publishResponses(
+			final LimeSurveySession session, final int surveyId,
+			final Optional<String> language, final Executor executor) {
+		return this.publishResponses(session, surveyId,
+				this.getExportResponsesOptions(language), executor);
+	}
+
+	/**
+	 * Get a Reactive Streams {@link Publisher} of the responses of the
+	 * operation <i>export_responses</i> with the given
+	 * {@link ExportResponsesOptions}. The publisher always requests the
+	 * <i>json</i> document.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey to get the responses for.
+	 * @param options
+	 *            the {@link ExportResponsesOptions}.
+	 * @param executor
+	 *            the {@link Executor} reading the HTTP response. The thread is
+	 *            blocked while the subscriber signals no demand.
+	 * @return the {@link Publisher} of the
+	 *         {@link ExportResponsesListEntryType}s.
+	 */
+	public Publisher<ExportResponsesListEntryType> publishResponses(
+			final LimeSurveySession session, final int surveyId,
+			final ExportResponsesOptions options, final Executor executor) {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (Objects.isNull(options)) {
+			throw new IllegalStateException("Options not provided.");
+		} else if (Objects.isNull(executor)) {
+			throw new IllegalStateException("Executor not provided.");
+		}
+		final ExportResponsesOptions json = options.copy();
+		json.setDocumentType(DocumentType.JSON);
+		return new ExportResponsesPublisher(this,
+				this.getExportResponsesRequest(session, surveyId, json),
+				executor);
+	}
+
+	ExportResponsesOptions getExportResponsesOptions(
+			final Optional<String> language) {
+		final ExportResponsesOptions value = new ExportResponsesOptions();
+		value.setLanguage(language.orElse("en"));
+		return value;
+	}
+
+	RequestType getExportResponsesRequest(
+			final LimeSurveySession session, final int surveyId,
+			final ExportResponsesOptions options) {
+		final String method = "export_responses";
+		return this.getRequestType(method, session.getSessionKey(), surveyId,
+				options.getDocumentType(), options.getLanguage(),
+				Optional.ofNullable(options.getCompletionStatus())
+						.orElse(CompletionStatus.ALL).value(),
+				Optional.ofNullable(options.getHeadingType())
+						.orElse(HeadingType.CODE).value(),
+				Optional.ofNullable(options.getResponseType())
+						.orElse(ResponseType.SHORT).value(),
+				options.getFromResponseId(), options.getToResponseId(),
+				options.getFields());
+	}
+
+	/**
+	 * Calls the operation <i>add_participants</i>. Use the
+	 * {@link com.qpark.survey.lime.participant.ParticipantBulkClient} to add
+	 * large numbers of participants in chunks.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param participants
+	 *            the {@link ParticipantType}s to add.
+	 * @param createToken
+	 *            <code>true</code> to let lime survey create the tokens.
+	 * @return the {@link AddParticipantsResponseType} containing the
+	 *         participants as stored, with <i>tid</i> and <i>token</i>, in
+	 *         the order given. Rejected participants contain the
+	 *         {@link ParticipantType#getErrors()} instead of a <i>tid</i>.
+	 * @throws IOException
+	 */
+	public Optional<AddParticipantsResponseType> addParticipants(
+			final LimeSurveySession session, final int surveyId,
+			final List<ParticipantType> participants,
+			final boolean createToken) throws IOException {
+		Optional<AddParticipantsResponseType> value = Optional.empty();
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (Objects.isNull(participants) || participants.isEmpty()) {
+			throw new IllegalStateException("No participants provided.");
+		} else {
+			final String method = "add_participants";
 			final RequestType request = this.getRequestType(method,
-					session.getSessionKey(), surveyId, "json",
-					language.orElse("en"));
-			final String response = this.executeRequst(request);
-			if (Objects.nonNull(response)) {
-				value = Optional
-						.ofNullable(this.mapper.readValue(response.getBytes(),
-								ExportResponsesResponseType.class));
-				value.ifPresent(rr -> {
-					if (Objects.nonNull(rr.getResult())) {
-						try {
-							final Map<String, Object> answer = this.mapper
-									.readValue(rr.getResult(),
-											new TypeReference<Map<String, Object>>() {
-											});
-							@SuppressWarnings({ "unchecked" })
-							final List<Map<String, Map<String, Map<String, Object>>>> responses = (List<Map<String, Map<String, Map<String, Object>>>>) answer
-									.get("responses");
-							responses.stream().forEach(rxm -> {
-								final ExportResponsesListEntryType en = new ExportResponsesListEntryType();
-								rr.getResponses().add(en);
-								rxm.values().stream().findFirst()
-										.ifPresent(rm -> {
-											en.setId(String
-													.valueOf(rm.get("id")));
-											en.setLastpage(String.valueOf(
-													rm.get("lastpage")));
-											en.setStartlanguage(String.valueOf(
-													rm.get("startlanguage")));
-											// submitdate
-											// lastpage
-											// token
-											// startdate
-											// datestamp
-											// ipaddr
-											// refurl
-											rm.keySet().stream()
-													.forEach(key -> {
-														final PropertyType pt = new PropertyType();
-														pt.setKey(key);
-														pt.setValue(
-																rm.get(key));
-														en.getAnswers().add(pt);
-														// System.out.println(key);
-													});
-										});
-							});
-						} catch (final IOException e) {
-							// TODO Auto-generated catch block
-							e.printStackTrace();
-						}
-					}
+					session.getSessionKey(), surveyId, participants,
+					createToken);
+			value = Optional.ofNullable(
+					this.execute(request, AddParticipantsResponseType.class));
+		}
+		return value;
+	}
+
+	/**
+	 * Calls the operation <i>list_participants</i> for one page of
+	 * participants. A survey without (further) participants returns an empty
+	 * {@link ListParticipantsResponseType#getResult()}.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param start
+	 *            the offset of the first participant.
+	 * @param limit
+	 *            the maximum number of participants.
+	 * @param unused
+	 *            <code>true</code> to list the participants with unused
+	 *            tokens only.
+	 * @param attributes
+	 *            the additional attributes to return, e.g.
+	 *            <i>attribute_1</i> or <i>completed</i>.
+	 * @return the {@link ListParticipantsResponseType}.
+	 * @throws IOException
+	 */
+	public Optional<ListParticipantsResponseType> listParticipants(
+			final LimeSurveySession session, final int surveyId,
+			final int start, final int limit, final boolean unused,
+			final List<String> attributes) throws IOException {
+		Optional<ListParticipantsResponseType> value = Optional.empty();
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (limit <= 0) {
+			throw new IllegalStateException("Limit not provided.");
+		} else {
+			final String method = "list_participants";
+			final RequestType request = this.getRequestType(method,
+					session.getSessionKey(), surveyId, start, limit, unused,
+					Objects.isNull(attributes) || attributes.isEmpty()
+							? Boolean.FALSE : attributes);
+			try {
+				value = Optional.ofNullable(this.execute(request,
+						ListParticipantsResponseType.class));
+			} catch (final LimeSurveyException e) {
+				if (!e.isNoParticipants()) {
+					throw e;
+				}
+				final ListParticipantsResponseType empty = new ListParticipantsResponseType();
+				empty.setId(request.getId());
+				value = Optional.of(empty);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Calls the operation <i>delete_participants</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param tids
+	 *            the <i>tid</i>s of the participants to delete.
+	 * @return the {@link DeleteParticipantsResponseType} with the status by
+	 *         <i>tid</i> in {@link DeleteParticipantsResponseType#getDeleted()},
+	 *         e.g. <i>Deleted</i>. The raw result is not kept.
+	 * @throws IOException
+	 */
+	public Optional<DeleteParticipantsResponseType> deleteParticipants(
+			final LimeSurveySession session, final int surveyId,
+			final List<Integer> tids) throws IOException {
+		Optional<DeleteParticipantsResponseType> value = Optional.empty();
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (Objects.isNull(tids) || tids.isEmpty()) {
+			throw new IllegalStateException("No participant ids provided.");
+		} else {
+			final String method = "delete_participants";
+			final RequestType request = this.getRequestType(method,
+					session.getSessionKey(), surveyId, tids);
+			final DeleteParticipantsResponseType response = this
+					.execute(request, DeleteParticipantsResponseType.class);
+			if (Objects.nonNull(response)
+					&& response.getResult() instanceof Map) {
+				final Map<?, ?> result = (Map<?, ?>) response.getResult();
+				if (result.size() == 1 && result.containsKey("status")) {
+					throw new LimeSurveyException(
+							String.valueOf(result.get("status")));
+				}
+				result.forEach((tid, status) -> {
+					final PropertyType pt = new PropertyType();
+					pt.setKey(String.valueOf(tid));
+					pt.setValue(status);
+					response.getDeleted().add(pt);
 				});
+				response.setResult(null);
 			}
+			value = Optional.ofNullable(response);
 		}
 		return value;
 	}
 
+	/**
+	 * Calls the operation <i>get_participant_properties</i>.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param tid
+	 *            the <i>tid</i> of the participant.
+	 * @param propertyNames
+	 *            the names of the properties to get. If empty all properties
+	 *            are returned.
+	 * @return the {@link GetParticipantPropertiesResponseType}.
+	 * @throws IOException
+	 */
+	public Optional<GetParticipantPropertiesResponseType> getParticipantProperties(
+			final LimeSurveySession session, final int surveyId,
+			final int tid, final List<String> propertyNames)
+			throws IOException {
+		Optional<GetParticipantPropertiesResponseType> value = Optional
+				.empty();
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else {
+			final String method = "get_participant_properties";
+			final RequestType request = this.getRequestType(method,
+					session.getSessionKey(), surveyId, tid,
+					Objects.isNull(propertyNames) || propertyNames.isEmpty()
+							? null : propertyNames);
+			value = Optional.ofNullable(this.execute(request,
+					GetParticipantPropertiesResponseType.class));
+			if (value.isPresent()) {
+				checkStatus(value.get().getResult());
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Lime survey reports a failure of <i>get_participant_properties</i> as
+	 * <i>status</i>, read as the only attribute of the participant.
+	 */
+	private static void checkStatus(final ParticipantType value)
+			throws LimeSurveyException {
+		if (Objects.nonNull(value) && Objects.isNull(value.getTid())
+				&& value.getAttributes().size() == 1
+				&& "status".equals(value.getAttributes().get(0).getKey())) {
+			throw new LimeSurveyException(
+					String.valueOf(value.getAttributes().get(0).getValue()));
+		}
+	}
+
 	/**
 	 * Calls the operation <i>release_session_key</i>.
 	 *
@@ -298,7 +1138,7 @@ public class RestClient {
 			final String method = "release_session_key";
 			final RequestType request = this.getRequestType(method,
 					session.getSessionKey(), session.getUserName());
-			this.executeRequst(request);
+			this.executeRequest(request, response -> null);
 		}
 	}
 
@@ -310,10 +1150,176 @@ public class RestClient {
 	}
 
 	/**
+	 * Changing the end point of a client in use redirects the requests in
+	 * flight of other threads as well. Use one client per end point instead,
+	 * see {@link com.qpark.survey.lime.endpoint.EndpointRegistry}.
+	 *
 	 * @param endPointUrl
 	 *            the endPointUrl to set
 	 */
 	public void setEndPointUrl(final String endPointUrl) {
 		this.endPointUrl = endPointUrl;
 	}
+
+	/**
+	 * @return the {@link MetricsRegistry}.
+	 */
+	public MetricsRegistry getMetricsRegistry() {
+		return this.metricsRegistry;
+	}
+
+	/**
+	 * @param metricsRegistry
+	 *            the {@link MetricsRegistry}, <code>null</code> disables the
+	 *            measurement.
+	 */
+	public void setMetricsRegistry(final MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = Objects.nonNull(metricsRegistry)
+				? metricsRegistry : NoopMetricsRegistry.INSTANCE;
+	}
+
+	/**
+	 * @return the {@link ConcurrencyLimiters}.
+	 */
+	public ConcurrencyLimiters getConcurrencyLimiters() {
+		return this.concurrencyLimiters;
+	}
+
+	/**
+	 * @param concurrencyLimiters
+	 *            the {@link ConcurrencyLimiters}, <code>null</code> does not
+	 *            limit the requests.
+	 */
+	public void setConcurrencyLimiters(
+			final ConcurrencyLimiters concurrencyLimiters) {
+		this.concurrencyLimiters = Objects.nonNull(concurrencyLimiters)
+				? concurrencyLimiters : ConcurrencyLimiters.UNLIMITED;
+	}
+
+	/**
+	 * @return the {@link RetryPolicy}.
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return this.retryPolicy;
+	}
+
+	/**
+	 * @param retryPolicy
+	 *            the {@link RetryPolicy}, <code>null</code> does not retry.
+	 */
+	public void setRetryPolicy(final RetryPolicy retryPolicy) {
+		this.retryPolicy = Objects.nonNull(retryPolicy) ? retryPolicy
+				: RetryPolicy.NONE;
+	}
+
+	/**
+	 * @return the request slots taken per HTTP call or <code>null</code>.
+	 */
+	public Semaphore getRequestSlots() {
+		return this.requestSlots;
+	}
+
+	/**
+	 * @param requestSlots
+	 *            the request slots, e.g. of the end point, one is taken per
+	 *            HTTP call and released after the response is extracted.
+	 *            <code>null</code> does not take slots.
+	 */
+	public void setRequestSlots(final Semaphore requestSlots) {
+		this.requestSlots = requestSlots;
+	}
+
+	/**
+	 * @return a new {@link BatchRequest} of this client.
+	 */
+	public BatchRequest newBatch() {
+		return new BatchRequest(this);
+	}
+
+	/**
+	 * @return <code>false</code> if batches are sent as single requests.
+	 */
+	public boolean isBatchSupported() {
+		return this.batchSupported;
+	}
+
+	/**
+	 * @param batchSupported
+	 *            <code>false</code> to send batches as single requests.
+	 */
+	public void setBatchSupported(final boolean batchSupported) {
+		this.batchSupported = batchSupported;
+	}
+
+	/**
+	 * @return the {@link Mapper}.
+	 */
+	Mapper getMapper() {
+		return this.mapper;
+	}
+
+	/** The time stamps and sizes of a measured request. */
+	static class Measurement {
+		final long started = System.nanoTime();
+		long serialized;
+		long responded;
+		long extracted;
+		long bytesOut;
+		long bytesIn;
+	}
+
+	/** Counts the body bytes read from the {@link ClientHttpResponse}. */
+	private static class MeteredResponse
+			implements AbortableClientHttpResponse {
+		private final ClientHttpResponse response;
+		private CountingInputStream body;
+
+		MeteredResponse(final ClientHttpResponse response) {
+			this.response = response;
+		}
+
+		long getCount() {
+			return Objects.isNull(this.body) ? 0 : this.body.getCount();
+		}
+
+		@Override
+		public void abort() {
+			if (this.response instanceof AbortableClientHttpResponse) {
+				((AbortableClientHttpResponse) this.response).abort();
+			}
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			if (Objects.isNull(this.body)) {
+				this.body = new CountingInputStream(this.response.getBody());
+			}
+			return this.body;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.response.getHeaders();
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return this.response.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return this.response.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return this.response.getStatusText();
+		}
+
+		@Override
+		public void close() {
+			this.response.close();
+		}
+	}
 }
@@ -0,0 +1,163 @@
+package com.qpark.survey.lime.aggregate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Counts the combinations of the answer codes of two choice columns. Rows
+ * where one of the columns is not answered are not counted.
+ *
+ * @author bhausen
+ */
+public class CrosstabAccumulator {
+	/** The column of the rows. */
+	private final String rowColumn;
+	/** The column of the columns. */
+	private final String columnColumn;
+	/** The counts by row code and column code. */
+	private final Map<String, Map<String, long[]>> counts = new HashMap<>();
+	/** The number of counted rows. */
+	private long total;
+
+	/**
+	 * @param rowColumn
+	 *            the column of the rows.
+	 * @param columnColumn
+	 *            the column of the columns.
+	 */
+	public CrosstabAccumulator(final String rowColumn,
+			final String columnColumn) {
+		this.rowColumn = rowColumn;
+		this.columnColumn = columnColumn;
+	}
+
+	/**
+	 * @param rowCode
+	 *            the answer code of the row column.
+	 * @param columnCode
+	 *            the answer code of the column column.
+	 */
+	public void accept(final String rowCode, final String columnCode) {
+		if (Objects.isNull(rowCode) || rowCode.isEmpty()
+				|| Objects.isNull(columnCode) || columnCode.isEmpty()) {
+			return;
+		}
+		this.counts.computeIfAbsent(rowCode, k -> new HashMap<>())
+				.computeIfAbsent(columnCode, k -> new long[1])[0]++;
+		this.total++;
+	}
+
+	/**
+	 * Takes back a combination accepted before.
+	 *
+	 * @param rowCode
+	 *            the answer code of the row column.
+	 * @param columnCode
+	 *            the answer code of the column column.
+	 */
+	public void remove(final String rowCode, final String columnCode) {
+		if (Objects.isNull(rowCode) || rowCode.isEmpty()
+				|| Objects.isNull(columnCode) || columnCode.isEmpty()) {
+			return;
+		}
+		final Map<String, long[]> row = this.counts.get(rowCode);
+		final long[] count = Objects.isNull(row) ? null : row.get(columnCode);
+		if (Objects.isNull(count)) {
+			throw new IllegalArgumentException(String.format(
+					"Combination %s/%s not accepted before.", rowCode,
+					columnCode));
+		} else if (--count[0] == 0) {
+			row.remove(columnCode);
+			if (row.isEmpty()) {
+				this.counts.remove(rowCode);
+			}
+		}
+		this.total--;
+	}
+
+	/**
+	 * Adds the counts of the other accumulator to this.
+	 *
+	 * @param other
+	 *            the other {@link CrosstabAccumulator}.
+	 */
+	public void merge(final CrosstabAccumulator other) {
+		other.counts.forEach((rowCode, row) -> {
+			final Map<String, long[]> target = this.counts
+					.computeIfAbsent(rowCode, k -> new HashMap<>());
+			row.forEach((columnCode, count) -> target
+					.computeIfAbsent(columnCode, k -> new long[1])[0] += count[0]);
+		});
+		this.total += other.total;
+	}
+
+	/**
+	 * @param rowCode
+	 *            the answer code of the row column.
+	 * @param columnCode
+	 *            the answer code of the column column.
+	 * @return the number of rows answered with both codes.
+	 */
+	public long getCount(final String rowCode, final String columnCode) {
+		final Map<String, long[]> row = this.counts.get(rowCode);
+		final long[] count = Objects.isNull(row) ? null : row.get(columnCode);
+		return Objects.isNull(count) ? 0 : count[0];
+	}
+
+	/**
+	 * @return the table of counts by row code and column code, ordered by
+	 *         code.
+	 */
+	public Map<String, Map<String, Long>> getTable() {
+		final Map<String, Map<String, Long>> value = new TreeMap<>();
+		this.counts.forEach((rowCode, row) -> {
+			final Map<String, Long> target = new TreeMap<>();
+			row.forEach((columnCode, count) -> target.put(columnCode, count[0]));
+			value.put(rowCode, target);
+		});
+		return value;
+	}
+
+	/**
+	 * @return the totals by row code.
+	 */
+	public Map<String, Long> getRowTotals() {
+		final Map<String, Long> value = new TreeMap<>();
+		this.counts.forEach((rowCode, row) -> value.put(rowCode,
+				row.values().stream().mapToLong(count -> count[0]).sum()));
+		return value;
+	}
+
+	/**
+	 * @return the totals by column code.
+	 */
+	public Map<String, Long> getColumnTotals() {
+		final Map<String, Long> value = new TreeMap<>();
+		this.counts.values().forEach(row -> row.forEach(
+				(columnCode, count) -> value.merge(columnCode, count[0], Long::sum)));
+		return value;
+	}
+
+	/**
+	 * @return the number of counted rows.
+	 */
+	public long getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * @return the column of the rows.
+	 */
+	public String getRowColumn() {
+		return this.rowColumn;
+	}
+
+	/**
+	 * @return the column of the columns.
+	 */
+	public String getColumnColumn() {
+		return this.columnColumn;
+	}
+}
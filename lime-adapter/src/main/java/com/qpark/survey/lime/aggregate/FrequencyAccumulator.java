@@ -0,0 +1,112 @@
+package com.qpark.survey.lime.aggregate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Counts the answer codes of a choice column.
+ *
+ * @author bhausen
+ */
+public class FrequencyAccumulator {
+	/** The counts by answer code. */
+	private final Map<String, long[]> counts = new HashMap<>();
+	/** The number of answered rows. */
+	private long total;
+	/** The number of rows without answer. */
+	private long missing;
+
+	/**
+	 * @param code
+	 *            the answer code. <code>null</code> and empty codes are
+	 *            counted as missing.
+	 */
+	public void accept(final String code) {
+		if (Objects.isNull(code) || code.isEmpty()) {
+			this.missing++;
+		} else {
+			this.counts.computeIfAbsent(code, k -> new long[1])[0]++;
+			this.total++;
+		}
+	}
+
+	/**
+	 * Takes back an answer code accepted before.
+	 *
+	 * @param code
+	 *            the answer code. <code>null</code> and empty codes are taken
+	 *            back from the missing.
+	 */
+	public void remove(final String code) {
+		if (Objects.isNull(code) || code.isEmpty()) {
+			this.missing = Math.max(0, this.missing - 1);
+		} else {
+			final long[] count = this.counts.get(code);
+			if (Objects.isNull(count)) {
+				throw new IllegalArgumentException(
+						String.format("Code %s not accepted before.", code));
+			} else if (--count[0] == 0) {
+				this.counts.remove(code);
+			}
+			this.total--;
+		}
+	}
+
+	/**
+	 * Adds the counts of the other accumulator to this.
+	 *
+	 * @param other
+	 *            the other {@link FrequencyAccumulator}.
+	 */
+	public void merge(final FrequencyAccumulator other) {
+		other.counts.forEach((code,
+				count) -> this.counts.computeIfAbsent(code,
+						k -> new long[1])[0] += count[0]);
+		this.total += other.total;
+		this.missing += other.missing;
+	}
+
+	/**
+	 * @param code
+	 *            the answer code.
+	 * @return the number of rows answered with the code.
+	 */
+	public long getCount(final String code) {
+		final long[] count = this.counts.get(code);
+		return Objects.isNull(count) ? 0 : count[0];
+	}
+
+	/**
+	 * @param code
+	 *            the answer code.
+	 * @return the share of the answered rows with the code.
+	 */
+	public double getShare(final String code) {
+		return this.total == 0 ? 0d : (double) this.getCount(code) / this.total;
+	}
+
+	/**
+	 * @return the counts by answer code, ordered by code.
+	 */
+	public Map<String, Long> getCounts() {
+		final Map<String, Long> value = new TreeMap<>();
+		this.counts.forEach((code, count) -> value.put(code, count[0]));
+		return value;
+	}
+
+	/**
+	 * @return the number of answered rows.
+	 */
+	public long getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * @return the number of rows without answer.
+	 */
+	public long getMissing() {
+		return this.missing;
+	}
+}
@@ -0,0 +1,204 @@
+package com.qpark.survey.lime.aggregate;
+
+/**
+ * Collects count, sum, mean, variance, min, max and the percentiles of a
+ * numeric column. Mean and variance are updated with Welford's algorithm and
+ * merged with the pairwise formula of Chan et al. The percentiles are
+ * estimated by a {@link QuantileSketch} of bounded size, not from the values.
+ * <p>
+ * A value is taken back with {@link #remove(double)}, e.g. the old value of a
+ * changed response. Count, sum, mean, variance and the sketch are exact after
+ * a removal. Removing the minimum or maximum leaves the estimate of the
+ * sketch, within its relative accuracy.
+ *
+ * @author bhausen
+ */
+public class NumericAccumulator {
+	/** The number of values. */
+	private long count;
+	/** The number of rows without a numeric value. */
+	private long missing;
+	/** The sum of the values. */
+	private double sum;
+	/** The running mean. */
+	private double mean;
+	/** The running sum of squared differences from the mean. */
+	private double m2;
+	/** The minimum. */
+	private double min = Double.NaN;
+	/** The maximum. */
+	private double max = Double.NaN;
+	/** The {@link QuantileSketch} of the values. */
+	private final QuantileSketch sketch = new QuantileSketch();
+
+	/**
+	 * @param value
+	 *            the value. {@link Double#NaN} is counted as missing.
+	 */
+	public void accept(final double value) {
+		if (Double.isNaN(value)) {
+			this.missing++;
+			return;
+		}
+		if (this.count == 0) {
+			this.min = value;
+			this.max = value;
+		} else {
+			this.min = Math.min(this.min, value);
+			this.max = Math.max(this.max, value);
+		}
+		final double delta = value - this.mean;
+		this.count++;
+		this.mean += delta / this.count;
+		this.m2 += delta * (value - this.mean);
+		this.sum += value;
+		this.sketch.add(value);
+	}
+
+	/**
+	 * Takes back a value accepted before.
+	 *
+	 * @param value
+	 *            the value. {@link Double#NaN} is taken back from the
+	 *            missing.
+	 */
+	public void remove(final double value) {
+		if (Double.isNaN(value)) {
+			this.missing = Math.max(0, this.missing - 1);
+			return;
+		}
+		if (!this.sketch.remove(value)) {
+			throw new IllegalArgumentException(
+					String.format("Value %s not accepted before.", value));
+		}
+		this.count--;
+		if (this.count == 0) {
+			this.mean = 0;
+			this.m2 = 0;
+			this.sum = 0;
+			this.min = Double.NaN;
+			this.max = Double.NaN;
+			return;
+		}
+		final double delta = value - this.mean;
+		this.mean -= delta / this.count;
+		this.m2 = Math.max(0, this.m2 - delta * (value - this.mean));
+		this.sum -= value;
+		if (value <= this.min) {
+			this.min = this.sketch.getMin();
+		}
+		if (value >= this.max) {
+			this.max = this.sketch.getMax();
+		}
+	}
+
+	/**
+	 * Adds the values of the other accumulator to this.
+	 *
+	 * @param other
+	 *            the other {@link NumericAccumulator}.
+	 */
+	public void merge(final NumericAccumulator other) {
+		this.missing += other.missing;
+		if (other.count == 0) {
+			return;
+		}
+		if (this.count == 0) {
+			this.min = other.min;
+			this.max = other.max;
+		} else {
+			this.min = Math.min(this.min, other.min);
+			this.max = Math.max(this.max, other.max);
+		}
+		final long n = this.count + other.count;
+		final double delta = other.mean - this.mean;
+		this.m2 += other.m2 + delta * delta * this.count * other.count / n;
+		this.mean += delta * other.count / n;
+		this.sum += other.sum;
+		this.sketch.merge(other.sketch);
+		this.count = n;
+	}
+
+	/**
+	 * @param p
+	 *            the percentile between 0 and 100.
+	 * @return the estimate of the percentile within the relative accuracy of
+	 *         the {@link QuantileSketch}, or {@link Double#NaN} if no values
+	 *         are collected.
+	 */
+	public double getPercentile(final double p) {
+		if (p < 0 || p > 100) {
+			throw new IllegalArgumentException(
+					String.format("Percentile %s out of [0,100].", p));
+		}
+		if (this.count == 0) {
+			return Double.NaN;
+		}
+		return Math.max(this.min,
+				Math.min(this.max, this.sketch.getQuantile(p / 100d)));
+	}
+
+	/**
+	 * @return the median.
+	 */
+	public double getMedian() {
+		return this.getPercentile(50);
+	}
+
+	/**
+	 * @return the number of values.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the number of rows without a numeric value.
+	 */
+	public long getMissing() {
+		return this.missing;
+	}
+
+	/**
+	 * @return the sum of the values.
+	 */
+	public double getSum() {
+		return this.sum;
+	}
+
+	/**
+	 * @return the mean or {@link Double#NaN} if no values are collected.
+	 */
+	public double getMean() {
+		return this.count == 0 ? Double.NaN : this.mean;
+	}
+
+	/**
+	 * @return the sample variance or {@link Double#NaN} if less than two
+	 *         values are collected.
+	 */
+	public double getVariance() {
+		return this.count < 2 ? Double.NaN : this.m2 / (this.count - 1);
+	}
+
+	/**
+	 * @return the sample standard deviation.
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(this.getVariance());
+	}
+
+	/**
+	 * @return the minimum or {@link Double#NaN} if no values are collected.
+	 */
+	public double getMin() {
+		return this.min;
+	}
+
+	/**
+	 * @return the maximum or {@link Double#NaN} if no values are collected.
+	 */
+	public double getMax() {
+		return this.max;
+	}
+}
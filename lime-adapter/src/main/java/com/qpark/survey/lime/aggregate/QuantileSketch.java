@@ -0,0 +1,245 @@
+package com.qpark.survey.lime.aggregate;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Estimates the percentiles of a numeric column in bounded memory, after the
+ * DDSketch of Masson, Rim and Lee. Each value is counted in the logarithmic
+ * bucket <code>ceil(log(|value|) / log(gamma))</code> with
+ * <code>gamma = (1 + accuracy) / (1 - accuracy)</code>, so a percentile is
+ * estimated within the relative accuracy of the true value. Values below
+ * {@link #MIN_INDEXABLE} in magnitude are counted as zero.
+ * <p>
+ * The buckets are counters, so values are removed and sketches merged
+ * exactly. A sign with more than the maximum number of buckets collapses its
+ * buckets of the smallest magnitude into one. Values of a collapsed bucket
+ * are removed from that bucket.
+ *
+ * @author bhausen
+ */
+public class QuantileSketch {
+	/** The smallest magnitude not counted as zero. */
+	public static final double MIN_INDEXABLE = 1e-9;
+	/** The default relative accuracy. */
+	public static final double DEFAULT_ACCURACY = 0.01;
+	/** The default maximum number of buckets per sign. */
+	public static final int DEFAULT_MAX_BUCKETS = 2048;
+
+	/** The buckets of one sign by index. */
+	private static class Store {
+		/** The counts by bucket index. */
+		final NavigableMap<Integer, long[]> counts = new TreeMap<>();
+		/** Indexes below are counted in this one, after a collapse. */
+		int floor = Integer.MIN_VALUE;
+
+		int bucket(final int index) {
+			return Math.max(index, this.floor);
+		}
+
+		void add(final int index, final long count, final int maxBuckets) {
+			this.counts.computeIfAbsent(this.bucket(index),
+					k -> new long[1])[0] += count;
+			while (this.counts.size() > maxBuckets) {
+				final Map.Entry<Integer, long[]> lowest = this.counts
+						.pollFirstEntry();
+				this.floor = this.counts.firstKey();
+				this.counts.get(this.floor)[0] += lowest.getValue()[0];
+			}
+		}
+
+		/** @return <code>false</code> if the bucket has no count. */
+		boolean remove(final int index) {
+			final int bucket = this.bucket(index);
+			final long[] count = this.counts.get(bucket);
+			if (Objects.isNull(count)) {
+				return false;
+			}
+			if (--count[0] == 0) {
+				this.counts.remove(bucket);
+			}
+			return true;
+		}
+	}
+
+	/** The relative accuracy. */
+	private final double accuracy;
+	/** The maximum number of buckets per sign. */
+	private final int maxBuckets;
+	/** The logarithm of gamma. */
+	private final double logGamma;
+	/** The buckets of the positive values. */
+	private final Store positive = new Store();
+	/** The buckets of the negative values by magnitude. */
+	private final Store negative = new Store();
+	/** The number of values counted as zero. */
+	private long zeroCount;
+	/** The number of values. */
+	private long count;
+
+	/**
+	 * A sketch with the {@link #DEFAULT_ACCURACY} and the
+	 * {@link #DEFAULT_MAX_BUCKETS}.
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_ACCURACY, DEFAULT_MAX_BUCKETS);
+	}
+
+	/**
+	 * @param accuracy
+	 *            the relative accuracy, between 0 and 1.
+	 * @param maxBuckets
+	 *            the maximum number of buckets per sign.
+	 */
+	public QuantileSketch(final double accuracy, final int maxBuckets) {
+		if (accuracy <= 0 || accuracy >= 1) {
+			throw new IllegalArgumentException(String
+					.format("Relative accuracy %s out of (0,1).", accuracy));
+		} else if (maxBuckets < 1) {
+			throw new IllegalArgumentException("Max buckets needs to be > 0.");
+		}
+		this.accuracy = accuracy;
+		this.maxBuckets = maxBuckets;
+		this.logGamma = Math.log((1 + accuracy) / (1 - accuracy));
+	}
+
+	private int index(final double magnitude) {
+		return (int) Math.ceil(Math.log(magnitude) / this.logGamma);
+	}
+
+	/** @return the estimate of the values of the bucket. */
+	private double value(final int index) {
+		return 2 * Math.exp(index * this.logGamma)
+				/ (1 + Math.exp(this.logGamma));
+	}
+
+	/**
+	 * @param value
+	 *            the finite value to count.
+	 */
+	public void add(final double value) {
+		if (value >= MIN_INDEXABLE) {
+			this.positive.add(this.index(value), 1, this.maxBuckets);
+		} else if (value <= -MIN_INDEXABLE) {
+			this.negative.add(this.index(-value), 1, this.maxBuckets);
+		} else {
+			this.zeroCount++;
+		}
+		this.count++;
+	}
+
+	/**
+	 * @param value
+	 *            the value counted before.
+	 * @return <code>false</code> if the value was not counted.
+	 */
+	public boolean remove(final double value) {
+		final boolean removed;
+		if (value >= MIN_INDEXABLE) {
+			removed = this.positive.remove(this.index(value));
+		} else if (value <= -MIN_INDEXABLE) {
+			removed = this.negative.remove(this.index(-value));
+		} else {
+			removed = this.zeroCount > 0;
+			if (removed) {
+				this.zeroCount--;
+			}
+		}
+		if (removed) {
+			this.count--;
+		}
+		return removed;
+	}
+
+	/**
+	 * Adds the counts of the other sketch to this.
+	 *
+	 * @param other
+	 *            the other {@link QuantileSketch} of the same accuracy.
+	 */
+	public void merge(final QuantileSketch other) {
+		if (other.accuracy != this.accuracy) {
+			throw new IllegalArgumentException(
+					"Sketch of a different accuracy.");
+		}
+		other.positive.counts.forEach((index, c) -> this.positive.add(index,
+				c[0], this.maxBuckets));
+		other.negative.counts.forEach((index, c) -> this.negative.add(index,
+				c[0], this.maxBuckets));
+		this.zeroCount += other.zeroCount;
+		this.count += other.count;
+	}
+
+	/**
+	 * @param quantile
+	 *            the quantile between 0 and 1.
+	 * @return the estimate of the value at the quantile or {@link Double#NaN}
+	 *         if no values are counted.
+	 */
+	public double getQuantile(final double quantile) {
+		if (this.count == 0) {
+			return Double.NaN;
+		}
+		final long rank = (long) (quantile * (this.count - 1));
+		long seen = 0;
+		final Iterator<Map.Entry<Integer, long[]>> negatives = this.negative.counts
+				.descendingMap().entrySet().iterator();
+		while (negatives.hasNext()) {
+			final Map.Entry<Integer, long[]> bucket = negatives.next();
+			seen += bucket.getValue()[0];
+			if (seen > rank) {
+				return -this.value(bucket.getKey());
+			}
+		}
+		seen += this.zeroCount;
+		if (seen > rank) {
+			return 0;
+		}
+		for (final Map.Entry<Integer, long[]> bucket : this.positive.counts
+				.entrySet()) {
+			seen += bucket.getValue()[0];
+			if (seen > rank) {
+				return this.value(bucket.getKey());
+			}
+		}
+		return this.value(this.positive.counts.lastKey());
+	}
+
+	/**
+	 * @return the estimate of the smallest value or {@link Double#NaN}.
+	 */
+	public double getMin() {
+		return this.getQuantile(0);
+	}
+
+	/**
+	 * @return the estimate of the largest value or {@link Double#NaN}.
+	 */
+	public double getMax() {
+		return this.getQuantile(1);
+	}
+
+	/**
+	 * @return the number of values.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the relative accuracy.
+	 */
+	public double getAccuracy() {
+		return this.accuracy;
+	}
+
+	/**
+	 * @return the number of buckets in use.
+	 */
+	public int getBucketCount() {
+		return this.positive.counts.size() + this.negative.counts.size();
+	}
+}
@@ -0,0 +1,317 @@
+package com.qpark.survey.lime.aggregate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+import com.qpark.survey.lime.index.IndexedResponse;
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.store.ColumnType;
+import com.qpark.survey.lime.store.Parsers;
+
+/**
+ * Keeps the per question aggregates of a survey and updates them with each
+ * response passed to {@link #accept(ExportResponsesListEntryType)}. The
+ * accumulator of a column is chosen by the lime survey question type (see
+ * {@link ColumnType#of(SurveyColumnIndex, int)}): decimal columns get a
+ * {@link NumericAccumulator}, choice columns a {@link FrequencyAccumulator}.
+ * Free text, date and file columns are not aggregated. Crosstabs of two
+ * columns are added with {@link #addCrosstab(String, String)}.
+ * <p>
+ * An aggregator has a single writer. To aggregate in parallel each thread
+ * fills its own {@link #newPartial()} and the partials are combined with
+ * {@link #merge(SurveyAggregator)}, see {@link #collector()}.
+ * <p>
+ * A changed response (e.g. reported by the
+ * {@link com.qpark.survey.lime.sync.ResponseSyncEngine}) is passed to
+ * {@link #replace(IndexedResponse, IndexedResponse)} with the version
+ * aggregated before, so it is not counted twice. The aggregator does not
+ * keep the responses, the caller provides the previous version, e.g. out of
+ * its response store.
+ *
+ * @author bhausen
+ */
+public class SurveyAggregator {
+	/** The {@link SurveyColumnIndex}. */
+	private final SurveyColumnIndex index;
+	/** The {@link FrequencyAccumulator}s by slot. */
+	private final FrequencyAccumulator[] frequencies;
+	/** The {@link NumericAccumulator}s by slot. */
+	private final NumericAccumulator[] numerics;
+	/** The row slots of the crosstabs. */
+	private int[] crosstabRows = new int[0];
+	/** The column slots of the crosstabs. */
+	private int[] crosstabColumns = new int[0];
+	/** The {@link CrosstabAccumulator}s. */
+	private final List<CrosstabAccumulator> crosstabs = new ArrayList<>();
+	/** The number of aggregated responses. */
+	private long responseCount;
+
+	/**
+	 * @param index
+	 *            the {@link SurveyColumnIndex} of the survey.
+	 */
+	public SurveyAggregator(final SurveyColumnIndex index) {
+		this.index = Objects.requireNonNull(index);
+		this.frequencies = new FrequencyAccumulator[index.size()];
+		this.numerics = new NumericAccumulator[index.size()];
+		for (int slot = SurveyColumnIndex.SLOT_REFURL + 1; slot < index
+				.size(); slot++) {
+			final ColumnType type = ColumnType.of(index, slot);
+			if (type == ColumnType.DOUBLE) {
+				this.numerics[slot] = new NumericAccumulator();
+			} else if (type == ColumnType.DICTIONARY) {
+				this.frequencies[slot] = new FrequencyAccumulator();
+			}
+		}
+	}
+
+	/**
+	 * Add a crosstab of two columns. Add the crosstabs before the first
+	 * response is aggregated.
+	 *
+	 * @param rowColumn
+	 *            the SGQA column or code of the rows.
+	 * @param columnColumn
+	 *            the SGQA column or code of the columns.
+	 * @return this {@link SurveyAggregator}.
+	 */
+	public SurveyAggregator addCrosstab(final String rowColumn,
+			final String columnColumn) {
+		final int rowSlot = this.requireSlot(rowColumn);
+		final int columnSlot = this.requireSlot(columnColumn);
+		if (this.responseCount > 0) {
+			throw new IllegalStateException(
+					"Crosstab added after aggregation started.");
+		}
+		final int size = this.crosstabs.size();
+		this.crosstabRows = Arrays.copyOf(this.crosstabRows,
+				size + 1);
+		this.crosstabColumns = Arrays.copyOf(this.crosstabColumns,
+				size + 1);
+		this.crosstabRows[size] = rowSlot;
+		this.crosstabColumns[size] = columnSlot;
+		this.crosstabs.add(new CrosstabAccumulator(this.index.column(rowSlot),
+				this.index.column(columnSlot)));
+		return this;
+	}
+
+	private int requireSlot(final String column) {
+		final int slot = this.index.slot(column);
+		if (slot < 0) {
+			throw new IllegalArgumentException(
+					String.format("Unknown column %s.", column));
+		}
+		return slot;
+	}
+
+	/**
+	 * @return a new empty {@link SurveyAggregator} with the same column index
+	 *         and crosstabs to be merged into this later.
+	 */
+	public SurveyAggregator newPartial() {
+		final SurveyAggregator value = new SurveyAggregator(this.index);
+		for (int i = 0; i < this.crosstabs.size(); i++) {
+			value.addCrosstab(this.index.column(this.crosstabRows[i]),
+					this.index.column(this.crosstabColumns[i]));
+		}
+		return value;
+	}
+
+	/**
+	 * Aggregate the response.
+	 *
+	 * @param entry
+	 *            the {@link ExportResponsesListEntryType}.
+	 */
+	public void accept(final ExportResponsesListEntryType entry) {
+		this.accept(this.index.index(entry));
+	}
+
+	/**
+	 * Aggregate the response.
+	 *
+	 * @param response
+	 *            the {@link IndexedResponse} of the same
+	 *            {@link SurveyColumnIndex}.
+	 */
+	public void accept(final IndexedResponse response) {
+		if (response.getIndex() != this.index) {
+			throw new IllegalArgumentException(
+					"Response of a different column index.");
+		}
+		for (int slot = SurveyColumnIndex.SLOT_REFURL + 1; slot < this.index
+				.size(); slot++) {
+			if (Objects.nonNull(this.numerics[slot])) {
+				this.numerics[slot].accept(toDouble(response.get(slot)));
+			} else if (Objects.nonNull(this.frequencies[slot])) {
+				this.frequencies[slot].accept(response.getString(slot));
+			}
+		}
+		for (int i = 0; i < this.crosstabRows.length; i++) {
+			this.crosstabs.get(i).accept(
+					response.getString(this.crosstabRows[i]),
+					response.getString(this.crosstabColumns[i]));
+		}
+		this.responseCount++;
+	}
+
+	/**
+	 * Take back a response aggregated before.
+	 *
+	 * @param response
+	 *            the {@link IndexedResponse} as it was aggregated.
+	 */
+	public void remove(final IndexedResponse response) {
+		if (response.getIndex() != this.index) {
+			throw new IllegalArgumentException(
+					"Response of a different column index.");
+		}
+		for (int slot = SurveyColumnIndex.SLOT_REFURL + 1; slot < this.index
+				.size(); slot++) {
+			if (Objects.nonNull(this.numerics[slot])) {
+				this.numerics[slot].remove(toDouble(response.get(slot)));
+			} else if (Objects.nonNull(this.frequencies[slot])) {
+				this.frequencies[slot].remove(response.getString(slot));
+			}
+		}
+		for (int i = 0; i < this.crosstabRows.length; i++) {
+			this.crosstabs.get(i).remove(
+					response.getString(this.crosstabRows[i]),
+					response.getString(this.crosstabColumns[i]));
+		}
+		this.responseCount--;
+	}
+
+	/**
+	 * Replace the aggregated version of a changed response.
+	 *
+	 * @param previous
+	 *            the {@link IndexedResponse} as it was aggregated.
+	 * @param current
+	 *            the changed {@link IndexedResponse}.
+	 */
+	public void replace(final IndexedResponse previous,
+			final IndexedResponse current) {
+		this.remove(previous);
+		this.accept(current);
+	}
+
+	private static double toDouble(final Object value) {
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		} else if (Objects.nonNull(value)) {
+			return Parsers.parseDouble(value.toString());
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * @return a {@link Consumer} aggregating the responses of the streaming
+	 *         export.
+	 */
+	public Consumer<ExportResponsesListEntryType> aggregating() {
+		return this::accept;
+	}
+
+	/**
+	 * Adds the aggregates of the other partial to this.
+	 *
+	 * @param other
+	 *            the {@link SurveyAggregator} created by
+	 *            {@link #newPartial()}.
+	 * @return this {@link SurveyAggregator}.
+	 */
+	public SurveyAggregator merge(final SurveyAggregator other) {
+		if (other.index != this.index
+				|| other.crosstabs.size() != this.crosstabs.size()) {
+			throw new IllegalArgumentException(
+					"Aggregator of a different layout.");
+		}
+		for (int slot = 0; slot < this.numerics.length; slot++) {
+			if (Objects.nonNull(this.numerics[slot])) {
+				this.numerics[slot].merge(other.numerics[slot]);
+			} else if (Objects.nonNull(this.frequencies[slot])) {
+				this.frequencies[slot].merge(other.frequencies[slot]);
+			}
+		}
+		for (int i = 0; i < this.crosstabs.size(); i++) {
+			this.crosstabs.get(i).merge(other.crosstabs.get(i));
+		}
+		this.responseCount += other.responseCount;
+		return this;
+	}
+
+	/**
+	 * Get a {@link Collector} aggregating into partials of this aggregator.
+	 * With a parallel stream each thread fills its own partial. The result is
+	 * a new aggregator, this aggregator is not changed.
+	 *
+	 * @return the {@link Collector}.
+	 */
+	public Collector<ExportResponsesListEntryType, SurveyAggregator, SurveyAggregator> collector() {
+		return Collector.of(this::newPartial, SurveyAggregator::accept,
+				SurveyAggregator::merge);
+	}
+
+	/**
+	 * @param column
+	 *            the SGQA column or code.
+	 * @return the {@link FrequencyAccumulator} of a choice column.
+	 */
+	public Optional<FrequencyAccumulator> getFrequencies(final String column) {
+		final int slot = this.index.slot(column);
+		return slot < 0 ? Optional.empty()
+				: Optional.ofNullable(this.frequencies[slot]);
+	}
+
+	/**
+	 * @param column
+	 *            the SGQA column or code.
+	 * @return the {@link NumericAccumulator} of a numeric column.
+	 */
+	public Optional<NumericAccumulator> getNumeric(final String column) {
+		final int slot = this.index.slot(column);
+		return slot < 0 ? Optional.empty()
+				: Optional.ofNullable(this.numerics[slot]);
+	}
+
+	/**
+	 * @param rowColumn
+	 *            the SGQA column or code of the rows.
+	 * @param columnColumn
+	 *            the SGQA column or code of the columns.
+	 * @return the {@link CrosstabAccumulator}.
+	 */
+	public Optional<CrosstabAccumulator> getCrosstab(final String rowColumn,
+			final String columnColumn) {
+		final int rowSlot = this.index.slot(rowColumn);
+		final int columnSlot = this.index.slot(columnColumn);
+		for (int i = 0; i < this.crosstabRows.length; i++) {
+			if (this.crosstabRows[i] == rowSlot
+					&& this.crosstabColumns[i] == columnSlot) {
+				return Optional.of(this.crosstabs.get(i));
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * @return the {@link SurveyColumnIndex}.
+	 */
+	public SurveyColumnIndex getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * @return the number of aggregated responses.
+	 */
+	public long getResponseCount() {
+		return this.responseCount;
+	}
+}
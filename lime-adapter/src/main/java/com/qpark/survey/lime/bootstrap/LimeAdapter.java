@@ -0,0 +1,154 @@
+package com.qpark.survey.lime.bootstrap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.limit.ConcurrencyLimiters;
+import com.qpark.survey.lime.limit.RetryPolicy;
+import com.qpark.survey.lime.metrics.MetricsRegistry;
+import com.qpark.survey.lime.metrics.NoopMetricsRegistry;
+import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.mapper.ObjectMapperFactory;
+import com.qpark.survey.lime.participant.ParticipantBulkClient;
+import com.qpark.survey.lime.participant.ParticipantProperties;
+import com.qpark.survey.lime.session.SessionManager;
+import com.qpark.survey.lime.transport.HttpTransport;
+
+/**
+ * Assembles the lime adapter without a spring application context, e.g. for
+ * short running batch jobs: the {@link ObjectMapper}, the {@link Mapper}, the
+ * pooled {@link HttpTransport}, the {@link RestClient} bound to the end point
+ * with its {@link SessionManager} and {@link ParticipantBulkClient}. The
+ * parts are created by their constructors, wired as the
+ * {@link com.qpark.survey.lime.config.SpringConfig} does it, without
+ * classpath scanning or property binding.
+ *
+ * <pre>
+ * final LimeAdapterProperties properties = new LimeAdapterProperties();
+ * properties.setUrl("http://server/index.php/admin/remotecontrol");
+ * try (LimeAdapter adapter = new LimeAdapter(properties)) {
+ * 	adapter.getSessionManager().execute(userName, password,
+ * 			session -&gt; adapter.getClient().listSurveys(session));
+ * }
+ * </pre>
+ *
+ * @author bhausen
+ */
+public class LimeAdapter implements Closeable {
+	/** The {@link ObjectMapper}. */
+	private final ObjectMapper objectMapper;
+	/** The {@link Mapper}. */
+	private final Mapper mapper;
+	/** The {@link HttpTransport}. */
+	private final HttpTransport transport;
+	/** The {@link RestClient} bound to the end point. */
+	private final RestClient client;
+	/** The {@link SessionManager}. */
+	private final SessionManager sessionManager;
+	/** The {@link ParticipantBulkClient}. */
+	private final ParticipantBulkClient participantClient;
+
+	/**
+	 * @param properties
+	 *            the {@link LimeAdapterProperties}.
+	 */
+	public LimeAdapter(final LimeAdapterProperties properties) {
+		this(properties, NoopMetricsRegistry.INSTANCE);
+	}
+
+	/**
+	 * @param properties
+	 *            the {@link LimeAdapterProperties}.
+	 * @param metricsRegistry
+	 *            the {@link MetricsRegistry} of the {@link RestClient},
+	 *            <code>null</code> disables the measurement.
+	 */
+	public LimeAdapter(final LimeAdapterProperties properties,
+			final MetricsRegistry metricsRegistry) {
+		if (Objects.isNull(properties)) {
+			throw new IllegalStateException("Adapter properties not provided.");
+		} else if (Objects.isNull(properties.getUrl())) {
+			throw new IllegalStateException("End point url not provided.");
+		}
+		this.objectMapper = ObjectMapperFactory.create(properties.getMapper());
+		this.mapper = new Mapper(this.objectMapper);
+		this.transport = new HttpTransport(properties.getTransport());
+		this.client = new RestClient(properties.getUrl(),
+				this.transport.createRestTemplate(),
+				this.mapper);
+		this.client.setMetricsRegistry(metricsRegistry);
+		if (Objects.nonNull(properties.getLimit())) {
+			this.client.setConcurrencyLimiters(
+					new ConcurrencyLimiters(properties.getLimit()));
+		}
+		if (Objects.nonNull(properties.getRetry())) {
+			this.client.setRetryPolicy(new RetryPolicy(properties.getRetry()));
+		}
+		this.sessionManager = new SessionManager(this.client);
+		this.sessionManager.setSessionTtl(properties.getSessionTtl());
+		this.participantClient = new ParticipantBulkClient(this.client,
+				Objects.nonNull(properties.getParticipant())
+						? properties.getParticipant()
+						: new ParticipantProperties());
+	}
+
+	/**
+	 * @return the {@link ObjectMapper}.
+	 */
+	public ObjectMapper getObjectMapper() {
+		return this.objectMapper;
+	}
+
+	/**
+	 * @return the {@link Mapper}.
+	 */
+	public Mapper getMapper() {
+		return this.mapper;
+	}
+
+	/**
+	 * @return the {@link HttpTransport}.
+	 */
+	public HttpTransport getTransport() {
+		return this.transport;
+	}
+
+	/**
+	 * @return the {@link RestClient} bound to the end point.
+	 */
+	public RestClient getClient() {
+		return this.client;
+	}
+
+	/**
+	 * @return the {@link SessionManager}.
+	 */
+	public SessionManager getSessionManager() {
+		return this.sessionManager;
+	}
+
+	/**
+	 * @return the {@link ParticipantBulkClient}.
+	 */
+	public ParticipantBulkClient getParticipantClient() {
+		return this.participantClient;
+	}
+
+	/**
+	 * Releases the sessions and closes the connection pool.
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			this.participantClient.close();
+			this.sessionManager.close();
+		} finally {
+			this.transport.close();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.qpark.survey.lime.bootstrap;
+
+import com.qpark.survey.lime.limit.LimitProperties;
+import com.qpark.survey.lime.limit.RetryProperties;
+import com.qpark.survey.lime.model.mapper.ObjectMapperProperties;
+import com.qpark.survey.lime.participant.ParticipantProperties;
+import com.qpark.survey.lime.transport.HttpTransportProperties;
+
+/**
+ * The settings of a {@link LimeAdapter}. The nested properties are the same
+ * the {@link com.qpark.survey.lime.config.SpringConfig} binds to
+ * <i>lime.mapper.*</i>, <i>lime.transport.*</i>, <i>lime.limit.*</i>,
+ * <i>lime.retry.*</i> and <i>lime.participant.*</i>.
+ *
+ * @author bhausen
+ */
+public class LimeAdapterProperties {
+	/** The end point URL of the JSON-RPC API. */
+	private String url;
+	/** The time a session is used after its last use in milliseconds. */
+	private long sessionTtl = 3600000;
+	/** The {@link ObjectMapperProperties}. */
+	private ObjectMapperProperties mapper = new ObjectMapperProperties();
+	/** The {@link HttpTransportProperties} of the connection pool. */
+	private HttpTransportProperties transport = new HttpTransportProperties();
+	/** The {@link LimitProperties} of the concurrency limiters. */
+	private LimitProperties limit = new LimitProperties();
+	/** The {@link RetryProperties} of the retry policy. */
+	private RetryProperties retry = new RetryProperties();
+	/** The {@link ParticipantProperties} of the bulk participant calls. */
+	private ParticipantProperties participant = new ParticipantProperties();
+
+	/**
+	 * @return the end point URL of the JSON-RPC API.
+	 */
+	public String getUrl() {
+		return this.url;
+	}
+
+	/**
+	 * @param url
+	 *            the end point URL of the JSON-RPC API.
+	 */
+	public void setUrl(final String url) {
+		this.url = url;
+	}
+
+	/**
+	 * @return the time a session is used after its last use in milliseconds.
+	 */
+	public long getSessionTtl() {
+		return this.sessionTtl;
+	}
+
+	/**
+	 * @param sessionTtl
+	 *            the time a session is used after its last use in
+	 *            milliseconds.
+	 */
+	public void setSessionTtl(final long sessionTtl) {
+		this.sessionTtl = sessionTtl;
+	}
+
+	/**
+	 * @return the {@link ObjectMapperProperties}.
+	 */
+	public ObjectMapperProperties getMapper() {
+		return this.mapper;
+	}
+
+	/**
+	 * @param mapper
+	 *            the {@link ObjectMapperProperties}.
+	 */
+	public void setMapper(final ObjectMapperProperties mapper) {
+		this.mapper = mapper;
+	}
+
+	/**
+	 * @return the {@link HttpTransportProperties} of the connection pool.
+	 */
+	public HttpTransportProperties getTransport() {
+		return this.transport;
+	}
+
+	/**
+	 * @param transport
+	 *            the {@link HttpTransportProperties} of the connection pool.
+	 */
+	public void setTransport(final HttpTransportProperties transport) {
+		this.transport = transport;
+	}
+
+	/**
+	 * @return the {@link LimitProperties} of the concurrency limiters.
+	 */
+	public LimitProperties getLimit() {
+		return this.limit;
+	}
+
+	/**
+	 * @param limit
+	 *            the {@link LimitProperties} of the concurrency limiters.
+	 */
+	public void setLimit(final LimitProperties limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * @return the {@link RetryProperties} of the retry policy.
+	 */
+	public RetryProperties getRetry() {
+		return this.retry;
+	}
+
+	/**
+	 * @param retry
+	 *            the {@link RetryProperties} of the retry policy.
+	 */
+	public void setRetry(final RetryProperties retry) {
+		this.retry = retry;
+	}
+
+	/**
+	 * @return the {@link ParticipantProperties} of the bulk participant
+	 *         calls.
+	 */
+	public ParticipantProperties getParticipant() {
+		return this.participant;
+	}
+
+	/**
+	 * @param participant
+	 *            the {@link ParticipantProperties} of the bulk participant
+	 *            calls.
+	 */
+	public void setParticipant(final ParticipantProperties participant) {
+		this.participant = participant;
+	}
+}
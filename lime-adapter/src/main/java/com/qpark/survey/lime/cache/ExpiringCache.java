@@ -0,0 +1,206 @@
+package com.qpark.survey.lime.cache;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * A small thread safe cache with a maximum size (least recently used entries
+ * are evicted first) and a time to live. Loading is single flight:
+ * concurrent callers of the same key wait for the one load in progress.
+ *
+ * @author bhausen
+ */
+public class ExpiringCache<K, V> {
+	/**
+	 * Loads the value of a missing key.
+	 */
+	@FunctionalInterface
+	public interface Loader<V> {
+		/**
+		 * @return the value.
+		 * @throws IOException
+		 */
+		V load() throws IOException;
+	}
+
+	/** The cached value, completed once loaded. */
+	private static class Entry<V> {
+		private final CompletableFuture<V> value = new CompletableFuture<>();
+		private volatile long loaded;
+	}
+
+	/** The entries in access order. Guarded by <code>this</code>. */
+	private final LinkedHashMap<K, Entry<V>> entries;
+	/** The maximum number of entries. */
+	private final int maxSize;
+	/** The time to live of an entry in milliseconds. */
+	private final long ttl;
+	private long hitCount;
+	private long missCount;
+	private long loadFailureCount;
+	private long evictionCount;
+
+	/**
+	 * @param maxSize
+	 *            the maximum number of entries.
+	 * @param ttl
+	 *            the time to live of an entry in milliseconds.
+	 */
+	public ExpiringCache(final int maxSize, final long ttl) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Max size needs to be > 0.");
+		}
+		this.maxSize = maxSize;
+		this.ttl = ttl;
+		this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<K, Entry<V>> eldest) {
+				final boolean evict = this.size() > ExpiringCache.this.maxSize;
+				if (evict) {
+					ExpiringCache.this.evictionCount++;
+				}
+				return evict;
+			}
+		};
+	}
+
+	/**
+	 * Get the cached value or load it.
+	 *
+	 * @param key
+	 *            the key.
+	 * @param loader
+	 *            the {@link Loader} called on a miss.
+	 * @return the value.
+	 * @throws IOException
+	 *             if the load failed.
+	 */
+	public V get(final K key, final Loader<V> loader) throws IOException {
+		final Entry<V> entry;
+		boolean load = false;
+		synchronized (this) {
+			final Entry<V> cached = this.entries.get(key);
+			if (Objects.nonNull(cached) && !this.isExpired(cached)) {
+				this.hitCount++;
+				entry = cached;
+			} else {
+				if (Objects.nonNull(cached)) {
+					this.evictionCount++;
+				}
+				this.missCount++;
+				entry = new Entry<>();
+				this.entries.put(key, entry);
+				load = true;
+			}
+		}
+		if (load) {
+			try {
+				final V value = loader.load();
+				entry.loaded = System.currentTimeMillis();
+				entry.value.complete(value);
+			} catch (final IOException | RuntimeException e) {
+				synchronized (this) {
+					this.loadFailureCount++;
+					this.entries.remove(key, entry);
+				}
+				entry.value.completeExceptionally(e);
+				throw e;
+			}
+		}
+		return this.await(entry);
+	}
+
+	private V await(final Entry<V> entry) throws IOException {
+		try {
+			return entry.value.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private boolean isExpired(final Entry<V> entry) {
+		return entry.value.isDone() && (entry.value.isCompletedExceptionally()
+				|| System.currentTimeMillis() - entry.loaded >= this.ttl);
+	}
+
+	/**
+	 * @param key
+	 *            the key to remove.
+	 */
+	public synchronized void invalidate(final K key) {
+		this.entries.remove(key);
+	}
+
+	/**
+	 * @param predicate
+	 *            removes all keys matching the {@link Predicate}.
+	 */
+	public synchronized void invalidateIf(final Predicate<K> predicate) {
+		final Iterator<K> keys = this.entries.keySet().iterator();
+		while (keys.hasNext()) {
+			if (predicate.test(keys.next())) {
+				keys.remove();
+			}
+		}
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public synchronized void invalidateAll() {
+		this.entries.clear();
+	}
+
+	/**
+	 * @return the number of entries.
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * @return the number of calls served from the cache, including callers
+	 *         waiting for a load in progress.
+	 */
+	public synchronized long getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * @return the number of calls which loaded the value.
+	 */
+	public synchronized long getMissCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * @return the number of failed loads.
+	 */
+	public synchronized long getLoadFailureCount() {
+		return this.loadFailureCount;
+	}
+
+	/**
+	 * @return the number of entries evicted by size or time to live.
+	 */
+	public synchronized long getEvictionCount() {
+		return this.evictionCount;
+	}
+}
@@ -0,0 +1,201 @@
+package com.qpark.survey.lime.cache;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.v25.ListQuestionsResponseType;
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+
+/**
+ * Caches the results of <i>list_surveys</i> and <i>list_questions</i> of a
+ * {@link RestClient}. The survey list is keyed by end point and user, the
+ * question lists by end point, survey id and language. The cached response
+ * objects are shared between callers and must not be modified.
+ *
+ * @author bhausen
+ */
+public class SurveyMetadataCache {
+	/** The key of a cached response. */
+	private static final class Key {
+		private final String endPointUrl;
+		private final String operation;
+		private final int surveyId;
+		private final String qualifier;
+
+		Key(final String endPointUrl, final String operation,
+				final int surveyId, final String qualifier) {
+			this.endPointUrl = endPointUrl;
+			this.operation = operation;
+			this.surveyId = surveyId;
+			this.qualifier = qualifier;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return this.surveyId == other.surveyId
+					&& Objects.equals(this.operation, other.operation)
+					&& Objects.equals(this.endPointUrl, other.endPointUrl)
+					&& Objects.equals(this.qualifier, other.qualifier);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.endPointUrl, this.operation,
+					this.surveyId, this.qualifier);
+		}
+	}
+
+	private static final String LIST_SURVEYS = "list_surveys";
+	private static final String LIST_QUESTIONS = "list_questions";
+	/** The {@link RestClient} loading the responses. */
+	private final RestClient client;
+	/** The cache of the survey lists. */
+	private final ExpiringCache<Key, Optional<ListSurveysResponseType>> surveys;
+	/** The cache of the question lists. */
+	private final ExpiringCache<Key, Optional<ListQuestionsResponseType>> questions;
+
+	/**
+	 * Creates a cache with 1000 question lists and a time to live of 10
+	 * minutes.
+	 *
+	 * @param client
+	 *            the {@link RestClient} loading the responses.
+	 */
+	public SurveyMetadataCache(final RestClient client) {
+		this(client, 1000, TimeUnit.MINUTES.toMillis(10));
+	}
+
+	/**
+	 * @param client
+	 *            the {@link RestClient} loading the responses.
+	 * @param maxSize
+	 *            the maximum number of cached question lists.
+	 * @param ttl
+	 *            the time to live of a cached response in milliseconds.
+	 */
+	public SurveyMetadataCache(final RestClient client, final int maxSize,
+			final long ttl) {
+		this.client = Objects.requireNonNull(client);
+		this.surveys = new ExpiringCache<>(Math.max(16, maxSize / 16), ttl);
+		this.questions = new ExpiringCache<>(maxSize, ttl);
+	}
+
+	/**
+	 * Cached {@link RestClient#listSurveys(LimeSurveySession)}.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @return the {@link Optional} of {@link ListSurveysResponseType}.
+	 * @throws IOException
+	 */
+	public Optional<ListSurveysResponseType> listSurveys(
+			final LimeSurveySession session) throws IOException {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		}
+		return this.surveys.get(
+				new Key(this.client.getEndPointUrl(), LIST_SURVEYS, 0,
+						session.getUserName()),
+				() -> this.client.listSurveys(session));
+	}
+
+	/**
+	 * Cached
+	 * {@link RestClient#getListQuestions(LimeSurveySession, int, Optional)}.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param language
+	 *            the language.
+	 * @return the {@link Optional} of {@link ListQuestionsResponseType}.
+	 * @throws IOException
+	 */
+	public Optional<ListQuestionsResponseType> getListQuestions(
+			final LimeSurveySession session, final int surveyId,
+			final Optional<String> language) throws IOException {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		}
+		return this.questions.get(
+				new Key(this.client.getEndPointUrl(), LIST_QUESTIONS, surveyId,
+						language.orElse(null)),
+				() -> this.client.getListQuestions(session, surveyId,
+						language));
+	}
+
+	/**
+	 * Remove the cached question lists of the survey (all languages) and the
+	 * cached survey lists.
+	 *
+	 * @param surveyId
+	 *            the sid of the survey.
+	 */
+	public void invalidate(final int surveyId) {
+		this.questions.invalidateIf(k -> k.surveyId == surveyId);
+		this.surveys.invalidateAll();
+	}
+
+	/**
+	 * Remove the cached survey lists.
+	 */
+	public void invalidateSurveys() {
+		this.surveys.invalidateAll();
+	}
+
+	/**
+	 * Remove all cached responses.
+	 */
+	public void invalidateAll() {
+		this.surveys.invalidateAll();
+		this.questions.invalidateAll();
+	}
+
+	/**
+	 * @return the number of calls served from the cache.
+	 */
+	public long getHitCount() {
+		return this.surveys.getHitCount() + this.questions.getHitCount();
+	}
+
+	/**
+	 * @return the number of calls sent to lime survey.
+	 */
+	public long getMissCount() {
+		return this.surveys.getMissCount() + this.questions.getMissCount();
+	}
+
+	/**
+	 * @return the number of failed calls.
+	 */
+	public long getLoadFailureCount() {
+		return this.surveys.getLoadFailureCount()
+				+ this.questions.getLoadFailureCount();
+	}
+
+	/**
+	 * @return the number of evicted responses.
+	 */
+	public long getEvictionCount() {
+		return this.surveys.getEvictionCount()
+				+ this.questions.getEvictionCount();
+	}
+
+	/**
+	 * @return the number of cached responses.
+	 */
+	public int size() {
+		return this.surveys.size() + this.questions.size();
+	}
+}
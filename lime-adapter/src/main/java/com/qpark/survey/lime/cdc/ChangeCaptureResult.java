@@ -0,0 +1,99 @@
+package com.qpark.survey.lime.cdc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of one {@link ResponseChangeCapture#capture} run.
+ *
+ * @author bhausen
+ */
+public class ChangeCaptureResult {
+	private final int surveyId;
+	private final int inserted;
+	private final int updated;
+	private final int deleted;
+	private final int unchanged;
+	private final long diffNanos;
+	private final long elapsedNanos;
+
+	ChangeCaptureResult(final int surveyId, final int inserted,
+			final int updated, final int deleted, final int unchanged,
+			final long diffNanos, final long elapsedNanos) {
+		this.surveyId = surveyId;
+		this.inserted = inserted;
+		this.updated = updated;
+		this.deleted = deleted;
+		this.unchanged = unchanged;
+		this.diffNanos = diffNanos;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * @return the sid of the survey.
+	 */
+	public int getSurveyId() {
+		return this.surveyId;
+	}
+
+	/**
+	 * @return the number of responses not seen before.
+	 */
+	public int getInserted() {
+		return this.inserted;
+	}
+
+	/**
+	 * @return the number of responses with a changed content.
+	 */
+	public int getUpdated() {
+		return this.updated;
+	}
+
+	/**
+	 * @return the number of responses no longer exported.
+	 */
+	public int getDeleted() {
+		return this.deleted;
+	}
+
+	/**
+	 * @return the number of responses without change.
+	 */
+	public int getUnchanged() {
+		return this.unchanged;
+	}
+
+	/**
+	 * @return <code>true</code> if any response was inserted, updated or
+	 *         deleted.
+	 */
+	public boolean hasChanges() {
+		return this.inserted + this.updated + this.deleted > 0;
+	}
+
+	/**
+	 * @return the milliseconds to hash and compare the responses.
+	 */
+	public long getDiffMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.diffNanos);
+	}
+
+	/**
+	 * @return the milliseconds of the run, including the export and the
+	 *         sink.
+	 */
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+				"Survey %s: %s inserted, %s updated, %s deleted, %s unchanged, diff %sms, elapsed %sms",
+				this.surveyId, this.inserted, this.updated, this.deleted,
+				this.unchanged, this.getDiffMillis(), this.getElapsedMillis());
+	}
+}
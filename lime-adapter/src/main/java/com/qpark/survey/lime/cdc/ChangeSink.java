@@ -0,0 +1,61 @@
+package com.qpark.survey.lime.cdc;
+
+import java.io.IOException;
+
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+
+/**
+ * Receives the changes of the responses of a survey detected by the
+ * {@link ResponseChangeCapture}, e.g. to publish them to a message broker.
+ * The methods are called on the thread calling
+ * {@link ResponseChangeCapture#capture}, inserts and updates in the order of
+ * the export, then the deletes in ascending response id order, then
+ * {@link #flush(int)}.
+ * <p>
+ * The content hashes are committed after {@link #flush(int)} returned. If the
+ * sink throws, the changes of the run are detected and passed again by the
+ * next run (at least once).
+ *
+ * @author bhausen
+ */
+public interface ChangeSink {
+	/**
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param entry
+	 *            the response not seen before.
+	 * @throws IOException
+	 */
+	void inserted(int surveyId, ExportResponsesListEntryType entry)
+			throws IOException;
+
+	/**
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param entry
+	 *            the response with a changed content.
+	 * @throws IOException
+	 */
+	void updated(int surveyId, ExportResponsesListEntryType entry)
+			throws IOException;
+
+	/**
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param entry
+	 *            the response no longer exported, only the <i>id</i> is set.
+	 * @throws IOException
+	 */
+	void deleted(int surveyId, ExportResponsesListEntryType entry)
+			throws IOException;
+
+	/**
+	 * Called after the changes of a run are passed.
+	 *
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @throws IOException
+	 */
+	default void flush(final int surveyId) throws IOException {
+	}
+}
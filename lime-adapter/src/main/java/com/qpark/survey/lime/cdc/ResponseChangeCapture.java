@@ -0,0 +1,322 @@
+package com.qpark.survey.lime.cdc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import com.qpark.survey.lime.LimeSurveyException;
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.concurrent.ChunkedTasks;
+import com.qpark.survey.lime.model.ExportResponsesOptions;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.store.LongLongHashMap;
+
+/**
+ * Change data capture of survey responses. Per survey a compact index of
+ * response id to the 64 bit {@link ResponseHasher content hash} is kept in a
+ * {@link LongLongHashMap} of 32 to 64 bytes per response. Each
+ * {@link #capture} exports the responses, compares them with the index and
+ * passes only the inserted, updated and deleted responses to the
+ * {@link ChangeSink}. Unlike the
+ * {@link com.qpark.survey.lime.sync.ResponseSyncEngine} it detects changes
+ * and deletes of surveys without <i>datestamp</i>.
+ * <p>
+ * Hashing and comparing run in parallel over chunks of
+ * {@link #getChunkSize()} responses, reading the previous index only. The
+ * next index is built afterwards and replaces the previous one after the sink
+ * returned. The capture of one survey must not run concurrently.
+ *
+ * @author bhausen
+ */
+public class ResponseChangeCapture {
+	/** The response is unchanged. */
+	private static final byte UNCHANGED = 0;
+	/** The response is not in the index. */
+	private static final byte INSERTED = 1;
+	/** The hash of the response differs from the index. */
+	private static final byte UPDATED = 2;
+	/** The response id is not a number. */
+	private static final byte INVALID = 3;
+	/** The {@link RestClient} to call. */
+	private final RestClient client;
+	/** The {@link ChangeSink}. */
+	private final ChangeSink sink;
+	/** The content hash by response id, by sid of the survey. */
+	private final Map<Integer, LongLongHashMap> indexes = new ConcurrentHashMap<>();
+	/** The number of responses hashed by one task. */
+	private int chunkSize = 4096;
+	/**
+	 * <code>true</code> if responses missing in the export are passed as
+	 * deleted.
+	 */
+	private boolean detectDeletes = true;
+	/** The {@link ForkJoinPool} to hash in, the common pool if not set. */
+	private ForkJoinPool pool;
+
+	/**
+	 * @param client
+	 *            the {@link RestClient} to call.
+	 * @param sink
+	 *            the {@link ChangeSink}.
+	 */
+	public ResponseChangeCapture(final RestClient client,
+			final ChangeSink sink) {
+		if (Objects.isNull(client)) {
+			throw new IllegalStateException("Client not provided.");
+		} else if (Objects.isNull(sink)) {
+			throw new IllegalStateException("Sink not provided.");
+		}
+		this.client = client;
+		this.sink = sink;
+	}
+
+	/**
+	 * Exports the responses of the survey and passes the changes since the
+	 * last capture to the {@link ChangeSink}. The first capture of a survey
+	 * passes all responses as inserted, unless an index was set with
+	 * {@link #setIndex(int, LongLongHashMap)}.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param options
+	 *            the {@link ExportResponsesOptions}. Use the same fields with
+	 *            each capture, other fields change the hashes. If only a range
+	 *            of the responses is exported, disable
+	 *            {@link #setDetectDeletes(boolean)}.
+	 * @return the {@link ChangeCaptureResult}.
+	 * @throws IOException
+	 *             if the export or the sink failed. The index is not changed.
+	 */
+	public ChangeCaptureResult capture(final LimeSurveySession session,
+			final int surveyId, final ExportResponsesOptions options)
+			throws IOException {
+		final long start = System.nanoTime();
+		final List<ExportResponsesListEntryType> entries = new ArrayList<>();
+		final ExportResponsesResponseType envelope = this.client
+				.exportResponses(session, surveyId, options, entries::add)
+				.orElse(null);
+		LimeSurveyException.checkExport(envelope);
+		return this.apply(surveyId, entries, start);
+	}
+
+	/**
+	 * Compares the responses with the index of the survey and passes the
+	 * changes to the {@link ChangeSink}, e.g. for responses read from a file
+	 * with the {@link com.qpark.survey.lime.model.mapper.ExportResponsesCsvParser}.
+	 *
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param entries
+	 *            all (or, without delete detection, some) responses of the
+	 *            survey.
+	 * @return the {@link ChangeCaptureResult}.
+	 * @throws IOException
+	 *             if a response id is not a number or the sink failed. The
+	 *             index is not changed.
+	 */
+	public ChangeCaptureResult apply(final int surveyId,
+			final List<ExportResponsesListEntryType> entries)
+			throws IOException {
+		return this.apply(surveyId, entries, System.nanoTime());
+	}
+
+	private ChangeCaptureResult apply(final int surveyId,
+			final List<ExportResponsesListEntryType> entries, final long start)
+			throws IOException {
+		if (Objects.isNull(entries)) {
+			throw new IllegalStateException("Entries not provided.");
+		}
+		final long diffStart = System.nanoTime();
+		final LongLongHashMap previous = this.indexes.getOrDefault(surveyId,
+				new LongLongHashMap());
+		final int size = entries.size();
+		final long[] ids = new long[size];
+		final long[] hashes = new long[size];
+		final byte[] kinds = new byte[size];
+		this.diff(entries, previous, ids, hashes, kinds);
+
+		final LongLongHashMap next = this.detectDeletes
+				? new LongLongHashMap(Math.max(size, previous.size()))
+				: previous.copy();
+		int inserted = 0;
+		int updated = 0;
+		for (int i = 0; i < size; i++) {
+			if (kinds[i] == INVALID) {
+				throw new IOException(String.format(
+						"Response id %s of survey %s is not a number.",
+						entries.get(i).getId(), surveyId));
+			} else if (kinds[i] == INSERTED) {
+				inserted++;
+			} else if (kinds[i] == UPDATED) {
+				updated++;
+			}
+			next.put(ids[i], hashes[i]);
+		}
+		long[] deletes = new long[0];
+		if (this.detectDeletes && next.size() < previous.size() + inserted) {
+			final long[] keys = previous.keys();
+			int count = 0;
+			for (final long key : keys) {
+				if (!next.containsKey(key)) {
+					keys[count++] = key;
+				}
+			}
+			deletes = Arrays.copyOf(keys, count);
+		}
+		final long diffNanos = System.nanoTime() - diffStart;
+
+		for (int i = 0; i < size; i++) {
+			if (kinds[i] == INSERTED) {
+				this.sink.inserted(surveyId, entries.get(i));
+			} else if (kinds[i] == UPDATED) {
+				this.sink.updated(surveyId, entries.get(i));
+			}
+		}
+		for (final long id : deletes) {
+			final ExportResponsesListEntryType entry = new ExportResponsesListEntryType();
+			entry.setId(String.valueOf(id));
+			this.sink.deleted(surveyId, entry);
+		}
+		this.sink.flush(surveyId);
+		this.indexes.put(surveyId, next);
+		return new ChangeCaptureResult(surveyId, inserted, updated,
+				deletes.length, size - inserted - updated, diffNanos,
+				System.nanoTime() - start);
+	}
+
+	/**
+	 * Hashes the entries and compares them with the previous index, in
+	 * parallel chunks if there is more than one chunk.
+	 */
+	private void diff(final List<ExportResponsesListEntryType> entries,
+			final LongLongHashMap previous, final long[] ids,
+			final long[] hashes, final byte[] kinds) {
+		ChunkedTasks.invoke(this.pool, entries.size(), this.chunkSize,
+				(from, to) -> {
+					diff(entries, previous, ids, hashes, kinds, from, to);
+					return null;
+				});
+	}
+
+	private static void diff(final List<ExportResponsesListEntryType> entries,
+			final LongLongHashMap previous, final long[] ids,
+			final long[] hashes, final byte[] kinds, final int from,
+			final int to) {
+		for (int i = from; i < to; i++) {
+			final ExportResponsesListEntryType entry = entries.get(i);
+			try {
+				ids[i] = Long.parseLong(
+						Objects.isNull(entry.getId()) ? "" : entry.getId().trim());
+			} catch (final NumberFormatException e) {
+				kinds[i] = INVALID;
+				continue;
+			}
+			hashes[i] = ResponseHasher.hash(entry);
+			if (!previous.containsKey(ids[i])) {
+				kinds[i] = INSERTED;
+			} else if (previous.get(ids[i], 0) != hashes[i]) {
+				kinds[i] = UPDATED;
+			} else {
+				kinds[i] = UNCHANGED;
+			}
+		}
+	}
+
+	/**
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @return the content hash by response id of the last capture, e.g. to
+	 *         persist it. It must not be modified.
+	 */
+	public Optional<LongLongHashMap> getIndex(final int surveyId) {
+		return Optional.ofNullable(this.indexes.get(surveyId));
+	}
+
+	/**
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param index
+	 *            the content hash by response id, e.g. restored after a
+	 *            restart.
+	 */
+	public void setIndex(final int surveyId, final LongLongHashMap index) {
+		if (Objects.isNull(index)) {
+			throw new IllegalStateException("Index not provided.");
+		}
+		this.indexes.put(surveyId, index);
+	}
+
+	/**
+	 * Forgets the survey, the next capture passes all responses as inserted.
+	 *
+	 * @param surveyId
+	 *            the sid of the survey.
+	 */
+	public void removeIndex(final int surveyId) {
+		this.indexes.remove(surveyId);
+	}
+
+	/**
+	 * @return the number of responses hashed by one task.
+	 */
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	/**
+	 * @param chunkSize
+	 *            the number of responses hashed by one task.
+	 */
+	public void setChunkSize(final int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size needs to be > 0.");
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * @return <code>true</code> if responses missing in the export are passed
+	 *         as deleted.
+	 */
+	public boolean isDetectDeletes() {
+		return this.detectDeletes;
+	}
+
+	/**
+	 * @param detectDeletes
+	 *            <code>true</code> if responses missing in the export are
+	 *            passed as deleted. Disable it, if only a range of the
+	 *            responses is exported, the index then keeps the responses not
+	 *            exported.
+	 */
+	public void setDetectDeletes(final boolean detectDeletes) {
+		this.detectDeletes = detectDeletes;
+	}
+
+	/**
+	 * @return the {@link ForkJoinPool} to hash in or <code>null</code> to use
+	 *         the common pool.
+	 */
+	public ForkJoinPool getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * @param pool
+	 *            the {@link ForkJoinPool} to hash in or <code>null</code> to
+	 *            use the common pool.
+	 */
+	public void setPool(final ForkJoinPool pool) {
+		this.pool = pool;
+	}
+}
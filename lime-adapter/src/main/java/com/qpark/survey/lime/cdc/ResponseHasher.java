@@ -0,0 +1,104 @@
+package com.qpark.survey.lime.cdc;
+
+import java.util.List;
+import java.util.Objects;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * 64 bit content hash of an {@link ExportResponsesListEntryType}: FNV-1a over
+ * the characters of the fixed columns and of the answer keys and values in
+ * their order, non string values by {@link String#valueOf(Object)}. Each value
+ * is prefixed by its length or a marker for <code>null</code>, the result is
+ * finished by the MurmurHash3 finaliser. Equal responses give equal hashes, a
+ * change of any value, including from empty to <code>null</code>, changes the
+ * hash with a probability of 1 - 2<sup>-64</sup>.
+ * <p>
+ * The hash is not stable across changes of the column order or of the
+ * exported fields, e.g. another <i>fields</i> list in the
+ * {@link com.qpark.survey.lime.model.ExportResponsesOptions}.
+ *
+ * @author bhausen
+ */
+public final class ResponseHasher {
+	/** The FNV-1a 64 bit offset basis. */
+	private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+	/** The FNV-1a 64 bit prime. */
+	private static final long PRIME = 0x100000001b3L;
+	/** The length written for a <code>null</code> value. */
+	private static final int NULL_LENGTH = -1;
+
+	private ResponseHasher() {
+	}
+
+	/**
+	 * @param entry
+	 *            the {@link ExportResponsesListEntryType}.
+	 * @return the 64 bit content hash.
+	 */
+	public static long hash(final ExportResponsesListEntryType entry) {
+		long h = OFFSET_BASIS;
+		h = hash(h, entry.getId());
+		h = hash(h, entry.getLastpage());
+		h = hash(h, entry.getStartlanguage());
+		h = hash(h, entry.getToken());
+		h = hash(h, entry.getIpaddr());
+		h = hash(h, entry.getRefurl());
+		h = hash(h, entry.getSubmitdate());
+		h = hash(h, entry.getStartdate());
+		h = hash(h, entry.getDatestamp());
+		final List<PropertyType> answers = entry.getAnswers();
+		h = mix(h, answers.size());
+		for (int i = 0; i < answers.size(); i++) {
+			final PropertyType answer = answers.get(i);
+			h = hash(h, answer.getKey());
+			h = hash(h, answer.getValue());
+		}
+		return finish(h);
+	}
+
+	private static long hash(final long h, final XMLGregorianCalendar date) {
+		return Objects.isNull(date) ? mix(h, NULL_LENGTH)
+				: hash(h, date.toXMLFormat());
+	}
+
+	/** Values other than strings, e.g. JSON numbers, by their text. */
+	private static long hash(final long h, final Object value) {
+		return value instanceof String || Objects.isNull(value)
+				? hash(h, (String) value)
+				: hash(h, String.valueOf(value));
+	}
+
+	private static long hash(final long h, final String value) {
+		if (Objects.isNull(value)) {
+			return mix(h, NULL_LENGTH);
+		}
+		long value64 = mix(h, value.length());
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			value64 = (value64 ^ (c & 0xff)) * PRIME;
+			value64 = (value64 ^ c >>> 8) * PRIME;
+		}
+		return value64;
+	}
+
+	/** Mixes the four bytes of the int. */
+	private static long mix(long h, final int value) {
+		h = (h ^ (value & 0xff)) * PRIME;
+		h = (h ^ (value >>> 8 & 0xff)) * PRIME;
+		h = (h ^ (value >>> 16 & 0xff)) * PRIME;
+		return (h ^ value >>> 24) * PRIME;
+	}
+
+	/** The MurmurHash3 fmix64 finaliser. */
+	private static long finish(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		return h ^ h >>> 33;
+	}
+}
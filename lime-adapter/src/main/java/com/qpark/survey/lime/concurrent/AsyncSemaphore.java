@@ -0,0 +1,86 @@
+package com.qpark.survey.lime.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A semaphore which does not block the caller: {@link #acquire()} returns a
+ * {@link CompletableFuture} completing once a permit is available. Waiting
+ * acquirers are served in FIFO order.
+ *
+ * @author bhausen
+ */
+public class AsyncSemaphore {
+	/** The waiting acquirers. */
+	private final Deque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+	/** The number of permits. */
+	private final int permits;
+	/** The number of available permits. */
+	private int available;
+
+	/**
+	 * @param permits
+	 *            the number of permits.
+	 */
+	public AsyncSemaphore(final int permits) {
+		if (permits < 1) {
+			throw new IllegalArgumentException("Permits needs to be > 0.");
+		}
+		this.permits = permits;
+		this.available = permits;
+	}
+
+	/**
+	 * @return the {@link CompletableFuture} completing when the permit is
+	 *         granted.
+	 */
+	public synchronized CompletableFuture<Void> acquire() {
+		if (this.available > 0) {
+			this.available--;
+			return CompletableFuture.completedFuture(null);
+		}
+		final CompletableFuture<Void> value = new CompletableFuture<>();
+		this.waiting.add(value);
+		return value;
+	}
+
+	/**
+	 * Release a permit. The permit is handed over to the next waiting
+	 * acquirer, if any.
+	 */
+	public void release() {
+		CompletableFuture<Void> next;
+		synchronized (this) {
+			next = this.waiting.poll();
+			if (Objects.isNull(next)) {
+				this.available = Math.min(this.available + 1, this.permits);
+			}
+		}
+		if (Objects.nonNull(next)) {
+			next.complete(null);
+		}
+	}
+
+	/**
+	 * @return the number of permits.
+	 */
+	public int getPermits() {
+		return this.permits;
+	}
+
+	/**
+	 * @return the number of permits in use.
+	 */
+	public synchronized int getInUse() {
+		return this.permits - this.available;
+	}
+
+	/**
+	 * @return the number of waiting acquirers.
+	 */
+	public synchronized int getWaiting() {
+		return this.waiting.size();
+	}
+}
@@ -0,0 +1,71 @@
+package com.qpark.survey.lime.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs a computation over the index range of a list in parallel chunks of a
+ * {@link ForkJoinPool}. A range of one chunk runs on the calling thread.
+ *
+ * @author bhausen
+ */
+public final class ChunkedTasks {
+	/**
+	 * The computation of one chunk.
+	 *
+	 * @param <T>
+	 *            the result of the chunk.
+	 */
+	@FunctionalInterface
+	public interface Chunk<T> {
+		/**
+		 * @param from
+		 *            the first index of the chunk.
+		 * @param to
+		 *            the end index (exclusive) of the chunk.
+		 * @return the result of the chunk.
+		 */
+		T apply(int from, int to);
+	}
+
+	private ChunkedTasks() {
+	}
+
+	/**
+	 * @param pool
+	 *            the {@link ForkJoinPool} or <code>null</code> to use the
+	 *            common pool.
+	 * @param size
+	 *            the size of the index range starting at 0.
+	 * @param chunkSize
+	 *            the maximum number of indices of a chunk.
+	 * @param chunk
+	 *            the {@link Chunk} computation.
+	 * @return the results of the chunks in index order.
+	 */
+	public static <T> List<T> invoke(final ForkJoinPool pool, final int size,
+			final int chunkSize, final Chunk<T> chunk) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size needs to be > 0.");
+		}
+		if (size <= chunkSize) {
+			return Collections.singletonList(chunk.apply(0, size));
+		}
+		final ForkJoinPool executor = Objects.isNull(pool)
+				? ForkJoinPool.commonPool()
+				: pool;
+		final List<ForkJoinTask<T>> tasks = new ArrayList<>();
+		for (int from = 0; from < size; from += chunkSize) {
+			final int chunkFrom = from;
+			final int chunkTo = Math.min(size, from + chunkSize);
+			tasks.add(executor.submit(() -> chunk.apply(chunkFrom, chunkTo)));
+		}
+		final List<T> value = new ArrayList<>(tasks.size());
+		tasks.forEach(task -> value.add(task.join()));
+		return value;
+	}
+}
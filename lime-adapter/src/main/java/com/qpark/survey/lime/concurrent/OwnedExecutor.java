@@ -0,0 +1,76 @@
+package com.qpark.survey.lime.concurrent;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link ExecutorService} of a component running calls in parallel. If
+ * none is set, a cached pool of daemon threads is created on first use and
+ * shut down by {@link #close()}. A set executor belongs to the caller and is
+ * not shut down.
+ *
+ * @author bhausen
+ */
+public class OwnedExecutor {
+	/** The name prefix of the created threads. */
+	private final String threadName;
+	/** The executor, <code>null</code> before the first use. */
+	private ExecutorService executor;
+	/** <code>true</code> if the executor is created by this. */
+	private boolean own;
+
+	/**
+	 * @param threadName
+	 *            the name prefix of the created threads, e.g.
+	 *            <i>lime-endpoint</i>.
+	 */
+	public OwnedExecutor(final String threadName) {
+		this.threadName = Objects.requireNonNull(threadName);
+	}
+
+	/**
+	 * @return the set executor or the pool of daemon threads created on first
+	 *         use.
+	 */
+	public synchronized ExecutorService get() {
+		if (Objects.isNull(this.executor)) {
+			final AtomicInteger threads = new AtomicInteger();
+			this.executor = Executors.newCachedThreadPool(r -> {
+				final Thread t = new Thread(r, String.format("%s-%s",
+						this.threadName, threads.incrementAndGet()));
+				t.setDaemon(true);
+				return t;
+			});
+			this.own = true;
+		}
+		return this.executor;
+	}
+
+	/**
+	 * Shuts the created pool down, if any, and uses the executor.
+	 *
+	 * @param executor
+	 *            the executor. It is not shut down by {@link #close()},
+	 *            <code>null</code> creates a pool on the next use.
+	 */
+	public synchronized void set(final ExecutorService executor) {
+		if (this.own) {
+			this.executor.shutdown();
+		}
+		this.executor = executor;
+		this.own = false;
+	}
+
+	/**
+	 * Shuts the created pool down, if any. The next use creates a new one.
+	 */
+	public synchronized void close() {
+		if (this.own) {
+			this.executor.shutdownNow();
+			this.executor = null;
+			this.own = false;
+		}
+	}
+}
@@ -1,52 +1,96 @@
 package com.qpark.survey.lime.config;
 
-import java.text.SimpleDateFormat;
-
+import org.apache.http.nio.reactor.IOReactorException;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+import com.qpark.survey.lime.AsyncRestClient;
 import com.qpark.survey.lime.RestClient;
-import com.qpark.survey.lime.model.mapper.CustomBooleanDeserializer;
+import com.qpark.survey.lime.cache.SurveyMetadataCache;
+import com.qpark.survey.lime.endpoint.EndpointRegistry;
+import com.qpark.survey.lime.endpoint.EndpointRegistryProperties;
+import com.qpark.survey.lime.limit.ConcurrencyLimiters;
+import com.qpark.survey.lime.limit.LimitProperties;
+import com.qpark.survey.lime.limit.RetryPolicy;
+import com.qpark.survey.lime.limit.RetryProperties;
+import com.qpark.survey.lime.metrics.MetricsRegistry;
+import com.qpark.survey.lime.metrics.NoopMetricsRegistry;
 import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.mapper.ObjectMapperFactory;
+import com.qpark.survey.lime.model.mapper.ObjectMapperProperties;
+import com.qpark.survey.lime.participant.ParticipantBulkClient;
+import com.qpark.survey.lime.participant.ParticipantProperties;
+import com.qpark.survey.lime.session.SessionManager;
+import com.qpark.survey.lime.transport.AsyncHttpTransport;
+import com.qpark.survey.lime.transport.HttpTransport;
+import com.qpark.survey.lime.transport.HttpTransportProperties;
 
 /**
- * The spring configuration bean of the lime adapter.
+ * The spring configuration bean of the lime adapter. It is a thin layer
+ * binding the <i>lime.*</i> properties and wiring the adapter classes by
+ * their constructors. Applications without spring use the
+ * {@link com.qpark.survey.lime.bootstrap.LimeAdapter} instead.
  *
  * @author bhausen
  */
 @Configuration
+@EnableConfigurationProperties
 public class SpringConfig {
+	/**
+	 * @return the {@link ObjectMapperProperties} of the lime adapter, bound to
+	 *         the properties <i>lime.mapper.*</i>.
+	 */
+	@Bean(name = "limeObjectMapperProperties")
+	@ConfigurationProperties(prefix = "lime.mapper")
+	public ObjectMapperProperties limeObjectMapperProperties() {
+		final ObjectMapperProperties bean = new ObjectMapperProperties();
+		return bean;
+	}
+
 	/**
 	 * @return the {@link ObjectMapper} of the lime adapter.
 	 */
 	@Bean(name = "limeObjectMapper")
 	public ObjectMapper limeObjectMapper() {
-		final ObjectMapper bean = new ObjectMapper();
-		bean.configure(
-				DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT,
-				true);
-		bean.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
-				false);
-		final SimpleModule module = new SimpleModule();
-		module.addDeserializer(boolean.class, new CustomBooleanDeserializer());
-		bean.registerModule(module);
-		bean.setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
-		bean.setAnnotationIntrospector(
-				new JaxbAnnotationIntrospector(bean.getTypeFactory()));
+		final ObjectMapper bean = ObjectMapperFactory
+				.create(this.limeObjectMapperProperties());
 		return bean;
 	}
 
 	/**
 	 * @return the {@link Mapper} of the lime adapter.
 	 */
-	@Bean
+	@Bean(name = "limeMapper")
 	public Mapper limeMapper() {
-		final Mapper bean = new Mapper();
+		final Mapper bean = new Mapper(this.limeObjectMapper());
+		return bean;
+	}
+
+	/**
+	 * @return the {@link HttpTransportProperties} of the lime adapter, bound
+	 *         to the properties <i>lime.transport.*</i>.
+	 */
+	@Bean(name = "limeHttpTransportProperties")
+	@ConfigurationProperties(prefix = "lime.transport")
+	public HttpTransportProperties limeHttpTransportProperties() {
+		final HttpTransportProperties bean = new HttpTransportProperties();
+		return bean;
+	}
+
+	/**
+	 * @return the pooled {@link HttpTransport} of the lime adapter.
+	 */
+	@Bean(name = "limeHttpTransport")
+	public HttpTransport limeHttpTransport() {
+		final HttpTransport bean = new HttpTransport(
+				this.limeHttpTransportProperties());
 		return bean;
 	}
 
@@ -54,8 +98,106 @@ public class SpringConfig {
 	 * @return the {@link RestTemplate} of the lime adapter.
 	 */
 	@Bean(name = "limeRestTemplate")
+	@DependsOn("limeHttpTransport")
 	public RestTemplate limeRestTemplate() {
-		final RestTemplate bean = new RestTemplate();
+		final RestTemplate bean = new RestTemplate(
+				this.limeHttpTransport().createRequestFactory());
+		return bean;
+	}
+
+	/**
+	 * @return the non-blocking {@link AsyncHttpTransport} of the lime
+	 *         adapter. It is created lazily, with its I/O reactor threads,
+	 *         when the {@link AsyncRestClient} is first used.
+	 * @throws IOReactorException
+	 */
+	@Bean(name = "limeAsyncHttpTransport")
+	@Lazy
+	public AsyncHttpTransport limeAsyncHttpTransport()
+			throws IOReactorException {
+		final AsyncHttpTransport bean = new AsyncHttpTransport(
+				this.limeHttpTransportProperties());
+		return bean;
+	}
+
+	/**
+	 * @return the {@link AsyncRestTemplate} of the lime adapter.
+	 * @throws IOReactorException
+	 */
+	@Bean(name = "limeAsyncRestTemplate")
+	@DependsOn("limeAsyncHttpTransport")
+	@Lazy
+	public AsyncRestTemplate limeAsyncRestTemplate()
+			throws IOReactorException {
+		final AsyncRestTemplate bean = new AsyncRestTemplate(
+				this.limeAsyncHttpTransport().createRequestFactory());
+		return bean;
+	}
+
+	/**
+	 * @return the {@link AsyncRestClient} of the lime adapter, sharing the
+	 *         limiters, retry policy and metrics of the {@link RestClient}.
+	 *         Inject it with {@link Lazy} to not start the I/O reactor before
+	 *         the first call.
+	 * @throws IOReactorException
+	 */
+	@Bean(name = "limeAsyncRestClient")
+	@Lazy
+	public AsyncRestClient limeAsyncRestClient() throws IOReactorException {
+		final AsyncRestClient bean = new AsyncRestClient(
+				this.limeAsyncRestTemplate(), this.limeRestClient());
+		return bean;
+	}
+
+	/**
+	 * @return the {@link MetricsRegistry} of the {@link RestClient}, disabled
+	 *         by default. Define a bean with this name to collect the
+	 *         metrics, e.g. a {@link com.qpark.survey.lime.metrics.SimpleMetricsRegistry}.
+	 */
+	@Bean(name = "limeMetricsRegistry")
+	public MetricsRegistry limeMetricsRegistry() {
+		final MetricsRegistry bean = NoopMetricsRegistry.INSTANCE;
+		return bean;
+	}
+
+	/**
+	 * @return the {@link LimitProperties} of the lime adapter, bound to the
+	 *         properties <i>lime.limit.*</i>.
+	 */
+	@Bean(name = "limeLimitProperties")
+	@ConfigurationProperties(prefix = "lime.limit")
+	public LimitProperties limeLimitProperties() {
+		final LimitProperties bean = new LimitProperties();
+		return bean;
+	}
+
+	/**
+	 * @return the {@link ConcurrencyLimiters} of the {@link RestClient}s.
+	 */
+	@Bean(name = "limeConcurrencyLimiters")
+	public ConcurrencyLimiters limeConcurrencyLimiters() {
+		final ConcurrencyLimiters bean = new ConcurrencyLimiters(
+				this.limeLimitProperties());
+		return bean;
+	}
+
+	/**
+	 * @return the {@link RetryProperties} of the lime adapter, bound to the
+	 *         properties <i>lime.retry.*</i>.
+	 */
+	@Bean(name = "limeRetryProperties")
+	@ConfigurationProperties(prefix = "lime.retry")
+	public RetryProperties limeRetryProperties() {
+		final RetryProperties bean = new RetryProperties();
+		return bean;
+	}
+
+	/**
+	 * @return the {@link RetryPolicy} of the {@link RestClient}s.
+	 */
+	@Bean(name = "limeRetryPolicy")
+	public RetryPolicy limeRetryPolicy() {
+		final RetryPolicy bean = new RetryPolicy(this.limeRetryProperties());
 		return bean;
 	}
 
@@ -64,7 +206,79 @@ public class SpringConfig {
 	 */
 	@Bean(name = "limeRestClient")
 	public RestClient limeRestClient() {
-		final RestClient bean = new RestClient();
+		final RestClient bean = new RestClient(this.limeRestTemplate(),
+				this.limeMapper());
+		bean.setMetricsRegistry(this.limeMetricsRegistry());
+		bean.setConcurrencyLimiters(this.limeConcurrencyLimiters());
+		bean.setRetryPolicy(this.limeRetryPolicy());
+		return bean;
+	}
+
+	/**
+	 * @return the {@link SessionManager} of the lime adapter. All sessions are
+	 *         released when the context closes.
+	 */
+	@Bean(name = "limeSessionManager")
+	@DependsOn("limeRestClient")
+	public SessionManager limeSessionManager() {
+		final SessionManager bean = new SessionManager(this.limeRestClient());
+		return bean;
+	}
+
+	/**
+	 * @return the {@link SurveyMetadataCache} of the lime adapter.
+	 */
+	@Bean(name = "limeSurveyMetadataCache")
+	public SurveyMetadataCache limeSurveyMetadataCache() {
+		final SurveyMetadataCache bean = new SurveyMetadataCache(
+				this.limeRestClient());
+		return bean;
+	}
+
+	/**
+	 * @return the {@link ParticipantProperties} of the lime adapter, bound to
+	 *         the properties <i>lime.participant.*</i>.
+	 */
+	@Bean(name = "limeParticipantProperties")
+	@ConfigurationProperties(prefix = "lime.participant")
+	public ParticipantProperties limeParticipantProperties() {
+		final ParticipantProperties bean = new ParticipantProperties();
+		return bean;
+	}
+
+	/**
+	 * @return the {@link ParticipantBulkClient} of the lime adapter.
+	 */
+	@Bean(name = "limeParticipantBulkClient")
+	public ParticipantBulkClient limeParticipantBulkClient() {
+		final ParticipantBulkClient bean = new ParticipantBulkClient(
+				this.limeRestClient(), this.limeParticipantProperties());
+		return bean;
+	}
+
+	/**
+	 * @return the {@link EndpointRegistryProperties} of the lime adapter,
+	 *         bound to the properties <i>lime.registry.*</i>, e.g.
+	 *         <i>lime.registry.endpoints[0].url</i>.
+	 */
+	@Bean(name = "limeEndpointRegistryProperties")
+	@ConfigurationProperties(prefix = "lime.registry")
+	public EndpointRegistryProperties limeEndpointRegistryProperties() {
+		final EndpointRegistryProperties bean = new EndpointRegistryProperties();
+		return bean;
+	}
+
+	/**
+	 * @return the {@link EndpointRegistry} of the configured lime survey
+	 *         instances. The end points are closed when the context closes.
+	 */
+	@Bean(name = "limeEndpointRegistry")
+	public EndpointRegistry limeEndpointRegistry() {
+		final EndpointRegistry bean = new EndpointRegistry(this.limeMapper(),
+				this.limeMetricsRegistry());
+		bean.setConcurrencyLimiters(this.limeConcurrencyLimiters());
+		bean.setRetryPolicy(this.limeRetryPolicy());
+		bean.registerAll(this.limeEndpointRegistryProperties());
 		return bean;
 	}
 }
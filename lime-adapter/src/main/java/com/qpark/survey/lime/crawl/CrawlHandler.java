@@ -0,0 +1,39 @@
+package com.qpark.survey.lime.crawl;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ListQuestionsResponseType;
+import com.qpark.survey.lime.model.v25.ListSurveysEntryType;
+
+/**
+ * Receives the results of the {@link SurveyCrawler}. The methods are called
+ * concurrently from the worker threads, each survey from one thread only.
+ *
+ * @author bhausen
+ */
+public interface CrawlHandler {
+	/**
+	 * Called after <i>list_questions</i> of the survey returned.
+	 *
+	 * @param survey
+	 *            the {@link ListSurveysEntryType}.
+	 * @param questions
+	 *            the questions of the survey.
+	 * @return the {@link Consumer} of the exported responses of the survey.
+	 * @throws IOException
+	 */
+	Consumer<ExportResponsesListEntryType> begin(ListSurveysEntryType survey,
+			Optional<ListQuestionsResponseType> questions) throws IOException;
+
+	/**
+	 * Called after the survey job finished or failed.
+	 *
+	 * @param result
+	 *            the {@link SurveyCrawlResult}.
+	 */
+	default void end(final SurveyCrawlResult result) {
+	}
+}
@@ -0,0 +1,55 @@
+package com.qpark.survey.lime.crawl;
+
+import java.util.Map;
+import java.util.Objects;
+
+import com.qpark.survey.lime.model.v25.ListSurveysEntryType;
+import com.qpark.survey.lime.sync.SyncCursor;
+import com.qpark.survey.lime.sync.SyncCursorStore;
+
+/**
+ * The priority of a survey job of the {@link SurveyCrawler}. Jobs with a
+ * higher priority are started first.
+ *
+ * @author bhausen
+ */
+@FunctionalInterface
+public interface CrawlPriority {
+	/**
+	 * @param survey
+	 *            the {@link ListSurveysEntryType}.
+	 * @return the priority, higher first.
+	 */
+	long of(ListSurveysEntryType survey);
+
+	/**
+	 * Surveys with the most responses first. Starting the longest jobs first
+	 * keeps the tail of the crawl short. Surveys with unknown count are
+	 * started before all others.
+	 *
+	 * @param responseCounts
+	 *            the response counts by survey id, e.g.
+	 *            {@link SurveyCrawler#getResponseCounts()}.
+	 * @return the {@link CrawlPriority}.
+	 */
+	static CrawlPriority byResponseCount(
+			final Map<Integer, Long> responseCounts) {
+		return survey -> responseCounts.getOrDefault(survey.getSid(),
+				Long.MAX_VALUE);
+	}
+
+	/**
+	 * Surveys synchronised longest ago first, never synchronised surveys
+	 * before all others.
+	 *
+	 * @param store
+	 *            the {@link SyncCursorStore} of the
+	 *            {@link com.qpark.survey.lime.sync.ResponseSyncEngine}.
+	 * @return the {@link CrawlPriority}.
+	 */
+	static CrawlPriority byStaleness(final SyncCursorStore store) {
+		Objects.requireNonNull(store);
+		return survey -> -store.get(survey.getSid())
+				.map(SyncCursor::getLastSyncTime).orElse(Long.MIN_VALUE + 1);
+	}
+}
@@ -0,0 +1,80 @@
+package com.qpark.survey.lime.crawl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The results of a run of the {@link SurveyCrawler}.
+ *
+ * @author bhausen
+ */
+public class CrawlReport {
+	/** The {@link SurveyCrawlResult}s in priority order. */
+	private final List<SurveyCrawlResult> results;
+	/** The nanoseconds of the whole crawl. */
+	private final long elapsedNanos;
+
+	CrawlReport(final List<SurveyCrawlResult> results,
+			final long elapsedNanos) {
+		this.results = Collections.unmodifiableList(results);
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * @return the {@link SurveyCrawlResult}s in priority order.
+	 */
+	public List<SurveyCrawlResult> getResults() {
+		return this.results;
+	}
+
+	/**
+	 * @return the number of succeeded jobs.
+	 */
+	public long getSucceeded() {
+		return this.results.stream().filter(SurveyCrawlResult::isSuccess)
+				.count();
+	}
+
+	/**
+	 * @return the number of failed jobs.
+	 */
+	public long getFailed() {
+		return this.results.size() - this.getSucceeded();
+	}
+
+	/**
+	 * @return the number of exported responses of all surveys.
+	 */
+	public long getResponseCount() {
+		return this.results.stream()
+				.mapToLong(SurveyCrawlResult::getResponseCount).sum();
+	}
+
+	/**
+	 * @return the milliseconds of the whole crawl.
+	 */
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos);
+	}
+
+	/**
+	 * @return the summed milliseconds of all jobs, divided by
+	 *         {@link #getElapsedMillis()} this is the achieved parallelism.
+	 */
+	public long getJobMillis() {
+		return this.results.stream().mapToLong(SurveyCrawlResult::getTotalMillis)
+				.sum();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+				"%s surveys (%s failed), %s responses in %sms, %sms job time",
+				this.results.size(), this.getFailed(), this.getResponseCount(),
+				this.getElapsedMillis(), this.getJobMillis());
+	}
+}
@@ -0,0 +1,231 @@
+package com.qpark.survey.lime.crawl;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The result and the timings of one survey job of the {@link SurveyCrawler}.
+ *
+ * @author bhausen
+ */
+public class SurveyCrawlResult {
+	private int surveyId;
+	private String title;
+	private long priority;
+	private long responseCount;
+	private String status;
+	private Throwable failure;
+	private long queuedNanos;
+	private long waitNanos;
+	private long questionsNanos;
+	private long responsesNanos;
+	private long totalNanos;
+	private String threadName;
+
+	/**
+	 * @return the survey id.
+	 */
+	public int getSurveyId() {
+		return this.surveyId;
+	}
+
+	/**
+	 * @param surveyId
+	 *            the survey id.
+	 */
+	public void setSurveyId(final int surveyId) {
+		this.surveyId = surveyId;
+	}
+
+	/**
+	 * @return the survey title.
+	 */
+	public String getTitle() {
+		return this.title;
+	}
+
+	/**
+	 * @param title
+	 *            the survey title.
+	 */
+	public void setTitle(final String title) {
+		this.title = title;
+	}
+
+	/**
+	 * @return the priority of the job.
+	 */
+	public long getPriority() {
+		return this.priority;
+	}
+
+	/**
+	 * @param priority
+	 *            the priority of the job.
+	 */
+	public void setPriority(final long priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * @return the number of exported responses.
+	 */
+	public long getResponseCount() {
+		return this.responseCount;
+	}
+
+	/**
+	 * @param responseCount
+	 *            the number of exported responses.
+	 */
+	public void setResponseCount(final long responseCount) {
+		this.responseCount = responseCount;
+	}
+
+	/**
+	 * @return the error or status returned by <i>export_responses</i> instead
+	 *         of responses, e.g. <i>No Data, survey table does not exist.</i>
+	 */
+	public String getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * @param status
+	 *            the error or status returned by <i>export_responses</i>.
+	 */
+	public void setStatus(final String status) {
+		this.status = status;
+	}
+
+	/**
+	 * @return the failure of the job.
+	 */
+	public Optional<Throwable> getFailure() {
+		return Optional.ofNullable(this.failure);
+	}
+
+	/**
+	 * @param failure
+	 *            the failure of the job.
+	 */
+	public void setFailure(final Throwable failure) {
+		this.failure = failure;
+	}
+
+	/**
+	 * @return <code>true</code> if the job did not fail.
+	 */
+	public boolean isSuccess() {
+		return Objects.isNull(this.failure);
+	}
+
+	/**
+	 * @return the milliseconds between submit and start of the job.
+	 */
+	public long getQueuedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.queuedNanos);
+	}
+
+	/**
+	 * @param queuedNanos
+	 *            the nanoseconds between submit and start of the job.
+	 */
+	public void setQueuedNanos(final long queuedNanos) {
+		this.queuedNanos = queuedNanos;
+	}
+
+	/**
+	 * @return the milliseconds waited for a free request slot of the end
+	 *         point.
+	 */
+	public long getWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.waitNanos);
+	}
+
+	/**
+	 * @param waitNanos
+	 *            the nanoseconds waited for a free request slot of the end
+	 *            point.
+	 */
+	public void setWaitNanos(final long waitNanos) {
+		this.waitNanos = waitNanos;
+	}
+
+	/**
+	 * @return the milliseconds of <i>list_questions</i>.
+	 */
+	public long getQuestionsMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.questionsNanos);
+	}
+
+	/**
+	 * @param questionsNanos
+	 *            the nanoseconds of <i>list_questions</i>.
+	 */
+	public void setQuestionsNanos(final long questionsNanos) {
+		this.questionsNanos = questionsNanos;
+	}
+
+	/**
+	 * @return the milliseconds of <i>export_responses</i> including the
+	 *         consumer.
+	 */
+	public long getResponsesMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.responsesNanos);
+	}
+
+	/**
+	 * @param responsesNanos
+	 *            the nanoseconds of <i>export_responses</i> including the
+	 *            consumer.
+	 */
+	public void setResponsesNanos(final long responsesNanos) {
+		this.responsesNanos = responsesNanos;
+	}
+
+	/**
+	 * @return the milliseconds from start to end of the job.
+	 */
+	public long getTotalMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.totalNanos);
+	}
+
+	/**
+	 * @param totalNanos
+	 *            the nanoseconds from start to end of the job.
+	 */
+	public void setTotalNanos(final long totalNanos) {
+		this.totalNanos = totalNanos;
+	}
+
+	/**
+	 * @return the name of the worker thread.
+	 */
+	public String getThreadName() {
+		return this.threadName;
+	}
+
+	/**
+	 * @param threadName
+	 *            the name of the worker thread.
+	 */
+	public void setThreadName(final String threadName) {
+		this.threadName = threadName;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+				"Survey %s: %s responses, queued %sms, wait %sms, questions %sms, responses %sms, total %sms%s",
+				this.surveyId, this.responseCount, this.getQueuedMillis(),
+				this.getWaitMillis(), this.getQuestionsMillis(),
+				this.getResponsesMillis(), this.getTotalMillis(),
+				Objects.isNull(this.failure) ? ""
+						: ", failed: " + this.failure);
+	}
+}
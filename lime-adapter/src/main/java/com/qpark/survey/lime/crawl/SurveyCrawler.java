@@ -0,0 +1,411 @@
+package com.qpark.survey.lime.crawl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.ListQuestionsResponseType;
+import com.qpark.survey.lime.model.v25.ListSurveysEntryType;
+
+/**
+ * Crawls the questions and responses of all surveys of a session in
+ * parallel. Each survey is one job running <i>list_questions</i> followed by
+ * the streaming <i>export_responses</i>. The jobs are submitted in
+ * {@link CrawlPriority} order to a fixed thread pool, which starts them in
+ * this order. The jobs block on the HTTP calls, so the pool is a plain
+ * {@link ExecutorService}: an interrupted crawl cancels the queued jobs and
+ * interrupts the running ones. The number of requests in flight per end
+ * point is bounded by {@link #getMaxConcurrentRequests()}, independent of the
+ * pool size.
+ * <p>
+ * The export of a survey is read completely into memory and the request slot
+ * released before the responses are passed to the {@link CrawlHandler}, so a
+ * slow handler does not keep the server busy. With {@link #isStreaming()} the
+ * responses are passed while the HTTP response is read, keeping one response
+ * in memory, and the request slot is held until the handler consumed all.
+ * <p>
+ * A failing job is reported in its {@link SurveyCrawlResult} and does not
+ * affect the other jobs. The response count of each job is remembered and
+ * used as default priority of the next crawl.
+ *
+ * @author bhausen
+ */
+public class SurveyCrawler {
+	/** The {@link Logger}. */
+	private final Logger logger = LoggerFactory.getLogger(SurveyCrawler.class);
+	/** The {@link RestClient} to call. */
+	private final RestClient client;
+	/** The request slots by end point. */
+	private final Map<String, Semaphore> endPoints = new ConcurrentHashMap<>();
+	/** The response counts of the last crawl by survey id. */
+	private final Map<Integer, Long> responseCounts = new ConcurrentHashMap<>();
+	/** The number of worker threads. */
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	/** The maximum number of requests in flight per end point. */
+	private int maxConcurrentRequests = 4;
+	/** The {@link CrawlPriority}, <code>null</code> uses the response counts. */
+	private CrawlPriority priority;
+	/** The filter of the surveys to crawl. */
+	private Predicate<ListSurveysEntryType> filter = ListSurveysEntryType::isActive;
+	/** The language of the export. */
+	private Optional<String> language = Optional.of("en");
+	/** The {@link ExecutorService} to use instead of a pool per crawl. */
+	private ExecutorService executor;
+	/** Pass the responses to the handler while the export is read. */
+	private boolean streaming;
+
+	/**
+	 * @param client
+	 *            the {@link RestClient} to call.
+	 */
+	public SurveyCrawler(final RestClient client) {
+		this.client = Objects.requireNonNull(client);
+	}
+
+	/**
+	 * Crawl all surveys of the session passing the {@link #getFilter()}.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param handler
+	 *            the {@link CrawlHandler}.
+	 * @return the {@link CrawlReport}.
+	 * @throws IOException
+	 *             if <i>list_surveys</i> fails.
+	 */
+	public CrawlReport crawl(final LimeSurveySession session,
+			final CrawlHandler handler) throws IOException {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (Objects.isNull(handler)) {
+			throw new IllegalStateException("Handler not provided.");
+		}
+		final long start = System.nanoTime();
+		final Semaphore requests = this.getRequestSlots(session);
+		final List<ListSurveysEntryType> surveys = new ArrayList<>();
+		this.acquire(requests);
+		try {
+			this.client.listSurveys(session).ifPresent(
+					response -> response.getResult().stream()
+							.filter(this.filter).forEach(surveys::add));
+		} finally {
+			requests.release();
+		}
+		final CrawlPriority p = Objects.isNull(this.priority)
+				? CrawlPriority.byResponseCount(this.responseCounts)
+				: this.priority;
+		final List<SurveyCrawlResult> results = new ArrayList<>(
+				surveys.size());
+		final List<Future<?>> tasks = new ArrayList<>(surveys.size());
+		final ExecutorService ex = Objects.isNull(this.executor)
+				? this.createExecutor() : this.executor;
+		try {
+			surveys.stream().map(survey -> {
+				final SurveyCrawlResult result = new SurveyCrawlResult();
+				result.setSurveyId(survey.getSid());
+				result.setTitle(survey.getSurveylsTitle());
+				result.setPriority(p.of(survey));
+				return new SurveyJob(survey, result);
+			}).sorted(Comparator.comparingLong(
+					(final SurveyJob job) -> job.result.getPriority())
+					.reversed())
+					.forEachOrdered(job -> {
+						results.add(job.result);
+						final long submitted = System.nanoTime();
+						tasks.add(ex.submit(() -> this.run(session,
+								requests, handler, job, submitted)));
+					});
+			for (final Future<?> task : tasks) {
+				try {
+					task.get();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					tasks.forEach(t -> t.cancel(true));
+					throw new InterruptedIOException(e.getMessage());
+				} catch (final ExecutionException e) {
+					/* Errors only, run catches the exceptions. */
+					this.logger.error("Crawl job failed", e.getCause());
+				}
+			}
+		} finally {
+			if (ex != this.executor) {
+				ex.shutdown();
+			}
+		}
+		final CrawlReport report = new CrawlReport(results,
+				System.nanoTime() - start);
+		this.logger.info("Crawl finished: {}", report);
+		return report;
+	}
+
+	/** A survey job with its result. */
+	private static final class SurveyJob {
+		final ListSurveysEntryType survey;
+		final SurveyCrawlResult result;
+
+		SurveyJob(final ListSurveysEntryType survey,
+				final SurveyCrawlResult result) {
+			this.survey = survey;
+			this.result = result;
+		}
+	}
+
+	private void run(final LimeSurveySession session,
+			final Semaphore requests, final CrawlHandler handler,
+			final SurveyJob job, final long submitted) {
+		final long start = System.nanoTime();
+		final SurveyCrawlResult result = job.result;
+		result.setQueuedNanos(start - submitted);
+		result.setThreadName(Thread.currentThread().getName());
+		final int surveyId = job.survey.getSid();
+		long wait = 0;
+		try {
+			long t0 = System.nanoTime();
+			this.acquire(requests);
+			long t1 = System.nanoTime();
+			wait += t1 - t0;
+			final Optional<ListQuestionsResponseType> questions;
+			try {
+				questions = this.client.getListQuestions(session, surveyId,
+						this.language);
+			} finally {
+				requests.release();
+			}
+			result.setQuestionsNanos(System.nanoTime() - t1);
+			final Consumer<ExportResponsesListEntryType> consumer = handler
+					.begin(job.survey, questions);
+			final LongAdder count = new LongAdder();
+			t0 = System.nanoTime();
+			this.acquire(requests);
+			t1 = System.nanoTime();
+			wait += t1 - t0;
+			Optional<ExportResponsesResponseType> export;
+			try {
+				if (this.streaming) {
+					export = this.client.exportResponses(session, surveyId,
+							this.language, entry -> {
+								count.increment();
+								consumer.accept(entry);
+							});
+				} else {
+					export = this.client.getExportResponses(session,
+							surveyId, this.language);
+				}
+			} finally {
+				requests.release();
+			}
+			if (!this.streaming && export.isPresent()) {
+				final List<ExportResponsesListEntryType> responses = export
+						.get().getResponses();
+				for (int i = 0; i < responses.size(); i++) {
+					count.increment();
+					consumer.accept(responses.set(i, null));
+				}
+				responses.clear();
+			}
+			result.setResponsesNanos(System.nanoTime() - t1);
+			result.setResponseCount(count.sum());
+			export.map(ExportResponsesResponseType::getError)
+					.ifPresent(result::setStatus);
+			this.responseCounts.put(surveyId, count.sum());
+		} catch (final IOException | RuntimeException e) {
+			result.setFailure(e);
+			this.logger.warn("Crawl of survey {} failed: {}", surveyId,
+					e.getMessage());
+		} finally {
+			result.setWaitNanos(wait);
+			result.setTotalNanos(System.nanoTime() - start);
+			this.logger.debug("{}", result);
+			try {
+				handler.end(result);
+			} catch (final RuntimeException e) {
+				this.logger.warn("Crawl handler failed on survey {}: {}",
+						surveyId, e.getMessage());
+			}
+		}
+	}
+
+	private ExecutorService createExecutor() {
+		final AtomicInteger threads = new AtomicInteger();
+		return Executors.newFixedThreadPool(this.parallelism, r -> {
+			final Thread t = new Thread(r,
+					String.format("lime-crawl-%s", threads.incrementAndGet()));
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	private Semaphore getRequestSlots(final LimeSurveySession session) {
+		final String endPointUrl = Objects.nonNull(session.getEndPointUrl())
+				? session.getEndPointUrl()
+				: this.client.getEndPointUrl();
+		return this.endPoints.computeIfAbsent(String.valueOf(endPointUrl),
+				url -> new Semaphore(this.maxConcurrentRequests, true));
+	}
+
+	private void acquire(final Semaphore requests) throws IOException {
+		try {
+			requests.acquire();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the response counts of the previous crawls by survey id.
+	 */
+	public Map<Integer, Long> getResponseCounts() {
+		return Collections.unmodifiableMap(this.responseCounts);
+	}
+
+	/**
+	 * @return the number of worker threads of the pool per crawl.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * @param parallelism
+	 *            the number of worker threads of the pool per crawl.
+	 */
+	public void setParallelism(final int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"Parallelism needs to be positive.");
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @return the maximum number of requests in flight per end point.
+	 */
+	public int getMaxConcurrentRequests() {
+		return this.maxConcurrentRequests;
+	}
+
+	/**
+	 * @param maxConcurrentRequests
+	 *            the maximum number of requests in flight per end point.
+	 *            Applies to end points not crawled yet.
+	 */
+	public void setMaxConcurrentRequests(final int maxConcurrentRequests) {
+		if (maxConcurrentRequests <= 0) {
+			throw new IllegalArgumentException(
+					"Max concurrent requests needs to be positive.");
+		}
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	/**
+	 * @return the {@link CrawlPriority}, <code>null</code> if the response
+	 *         counts of the previous crawls are used.
+	 */
+	public CrawlPriority getPriority() {
+		return this.priority;
+	}
+
+	/**
+	 * @param priority
+	 *            the {@link CrawlPriority}, <code>null</code> to use the
+	 *            response counts of the previous crawls.
+	 */
+	public void setPriority(final CrawlPriority priority) {
+		this.priority = priority;
+	}
+
+	/**
+	 * @return the filter of the surveys to crawl.
+	 */
+	public Predicate<ListSurveysEntryType> getFilter() {
+		return this.filter;
+	}
+
+	/**
+	 * @param filter
+	 *            the filter of the surveys to crawl. Default are the active
+	 *            surveys.
+	 */
+	public void setFilter(final Predicate<ListSurveysEntryType> filter) {
+		this.filter = Objects.requireNonNull(filter);
+	}
+
+	/**
+	 * @return the language of the questions and responses.
+	 */
+	public Optional<String> getLanguage() {
+		return this.language;
+	}
+
+	/**
+	 * @param language
+	 *            the language of the questions and responses.
+	 */
+	public void setLanguage(final Optional<String> language) {
+		this.language = Objects.requireNonNull(language);
+	}
+
+	/**
+	 * @return <code>true</code> if the responses are passed to the handler
+	 *         while the export is read.
+	 */
+	public boolean isStreaming() {
+		return this.streaming;
+	}
+
+	/**
+	 * @param streaming
+	 *            <code>true</code> to pass the responses to the handler while
+	 *            the export is read, holding the request slot, instead of
+	 *            reading the export into memory first. Default is
+	 *            <code>false</code>.
+	 */
+	public void setStreaming(final boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	/**
+	 * @return the shared {@link ExecutorService} or <code>null</code> if
+	 *         each crawl creates its own pool.
+	 */
+	public ExecutorService getExecutor() {
+		return this.executor;
+	}
+
+	/**
+	 * @param executor
+	 *            the shared {@link ExecutorService} to run the jobs in or
+	 *            <code>null</code> to create a pool of
+	 *            {@link #getParallelism()} threads per crawl. Its futures need
+	 *            to interrupt on {@link Future#cancel(boolean)}, which the
+	 *            tasks of a {@link java.util.concurrent.ForkJoinPool} do
+	 *            not.
+	 */
+	public void setExecutor(final ExecutorService executor) {
+		this.executor = executor;
+	}
+}
@@ -0,0 +1,170 @@
+package com.qpark.survey.lime.endpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.qpark.survey.lime.transport.HttpTransportProperties;
+
+/**
+ * The settings of one {@link LimeEndpoint}, a lime survey instance of an
+ * {@link EndpointRegistry}.
+ *
+ * @author bhausen
+ */
+public class EndpointProperties {
+	/** The unique name of the end point. */
+	private String name;
+	/** The end point URL of the JSON-RPC API. */
+	private String url;
+	/** The user name to log in with. */
+	private String userName;
+	/** The password to log in with. */
+	private String password;
+	/** The maximum number of requests in flight to the end point. */
+	private int maxConcurrentRequests = 8;
+	/** The time a session is used after its last use in milliseconds. */
+	private long sessionTtl = 3600000;
+	/** The {@link HttpTransportProperties} of the connection pool. */
+	private HttpTransportProperties transport = new HttpTransportProperties();
+	/** The tenants served by the end point. */
+	private List<String> tenants = new ArrayList<>();
+	/** The sids known to be hosted by the end point. */
+	private List<Integer> surveyIds = new ArrayList<>();
+
+	/**
+	 * @return the unique name of the end point.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @param name
+	 *            the unique name of the end point.
+	 */
+	public void setName(final String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return the end point URL of the JSON-RPC API.
+	 */
+	public String getUrl() {
+		return this.url;
+	}
+
+	/**
+	 * @param url
+	 *            the end point URL of the JSON-RPC API.
+	 */
+	public void setUrl(final String url) {
+		this.url = url;
+	}
+
+	/**
+	 * @return the user name to log in with.
+	 */
+	public String getUserName() {
+		return this.userName;
+	}
+
+	/**
+	 * @param userName
+	 *            the user name to log in with.
+	 */
+	public void setUserName(final String userName) {
+		this.userName = userName;
+	}
+
+	/**
+	 * @return the password to log in with.
+	 */
+	public String getPassword() {
+		return this.password;
+	}
+
+	/**
+	 * @param password
+	 *            the password to log in with.
+	 */
+	public void setPassword(final String password) {
+		this.password = password;
+	}
+
+	/**
+	 * @return the maximum number of requests in flight to the end point.
+	 */
+	public int getMaxConcurrentRequests() {
+		return this.maxConcurrentRequests;
+	}
+
+	/**
+	 * @param maxConcurrentRequests
+	 *            the maximum number of requests in flight to the end point.
+	 */
+	public void setMaxConcurrentRequests(final int maxConcurrentRequests) {
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	/**
+	 * @return the time a session is used after its last use in milliseconds.
+	 */
+	public long getSessionTtl() {
+		return this.sessionTtl;
+	}
+
+	/**
+	 * @param sessionTtl
+	 *            the time a session is used after its last use in
+	 *            milliseconds.
+	 */
+	public void setSessionTtl(final long sessionTtl) {
+		this.sessionTtl = sessionTtl;
+	}
+
+	/**
+	 * @return the {@link HttpTransportProperties} of the connection pool.
+	 */
+	public HttpTransportProperties getTransport() {
+		return this.transport;
+	}
+
+	/**
+	 * @param transport
+	 *            the {@link HttpTransportProperties} of the connection pool.
+	 */
+	public void setTransport(final HttpTransportProperties transport) {
+		this.transport = transport;
+	}
+
+	/**
+	 * @return the tenants served by the end point.
+	 */
+	public List<String> getTenants() {
+		return this.tenants;
+	}
+
+	/**
+	 * @param tenants
+	 *            the tenants served by the end point.
+	 */
+	public void setTenants(final List<String> tenants) {
+		this.tenants = tenants;
+	}
+
+	/**
+	 * @return the sids known to be hosted by the end point. Other sids are
+	 *         located by {@link EndpointRegistry#listSurveys()}.
+	 */
+	public List<Integer> getSurveyIds() {
+		return this.surveyIds;
+	}
+
+	/**
+	 * @param surveyIds
+	 *            the sids known to be hosted by the end point.
+	 */
+	public void setSurveyIds(final List<Integer> surveyIds) {
+		this.surveyIds = surveyIds;
+	}
+}
@@ -0,0 +1,519 @@
+package com.qpark.survey.lime.endpoint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.RestClientException;
+
+import com.qpark.survey.lime.LimeSurveyException;
+import com.qpark.survey.lime.concurrent.OwnedExecutor;
+import com.qpark.survey.lime.limit.ConcurrencyLimiters;
+import com.qpark.survey.lime.limit.RetryPolicy;
+import com.qpark.survey.lime.metrics.MetricsRegistry;
+import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.v25.ListSurveysEntryType;
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+import com.qpark.survey.lime.session.SessionManager.SessionCallback;
+
+/**
+ * The lime survey instances of a sharded installation. Calls are routed to
+ * the {@link LimeEndpoint} of a tenant or of a sid. Each end point has its own
+ * connection pool, sessions and request limit.
+ * <p>
+ * The sids of an end point are either configured in
+ * {@link EndpointProperties#getSurveyIds()}, assigned with
+ * {@link #assignSurvey(int, String)} or learned by {@link #listSurveys()},
+ * which queries all end points in parallel. A failing end point does not fail
+ * the listing, the {@link SurveyListing} contains the surveys of the others
+ * and the failure. A sid not routed yet is located by one
+ * {@link #listSurveys()} on first use. A sid no end point lists is not
+ * located again within {@link #getUnknownSurveyMillis()}, so requests of
+ * unknown sids do not fan out to all end points each time.
+ * <p>
+ * The registry is thread safe. {@link #close()} closes all end points.
+ *
+ * @author bhausen
+ */
+public class EndpointRegistry implements Closeable {
+	/** The {@link Logger}. */
+	private final Logger logger = LoggerFactory
+			.getLogger(EndpointRegistry.class);
+	/** The {@link Mapper} of the end points. */
+	private final Mapper mapper;
+	/** The {@link MetricsRegistry} of the end points. */
+	private final MetricsRegistry metricsRegistry;
+	/** The end points by name, in registration order. */
+	private final Map<String, LimeEndpoint> endpoints = Collections
+			.synchronizedMap(new LinkedHashMap<>());
+	/** The end points by tenant. */
+	private final Map<String, LimeEndpoint> tenants = new ConcurrentHashMap<>();
+	/** The configured or assigned end points by sid. */
+	private final Map<Integer, LimeEndpoint> assignedSurveys = new ConcurrentHashMap<>();
+	/** The end points by sid learned from <i>list_surveys</i>. */
+	private final Map<Integer, LimeEndpoint> learnedSurveys = new ConcurrentHashMap<>();
+	/** The time in millis of the last listing not containing the sid. */
+	private final Map<Integer, Long> unknownSurveys = new ConcurrentHashMap<>();
+	/** Serializes the {@link #listSurveys()} of {@link #locateSurvey(int)}. */
+	private final Object locateLock = new Object();
+	/** The millis an unknown sid is not located again. */
+	private volatile long unknownSurveyMillis = 60_000L;
+	/** The {@link ConcurrencyLimiters} of the end points. */
+	private volatile ConcurrencyLimiters concurrencyLimiters = ConcurrencyLimiters.UNLIMITED;
+	/** The {@link RetryPolicy} of the end points. */
+	private volatile RetryPolicy retryPolicy = RetryPolicy.NONE;
+	/** The executor of the parallel calls. */
+	private final OwnedExecutor executor = new OwnedExecutor("lime-endpoint");
+
+	/**
+	 * @param mapper
+	 *            the {@link Mapper} of the end points.
+	 * @param metricsRegistry
+	 *            the {@link MetricsRegistry} of the end points,
+	 *            <code>null</code> disables the measurement.
+	 */
+	public EndpointRegistry(final Mapper mapper,
+			final MetricsRegistry metricsRegistry) {
+		this.mapper = Objects.requireNonNull(mapper);
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	/**
+	 * Create and register the {@link LimeEndpoint}s of the properties.
+	 *
+	 * @param properties
+	 *            the {@link EndpointRegistryProperties}.
+	 */
+	public void registerAll(final EndpointRegistryProperties properties) {
+		if (Objects.isNull(properties)) {
+			throw new IllegalStateException("Registry properties not provided.");
+		}
+		properties.getEndpoints().forEach(this::register);
+	}
+
+	/**
+	 * Create and register a {@link LimeEndpoint} with the tenants and sids of
+	 * the properties.
+	 *
+	 * @param properties
+	 *            the {@link EndpointProperties}.
+	 * @return the registered {@link LimeEndpoint}.
+	 */
+	public LimeEndpoint register(final EndpointProperties properties) {
+		final LimeEndpoint endpoint = new LimeEndpoint(properties, this.mapper,
+				this.metricsRegistry);
+		endpoint.getClient().setConcurrencyLimiters(this.concurrencyLimiters);
+		endpoint.getClient().setRetryPolicy(this.retryPolicy);
+		synchronized (this.endpoints) {
+			if (this.endpoints.containsKey(endpoint.getName())) {
+				try {
+					endpoint.close();
+				} catch (final IOException e) {
+					this.logger.warn("Close of {} failed: {}", endpoint,
+							e.getMessage());
+				}
+				throw new IllegalStateException(String.format(
+						"Endpoint %s already registered.", endpoint.getName()));
+			}
+			this.endpoints.put(endpoint.getName(), endpoint);
+		}
+		if (Objects.nonNull(properties.getTenants())) {
+			properties.getTenants().forEach(
+					tenant -> this.assignTenant(tenant, endpoint.getName()));
+		}
+		if (Objects.nonNull(properties.getSurveyIds())) {
+			properties.getSurveyIds().forEach(
+					sid -> this.assignSurvey(sid, endpoint.getName()));
+		}
+		this.logger.debug("Registered {}", endpoint);
+		return endpoint;
+	}
+
+	/**
+	 * Route the tenant to the end point.
+	 *
+	 * @param tenant
+	 *            the tenant.
+	 * @param endpointName
+	 *            the name of the registered end point.
+	 */
+	public void assignTenant(final String tenant, final String endpointName) {
+		if (Objects.isNull(tenant)) {
+			throw new IllegalStateException("Tenant not provided.");
+		}
+		this.tenants.put(tenant, this.getRegisteredEndpoint(endpointName));
+	}
+
+	/**
+	 * Route the sid to the end point. Assigned routes take precedence over
+	 * the ones learned by {@link #listSurveys()}.
+	 *
+	 * @param surveyId
+	 *            the sid.
+	 * @param endpointName
+	 *            the name of the registered end point.
+	 */
+	public void assignSurvey(final int surveyId, final String endpointName) {
+		this.assignedSurveys.put(surveyId,
+				this.getRegisteredEndpoint(endpointName));
+		this.unknownSurveys.remove(surveyId);
+	}
+
+	/**
+	 * @param name
+	 *            the name of the end point.
+	 * @return the {@link Optional} of the {@link LimeEndpoint}.
+	 */
+	public Optional<LimeEndpoint> getEndpoint(final String name) {
+		return Optional.ofNullable(name).map(this.endpoints::get);
+	}
+
+	/**
+	 * @return the registered {@link LimeEndpoint}s in registration order.
+	 */
+	public List<LimeEndpoint> getEndpoints() {
+		synchronized (this.endpoints) {
+			return new ArrayList<>(this.endpoints.values());
+		}
+	}
+
+	/**
+	 * @param tenant
+	 *            the tenant.
+	 * @return the {@link Optional} of the {@link LimeEndpoint} of the tenant.
+	 */
+	public Optional<LimeEndpoint> forTenant(final String tenant) {
+		return Optional.ofNullable(tenant).map(this.tenants::get);
+	}
+
+	/**
+	 * Get the end point of the sid without calling any end point.
+	 *
+	 * @param surveyId
+	 *            the sid.
+	 * @return the {@link Optional} of the {@link LimeEndpoint} hosting the
+	 *         survey.
+	 */
+	public Optional<LimeEndpoint> forSurvey(final int surveyId) {
+		final LimeEndpoint endpoint = this.assignedSurveys.get(surveyId);
+		if (Objects.nonNull(endpoint)) {
+			return Optional.of(endpoint);
+		}
+		return Optional.ofNullable(this.learnedSurveys.get(surveyId));
+	}
+
+	/**
+	 * Get the end point of the sid. If the sid is not routed yet, all end
+	 * points are asked by {@link #listSurveys()}. Concurrent lookups share
+	 * one listing. A sid not listed by any end point returns
+	 * {@link Optional#empty()} without calling the end points again until
+	 * {@link #getUnknownSurveyMillis()} elapsed.
+	 *
+	 * @param surveyId
+	 *            the sid.
+	 * @return the {@link Optional} of the {@link LimeEndpoint} hosting the
+	 *         survey.
+	 * @throws IOException
+	 *             if the sid is not listed by the end points answering and
+	 *             others failed, the sid may be hosted by a failed one.
+	 */
+	public Optional<LimeEndpoint> locateSurvey(final int surveyId)
+			throws IOException {
+		Optional<LimeEndpoint> value = this.forSurvey(surveyId);
+		if (!value.isPresent() && !this.isUnknownSurvey(surveyId)) {
+			synchronized (this.locateLock) {
+				value = this.forSurvey(surveyId);
+				if (!value.isPresent() && !this.isUnknownSurvey(surveyId)) {
+					final SurveyListing listing = this.listSurveys();
+					value = this.forSurvey(surveyId);
+					if (!value.isPresent() && !listing.isComplete()) {
+						throw this.toFailure(listing.getFailures());
+					} else if (!value.isPresent()) {
+						this.unknownSurveys.put(surveyId,
+								System.currentTimeMillis());
+					}
+				}
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @param surveyId
+	 *            the sid.
+	 * @return <code>true</code> if a listing within
+	 *         {@link #getUnknownSurveyMillis()} did not contain the sid.
+	 */
+	private boolean isUnknownSurvey(final int surveyId) {
+		final Long listed = this.unknownSurveys.get(surveyId);
+		return Objects.nonNull(listed) && System.currentTimeMillis()
+				- listed.longValue() < this.unknownSurveyMillis;
+	}
+
+	/**
+	 * Run the callback at the end point of the tenant, see
+	 * {@link LimeEndpoint#execute(SessionCallback)}.
+	 *
+	 * @param tenant
+	 *            the tenant.
+	 * @param callback
+	 *            the {@link SessionCallback}.
+	 * @return the result of the callback.
+	 * @throws IOException
+	 */
+	public <T> T executeForTenant(final String tenant,
+			final SessionCallback<T> callback) throws IOException {
+		return this.forTenant(tenant)
+				.orElseThrow(() -> new IllegalStateException(String
+						.format("No endpoint of tenant %s.", tenant)))
+				.execute(callback);
+	}
+
+	/**
+	 * Run the callback at the end point hosting the survey, see
+	 * {@link LimeEndpoint#execute(SessionCallback)}.
+	 *
+	 * @param surveyId
+	 *            the sid.
+	 * @param callback
+	 *            the {@link SessionCallback}.
+	 * @return the result of the callback.
+	 * @throws IOException
+	 */
+	public <T> T executeForSurvey(final int surveyId,
+			final SessionCallback<T> callback) throws IOException {
+		return this.locateSurvey(surveyId)
+				.orElseThrow(() -> new LimeSurveyException(String
+						.format("Survey %s not found at any endpoint.",
+								surveyId)))
+				.execute(callback);
+	}
+
+	/**
+	 * Call <i>list_surveys</i> at all end points in parallel and learn the
+	 * end point of each sid. The entries are merged in registration order of
+	 * the end points. If a sid is listed by several end points, the first one
+	 * is routed and a warning logged. A failing end point is reported in the
+	 * {@link SurveyListing}, the routes learned from it before are kept.
+	 *
+	 * @return the {@link SurveyListing}.
+	 * @throws IOException
+	 *             if all end points failed: the first failure, the others are
+	 *             suppressed.
+	 */
+	public SurveyListing listSurveys() throws IOException {
+		final List<LimeEndpoint> list = this.getEndpoints();
+		final List<CompletableFuture<List<ListSurveysEntryType>>> futures = new ArrayList<>(
+				list.size());
+		final ExecutorService ex = this.getExecutor();
+		list.forEach(endpoint -> futures.add(CompletableFuture.supplyAsync(() -> {
+			try {
+				return endpoint.execute(session -> endpoint.getClient()
+						.listSurveys(session).map(ListSurveysResponseType::getResult)
+						.orElse(Collections.emptyList()));
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, ex)));
+		final ListSurveysResponseType value = new ListSurveysResponseType();
+		final Map<Integer, LimeEndpoint> routes = new LinkedHashMap<>();
+		final Map<String, IOException> failures = new LinkedHashMap<>();
+		for (int i = 0; i < futures.size(); i++) {
+			final LimeEndpoint endpoint = list.get(i);
+			try {
+				for (final ListSurveysEntryType entry : futures.get(i).get()) {
+					final LimeEndpoint other = routes.putIfAbsent(entry.getSid(),
+							endpoint);
+					if (Objects.isNull(other)) {
+						value.getResult().add(entry);
+					} else {
+						this.logger.warn("Survey {} listed by {} and {}",
+								entry.getSid(), other, endpoint);
+					}
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(e.getMessage());
+			} catch (final ExecutionException e) {
+				final IOException ioe = this.toIOException(endpoint,
+						e.getCause());
+				this.logger.warn("List surveys of {} failed: {}", endpoint,
+						ioe.getMessage());
+				failures.put(endpoint.getName(), ioe);
+			}
+		}
+		if (!list.isEmpty() && failures.size() == list.size()) {
+			throw this.toFailure(failures);
+		}
+		final Set<LimeEndpoint> failed = new HashSet<>();
+		failures.keySet().forEach(
+				name -> this.getEndpoint(name).ifPresent(failed::add));
+		this.learnedSurveys.putAll(routes);
+		this.learnedSurveys.entrySet()
+				.removeIf(e -> !routes.containsKey(e.getKey())
+						&& !failed.contains(e.getValue()));
+		this.unknownSurveys.keySet().removeAll(routes.keySet());
+		final long now = System.currentTimeMillis();
+		this.unknownSurveys.values()
+				.removeIf(listed -> now - listed >= this.unknownSurveyMillis);
+		return new SurveyListing(value, failures);
+	}
+
+	/**
+	 * @return the first failure with the others suppressed.
+	 */
+	private IOException toFailure(final Map<String, IOException> failures) {
+		IOException value = null;
+		for (final IOException failure : failures.values()) {
+			if (Objects.isNull(value)) {
+				value = failure;
+			} else {
+				value.addSuppressed(failure);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @return the number of sids with a known end point.
+	 */
+	public int getRoutedSurveyCount() {
+		final Set<Integer> all = new HashSet<>(this.learnedSurveys.keySet());
+		all.addAll(this.assignedSurveys.keySet());
+		return all.size();
+	}
+
+	/**
+	 * @return the millis a sid not listed by any end point is not located
+	 *         again, default 60000.
+	 */
+	public long getUnknownSurveyMillis() {
+		return this.unknownSurveyMillis;
+	}
+
+	/**
+	 * @param unknownSurveyMillis
+	 *            the millis a sid not listed by any end point is not located
+	 *            again, <code>0</code> locates on each lookup.
+	 */
+	public void setUnknownSurveyMillis(final long unknownSurveyMillis) {
+		this.unknownSurveyMillis = Math.max(0L, unknownSurveyMillis);
+	}
+
+	/**
+	 * @return the {@link ConcurrencyLimiters} of the end points.
+	 */
+	public ConcurrencyLimiters getConcurrencyLimiters() {
+		return this.concurrencyLimiters;
+	}
+
+	/**
+	 * @param concurrencyLimiters
+	 *            the {@link ConcurrencyLimiters} of the registered and future
+	 *            end points. The limiters are kept per end point URL and
+	 *            method, so one instance serves all end points.
+	 */
+	public void setConcurrencyLimiters(
+			final ConcurrencyLimiters concurrencyLimiters) {
+		this.concurrencyLimiters = Objects.nonNull(concurrencyLimiters)
+				? concurrencyLimiters : ConcurrencyLimiters.UNLIMITED;
+		this.getEndpoints().forEach(endpoint -> endpoint.getClient()
+				.setConcurrencyLimiters(this.concurrencyLimiters));
+	}
+
+	/**
+	 * @return the {@link RetryPolicy} of the end points.
+	 */
+	public RetryPolicy getRetryPolicy() {
+		return this.retryPolicy;
+	}
+
+	/**
+	 * @param retryPolicy
+	 *            the {@link RetryPolicy} of the registered and future end
+	 *            points.
+	 */
+	public void setRetryPolicy(final RetryPolicy retryPolicy) {
+		this.retryPolicy = Objects.nonNull(retryPolicy) ? retryPolicy
+				: RetryPolicy.NONE;
+		this.getEndpoints().forEach(endpoint -> endpoint.getClient()
+				.setRetryPolicy(this.retryPolicy));
+	}
+
+	/**
+	 * @return the executor of the parallel calls. If none is set, a pool of
+	 *         daemon threads is created and shut down by {@link #close()}.
+	 */
+	public ExecutorService getExecutor() {
+		return this.executor.get();
+	}
+
+	/**
+	 * @param executor
+	 *            the executor of the parallel calls. It is not shut down by
+	 *            {@link #close()}.
+	 */
+	public void setExecutor(final ExecutorService executor) {
+		this.executor.set(executor);
+	}
+
+	/**
+	 * Closes all end points and the own executor.
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		this.getEndpoints().forEach(endpoint -> {
+			try {
+				endpoint.close();
+			} catch (final IOException | RuntimeException e) {
+				this.logger.warn("Close of {} failed: {}", endpoint,
+						e.getMessage());
+			}
+		});
+		this.endpoints.clear();
+		this.tenants.clear();
+		this.assignedSurveys.clear();
+		this.learnedSurveys.clear();
+		this.executor.close();
+	}
+
+	private LimeEndpoint getRegisteredEndpoint(final String name) {
+		return this.getEndpoint(name)
+				.orElseThrow(() -> new IllegalStateException(
+						String.format("Endpoint %s not registered.", name)));
+	}
+
+	private IOException toIOException(final LimeEndpoint endpoint,
+			final Throwable cause) {
+		final Throwable t = cause instanceof UncheckedIOException
+				? cause.getCause() : cause;
+		if (t instanceof IOException) {
+			return (IOException) t;
+		} else if (t instanceof RestClientException) {
+			return new IOException(String.format("%s failed.", endpoint), t);
+		} else if (t instanceof RuntimeException) {
+			throw (RuntimeException) t;
+		} else if (t instanceof Error) {
+			throw (Error) t;
+		}
+		return new IOException(String.format("%s failed.", endpoint), t);
+	}
+}
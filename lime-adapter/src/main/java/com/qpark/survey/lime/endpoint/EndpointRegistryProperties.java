@@ -0,0 +1,29 @@
+package com.qpark.survey.lime.endpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The settings of the {@link EndpointRegistry}.
+ *
+ * @author bhausen
+ */
+public class EndpointRegistryProperties {
+	/** The {@link EndpointProperties} of the lime survey instances. */
+	private List<EndpointProperties> endpoints = new ArrayList<>();
+
+	/**
+	 * @return the {@link EndpointProperties} of the lime survey instances.
+	 */
+	public List<EndpointProperties> getEndpoints() {
+		return this.endpoints;
+	}
+
+	/**
+	 * @param endpoints
+	 *            the {@link EndpointProperties} of the lime survey instances.
+	 */
+	public void setEndpoints(final List<EndpointProperties> endpoints) {
+		this.endpoints = endpoints;
+	}
+}
@@ -0,0 +1,167 @@
+package com.qpark.survey.lime.endpoint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.metrics.MetricsRegistry;
+import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.session.SessionManager;
+import com.qpark.survey.lime.session.SessionManager.SessionCallback;
+import com.qpark.survey.lime.transport.HttpTransport;
+
+/**
+ * One lime survey instance of an {@link EndpointRegistry}. The end point owns
+ * its {@link HttpTransport} connection pool, a {@link RestClient} bound to its
+ * URL, a {@link SessionManager} and a fair limit of the requests in flight,
+ * so a slow instance does not exhaust the resources of the others. A request
+ * slot is taken per HTTP call of the {@link RestClient}, not for a whole
+ * {@link SessionCallback}, so a callback processing its responses does not
+ * hold a slot meanwhile.
+ *
+ * @author bhausen
+ */
+public class LimeEndpoint implements Closeable {
+	/** The {@link EndpointProperties}. */
+	private final EndpointProperties properties;
+	/** The {@link HttpTransport} of the end point. */
+	private final HttpTransport transport;
+	/** The {@link RestClient} bound to the end point. */
+	private final RestClient client;
+	/** The {@link SessionManager} of the end point. */
+	private final SessionManager sessionManager;
+	/** The request slots. */
+	private final Semaphore requests;
+	/** The password to log in with. */
+	private final char[] password;
+
+	/**
+	 * @param properties
+	 *            the {@link EndpointProperties}.
+	 * @param mapper
+	 *            the {@link Mapper}.
+	 * @param metricsRegistry
+	 *            the {@link MetricsRegistry} of the {@link RestClient},
+	 *            <code>null</code> disables the measurement.
+	 */
+	public LimeEndpoint(final EndpointProperties properties,
+			final Mapper mapper, final MetricsRegistry metricsRegistry) {
+		if (Objects.isNull(properties)) {
+			throw new IllegalStateException("Endpoint properties not provided.");
+		} else if (Objects.isNull(properties.getName())) {
+			throw new IllegalStateException("Endpoint name not provided.");
+		} else if (Objects.isNull(properties.getUrl())) {
+			throw new IllegalStateException("Endpoint url not provided.");
+		} else if (Objects.isNull(properties.getUserName())) {
+			throw new IllegalStateException("User name not provided.");
+		} else if (Objects.isNull(properties.getPassword())) {
+			throw new IllegalStateException("User password not provided.");
+		}
+		this.properties = properties;
+		this.password = properties.getPassword().toCharArray();
+		this.requests = new Semaphore(
+				Math.max(1, properties.getMaxConcurrentRequests()), true);
+		this.transport = new HttpTransport(properties.getTransport());
+		this.client = new RestClient(properties.getUrl(),
+				this.transport.createRestTemplate(),
+				mapper);
+		this.client.setMetricsRegistry(metricsRegistry);
+		this.client.setRequestSlots(this.requests);
+		this.sessionManager = new SessionManager(this.client);
+		this.sessionManager.setSessionTtl(properties.getSessionTtl());
+	}
+
+	/**
+	 * Run the callback with the session of the end point user. Each HTTP call
+	 * of the callback takes one of the request slots of the end point.
+	 *
+	 * @param callback
+	 *            the {@link SessionCallback}.
+	 * @return the result of the callback.
+	 * @throws IOException
+	 */
+	public <T> T execute(final SessionCallback<T> callback)
+			throws IOException {
+		if (Objects.isNull(callback)) {
+			throw new IllegalStateException("Callback not provided.");
+		}
+		return this.sessionManager.execute(this.properties.getUserName(),
+				this.password, callback);
+	}
+
+	/**
+	 * @return the unique name of the end point.
+	 */
+	public String getName() {
+		return this.properties.getName();
+	}
+
+	/**
+	 * @return the end point URL.
+	 */
+	public String getUrl() {
+		return this.properties.getUrl();
+	}
+
+	/**
+	 * @return the {@link EndpointProperties}.
+	 */
+	public EndpointProperties getProperties() {
+		return this.properties;
+	}
+
+	/**
+	 * @return the {@link RestClient} bound to the end point.
+	 */
+	public RestClient getClient() {
+		return this.client;
+	}
+
+	/**
+	 * @return the {@link SessionManager} of the end point.
+	 */
+	public SessionManager getSessionManager() {
+		return this.sessionManager;
+	}
+
+	/**
+	 * @return the {@link HttpTransport} of the end point.
+	 */
+	public HttpTransport getTransport() {
+		return this.transport;
+	}
+
+	/**
+	 * @return the number of free request slots.
+	 */
+	public int getAvailableRequests() {
+		return this.requests.availablePermits();
+	}
+
+	/**
+	 * Releases the sessions and closes the connection pool.
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			this.sessionManager.close();
+		} finally {
+			Arrays.fill(this.password, ' ');
+			this.transport.close();
+		}
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuilder(64).append(this.getName()).append('[')
+				.append(this.getUrl()).append(']').toString();
+	}
+}
@@ -0,0 +1,54 @@
+package com.qpark.survey.lime.endpoint;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+
+/**
+ * The result of {@link EndpointRegistry#listSurveys()}: the merged surveys of
+ * the end points answering and the failures of the others.
+ *
+ * @author bhausen
+ */
+public class SurveyListing {
+	/** The merged {@link ListSurveysResponseType}. */
+	private final ListSurveysResponseType response;
+	/** The failures by end point name. */
+	private final Map<String, IOException> failures;
+
+	/**
+	 * @param response
+	 *            the merged {@link ListSurveysResponseType}.
+	 * @param failures
+	 *            the failures by end point name.
+	 */
+	SurveyListing(final ListSurveysResponseType response,
+			final Map<String, IOException> failures) {
+		this.response = response;
+		this.failures = Collections.unmodifiableMap(failures);
+	}
+
+	/**
+	 * @return the merged {@link ListSurveysResponseType} of the end points
+	 *         answering.
+	 */
+	public ListSurveysResponseType getResponse() {
+		return this.response;
+	}
+
+	/**
+	 * @return the failures by end point name, in registration order.
+	 */
+	public Map<String, IOException> getFailures() {
+		return this.failures;
+	}
+
+	/**
+	 * @return <code>true</code> if all end points answered.
+	 */
+	public boolean isComplete() {
+		return this.failures.isEmpty();
+	}
+}
@@ -0,0 +1,100 @@
+package com.qpark.survey.lime.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * One survey response with its answers stored by the slots of a
+ * {@link SurveyColumnIndex}.
+ *
+ * @author bhausen
+ */
+public class IndexedResponse {
+	/** The {@link SurveyColumnIndex}. */
+	private final SurveyColumnIndex index;
+	/** The values by slot. */
+	private final Object[] values;
+	/** The answers of columns not known by the index. */
+	private final List<PropertyType> unmapped;
+
+	/**
+	 * @param index
+	 *            the {@link SurveyColumnIndex}.
+	 * @param values
+	 *            the values by slot.
+	 * @param unmapped
+	 *            the answers of columns not known by the index or
+	 *            <code>null</code>.
+	 */
+	IndexedResponse(final SurveyColumnIndex index, final Object[] values,
+			final List<PropertyType> unmapped) {
+		this.index = index;
+		this.values = values;
+		this.unmapped = Objects.isNull(unmapped) ? Collections.emptyList()
+				: unmapped;
+	}
+
+	/**
+	 * @return the {@link SurveyColumnIndex}.
+	 */
+	public SurveyColumnIndex getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * @return the response id.
+	 */
+	public String getId() {
+		return this.getString(SurveyColumnIndex.SLOT_ID);
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return the value of the slot.
+	 */
+	public Object get(final int slot) {
+		return this.values[slot];
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return the value of the slot as {@link String} or <code>null</code>.
+	 */
+	public String getString(final int slot) {
+		final Object value = this.values[slot];
+		return Objects.isNull(value) ? null : value.toString();
+	}
+
+	/**
+	 * @param column
+	 *            the SGQA or question code column name.
+	 * @return the value of the column or <code>null</code>.
+	 */
+	public Object get(final String column) {
+		final int slot = this.index.slot(column);
+		if (slot >= 0) {
+			return this.values[slot];
+		}
+		return this.unmapped.stream().filter(p -> column.equals(p.getKey()))
+				.findFirst().map(PropertyType::getValue).orElse(null);
+	}
+
+	/**
+	 * @return the number of slots.
+	 */
+	public int size() {
+		return this.values.length;
+	}
+
+	/**
+	 * @return the answers of columns not known by the index.
+	 */
+	public List<PropertyType> getUnmapped() {
+		return this.unmapped;
+	}
+}
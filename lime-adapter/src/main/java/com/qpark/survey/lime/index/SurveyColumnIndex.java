@@ -0,0 +1,441 @@
+package com.qpark.survey.lime.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ListGroupsEntryType;
+import com.qpark.survey.lime.model.v25.ListQuestionsEntryType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * Maps the response columns of a survey to dense integer slots. The columns
+ * are derived from the <i>list_questions</i> result: each question (and
+ * subquestion) gives one or more SGQA columns
+ * (<i>surveyId</i>X<i>groupId</i>X<i>questionId</i><i>suffix</i>). The
+ * question code form (<i>title</i>[<i>suffix</i>]) written by
+ * <i>export_responses</i> with heading type <i>code</i> maps to the same slot.
+ * The code form differs from the SGQA suffix for the dual scale array
+ * (<i>1</i>): <i>sq</i>#0 and <i>sq</i>#1 are coded [<i>sq</i>][1] and
+ * [<i>sq</i>][2], and for the file count of the file upload (<i>|</i>):
+ * _filecount is coded [filecount].
+ * <p>
+ * The questions are in survey order, by the <i>group_order</i> of their
+ * group of <i>list_groups</i>, then by <i>question_order</i>. A ranking
+ * question (<i>R</i>) has one column per rank, <i>1</i> to the number of its
+ * answer options. <i>list_questions</i> does not return the answer options,
+ * so the number is passed by qid.
+ * <p>
+ * The index is immutable and thread safe. The fixed response columns occupy
+ * the first slots, e.g. {@link #SLOT_ID}.
+ *
+ * @author bhausen
+ */
+public class SurveyColumnIndex {
+	/** The fixed columns of each response. */
+	private static final String[] FIXED_COLUMNS = { "id", "submitdate",
+			"lastpage", "startlanguage", "token", "startdate", "datestamp",
+			"ipaddr", "refurl" };
+	/** The slot of the column <i>id</i>. */
+	public static final int SLOT_ID = 0;
+	/** The slot of the column <i>submitdate</i>. */
+	public static final int SLOT_SUBMITDATE = 1;
+	/** The slot of the column <i>lastpage</i>. */
+	public static final int SLOT_LASTPAGE = 2;
+	/** The slot of the column <i>startlanguage</i>. */
+	public static final int SLOT_STARTLANGUAGE = 3;
+	/** The slot of the column <i>token</i>. */
+	public static final int SLOT_TOKEN = 4;
+	/** The slot of the column <i>startdate</i>. */
+	public static final int SLOT_STARTDATE = 5;
+	/** The slot of the column <i>datestamp</i>. */
+	public static final int SLOT_DATESTAMP = 6;
+	/** The slot of the column <i>ipaddr</i>. */
+	public static final int SLOT_IPADDR = 7;
+	/** The slot of the column <i>refurl</i>. */
+	public static final int SLOT_REFURL = 8;
+	/** Question types without subquestion columns. */
+	private static final String SINGLE_TYPES = "5DGILNOSTUXY*!|";
+
+	/** The part of a question a column holds. */
+	public enum ColumnPart {
+		/** The answer or the answer of a subquestion. */
+		ANSWER,
+		/** The text of the <i>other</i> option. */
+		OTHER,
+		/** The comment of the answer or of the <i>other</i> option. */
+		COMMENT,
+		/** The number of uploaded files of a file upload. */
+		FILE_COUNT
+	}
+
+	/** The SGQA suffix of a column and its question code form. */
+	private static class Suffix {
+		/** The suffix of the SGQA column name. */
+		final String sgqa;
+		/** The suffix of the question code, including the brackets. */
+		final String code;
+		/** The {@link ColumnPart}. */
+		final ColumnPart part;
+
+		Suffix(final String sgqa, final String code, final ColumnPart part) {
+			this.sgqa = sgqa;
+			this.code = code;
+			this.part = part;
+		}
+
+		/** The code form is the SGQA suffix in brackets. */
+		Suffix(final String sgqa, final ColumnPart part) {
+			this(sgqa, sgqa.isEmpty() ? ""
+					: new StringBuilder(sgqa.length() + 2).append('[')
+							.append(sgqa).append(']').toString(),
+					part);
+		}
+
+		/** The answer of the question or a subquestion. */
+		Suffix(final String sgqa) {
+			this(sgqa, ColumnPart.ANSWER);
+		}
+	}
+
+	/** The SGQA column names by slot. */
+	private final String[] columns;
+	/** The question code column names by slot. */
+	private final String[] codes;
+	/** The questions by slot, <code>null</code> for fixed columns. */
+	private final ListQuestionsEntryType[] questions;
+	/** The {@link ColumnPart}s by slot. */
+	private final ColumnPart[] parts;
+	/** The slots by SGQA and question code column name. */
+	private final Map<String, Integer> slots;
+	/** The slots by question id. */
+	private final Map<String, int[]> questionSlots;
+
+	/**
+	 * Without the groups the questions are ordered by gid, which is only the
+	 * survey order if the groups were never reordered.
+	 *
+	 * @param questions
+	 *            the result of <i>list_questions</i>, including the
+	 *            subquestions.
+	 * @return the {@link SurveyColumnIndex}.
+	 */
+	public static SurveyColumnIndex of(
+			final List<ListQuestionsEntryType> questions) {
+		return of(questions, Collections.emptyList(), Collections.emptyMap());
+	}
+
+	/**
+	 * @param questions
+	 *            the result of <i>list_questions</i>, including the
+	 *            subquestions.
+	 * @param groups
+	 *            the result of <i>list_groups</i>.
+	 * @return the {@link SurveyColumnIndex}.
+	 */
+	public static SurveyColumnIndex of(
+			final List<ListQuestionsEntryType> questions,
+			final List<ListGroupsEntryType> groups) {
+		return of(questions, groups, Collections.emptyMap());
+	}
+
+	/**
+	 * @param questions
+	 *            the result of <i>list_questions</i>, including the
+	 *            subquestions.
+	 * @param groups
+	 *            the result of <i>list_groups</i>.
+	 * @param rankCounts
+	 *            the number of answer options of the ranking questions by
+	 *            qid. A ranking question not contained has no columns.
+	 * @return the {@link SurveyColumnIndex}.
+	 */
+	public static SurveyColumnIndex of(
+			final List<ListQuestionsEntryType> questions,
+			final List<ListGroupsEntryType> groups,
+			final Map<String, Integer> rankCounts) {
+		return new SurveyColumnIndex(questions, groups, rankCounts);
+	}
+
+	private SurveyColumnIndex(final List<ListQuestionsEntryType> list,
+			final List<ListGroupsEntryType> groups,
+			final Map<String, Integer> rankCounts) {
+		final List<String> columnList = new ArrayList<>();
+		final List<String> codeList = new ArrayList<>();
+		final List<ListQuestionsEntryType> questionList = new ArrayList<>();
+		final List<ColumnPart> partList = new ArrayList<>();
+		for (final String fixed : FIXED_COLUMNS) {
+			columnList.add(fixed);
+			codeList.add(fixed);
+			questionList.add(null);
+			partList.add(ColumnPart.ANSWER);
+		}
+		final Map<String, List<ListQuestionsEntryType>> subquestions = list
+				.stream().filter(q -> !isTopLevel(q))
+				.sorted(Comparator.comparing(
+						(final ListQuestionsEntryType q) -> toInt(
+								q.getQuestionOrder()))
+						.thenComparing(q -> toInt(q.getQid())))
+				.collect(Collectors.groupingBy(
+						ListQuestionsEntryType::getParentQid,
+						LinkedHashMap::new, Collectors.toList()));
+		/* The groups are listed once per language. */
+		final Map<String, Integer> groupOrders = new HashMap<>();
+		groups.forEach(g -> groupOrders.putIfAbsent(g.getGid(),
+				toInt(g.getGroupOrder())));
+		list.stream().filter(SurveyColumnIndex::isTopLevel)
+				.sorted(Comparator
+						.comparingInt((final ListQuestionsEntryType q) -> groupOrders
+								.getOrDefault(q.getGid(), Integer.MAX_VALUE))
+						.thenComparing(q -> toInt(q.getGid()))
+						.thenComparing(q -> toInt(q.getQuestionOrder()))
+						.thenComparing(q -> toInt(q.getQid())))
+				.forEach(q -> {
+					final List<Suffix> suffixes = getSuffixes(q,
+							subquestions.getOrDefault(q.getQid(),
+									Collections.emptyList()),
+							rankCounts.getOrDefault(q.getQid(), 0));
+					final String sgq = new StringBuilder(24)
+							.append(q.getSid()).append('X').append(q.getGid())
+							.append('X').append(q.getQid()).toString();
+					for (final Suffix suffix : suffixes) {
+						columnList.add(sgq + suffix.sgqa);
+						codeList.add(q.getTitle() + suffix.code);
+						questionList.add(q);
+						partList.add(suffix.part);
+					}
+				});
+		this.columns = columnList.toArray(new String[columnList.size()]);
+		this.codes = codeList.toArray(new String[codeList.size()]);
+		this.questions = questionList
+				.toArray(new ListQuestionsEntryType[questionList.size()]);
+		this.parts = partList.toArray(new ColumnPart[partList.size()]);
+		this.slots = new HashMap<>(this.columns.length * 4);
+		final Map<String, List<Integer>> byQuestion = new LinkedHashMap<>();
+		for (int slot = 0; slot < this.columns.length; slot++) {
+			this.slots.put(this.columns[slot], slot);
+			this.slots.putIfAbsent(this.codes[slot], slot);
+			if (Objects.nonNull(this.questions[slot])) {
+				byQuestion.computeIfAbsent(this.questions[slot].getQid(),
+						k -> new ArrayList<>()).add(slot);
+			}
+		}
+		this.questionSlots = new HashMap<>(byQuestion.size() * 2);
+		byQuestion.forEach((qid, s) -> this.questionSlots.put(qid,
+				s.stream().mapToInt(Integer::intValue).toArray()));
+	}
+
+	private static boolean isTopLevel(final ListQuestionsEntryType q) {
+		return Objects.isNull(q.getParentQid()) || "0".equals(q.getParentQid())
+				|| q.getParentQid().isEmpty();
+	}
+
+	private static int toInt(final String value) {
+		try {
+			return Objects.isNull(value) ? 0 : Integer.parseInt(value.trim());
+		} catch (final NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Get the column suffixes of a question following the lime survey field
+	 * map.
+	 */
+	private static List<Suffix> getSuffixes(final ListQuestionsEntryType q,
+			final List<ListQuestionsEntryType> subquestions,
+			final int rankCount) {
+		final List<Suffix> value = new ArrayList<>();
+		final String type = Objects.isNull(q.getType()) ? "" : q.getType();
+		final boolean other = "Y".equals(q.getOther());
+		final List<String> scale0 = subquestions.stream()
+				.filter(s -> toInt(s.getScaleId()) == 0)
+				.map(ListQuestionsEntryType::getTitle)
+				.collect(Collectors.toList());
+		final List<String> scale1 = subquestions.stream()
+				.filter(s -> toInt(s.getScaleId()) == 1)
+				.map(ListQuestionsEntryType::getTitle)
+				.collect(Collectors.toList());
+		if (type.length() == 1 && SINGLE_TYPES.contains(type)) {
+			value.add(new Suffix(""));
+			if ("O".equals(type)) {
+				value.add(new Suffix("comment", ColumnPart.COMMENT));
+			} else if ("|".equals(type)) {
+				value.add(new Suffix("_filecount", "[filecount]",
+						ColumnPart.FILE_COUNT));
+			} else if (other && ("L".equals(type) || "!".equals(type))) {
+				value.add(new Suffix("other", ColumnPart.OTHER));
+			}
+		} else if (":".equals(type) || ";".equals(type)) {
+			scale0.forEach(y -> scale1
+					.forEach(x -> value.add(new Suffix(y + "_" + x))));
+		} else if ("R".equals(type)) {
+			for (int rank = 1; rank <= rankCount; rank++) {
+				value.add(new Suffix(String.valueOf(rank)));
+			}
+		} else if ("1".equals(type)) {
+			scale0.forEach(s -> {
+				value.add(new Suffix(s + "#0", "[" + s + "][1]",
+						ColumnPart.ANSWER));
+				value.add(new Suffix(s + "#1", "[" + s + "][2]",
+						ColumnPart.ANSWER));
+			});
+		} else if ("P".equals(type)) {
+			scale0.forEach(s -> {
+				value.add(new Suffix(s));
+				value.add(new Suffix(s + "comment", ColumnPart.COMMENT));
+			});
+			if (other) {
+				value.add(new Suffix("other", ColumnPart.OTHER));
+				value.add(new Suffix("othercomment", ColumnPart.COMMENT));
+			}
+		} else {
+			scale0.forEach(s -> value.add(new Suffix(s)));
+			if (other && "M".equals(type)) {
+				value.add(new Suffix("other", ColumnPart.OTHER));
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @param column
+	 *            the SGQA or question code column name.
+	 * @return the slot of the column or <code>-1</code> if unknown.
+	 */
+	public int slot(final String column) {
+		final Integer value = this.slots.get(column);
+		return Objects.isNull(value) ? -1 : value.intValue();
+	}
+
+	/**
+	 * @param questionId
+	 *            the qid of the (top level) question.
+	 * @return the slots of all columns of the question, empty if unknown.
+	 */
+	public int[] questionSlots(final String questionId) {
+		final int[] value = this.questionSlots.get(questionId);
+		return Objects.isNull(value) ? new int[0] : value.clone();
+	}
+
+	/**
+	 * @return the number of slots.
+	 */
+	public int size() {
+		return this.columns.length;
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return the SGQA column name of the slot.
+	 */
+	public String column(final int slot) {
+		return this.columns[slot];
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return the question code column name of the slot.
+	 */
+	public String code(final int slot) {
+		return this.codes[slot];
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return the question of the slot, <code>null</code> for the fixed
+	 *         columns.
+	 */
+	public ListQuestionsEntryType question(final int slot) {
+		return this.questions[slot];
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return the {@link ColumnPart} of the slot, {@link ColumnPart#ANSWER}
+	 *         for the fixed columns.
+	 */
+	public ColumnPart part(final int slot) {
+		return this.parts[slot];
+	}
+
+	/**
+	 * @return the 64 bit FNV-1a hash of the SGQA column names in slot order.
+	 *         Data stored by slot is only valid for an index with the same
+	 *         layout hash.
+	 */
+	public long getLayoutHash() {
+		long value = 0xcbf29ce484222325L;
+		for (final String column : this.columns) {
+			for (int i = 0; i < column.length(); i++) {
+				value ^= column.charAt(i);
+				value *= 0x100000001b3L;
+			}
+			value ^= '\n';
+			value *= 0x100000001b3L;
+		}
+		return value;
+	}
+
+	/**
+	 * @return the SGQA column names in slot order.
+	 */
+	public List<String> getColumns() {
+		return Collections.unmodifiableList(Arrays.asList(this.columns));
+	}
+
+	/**
+	 * Store the answers of the response by slot.
+	 *
+	 * @param entry
+	 *            the {@link ExportResponsesListEntryType}.
+	 * @return the {@link IndexedResponse}.
+	 */
+	public IndexedResponse index(final ExportResponsesListEntryType entry) {
+		final Object[] values = new Object[this.columns.length];
+		List<PropertyType> unmapped = null;
+		for (final PropertyType answer : entry.getAnswers()) {
+			final int slot = this.slot(answer.getKey());
+			if (slot >= 0) {
+				values[slot] = answer.getValue();
+			} else {
+				if (Objects.isNull(unmapped)) {
+					unmapped = new ArrayList<>();
+				}
+				unmapped.add(answer);
+			}
+		}
+		if (Objects.isNull(values[SLOT_ID])) {
+			values[SLOT_ID] = entry.getId();
+		}
+		return new IndexedResponse(this, values, unmapped);
+	}
+
+	/**
+	 * Adapts a consumer of {@link IndexedResponse}s to the streaming export,
+	 * e.g.
+	 * <code>client.exportResponses(session, sid, language, index.indexing(consumer))</code>
+	 * .
+	 *
+	 * @param consumer
+	 *            the {@link Consumer} of the {@link IndexedResponse}s.
+	 * @return the {@link Consumer} of {@link ExportResponsesListEntryType}s.
+	 */
+	public Consumer<ExportResponsesListEntryType> indexing(
+			final Consumer<IndexedResponse> consumer) {
+		return entry -> consumer.accept(this.index(entry));
+	}
+}
@@ -0,0 +1,262 @@
+package com.qpark.survey.lime.limit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the requests in flight with an additive increase, multiplicative
+ * decrease (AIMD) limit. Each successful request in time raises the limit by
+ * <code>1/limit</code>, about one per round of requests, as long as the limit
+ * is used. An overloaded request, a server error, an I/O failure or a latency
+ * above {@link LimitProperties#getLatencyTolerance()} times the no load
+ * latency, multiplies the limit with {@link LimitProperties#getBackoffRatio()}.
+ * Requests started before the last decrease do not decrease it again, so a
+ * burst of failures only backs off once.
+ * <p>
+ * The no load latency is the minimum latency seen, slowly drifting towards
+ * the current latencies so the limiter recovers from a lasting change. A
+ * limiter of a method whose latency depends on its parameters, like the
+ * export of surveys of different size, is created with a latency tolerance of
+ * 0 and only backs off on errors and timeouts.
+ * <p>
+ * Blocking callers take a slot with {@link #acquire()}, non-blocking callers
+ * with {@link #acquireAsync()}. Both share the same limit.
+ *
+ * @author bhausen
+ */
+public class AimdLimiter {
+	/** The result of a request. */
+	public enum Outcome {
+		/** The request succeeded. */
+		SUCCESS,
+		/** The server was overloaded or did not answer. */
+		OVERLOAD,
+		/** The request failed for reasons unrelated to the load. */
+		IGNORE
+	}
+
+	/** The name. */
+	private final String name;
+	/** The {@link LimitProperties}. */
+	private final LimitProperties properties;
+	/** The multiple of the no load latency taken as overload, 0 for none. */
+	private final double latencyTolerance;
+	/** The current limit. */
+	private double limit;
+	/** The requests in flight. */
+	private int inFlight;
+	/** The no load latency in nanoseconds, 0 before the first request. */
+	private long baseline;
+	/** The time of the last decrease in nanoseconds. */
+	private long lastDecrease;
+	/** The waiting non-blocking acquirers. */
+	private final Deque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+	/**
+	 * @param name
+	 *            the name, e.g. the end point and method.
+	 * @param properties
+	 *            the {@link LimitProperties}.
+	 */
+	public AimdLimiter(final String name, final LimitProperties properties) {
+		this(name, properties, properties.getLatencyTolerance());
+	}
+
+	/**
+	 * @param name
+	 *            the name, e.g. the end point and method.
+	 * @param properties
+	 *            the {@link LimitProperties}.
+	 * @param latencyTolerance
+	 *            the multiple of the no load latency taken as overload, 0
+	 *            only takes errors and timeouts as overload.
+	 */
+	public AimdLimiter(final String name, final LimitProperties properties,
+			final double latencyTolerance) {
+		this.name = name;
+		this.properties = Objects.requireNonNull(properties);
+		this.latencyTolerance = latencyTolerance;
+		this.limit = Math.max(1, Math.min(properties.getMaxLimit(),
+				Math.max(properties.getMinLimit(),
+						properties.getInitialLimit())));
+		this.lastDecrease = System.nanoTime();
+	}
+
+	/**
+	 * Wait until the requests in flight are below the limit and take a
+	 * request slot.
+	 *
+	 * @return <code>false</code> if no slot was free within the
+	 *         {@link LimitProperties#getAcquireTimeout()}.
+	 * @throws InterruptedException
+	 */
+	public synchronized boolean acquire() throws InterruptedException {
+		final long timeout = this.properties.getAcquireTimeout();
+		final long deadline = System.currentTimeMillis() + timeout;
+		while (this.inFlight >= (int) this.limit) {
+			if (timeout <= 0) {
+				this.wait();
+			} else {
+				final long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				this.wait(remaining);
+			}
+		}
+		this.inFlight++;
+		return true;
+	}
+
+	/**
+	 * Take a request slot without blocking the caller. The waiting acquirers
+	 * are served in FIFO order as slots are released. They wait without the
+	 * {@link LimitProperties#getAcquireTimeout()}, a cancelled future gives
+	 * its slot to the next one.
+	 *
+	 * @return the {@link CompletableFuture} completing when the slot is
+	 *         taken.
+	 */
+	public CompletableFuture<Void> acquireAsync() {
+		synchronized (this) {
+			if (this.waiting.isEmpty() && this.inFlight < (int) this.limit) {
+				this.inFlight++;
+				return CompletableFuture.completedFuture(null);
+			}
+			final CompletableFuture<Void> value = new CompletableFuture<>();
+			this.waiting.add(value);
+			return value;
+		}
+	}
+
+	/**
+	 * Return the request slot and adapt the limit, the latency is measured
+	 * until now.
+	 *
+	 * @param startNanos
+	 *            the {@link System#nanoTime()} the request was sent.
+	 * @param outcome
+	 *            the {@link Outcome} of the request.
+	 */
+	public void release(final long startNanos, final Outcome outcome) {
+		this.release(startNanos, System.nanoTime(), outcome);
+	}
+
+	/**
+	 * Return the request slot and adapt the limit. The latency is measured
+	 * until the response arrived, so the time a caller spends reading a large
+	 * response body does not count as server latency.
+	 *
+	 * @param startNanos
+	 *            the {@link System#nanoTime()} the request was sent.
+	 * @param respondedNanos
+	 *            the {@link System#nanoTime()} the response status and
+	 *            headers arrived.
+	 * @param outcome
+	 *            the {@link Outcome} of the request.
+	 */
+	public void release(final long startNanos, final long respondedNanos,
+			final Outcome outcome) {
+		synchronized (this) {
+			final long now = System.nanoTime();
+			final long latency = respondedNanos - startNanos;
+			final boolean used = this.inFlight >= this.limit / 2;
+			this.inFlight--;
+			if (outcome == Outcome.OVERLOAD) {
+				this.decrease(startNanos, now);
+			} else if (outcome == Outcome.SUCCESS) {
+				final double tolerance = this.latencyTolerance;
+				if (tolerance > 0 && this.baseline > 0
+						&& latency > this.baseline * tolerance) {
+					this.decrease(startNanos, now);
+				} else if (used) {
+					this.limit = Math.min(this.properties.getMaxLimit(),
+							this.limit + 1 / this.limit);
+				}
+				if (this.baseline == 0 || latency < this.baseline) {
+					this.baseline = latency;
+				} else {
+					this.baseline += (latency - this.baseline) / 1000;
+				}
+			}
+			this.notifyAll();
+		}
+		this.grantWaiting();
+	}
+
+	/**
+	 * Hands the free slots over to the waiting non-blocking acquirers. They
+	 * are completed outside the lock, as their continuations run on this
+	 * thread.
+	 */
+	private void grantWaiting() {
+		final List<CompletableFuture<Void>> granted = new ArrayList<>();
+		synchronized (this) {
+			while (!this.waiting.isEmpty()
+					&& this.inFlight < (int) this.limit) {
+				granted.add(this.waiting.poll());
+				this.inFlight++;
+			}
+		}
+		for (final CompletableFuture<Void> acquirer : granted) {
+			if (!acquirer.complete(null)) {
+				synchronized (this) {
+					this.inFlight--;
+					this.notifyAll();
+				}
+				this.grantWaiting();
+			}
+		}
+	}
+
+	private void decrease(final long startNanos, final long now) {
+		if (startNanos - this.lastDecrease > 0) {
+			this.limit = Math.max(Math.max(1, this.properties.getMinLimit()),
+					this.limit * this.properties.getBackoffRatio());
+			this.lastDecrease = now;
+		}
+	}
+
+	/**
+	 * @return the name.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return the current limit of requests in flight.
+	 */
+	public synchronized int getLimit() {
+		return (int) this.limit;
+	}
+
+	/**
+	 * @return the requests in flight.
+	 */
+	public synchronized int getInFlight() {
+		return this.inFlight;
+	}
+
+	/**
+	 * @return the no load latency in milliseconds.
+	 */
+	public synchronized long getBaselineMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.baseline);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%s limit=%s inFlight=%s baseline=%sms",
+				this.name, this.getLimit(), this.getInFlight(),
+				this.getBaselineMillis());
+	}
+}
@@ -0,0 +1,104 @@
+package com.qpark.survey.lime.limit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link AimdLimiter}s of the {@link com.qpark.survey.lime.RestClient}
+ * by end point and JSON-RPC method, so a method overloading the lime survey
+ * server is backed off without throttling the cheap calls to it or the calls
+ * to other end points. The limiters of the
+ * {@link LimitProperties#getErrorOnlyMethods()} ignore the latency, as it
+ * depends on the size of the survey exported.
+ *
+ * @author bhausen
+ */
+public class ConcurrencyLimiters {
+	/** The {@link ConcurrencyLimiters} not limiting any request. */
+	public static final ConcurrencyLimiters UNLIMITED = new ConcurrencyLimiters(
+			disabled());
+	/** The {@link LimitProperties}. */
+	private final LimitProperties properties;
+	/** The limiters by end point and method. */
+	private final Map<String, AimdLimiter> limiters = new ConcurrentHashMap<>();
+
+	/**
+	 * @param properties
+	 *            the {@link LimitProperties}.
+	 */
+	public ConcurrencyLimiters(final LimitProperties properties) {
+		this.properties = Objects.requireNonNull(properties);
+	}
+
+	private static LimitProperties disabled() {
+		final LimitProperties value = new LimitProperties();
+		value.setEnabled(false);
+		return value;
+	}
+
+	/**
+	 * @param endPointUrl
+	 *            the end point URL.
+	 * @param method
+	 *            the JSON-RPC method name.
+	 * @return the {@link Optional} of the {@link AimdLimiter} of the end point
+	 *         and method, empty if the limiters are disabled.
+	 */
+	public Optional<AimdLimiter> getLimiter(final String endPointUrl,
+			final String method) {
+		if (!this.properties.isEnabled()) {
+			return Optional.empty();
+		}
+		return Optional.of(this.limiters.computeIfAbsent(
+				new StringBuilder(64).append(endPointUrl).append('|')
+						.append(method).toString(),
+				key -> new AimdLimiter(key, this.properties,
+						this.isErrorOnly(method) ? 0
+								: this.properties.getLatencyTolerance())));
+	}
+
+	/**
+	 * @param method
+	 *            the JSON-RPC method name.
+	 * @return <code>true</code> if the method is only backed off on errors
+	 *         and timeouts.
+	 */
+	boolean isErrorOnly(final String method) {
+		if (Objects.isNull(method)
+				|| Objects.isNull(this.properties.getErrorOnlyMethods())) {
+			return false;
+		}
+		for (final String m : this.properties.getErrorOnlyMethods()) {
+			if (m.endsWith("*") ? method.startsWith(m.substring(0, m.length() - 1))
+					: method.equals(m)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the created {@link AimdLimiter}s.
+	 */
+	public Collection<AimdLimiter> getLimiters() {
+		return new ArrayList<>(this.limiters.values());
+	}
+
+	/**
+	 * @return <code>false</code> if no request is limited.
+	 */
+	public boolean isEnabled() {
+		return this.properties.isEnabled();
+	}
+
+	/**
+	 * @return the {@link LimitProperties}.
+	 */
+	public LimitProperties getProperties() {
+		return this.properties;
+	}
+}
@@ -0,0 +1,164 @@
+package com.qpark.survey.lime.limit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The settings of the {@link AimdLimiter}s of the {@link ConcurrencyLimiters}.
+ * All times are in milliseconds.
+ *
+ * @author bhausen
+ */
+public class LimitProperties {
+	/** <code>false</code> does not limit the requests. */
+	private boolean enabled = false;
+	/** The limit of requests in flight to start with. */
+	private int initialLimit = 8;
+	/** The lower bound of the limit. */
+	private int minLimit = 1;
+	/** The upper bound of the limit. */
+	private int maxLimit = 64;
+	/** The factor the limit is multiplied with on overload. */
+	private double backoffRatio = 0.75;
+	/**
+	 * The latency above this multiple of the no load latency is taken as
+	 * overload, 0 only takes errors as overload.
+	 */
+	private double latencyTolerance = 2.0;
+	/**
+	 * The JSON-RPC methods only backed off on errors and timeouts, not on
+	 * latency. A trailing <code>*</code> matches all methods with the prefix.
+	 */
+	private List<String> errorOnlyMethods = new ArrayList<>(
+			Arrays.asList("export_responses", "export_responses_by_token"));
+	/** The maximum time to wait for a request slot, 0 waits forever. */
+	private long acquireTimeout = 60000;
+
+	/**
+	 * @return <code>false</code> if the requests are not limited.
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * @param enabled
+	 *            <code>false</code> does not limit the requests.
+	 */
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return the limit of requests in flight to start with.
+	 */
+	public int getInitialLimit() {
+		return this.initialLimit;
+	}
+
+	/**
+	 * @param initialLimit
+	 *            the limit of requests in flight to start with.
+	 */
+	public void setInitialLimit(final int initialLimit) {
+		this.initialLimit = initialLimit;
+	}
+
+	/**
+	 * @return the lower bound of the limit.
+	 */
+	public int getMinLimit() {
+		return this.minLimit;
+	}
+
+	/**
+	 * @param minLimit
+	 *            the lower bound of the limit.
+	 */
+	public void setMinLimit(final int minLimit) {
+		this.minLimit = minLimit;
+	}
+
+	/**
+	 * @return the upper bound of the limit.
+	 */
+	public int getMaxLimit() {
+		return this.maxLimit;
+	}
+
+	/**
+	 * @param maxLimit
+	 *            the upper bound of the limit.
+	 */
+	public void setMaxLimit(final int maxLimit) {
+		this.maxLimit = maxLimit;
+	}
+
+	/**
+	 * @return the factor the limit is multiplied with on overload.
+	 */
+	public double getBackoffRatio() {
+		return this.backoffRatio;
+	}
+
+	/**
+	 * @param backoffRatio
+	 *            the factor the limit is multiplied with on overload, between
+	 *            0 and 1.
+	 */
+	public void setBackoffRatio(final double backoffRatio) {
+		this.backoffRatio = backoffRatio;
+	}
+
+	/**
+	 * @return the multiple of the no load latency taken as overload.
+	 */
+	public double getLatencyTolerance() {
+		return this.latencyTolerance;
+	}
+
+	/**
+	 * @param latencyTolerance
+	 *            the latency above this multiple of the no load latency is
+	 *            taken as overload, 0 only takes errors as overload. Not
+	 *            applied to the {@link #getErrorOnlyMethods()}.
+	 */
+	public void setLatencyTolerance(final double latencyTolerance) {
+		this.latencyTolerance = latencyTolerance;
+	}
+
+	/**
+	 * @return the JSON-RPC methods only backed off on errors and timeouts.
+	 */
+	public List<String> getErrorOnlyMethods() {
+		return this.errorOnlyMethods;
+	}
+
+	/**
+	 * @param errorOnlyMethods
+	 *            the JSON-RPC methods only backed off on errors and timeouts,
+	 *            as their latency depends on the survey, like
+	 *            <i>export_responses</i>. A trailing <code>*</code> matches all
+	 *            methods with the prefix.
+	 */
+	public void setErrorOnlyMethods(final List<String> errorOnlyMethods) {
+		this.errorOnlyMethods = errorOnlyMethods;
+	}
+
+	/**
+	 * @return the maximum time to wait for a request slot, 0 waits forever.
+	 */
+	public long getAcquireTimeout() {
+		return this.acquireTimeout;
+	}
+
+	/**
+	 * @param acquireTimeout
+	 *            the maximum time to wait for a request slot, 0 waits
+	 *            forever.
+	 */
+	public void setAcquireTimeout(final long acquireTimeout) {
+		this.acquireTimeout = acquireTimeout;
+	}
+}
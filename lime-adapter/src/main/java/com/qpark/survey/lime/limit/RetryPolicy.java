@@ -0,0 +1,79 @@
+package com.qpark.survey.lime.limit;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which requests of the {@link com.qpark.survey.lime.RestClient} are
+ * sent again after an overload or I/O failure and how long to wait before.
+ * Only idempotent methods are retried. The backoff grows exponentially and is
+ * fully jittered, a random time between 0 and the exponential backoff, so
+ * clients failing together do not retry together.
+ *
+ * @author bhausen
+ */
+public class RetryPolicy {
+	/** The {@link RetryPolicy} not retrying any request. */
+	public static final RetryPolicy NONE = new RetryPolicy(none());
+	/** The {@link RetryProperties}. */
+	private final RetryProperties properties;
+
+	/**
+	 * @param properties
+	 *            the {@link RetryProperties}.
+	 */
+	public RetryPolicy(final RetryProperties properties) {
+		this.properties = Objects.requireNonNull(properties);
+	}
+
+	private static RetryProperties none() {
+		final RetryProperties value = new RetryProperties();
+		value.setMaxAttempts(1);
+		return value;
+	}
+
+	/**
+	 * @return the maximum number of attempts of an idempotent request.
+	 */
+	public int getMaxAttempts() {
+		return Math.max(1, this.properties.getMaxAttempts());
+	}
+
+	/**
+	 * @param method
+	 *            the JSON-RPC method name.
+	 * @return <code>true</code> if the method is safe to send again.
+	 */
+	public boolean isIdempotent(final String method) {
+		if (Objects.isNull(method)
+				|| Objects.isNull(this.properties.getIdempotentMethods())) {
+			return false;
+		}
+		for (final String m : this.properties.getIdempotentMethods()) {
+			if (m.endsWith("*") ? method.startsWith(m.substring(0, m.length() - 1))
+					: method.equals(m)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @param retry
+	 *            the number of the retry, starting with 1.
+	 * @return the jittered backoff before the retry in milliseconds.
+	 */
+	public long getBackoff(final int retry) {
+		final double backoff = Math.min(this.properties.getMaxBackoff(),
+				this.properties.getInitialBackoff() * Math
+						.pow(this.properties.getMultiplier(), retry - 1));
+		return (long) (ThreadLocalRandom.current().nextDouble() * backoff);
+	}
+
+	/**
+	 * @return the {@link RetryProperties}.
+	 */
+	public RetryProperties getProperties() {
+		return this.properties;
+	}
+}
@@ -0,0 +1,107 @@
+package com.qpark.survey.lime.limit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The settings of the {@link RetryPolicy}. All times are in milliseconds.
+ *
+ * @author bhausen
+ */
+public class RetryProperties {
+	/** The maximum number of attempts of an idempotent request. */
+	private int maxAttempts = 1;
+	/** The backoff before the first retry. */
+	private long initialBackoff = 200;
+	/** The upper bound of the backoff. */
+	private long maxBackoff = 10000;
+	/** The factor the backoff grows with each retry. */
+	private double multiplier = 2.0;
+	/**
+	 * The JSON-RPC methods safe to send again. A trailing <code>*</code>
+	 * matches all methods with the prefix.
+	 */
+	private List<String> idempotentMethods = new ArrayList<>(Arrays.asList(
+			"list_*", "export_responses", "export_responses_by_token",
+			"get_survey_properties", "get_question_properties",
+			"get_group_properties", "get_language_properties", "get_summary",
+			"get_participant_properties"));
+
+	/**
+	 * @return the maximum number of attempts of an idempotent request.
+	 */
+	public int getMaxAttempts() {
+		return this.maxAttempts;
+	}
+
+	/**
+	 * @param maxAttempts
+	 *            the maximum number of attempts of an idempotent request, 1
+	 *            does not retry.
+	 */
+	public void setMaxAttempts(final int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * @return the backoff before the first retry.
+	 */
+	public long getInitialBackoff() {
+		return this.initialBackoff;
+	}
+
+	/**
+	 * @param initialBackoff
+	 *            the backoff before the first retry.
+	 */
+	public void setInitialBackoff(final long initialBackoff) {
+		this.initialBackoff = initialBackoff;
+	}
+
+	/**
+	 * @return the upper bound of the backoff.
+	 */
+	public long getMaxBackoff() {
+		return this.maxBackoff;
+	}
+
+	/**
+	 * @param maxBackoff
+	 *            the upper bound of the backoff.
+	 */
+	public void setMaxBackoff(final long maxBackoff) {
+		this.maxBackoff = maxBackoff;
+	}
+
+	/**
+	 * @return the factor the backoff grows with each retry.
+	 */
+	public double getMultiplier() {
+		return this.multiplier;
+	}
+
+	/**
+	 * @param multiplier
+	 *            the factor the backoff grows with each retry.
+	 */
+	public void setMultiplier(final double multiplier) {
+		this.multiplier = multiplier;
+	}
+
+	/**
+	 * @return the JSON-RPC methods safe to send again.
+	 */
+	public List<String> getIdempotentMethods() {
+		return this.idempotentMethods;
+	}
+
+	/**
+	 * @param idempotentMethods
+	 *            the JSON-RPC methods safe to send again. A trailing
+	 *            <code>*</code> matches all methods with the prefix.
+	 */
+	public void setIdempotentMethods(final List<String> idempotentMethods) {
+		this.idempotentMethods = idempotentMethods;
+	}
+}
@@ -0,0 +1,82 @@
+package com.qpark.survey.lime.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read through it.
+ *
+ * @author bhausen
+ */
+public class CountingInputStream extends FilterInputStream {
+	/** The number of bytes read. */
+	private long count;
+
+	/**
+	 * @param in
+	 *            the underlying {@link InputStream}.
+	 */
+	public CountingInputStream(final InputStream in) {
+		super(in);
+	}
+
+	/**
+	 * @return the number of bytes read or skipped.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return the underlying {@link InputStream}.
+	 */
+	public InputStream getDelegate() {
+		return this.in;
+	}
+
+	/**
+	 * @see java.io.FilterInputStream#read()
+	 */
+	@Override
+	public int read() throws IOException {
+		final int value = this.in.read();
+		if (value >= 0) {
+			this.count++;
+		}
+		return value;
+	}
+
+	/**
+	 * @see java.io.FilterInputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(final byte[] b, final int off, final int len)
+			throws IOException {
+		final int value = this.in.read(b, off, len);
+		if (value > 0) {
+			this.count += value;
+		}
+		return value;
+	}
+
+	/**
+	 * @see java.io.FilterInputStream#skip(long)
+	 */
+	@Override
+	public long skip(final long n) throws IOException {
+		final long value = this.in.skip(n);
+		this.count += value;
+		return value;
+	}
+
+	/**
+	 * Marking is not supported, re-read bytes would be counted twice.
+	 *
+	 * @see java.io.FilterInputStream#markSupported()
+	 */
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
@@ -0,0 +1,49 @@
+package com.qpark.survey.lime.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes written through it.
+ *
+ * @author bhausen
+ */
+public class CountingOutputStream extends FilterOutputStream {
+	/** The number of bytes written. */
+	private long count;
+
+	/**
+	 * @param out
+	 *            the underlying {@link OutputStream}.
+	 */
+	public CountingOutputStream(final OutputStream out) {
+		super(out);
+	}
+
+	/**
+	 * @return the number of bytes written.
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @see java.io.FilterOutputStream#write(int)
+	 */
+	@Override
+	public void write(final int b) throws IOException {
+		this.out.write(b);
+		this.count++;
+	}
+
+	/**
+	 * @see java.io.FilterOutputStream#write(byte[], int, int)
+	 */
+	@Override
+	public void write(final byte[] b, final int off, final int len)
+			throws IOException {
+		this.out.write(b, off, len);
+		this.count += len;
+	}
+}
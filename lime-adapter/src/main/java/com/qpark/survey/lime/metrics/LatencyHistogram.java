@@ -0,0 +1,131 @@
+package com.qpark.survey.lime.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of durations in nanoseconds with log-linear buckets:
+ * each power of two is split into eight buckets, so percentiles are reported
+ * with at most 12.5% relative error in constant memory.
+ *
+ * @author bhausen
+ */
+public class LatencyHistogram {
+	/** The number of bits of the linear sub buckets. */
+	private static final int SUB_BITS = 3;
+	/** The number of sub buckets per power of two. */
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	/** The number of buckets covering all positive long values. */
+	private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+	/** The counts per bucket. */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	/** The number of values. */
+	private final LongAdder count = new LongAdder();
+	/** The sum of the values. */
+	private final LongAdder sum = new LongAdder();
+	/** The maximum value. */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * @param nanos
+	 *            the duration to record, negative values are recorded as 0.
+	 */
+	public void record(final long nanos) {
+		final long value = Math.max(nanos, 0);
+		this.counts.incrementAndGet(index(value));
+		this.count.increment();
+		this.sum.add(value);
+		if (value > this.max.get()) {
+			this.max.accumulateAndGet(value, Math::max);
+		}
+	}
+
+	/**
+	 * @return the number of recorded values.
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * @return the sum of the recorded values in nanoseconds.
+	 */
+	public long getSum() {
+		return this.sum.sum();
+	}
+
+	/**
+	 * @return the maximum of the recorded values in nanoseconds.
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * @return the mean of the recorded values in nanoseconds, 0 if empty.
+	 */
+	public double getMean() {
+		final long n = this.getCount();
+		return n == 0 ? 0 : (double) this.getSum() / n;
+	}
+
+	/**
+	 * @param percentile
+	 *            the percentile between 0 and 100.
+	 * @return the upper bound of the bucket containing the percentile in
+	 *         nanoseconds, 0 if empty.
+	 */
+	public long getPercentile(final double percentile) {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += this.counts.get(i);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1,
+				(long) Math.ceil(total * Math.min(percentile, 100) / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += this.counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), this.getMax());
+			}
+		}
+		return this.getMax();
+	}
+
+	/**
+	 * @return count, mean, median, 99th percentile and maximum in
+	 *         milliseconds.
+	 */
+	@Override
+	public String toString() {
+		final double millis = TimeUnit.MILLISECONDS.toNanos(1);
+		return String.format("n=%s mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+				this.getCount(), this.getMean() / millis,
+				this.getPercentile(50) / millis,
+				this.getPercentile(99) / millis, this.getMax() / millis);
+	}
+
+	static int index(final long value) {
+		if (value < SUB_COUNT) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int sub = (int) (value >>> exponent - SUB_BITS) & SUB_COUNT - 1;
+		return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+	}
+
+	static long upperBound(final int index) {
+		if (index < SUB_COUNT) {
+			return index;
+		}
+		final int exponent = index / SUB_COUNT + SUB_BITS - 1;
+		final int sub = index % SUB_COUNT;
+		final long width = 1L << exponent - SUB_BITS;
+		return (SUB_COUNT + sub) * width + width - 1;
+	}
+}
@@ -0,0 +1,51 @@
+package com.qpark.survey.lime.metrics;
+
+/**
+ * Receives the measurements of the calls of one JSON-RPC method. All
+ * durations are in nanoseconds.
+ *
+ * @author bhausen
+ */
+public interface MethodMetrics {
+	/** The method name batch requests are reported under. */
+	String BATCH = "batch";
+
+	/**
+	 * Records a successful request.
+	 *
+	 * @param serializeNanos
+	 *            the time to write the request body.
+	 * @param networkNanos
+	 *            the time from the written request body until the response
+	 *            headers are received.
+	 * @param deserializeNanos
+	 *            the time to read and map the response body, which includes
+	 *            receiving it as it is streamed.
+	 * @param bytesOut
+	 *            the size of the request body.
+	 * @param bytesIn
+	 *            the size of the response body read.
+	 */
+	void recordRequest(long serializeNanos, long networkNanos,
+			long deserializeNanos, long bytesOut, long bytesIn);
+
+	/**
+	 * Records a failed request.
+	 */
+	void recordError();
+
+	/**
+	 * Records a failed request being sent again. The failed attempt is
+	 * recorded by {@link #recordError()} as well.
+	 */
+	void recordRetry();
+
+	/**
+	 * Records the rows returned by a request, e.g. the responses of
+	 * <i>export_responses</i>.
+	 *
+	 * @param rows
+	 *            the number of rows.
+	 */
+	void recordRows(long rows);
+}
@@ -0,0 +1,29 @@
+package com.qpark.survey.lime.metrics;
+
+/**
+ * The pluggable registry the {@link com.qpark.survey.lime.RestClient} reports
+ * its calls to, one {@link MethodMetrics} per JSON-RPC method. Implement it
+ * to forward the measurements to the monitoring in use, or use the
+ * {@link SimpleMetricsRegistry}.
+ *
+ * @author bhausen
+ */
+public interface MetricsRegistry {
+	/**
+	 * If not enabled the client neither takes the time nor counts the bytes.
+	 *
+	 * @return <code>true</code> if the measurements are recorded.
+	 */
+	default boolean isEnabled() {
+		return true;
+	}
+
+	/**
+	 * @param method
+	 *            the JSON-RPC method name, {@value MethodMetrics#BATCH} for
+	 *            batch requests.
+	 * @return the {@link MethodMetrics} of the method. Called once per
+	 *         request, implementations should cache the instances.
+	 */
+	MethodMetrics getMethodMetrics(String method);
+}
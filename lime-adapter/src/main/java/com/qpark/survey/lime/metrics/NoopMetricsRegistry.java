@@ -0,0 +1,51 @@
+package com.qpark.survey.lime.metrics;
+
+/**
+ * The disabled {@link MetricsRegistry}, the default of the
+ * {@link com.qpark.survey.lime.RestClient}. Nothing is measured.
+ *
+ * @author bhausen
+ */
+public final class NoopMetricsRegistry implements MetricsRegistry {
+	/** The {@link NoopMetricsRegistry}. */
+	public static final NoopMetricsRegistry INSTANCE = new NoopMetricsRegistry();
+	/** The {@link MethodMetrics} discarding all measurements. */
+	private static final MethodMetrics METHOD_METRICS = new MethodMetrics() {
+		@Override
+		public void recordRequest(final long serializeNanos,
+				final long networkNanos, final long deserializeNanos,
+				final long bytesOut, final long bytesIn) {
+		}
+
+		@Override
+		public void recordError() {
+		}
+
+		@Override
+		public void recordRetry() {
+		}
+
+		@Override
+		public void recordRows(final long rows) {
+		}
+	};
+
+	private NoopMetricsRegistry() {
+	}
+
+	/**
+	 * @see com.qpark.survey.lime.metrics.MetricsRegistry#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		return false;
+	}
+
+	/**
+	 * @see com.qpark.survey.lime.metrics.MetricsRegistry#getMethodMetrics(java.lang.String)
+	 */
+	@Override
+	public MethodMetrics getMethodMetrics(final String method) {
+		return METHOD_METRICS;
+	}
+}
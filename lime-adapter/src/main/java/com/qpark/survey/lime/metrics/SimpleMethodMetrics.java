@@ -0,0 +1,172 @@
+package com.qpark.survey.lime.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The in memory {@link MethodMetrics} of the {@link SimpleMetricsRegistry}.
+ *
+ * @author bhausen
+ */
+public class SimpleMethodMetrics implements MethodMetrics {
+	/** The JSON-RPC method name. */
+	private final String method;
+	/** The number of requests, successful and failed. */
+	private final LongAdder requests = new LongAdder();
+	/** The number of failed requests. */
+	private final LongAdder errors = new LongAdder();
+	/** The number of retried requests. */
+	private final LongAdder retries = new LongAdder();
+	/** The request body bytes. */
+	private final LongAdder bytesOut = new LongAdder();
+	/** The response body bytes. */
+	private final LongAdder bytesIn = new LongAdder();
+	/** The returned rows. */
+	private final LongAdder rows = new LongAdder();
+	/** The serialize phase. */
+	private final LatencyHistogram serialize = new LatencyHistogram();
+	/** The network phase. */
+	private final LatencyHistogram network = new LatencyHistogram();
+	/** The deserialize phase. */
+	private final LatencyHistogram deserialize = new LatencyHistogram();
+	/** The sum of the phases. */
+	private final LatencyHistogram total = new LatencyHistogram();
+
+	/**
+	 * @param method
+	 *            the JSON-RPC method name.
+	 */
+	public SimpleMethodMetrics(final String method) {
+		this.method = method;
+	}
+
+	/**
+	 * @see com.qpark.survey.lime.metrics.MethodMetrics#recordRequest(long,
+	 *      long, long, long, long)
+	 */
+	@Override
+	public void recordRequest(final long serializeNanos,
+			final long networkNanos, final long deserializeNanos,
+			final long bytesOut, final long bytesIn) {
+		this.requests.increment();
+		this.bytesOut.add(bytesOut);
+		this.bytesIn.add(bytesIn);
+		this.serialize.record(serializeNanos);
+		this.network.record(networkNanos);
+		this.deserialize.record(deserializeNanos);
+		this.total.record(serializeNanos + networkNanos + deserializeNanos);
+	}
+
+	/**
+	 * @see com.qpark.survey.lime.metrics.MethodMetrics#recordError()
+	 */
+	@Override
+	public void recordError() {
+		this.requests.increment();
+		this.errors.increment();
+	}
+
+	/**
+	 * @see com.qpark.survey.lime.metrics.MethodMetrics#recordRetry()
+	 */
+	@Override
+	public void recordRetry() {
+		this.retries.increment();
+	}
+
+	/**
+	 * @see com.qpark.survey.lime.metrics.MethodMetrics#recordRows(long)
+	 */
+	@Override
+	public void recordRows(final long rows) {
+		this.rows.add(rows);
+	}
+
+	/**
+	 * @return the JSON-RPC method name.
+	 */
+	public String getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * @return the number of requests, successful and failed.
+	 */
+	public long getRequestCount() {
+		return this.requests.sum();
+	}
+
+	/**
+	 * @return the number of failed requests.
+	 */
+	public long getErrorCount() {
+		return this.errors.sum();
+	}
+
+	/**
+	 * @return the number of retried requests.
+	 */
+	public long getRetryCount() {
+		return this.retries.sum();
+	}
+
+	/**
+	 * @return the request body bytes of the successful requests.
+	 */
+	public long getBytesOut() {
+		return this.bytesOut.sum();
+	}
+
+	/**
+	 * @return the response body bytes of the successful requests.
+	 */
+	public long getBytesIn() {
+		return this.bytesIn.sum();
+	}
+
+	/**
+	 * @return the returned rows.
+	 */
+	public long getRowCount() {
+		return this.rows.sum();
+	}
+
+	/**
+	 * @return the {@link LatencyHistogram} of the serialize phase.
+	 */
+	public LatencyHistogram getSerialize() {
+		return this.serialize;
+	}
+
+	/**
+	 * @return the {@link LatencyHistogram} of the network phase.
+	 */
+	public LatencyHistogram getNetwork() {
+		return this.network;
+	}
+
+	/**
+	 * @return the {@link LatencyHistogram} of the deserialize phase.
+	 */
+	public LatencyHistogram getDeserialize() {
+		return this.deserialize;
+	}
+
+	/**
+	 * @return the {@link LatencyHistogram} of the whole successful requests.
+	 */
+	public LatencyHistogram getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+				"%s requests=%s errors=%s retries=%s rows=%s out=%sB in=%sB total[%s] serialize[%s] network[%s] deserialize[%s]",
+				this.method, this.getRequestCount(), this.getErrorCount(),
+				this.getRetryCount(), this.getRowCount(), this.getBytesOut(),
+				this.getBytesIn(), this.total, this.serialize, this.network, this.deserialize);
+	}
+}
@@ -0,0 +1,53 @@
+package com.qpark.survey.lime.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * {@link MetricsRegistry} keeping the {@link SimpleMethodMetrics} in memory,
+ * e.g. for load tests or to be read by a periodic reporter.
+ *
+ * @author bhausen
+ */
+public class SimpleMetricsRegistry implements MetricsRegistry {
+	/** The {@link SimpleMethodMetrics} by method name. */
+	private final ConcurrentMap<String, SimpleMethodMetrics> methods = new ConcurrentHashMap<>();
+
+	/**
+	 * @see com.qpark.survey.lime.metrics.MetricsRegistry#getMethodMetrics(java.lang.String)
+	 */
+	@Override
+	public SimpleMethodMetrics getMethodMetrics(final String method) {
+		final SimpleMethodMetrics value = this.methods.get(method);
+		return Objects.nonNull(value) ? value
+				: this.methods.computeIfAbsent(method,
+						SimpleMethodMetrics::new);
+	}
+
+	/**
+	 * @return the {@link SimpleMethodMetrics} by method name.
+	 */
+	public Map<String, SimpleMethodMetrics> getMethods() {
+		return Collections.unmodifiableMap(this.methods);
+	}
+
+	/**
+	 * Drops all measurements.
+	 */
+	public void clear() {
+		this.methods.clear();
+	}
+
+	/**
+	 * @return one line per method, ordered by method name.
+	 */
+	public String report() {
+		return this.methods.keySet().stream().sorted()
+				.map(method -> this.methods.get(method).toString())
+				.collect(Collectors.joining(System.lineSeparator()));
+	}
+}
@@ -0,0 +1,259 @@
+package com.qpark.survey.lime.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The optional parameters of the operation <i>export_responses</i>. Values
+ * not set fall back to the lime survey defaults.
+ *
+ * @author bhausen
+ */
+public class ExportResponsesOptions {
+	/** The document type of <i>export_responses</i> the adapter can read. */
+	public enum DocumentType {
+		/** The JSON document, naming the columns in each response. */
+		JSON("json"),
+		/** The CSV document, naming the columns once in the header. */
+		CSV("csv");
+		private final String value;
+
+		private DocumentType(final String value) {
+			this.value = value;
+		}
+
+		/**
+		 * @return the value passed to lime survey.
+		 */
+		public String value() {
+			return this.value;
+		}
+	}
+
+	/** The completion status filter of <i>export_responses</i>. */
+	public enum CompletionStatus {
+		/** All responses. */
+		ALL("all"),
+		/** Completed responses only. */
+		COMPLETE("complete"),
+		/** Incomplete responses only. */
+		INCOMPLETE("incomplete");
+		private final String value;
+
+		private CompletionStatus(final String value) {
+			this.value = value;
+		}
+
+		/**
+		 * @return the value passed to lime survey.
+		 */
+		public String value() {
+			return this.value;
+		}
+	}
+
+	/** The heading type of <i>export_responses</i>. */
+	public enum HeadingType {
+		/** The question code. */
+		CODE("code"),
+		/** The full question text. */
+		FULL("full"),
+		/** The abbreviated question text. */
+		ABBREVIATED("abbreviated");
+		private final String value;
+
+		private HeadingType(final String value) {
+			this.value = value;
+		}
+
+		/**
+		 * @return the value passed to lime survey.
+		 */
+		public String value() {
+			return this.value;
+		}
+	}
+
+	/** The response type of <i>export_responses</i>. */
+	public enum ResponseType {
+		/** The answer code. */
+		SHORT("short"),
+		/** The answer text. */
+		LONG("long");
+		private final String value;
+
+		private ResponseType(final String value) {
+			this.value = value;
+		}
+
+		/**
+		 * @return the value passed to lime survey.
+		 */
+		public String value() {
+			return this.value;
+		}
+	}
+
+	private String documentType = DocumentType.JSON.value();
+	private String language;
+	private CompletionStatus completionStatus;
+	private HeadingType headingType;
+	private ResponseType responseType;
+	private Long fromResponseId;
+	private Long toResponseId;
+	private List<String> fields;
+
+	/**
+	 * @return a copy of this {@link ExportResponsesOptions}.
+	 */
+	public ExportResponsesOptions copy() {
+		final ExportResponsesOptions value = new ExportResponsesOptions();
+		value.setDocumentType(this.documentType);
+		value.setLanguage(this.language);
+		value.setCompletionStatus(this.completionStatus);
+		value.setHeadingType(this.headingType);
+		value.setResponseType(this.responseType);
+		value.setFromResponseId(this.fromResponseId);
+		value.setToResponseId(this.toResponseId);
+		if (this.fields != null) {
+			value.setFields(new ArrayList<>(this.fields));
+		}
+		return value;
+	}
+
+	/**
+	 * @return the documentType
+	 */
+	public String getDocumentType() {
+		return this.documentType;
+	}
+
+	/**
+	 * @param documentType
+	 *            the documentType to set
+	 */
+	public void setDocumentType(final String documentType) {
+		this.documentType = documentType;
+	}
+
+	/**
+	 * @param documentType
+	 *            the {@link DocumentType} to set.
+	 */
+	public void setDocumentType(final DocumentType documentType) {
+		this.documentType = documentType.value();
+	}
+
+	/**
+	 * @return <code>true</code> if the document type is <i>csv</i>.
+	 */
+	public boolean isCsv() {
+		return DocumentType.CSV.value().equalsIgnoreCase(this.documentType);
+	}
+
+	/**
+	 * @return the language
+	 */
+	public String getLanguage() {
+		return this.language;
+	}
+
+	/**
+	 * @param language
+	 *            the language to set
+	 */
+	public void setLanguage(final String language) {
+		this.language = language;
+	}
+
+	/**
+	 * @return the completionStatus
+	 */
+	public CompletionStatus getCompletionStatus() {
+		return this.completionStatus;
+	}
+
+	/**
+	 * @param completionStatus
+	 *            the completionStatus to set
+	 */
+	public void setCompletionStatus(final CompletionStatus completionStatus) {
+		this.completionStatus = completionStatus;
+	}
+
+	/**
+	 * @return the headingType
+	 */
+	public HeadingType getHeadingType() {
+		return this.headingType;
+	}
+
+	/**
+	 * @param headingType
+	 *            the headingType to set
+	 */
+	public void setHeadingType(final HeadingType headingType) {
+		this.headingType = headingType;
+	}
+
+	/**
+	 * @return the responseType
+	 */
+	public ResponseType getResponseType() {
+		return this.responseType;
+	}
+
+	/**
+	 * @param responseType
+	 *            the responseType to set
+	 */
+	public void setResponseType(final ResponseType responseType) {
+		this.responseType = responseType;
+	}
+
+	/**
+	 * @return the first response id to export (inclusive).
+	 */
+	public Long getFromResponseId() {
+		return this.fromResponseId;
+	}
+
+	/**
+	 * @param fromResponseId
+	 *            the first response id to export (inclusive).
+	 */
+	public void setFromResponseId(final Long fromResponseId) {
+		this.fromResponseId = fromResponseId;
+	}
+
+	/**
+	 * @return the last response id to export (inclusive).
+	 */
+	public Long getToResponseId() {
+		return this.toResponseId;
+	}
+
+	/**
+	 * @param toResponseId
+	 *            the last response id to export (inclusive).
+	 */
+	public void setToResponseId(final Long toResponseId) {
+		this.toResponseId = toResponseId;
+	}
+
+	/**
+	 * @return the names of the fields to export. <code>null</code> exports
+	 *         all fields.
+	 */
+	public List<String> getFields() {
+		return this.fields;
+	}
+
+	/**
+	 * @param fields
+	 *            the names of the fields to export.
+	 */
+	public void setFields(final List<String> fields) {
+		this.fields = fields;
+	}
+}
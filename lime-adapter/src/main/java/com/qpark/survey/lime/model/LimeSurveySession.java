@@ -6,6 +6,8 @@ package com.qpark.survey.lime.model;
 public class LimeSurveySession {
 	private String sessionKey;
 	private String userName;
+	private String endPointUrl;
+	private volatile long expires;
 
 	/**
 	 * @return the sessionKey
@@ -36,4 +38,43 @@ public class LimeSurveySession {
 	public void setUserName(final String userName) {
 		this.userName = userName;
 	}
+
+	/**
+	 * @return the end point URL the session was created at.
+	 */
+	public String getEndPointUrl() {
+		return this.endPointUrl;
+	}
+
+	/**
+	 * @param endPointUrl
+	 *            the end point URL the session was created at.
+	 */
+	public void setEndPointUrl(final String endPointUrl) {
+		this.endPointUrl = endPointUrl;
+	}
+
+	/**
+	 * @return the expiry in epoch milliseconds, <code>0</code> if unknown.
+	 */
+	public long getExpires() {
+		return this.expires;
+	}
+
+	/**
+	 * @param expires
+	 *            the expiry in epoch milliseconds.
+	 */
+	public void setExpires(final long expires) {
+		this.expires = expires;
+	}
+
+	/**
+	 * @param now
+	 *            the current time in epoch milliseconds.
+	 * @return <code>true</code> if the expiry is known and passed.
+	 */
+	public boolean isExpired(final long now) {
+		return this.expires > 0 && now >= this.expires;
+	}
 }
@@ -0,0 +1,388 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cursor over the rows of the decoded <i>export_responses</i> document of
+ * type <i>csv</i>. The header row is read once into the column dictionary,
+ * {@link #next()} then moves to the next row without creating objects: the
+ * cells of the current row are kept as bytes and decoded on access only.
+ * Short ASCII values, like answer codes and numbers, are taken from a small
+ * cache instead of creating a new {@link String} each time.
+ * <p>
+ * The document is read as lime survey writes it: UTF-8 with an optional byte
+ * order mark, separated by <code>,</code>, values in double quotes with
+ * <code>""</code> as escaped quote, lines ending with <code>\n</code> or
+ * <code>\r\n</code>. Unquoted values and line breaks inside quoted values are
+ * accepted as well.
+ * <p>
+ * The reader is not thread safe.
+ *
+ * @author bhausen
+ */
+public class CsvResponseReader implements Closeable {
+	/** The end of the stream. */
+	private static final int EOF = -1;
+	/** The maximum length of a cached value. */
+	private static final int CACHE_VALUE_LENGTH = 16;
+	/** The number of cached values, a power of two. */
+	private static final int CACHE_SIZE = 1024;
+	/** The {@link InputStream} of the CSV document. */
+	private final InputStream in;
+	/** The read buffer. */
+	private final byte[] buffer = new byte[8192];
+	/** The position in the buffer. */
+	private int position;
+	/** The number of valid bytes in the buffer. */
+	private int limit;
+	/** The separator. */
+	private final int separator;
+	/** The column names of the header row. */
+	private String[] columns;
+	/** The column indices by name. */
+	private Map<String, Integer> columnIndex;
+	/** The unescaped bytes of the current row. */
+	private byte[] row = new byte[1024];
+	/** The start of the cells in {@link #row}. */
+	private int[] starts = new int[64];
+	/** The end (exclusive) of the cells in {@link #row}. */
+	private int[] ends = new int[64];
+	/** The flags of the cells containing non ASCII bytes. */
+	private boolean[] nonAscii = new boolean[64];
+	/** The number of cells of the current row. */
+	private int cellCount;
+	/** The number of rows read, without the header. */
+	private long rowCount;
+	/** The cached short values. */
+	private final String[] cache = new String[CACHE_SIZE];
+
+	/**
+	 * @param in
+	 *            the {@link InputStream} of the decoded CSV document.
+	 */
+	public CsvResponseReader(final InputStream in) {
+		this(in, ',');
+	}
+
+	/**
+	 * @param in
+	 *            the {@link InputStream} of the decoded CSV document.
+	 * @param separator
+	 *            the ASCII separator of the cells.
+	 */
+	public CsvResponseReader(final InputStream in, final char separator) {
+		this.in = Objects.requireNonNull(in);
+		if (separator > 127 || separator == '"' || separator == '\r'
+				|| separator == '\n') {
+			throw new IllegalStateException(
+					String.format("Separator %s not supported.", separator));
+		}
+		this.separator = separator;
+	}
+
+	/**
+	 * @return the column names of the header row, empty if the document is
+	 *         empty. The array must not be modified.
+	 * @throws IOException
+	 */
+	public String[] getColumns() throws IOException {
+		if (Objects.isNull(this.columns)) {
+			this.skipByteOrderMark();
+			if (this.readRow()) {
+				this.columns = new String[this.cellCount];
+				this.columnIndex = new HashMap<>(this.cellCount * 2);
+				for (int i = 0; i < this.cellCount; i++) {
+					this.columns[i] = new String(this.row, this.starts[i],
+							this.ends[i] - this.starts[i],
+							StandardCharsets.UTF_8);
+					this.columnIndex.putIfAbsent(this.columns[i], i);
+				}
+			} else {
+				this.columns = new String[0];
+				this.columnIndex = new HashMap<>();
+			}
+			this.cellCount = 0;
+		}
+		return this.columns;
+	}
+
+	/**
+	 * @param column
+	 *            the column name.
+	 * @return the index of the column, -1 if the header does not contain it.
+	 * @throws IOException
+	 */
+	public int getColumnIndex(final String column) throws IOException {
+		this.getColumns();
+		final Integer value = this.columnIndex.get(column);
+		return Objects.isNull(value) ? -1 : value.intValue();
+	}
+
+	/**
+	 * Move to the next row. Empty lines are skipped.
+	 *
+	 * @return <code>false</code> if there are no more rows.
+	 * @throws IOException
+	 */
+	public boolean next() throws IOException {
+		this.getColumns();
+		while (this.readRow()) {
+			if (this.cellCount > 1 || this.ends[0] > this.starts[0]) {
+				this.rowCount++;
+				return true;
+			}
+		}
+		this.cellCount = 0;
+		return false;
+	}
+
+	/**
+	 * @return the number of cells of the current row. It is the number of
+	 *         columns, unless the row is malformed.
+	 */
+	public int getCellCount() {
+		return this.cellCount;
+	}
+
+	/**
+	 * @return the number of rows read, without the header.
+	 */
+	public long getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * @param column
+	 *            the column index.
+	 * @return the value of the cell of the current row, <code>null</code> if
+	 *         the row has no such cell.
+	 */
+	public String getValue(final int column) {
+		if (column < 0 || column >= this.cellCount) {
+			return null;
+		}
+		final int start = this.starts[column];
+		final int length = this.ends[column] - start;
+		if (length == 0) {
+			return "";
+		} else if (this.nonAscii[column]) {
+			return new String(this.row, start, length, StandardCharsets.UTF_8);
+		} else if (length > CACHE_VALUE_LENGTH) {
+			return new String(this.row, start, length,
+					StandardCharsets.ISO_8859_1);
+		}
+		int hash = 0;
+		for (int i = start; i < start + length; i++) {
+			hash = 31 * hash + this.row[i];
+		}
+		final int slot = (hash ^ hash >>> 16) & CACHE_SIZE - 1;
+		final String cached = this.cache[slot];
+		if (Objects.nonNull(cached) && this.matches(cached, start, length)) {
+			return cached;
+		}
+		final String value = new String(this.row, start, length,
+				StandardCharsets.ISO_8859_1);
+		this.cache[slot] = value;
+		return value;
+	}
+
+	/**
+	 * @param column
+	 *            the column index.
+	 * @return <code>true</code> if the cell of the current row is empty or
+	 *         missing.
+	 */
+	public boolean isEmpty(final int column) {
+		return column < 0 || column >= this.cellCount
+				|| this.ends[column] == this.starts[column];
+	}
+
+	/**
+	 * Parses the cell as integer number without creating a {@link String}.
+	 *
+	 * @param column
+	 *            the column index.
+	 * @param defaultValue
+	 *            the value of an empty, missing or non integer cell.
+	 * @return the value of the cell of the current row.
+	 */
+	public long getLong(final int column, final long defaultValue) {
+		if (this.isEmpty(column)) {
+			return defaultValue;
+		}
+		int i = this.starts[column];
+		final int end = this.ends[column];
+		final boolean negative = this.row[i] == '-';
+		if (negative || this.row[i] == '+') {
+			i++;
+		}
+		if (i == end || end - i > 18) {
+			return defaultValue;
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			final int digit = this.row[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return defaultValue;
+			}
+			value = value * 10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+
+	private boolean matches(final String cached, final int start,
+			final int length) {
+		if (cached.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (cached.charAt(i) != this.row[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void skipByteOrderMark() throws IOException {
+		if (this.ensure(3)
+				&& (this.buffer[this.position] & 0xff) == 0xEF
+				&& (this.buffer[this.position + 1] & 0xff) == 0xBB
+				&& (this.buffer[this.position + 2] & 0xff) == 0xBF) {
+			this.position += 3;
+		}
+	}
+
+	/**
+	 * Reads the next line into {@link #row}, unescaping the cells.
+	 *
+	 * @return <code>false</code> at the end of the document.
+	 */
+	private boolean readRow() throws IOException {
+		int b = this.read();
+		if (b == EOF) {
+			return false;
+		}
+		int length = 0;
+		int cell = 0;
+		while (true) {
+			final int start = length;
+			boolean ascii = true;
+			if (b == '"') {
+				b = this.read();
+				while (b != EOF) {
+					if (b == '"') {
+						b = this.read();
+						if (b != '"') {
+							break;
+						}
+					}
+					if (length == this.row.length) {
+						this.row = Arrays.copyOf(this.row, length * 2);
+					}
+					ascii &= b < 0x80;
+					this.row[length++] = (byte) b;
+					b = this.read();
+				}
+			}
+			/* Unquoted value or anything following the closing quote. */
+			while (b != EOF && b != this.separator && b != '\n' && b != '\r') {
+				if (length == this.row.length) {
+					this.row = Arrays.copyOf(this.row, length * 2);
+				}
+				ascii &= b < 0x80;
+				this.row[length++] = (byte) b;
+				b = this.read();
+			}
+			if (cell == this.starts.length) {
+				this.starts = Arrays.copyOf(this.starts, cell * 2);
+				this.ends = Arrays.copyOf(this.ends, cell * 2);
+				this.nonAscii = Arrays.copyOf(this.nonAscii, cell * 2);
+			}
+			this.starts[cell] = start;
+			this.ends[cell] = length;
+			this.nonAscii[cell] = !ascii;
+			cell++;
+			if (b == this.separator) {
+				b = this.read();
+			} else {
+				if (b == '\r' && this.peek() == '\n') {
+					this.read();
+				}
+				break;
+			}
+		}
+		this.cellCount = cell;
+		return true;
+	}
+
+	private int read() throws IOException {
+		if (this.position == this.limit && !this.fill()) {
+			return EOF;
+		}
+		return this.buffer[this.position++] & 0xff;
+	}
+
+	private int peek() throws IOException {
+		if (this.position == this.limit && !this.fill()) {
+			return EOF;
+		}
+		return this.buffer[this.position] & 0xff;
+	}
+
+	/**
+	 * @return <code>true</code> if at least the number of bytes is buffered.
+	 */
+	private boolean ensure(final int bytes) throws IOException {
+		if (this.position > 0) {
+			System.arraycopy(this.buffer, this.position, this.buffer, 0,
+					this.limit - this.position);
+			this.limit -= this.position;
+			this.position = 0;
+		}
+		while (this.limit < bytes) {
+			final int n = this.in.read(this.buffer, this.limit,
+					this.buffer.length - this.limit);
+			if (n < 0) {
+				return false;
+			}
+			this.limit += n;
+		}
+		return true;
+	}
+
+	/**
+	 * @return <code>false</code> at the end of the stream.
+	 */
+	private boolean fill() throws IOException {
+		if (this.position < this.limit) {
+			return true;
+		}
+		int n = 0;
+		while (n == 0) {
+			n = this.in.read(this.buffer, 0, this.buffer.length);
+		}
+		if (n < 0) {
+			this.position = 0;
+			this.limit = 0;
+			return false;
+		}
+		this.position = 0;
+		this.limit = n;
+		return true;
+	}
+}
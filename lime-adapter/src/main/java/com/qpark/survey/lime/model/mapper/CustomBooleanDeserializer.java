@@ -1,7 +1,6 @@
 package com.qpark.survey.lime.model.mapper;
 
 import java.io.IOException;
-import java.util.Objects;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -10,12 +9,22 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 
 /**
- * Maps lime survey boolean <i>Y</i> to <code>true</code>, all other to
- * <code>false</code>.
+ * Maps lime survey boolean <i>Y</i> and <i>true</i> (ignoring case) as well as
+ * the JSON <code>true</code> to <code>true</code>, all other to
+ * <code>false</code>. The text is inspected in the parser buffer without
+ * creating a {@link String}.
+ * <p>
+ * The deserializer is registered for the primitive <code>boolean</code>,
+ * which cannot take <code>null</code>. So JSON <code>null</code>, numbers and
+ * <code>false</code> map to <code>false</code> as well, where the former
+ * version returned <code>null</code> for all but strings and failed to set
+ * the primitive property.
  *
  * @author bhausen
  */
 public class CustomBooleanDeserializer extends JsonDeserializer<Boolean> {
+	private static final char[] TRUE = { 't', 'r', 'u', 'e' };
+
 	/**
 	 * @see com.fasterxml.jackson.databind.JsonDeserializer#deserialize(com.fasterxml.jackson.core.JsonParser,
 	 *      com.fasterxml.jackson.databind.DeserializationContext)
@@ -24,17 +33,50 @@ public class CustomBooleanDeserializer extends JsonDeserializer<Boolean> {
 	public Boolean deserialize(final JsonParser jp,
 			final DeserializationContext ctxt)
 			throws IOException, JsonProcessingException {
-		Boolean value = null;
-		System.out.println(jp);
-		if (jp.getCurrentTokenId() == JsonTokenId.ID_STRING) {
-			try {
-				value = Boolean.valueOf(jp.getText())
-						|| Objects.nonNull(jp.getText())
-								&& jp.getText().trim().equals("Y");
-			} catch (final Exception e) {
-				e.printStackTrace();
+		switch (jp.getCurrentTokenId()) {
+		case JsonTokenId.ID_TRUE:
+			return Boolean.TRUE;
+		case JsonTokenId.ID_STRING:
+			return Boolean.valueOf(isTrue(jp.getTextCharacters(),
+					jp.getTextOffset(), jp.getTextLength()));
+		default:
+			return Boolean.FALSE;
+		}
+	}
+
+	/**
+	 * @see com.fasterxml.jackson.databind.JsonDeserializer#getNullValue(com.fasterxml.jackson.databind.DeserializationContext)
+	 */
+	@Override
+	public Boolean getNullValue(final DeserializationContext ctxt) {
+		return Boolean.FALSE;
+	}
+
+	/**
+	 * @return <code>true</code> if the trimmed text is <i>Y</i> or
+	 *         <i>true</i> ignoring case.
+	 */
+	static boolean isTrue(final char[] text, final int offset,
+			final int length) {
+		int start = offset;
+		int end = offset + length;
+		while (start < end && text[start] <= ' ') {
+			start++;
+		}
+		while (end > start && text[end - 1] <= ' ') {
+			end--;
+		}
+		final int trimmed = end - start;
+		if (trimmed == 1) {
+			return text[start] == 'Y';
+		} else if (trimmed == TRUE.length) {
+			for (int i = 0; i < TRUE.length; i++) {
+				if ((text[start + i] | 0x20) != TRUE[i]) {
+					return false;
+				}
 			}
+			return true;
 		}
-		return value;
+		return false;
 	}
 }
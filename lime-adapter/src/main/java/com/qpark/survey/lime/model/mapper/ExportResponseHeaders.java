@@ -0,0 +1,87 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+
+/**
+ * Sets the fixed columns of an <i>export_responses</i> response, like
+ * <i>id</i> or <i>submitdate</i>, to the properties of the
+ * {@link ExportResponsesListEntryType}. Shared by the JSON and the CSV
+ * parser. Not thread safe.
+ *
+ * @author bhausen
+ */
+final class ExportResponseHeaders {
+	/** The {@link DatatypeFactory} to create the date values. */
+	private final DatatypeFactory datatypeFactory;
+
+	ExportResponseHeaders() throws IOException {
+		try {
+			this.datatypeFactory = DatatypeFactory.newInstance();
+		} catch (final DatatypeConfigurationException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Set the column to the entry, if it is one of the fixed columns.
+	 * <code>null</code> values are ignored.
+	 */
+	void set(final ExportResponsesListEntryType entry, final String key,
+			final Object value) {
+		if (Objects.isNull(value)) {
+			return;
+		}
+		switch (key) {
+		case "id":
+			entry.setId(String.valueOf(value));
+			break;
+		case "lastpage":
+			entry.setLastpage(String.valueOf(value));
+			break;
+		case "startlanguage":
+			entry.setStartlanguage(String.valueOf(value));
+			break;
+		case "token":
+			entry.setToken(String.valueOf(value));
+			break;
+		case "ipaddr":
+			entry.setIpaddr(String.valueOf(value));
+			break;
+		case "refurl":
+			entry.setRefurl(String.valueOf(value));
+			break;
+		case "submitdate":
+			entry.setSubmitdate(this.toDate(value));
+			break;
+		case "startdate":
+			entry.setStartdate(this.toDate(value));
+			break;
+		case "datestamp":
+			entry.setDatestamp(this.toDate(value));
+			break;
+		default:
+			break;
+		}
+	}
+
+	private XMLGregorianCalendar toDate(final Object value) {
+		XMLGregorianCalendar date = null;
+		final String s = String.valueOf(value).trim();
+		if (s.length() > 0) {
+			try {
+				date = this.datatypeFactory
+						.newXMLGregorianCalendar(s.replace(' ', 'T'));
+			} catch (final IllegalArgumentException e) {
+				date = null;
+			}
+		}
+		return date;
+	}
+}
@@ -0,0 +1,151 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * Streaming parser of the <i>export_responses</i> JSON-RPC response of the
+ * document type <i>csv</i>. The base64 <i>result</i> is decoded incrementally
+ * and read by a {@link CsvResponseReader}. Compared to the <i>json</i>
+ * document, which repeats all column names in each response, the CSV
+ * document names the columns once in its header. The
+ * {@link ExportResponsesListEntryType}s created share the column names of
+ * the header as {@link PropertyType#getKey()}.
+ *
+ * @author bhausen
+ */
+public class ExportResponsesCsvParser {
+	/**
+	 * Receives the rows of the CSV document.
+	 */
+	@FunctionalInterface
+	public interface RowCallback {
+		/**
+		 * @param row
+		 *            the {@link CsvResponseReader} positioned at the row. It is
+		 *            only valid during the call.
+		 * @throws IOException
+		 */
+		void row(CsvResponseReader row) throws IOException;
+	}
+
+	/**
+	 * Parses the JSON-RPC response and passes each row to the callback
+	 * without creating an {@link ExportResponsesListEntryType}. The returned
+	 * {@link ExportResponsesResponseType} contains the <i>id</i> and
+	 * <i>error</i> of the envelope only. A <i>status</i> reported by lime
+	 * survey instead of a result is returned as <i>error</i>.
+	 *
+	 * @param envelope
+	 *            the {@link InputStream} of the JSON-RPC response.
+	 * @param callback
+	 *            the {@link RowCallback}.
+	 * @return the {@link ExportResponsesResponseType} without responses.
+	 * @throws IOException
+	 */
+	public ExportResponsesResponseType parseRows(final InputStream envelope,
+			final RowCallback callback) throws IOException {
+		try (ExportResultInputStream result = new ExportResultInputStream(
+				envelope)) {
+			if (result.hasResult()) {
+				final CsvResponseReader reader = new CsvResponseReader(
+						Base64.getDecoder().wrap(result));
+				while (reader.next()) {
+					callback.row(reader);
+				}
+			}
+			final ExportResponsesResponseType value = new ExportResponsesResponseType();
+			value.setId(result.getId());
+			value.setError(Objects.nonNull(result.getError())
+					? result.getError() : result.getStatus());
+			return value;
+		}
+	}
+
+	/**
+	 * Parses the JSON-RPC response and passes each response entry to the
+	 * consumer. The returned {@link ExportResponsesResponseType} contains the
+	 * <i>id</i> and <i>error</i> of the envelope only.
+	 *
+	 * @param envelope
+	 *            the {@link InputStream} of the JSON-RPC response.
+	 * @param consumer
+	 *            the {@link Consumer} of the response entries.
+	 * @return the {@link ExportResponsesResponseType} without responses.
+	 * @throws IOException
+	 */
+	public ExportResponsesResponseType parse(final InputStream envelope,
+			final Consumer<ExportResponsesListEntryType> consumer)
+			throws IOException {
+		final ExportResponseHeaders headers = new ExportResponseHeaders();
+		return this.parseRows(envelope,
+				row -> consumer.accept(toEntry(row, headers)));
+	}
+
+	/**
+	 * Parses the JSON-RPC response and collects all entries into the
+	 * {@link ExportResponsesResponseType#getResponses()}.
+	 *
+	 * @param envelope
+	 *            the {@link InputStream} of the JSON-RPC response.
+	 * @return the {@link ExportResponsesResponseType}.
+	 * @throws IOException
+	 */
+	public ExportResponsesResponseType read(final InputStream envelope)
+			throws IOException {
+		final ExportResponsesResponseType value = new ExportResponsesResponseType();
+		final ExportResponsesResponseType parsed = this.parse(envelope,
+				value.getResponses()::add);
+		value.setId(parsed.getId());
+		value.setError(parsed.getError());
+		return value;
+	}
+
+	/**
+	 * Reads a decoded CSV document, e.g. a file written by the lime survey
+	 * export, and passes each response entry to the consumer.
+	 *
+	 * @param document
+	 *            the {@link InputStream} of the CSV document.
+	 * @param consumer
+	 *            the {@link Consumer} of the response entries.
+	 * @return the number of entries.
+	 * @throws IOException
+	 */
+	public long parseDocument(final InputStream document,
+			final Consumer<ExportResponsesListEntryType> consumer)
+			throws IOException {
+		final ExportResponseHeaders headers = new ExportResponseHeaders();
+		final CsvResponseReader reader = new CsvResponseReader(document);
+		while (reader.next()) {
+			consumer.accept(toEntry(reader, headers));
+		}
+		return reader.getRowCount();
+	}
+
+	private static ExportResponsesListEntryType toEntry(
+			final CsvResponseReader row, final ExportResponseHeaders headers)
+			throws IOException {
+		final String[] columns = row.getColumns();
+		final int count = Math.min(columns.length, row.getCellCount());
+		final ExportResponsesListEntryType value = new ExportResponsesListEntryType();
+		for (int i = 0; i < count; i++) {
+			final String cell = row.getValue(i);
+			if (cell.length() > 0) {
+				headers.set(value, columns[i], cell);
+			}
+			final PropertyType pt = new PropertyType();
+			pt.setKey(columns[i]);
+			pt.setValue(cell);
+			value.getAnswers().add(pt);
+		}
+		return value;
+	}
+}
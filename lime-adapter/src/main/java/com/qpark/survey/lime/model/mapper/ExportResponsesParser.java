@@ -0,0 +1,291 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * Streaming parser of the <i>export_responses</i> JSON-RPC response. The
+ * base64 <i>result</i> is decoded incrementally and the contained JSON
+ * document is read with a {@link JsonParser} token loop directly into
+ * {@link ExportResponsesListEntryType}s. Neither the decoded byte array nor an
+ * intermediate {@link java.util.Map} tree is built.
+ *
+ * @author bhausen
+ */
+public class ExportResponsesParser {
+	/** The {@link ObjectMapper} providing the {@link JsonParser}s. */
+	private final ObjectMapper mapper;
+
+	/**
+	 * @param mapper
+	 *            the {@link ObjectMapper} providing the {@link JsonParser}s.
+	 */
+	public ExportResponsesParser(final ObjectMapper mapper) {
+		this.mapper = Objects.requireNonNull(mapper);
+	}
+
+	/**
+	 * Parses the JSON-RPC response and passes each response entry to the
+	 * consumer. The returned {@link ExportResponsesResponseType} contains the
+	 * <i>id</i> and <i>error</i> of the envelope only. A <i>status</i> reported
+	 * by lime survey instead of a result is returned as <i>error</i>.
+	 *
+	 * @param envelope
+	 *            the {@link InputStream} of the JSON-RPC response.
+	 * @param consumer
+	 *            the {@link Consumer} of the response entries.
+	 * @return the {@link ExportResponsesResponseType} without responses.
+	 * @throws IOException
+	 */
+	public ExportResponsesResponseType parse(final InputStream envelope,
+			final Consumer<ExportResponsesListEntryType> consumer)
+			throws IOException {
+		try (ExportResponsesIterator iterator = this.iterator(envelope)) {
+			ExportResponsesListEntryType entry = iterator.readEntry();
+			while (Objects.nonNull(entry)) {
+				consumer.accept(entry);
+				entry = iterator.readEntry();
+			}
+			return iterator.getEnvelope();
+		}
+	}
+
+	/**
+	 * Parses the JSON-RPC response and collects all entries into the
+	 * {@link ExportResponsesResponseType#getResponses()}.
+	 *
+	 * @param envelope
+	 *            the {@link InputStream} of the JSON-RPC response.
+	 * @return the {@link ExportResponsesResponseType}.
+	 * @throws IOException
+	 */
+	public ExportResponsesResponseType read(final InputStream envelope)
+			throws IOException {
+		final ExportResponsesResponseType value = new ExportResponsesResponseType();
+		final ExportResponsesResponseType parsed = this.parse(envelope,
+				value.getResponses()::add);
+		value.setId(parsed.getId());
+		value.setError(parsed.getError());
+		return value;
+	}
+
+	/**
+	 * Get an {@link ExportResponsesIterator} reading one entry at a time. The
+	 * caller needs to close the iterator.
+	 *
+	 * @param envelope
+	 *            the {@link InputStream} of the JSON-RPC response.
+	 * @return the {@link ExportResponsesIterator}.
+	 * @throws IOException
+	 */
+	public ExportResponsesIterator iterator(final InputStream envelope)
+			throws IOException {
+		return new ExportResponsesIterator(envelope);
+	}
+
+	/**
+	 * {@link Iterator} over the entries of the <i>export_responses</i>
+	 * result. Entries are decoded on demand. {@link IOException}s are thrown
+	 * as {@link UncheckedIOException}.
+	 *
+	 * @author bhausen
+	 */
+	public class ExportResponsesIterator
+			implements Iterator<ExportResponsesListEntryType>, Closeable {
+		/** The envelope scanner. */
+		private final ExportResultInputStream result;
+		/** The {@link ExportResponseHeaders}. */
+		private final ExportResponseHeaders headers;
+		/** The {@link JsonParser} of the decoded result. */
+		private JsonParser parser;
+		/** <code>true</code> if the parser is inside the responses array. */
+		private boolean inResponses;
+		/** <code>true</code> if no more entries are available. */
+		private boolean finished;
+		/** The next entry read ahead by {@link #hasNext()}. */
+		private ExportResponsesListEntryType next;
+
+		ExportResponsesIterator(final InputStream envelope)
+				throws IOException {
+			this.result = new ExportResultInputStream(envelope);
+			this.headers = new ExportResponseHeaders();
+		}
+
+		/**
+		 * @return the {@link ExportResponsesResponseType} containing the
+		 *         <i>id</i> and <i>error</i> of the envelope.
+		 * @throws IOException
+		 */
+		public ExportResponsesResponseType getEnvelope() throws IOException {
+			if (this.finished) {
+				/* The envelope members may follow the result. */
+				this.result.skipResult();
+			}
+			final ExportResponsesResponseType value = new ExportResponsesResponseType();
+			value.setId(this.result.getId());
+			value.setError(Objects.nonNull(this.result.getError())
+					? this.result.getError() : this.result.getStatus());
+			return value;
+		}
+
+		/**
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			if (Objects.isNull(this.next)) {
+				try {
+					this.next = this.readEntry();
+				} catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return Objects.nonNull(this.next);
+		}
+
+		/**
+		 * @see java.util.Iterator#next()
+		 */
+		@Override
+		public ExportResponsesListEntryType next() {
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final ExportResponsesListEntryType value = this.next;
+			this.next = null;
+			return value;
+		}
+
+		/**
+		 * @see java.io.Closeable#close()
+		 */
+		@Override
+		public void close() throws IOException {
+			this.finished = true;
+			if (Objects.nonNull(this.parser)) {
+				this.parser.close();
+			}
+			this.result.close();
+		}
+
+		/**
+		 * @return the next {@link ExportResponsesListEntryType} or
+		 *         <code>null</code>, if no more entries are available.
+		 * @throws IOException
+		 */
+		ExportResponsesListEntryType readEntry() throws IOException {
+			if (Objects.nonNull(this.next)) {
+				final ExportResponsesListEntryType value = this.next;
+				this.next = null;
+				return value;
+			}
+			if (this.finished || !this.locateResponses()) {
+				this.finished = true;
+				return null;
+			}
+			JsonToken token = this.parser.nextToken();
+			if (token != JsonToken.START_OBJECT) {
+				this.finished = true;
+				return null;
+			}
+			final ExportResponsesListEntryType value = new ExportResponsesListEntryType();
+			token = this.parser.nextToken();
+			if (token == JsonToken.FIELD_NAME) {
+				token = this.parser.nextToken();
+				if (token == JsonToken.START_OBJECT) {
+					/* {"<response id>":{ columns }} */
+					this.readColumns(value, this.parser.nextToken());
+					this.parser.nextToken();
+				} else {
+					/* Flat { columns } without the response id wrapper. */
+					this.readColumn(value, this.parser.getCurrentName(),
+							token);
+					this.readColumns(value, this.parser.nextToken());
+				}
+			}
+			return value;
+		}
+
+		private boolean locateResponses() throws IOException {
+			if (!this.inResponses) {
+				if (!this.result.hasResult()) {
+					return false;
+				}
+				this.parser = ExportResponsesParser.this.mapper.getFactory()
+						.createParser(Base64.getDecoder().wrap(this.result));
+				if (this.parser.nextToken() != JsonToken.START_OBJECT) {
+					return false;
+				}
+				JsonToken token = this.parser.nextToken();
+				while (token == JsonToken.FIELD_NAME) {
+					final String name = this.parser.getCurrentName();
+					token = this.parser.nextToken();
+					if ("responses".equals(name)
+							&& token == JsonToken.START_ARRAY) {
+						this.inResponses = true;
+						break;
+					}
+					this.parser.skipChildren();
+					token = this.parser.nextToken();
+				}
+			}
+			return this.inResponses;
+		}
+
+		private void readColumns(final ExportResponsesListEntryType entry,
+				final JsonToken first) throws IOException {
+			JsonToken token = first;
+			while (token == JsonToken.FIELD_NAME) {
+				final String key = this.parser.getCurrentName();
+				this.readColumn(entry, key, this.parser.nextToken());
+				token = this.parser.nextToken();
+			}
+		}
+
+		private void readColumn(final ExportResponsesListEntryType entry,
+				final String key, final JsonToken token) throws IOException {
+			final Object value;
+			switch (token) {
+			case VALUE_STRING:
+				value = this.parser.getText();
+				break;
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+				value = this.parser.getNumberValue();
+				break;
+			case VALUE_TRUE:
+				value = Boolean.TRUE;
+				break;
+			case VALUE_FALSE:
+				value = Boolean.FALSE;
+				break;
+			case START_OBJECT:
+			case START_ARRAY:
+				value = this.parser.readValueAs(Object.class);
+				break;
+			default:
+				value = null;
+				break;
+			}
+			this.headers.set(entry, key, value);
+			final PropertyType pt = new PropertyType();
+			pt.setKey(key);
+			pt.setValue(value);
+			entry.getAnswers().add(pt);
+		}
+	}
+}
@@ -0,0 +1,367 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Streams the base64 characters of the <i>result</i> member out of a JSON-RPC
+ * response envelope, without reading the whole envelope into memory. The
+ * JSON escape <code>\/</code> written by PHP is unescaped on the fly. Wrap it
+ * with {@link java.util.Base64.Decoder#wrap(InputStream)} to get the decoded
+ * content.
+ * <p>
+ * If the <i>result</i> is not a string (e.g. <code>{"status":"No Data"}</code>)
+ * this stream is empty and {@link #getStatus()} returns the status.
+ *
+ * @author bhausen
+ */
+public class ExportResultInputStream extends InputStream {
+	private static final int STATE_INITIAL = 0;
+	private static final int STATE_RESULT = 1;
+	private static final int STATE_DONE = 2;
+	/** The envelope stream. */
+	private final InputStream in;
+	/** The read buffer. */
+	private final byte[] buffer = new byte[8192];
+	/** The position in the buffer. */
+	private int position;
+	/** The number of valid bytes in the buffer. */
+	private int limit;
+	/** The scanner state. */
+	private int state = STATE_INITIAL;
+	/** The <i>id</i> of the envelope. */
+	private int id;
+	/** The <i>error</i> of the envelope. */
+	private String error;
+	/** The <i>status</i> of a non string <i>result</i>. */
+	private String status;
+
+	/**
+	 * @param in
+	 *            the {@link InputStream} of the JSON-RPC response envelope.
+	 */
+	public ExportResultInputStream(final InputStream in) {
+		this.in = Objects.requireNonNull(in);
+	}
+
+	/**
+	 * @return the <i>id</i> of the envelope, <code>0</code> if it is
+	 *         <code>null</code>. A numeric string is accepted like a number.
+	 *         Only valid if the <i>id</i> is written before the <i>result</i>
+	 *         or the stream is fully read.
+	 */
+	public int getId() {
+		return this.id;
+	}
+
+	/**
+	 * @return the <i>error</i> of the envelope. Only valid after the stream
+	 *         has been fully read.
+	 */
+	public String getError() {
+		return this.error;
+	}
+
+	/**
+	 * @return the <i>status</i> reported instead of a base64 <i>result</i>.
+	 * @throws IOException
+	 */
+	public String getStatus() throws IOException {
+		this.locateResult();
+		return this.status;
+	}
+
+	/**
+	 * @return <code>true</code> if the envelope contains a base64 result.
+	 * @throws IOException
+	 */
+	public boolean hasResult() throws IOException {
+		this.locateResult();
+		return this.state == STATE_RESULT;
+	}
+
+	/**
+	 * Skip the rest of the <i>result</i> and scan the members following it,
+	 * e.g. an <i>id</i> written after the <i>result</i>. A base64 decoder
+	 * stops reading at the padding, before the end of the string.
+	 *
+	 * @throws IOException
+	 */
+	public void skipResult() throws IOException {
+		final byte[] skipped = new byte[1024];
+		while (this.read(skipped, 0, skipped.length) >= 0) {
+			/* Read to the end of the result string. */
+		}
+	}
+
+	/**
+	 * @see java.io.InputStream#read()
+	 */
+	@Override
+	public int read() throws IOException {
+		final byte[] b = new byte[1];
+		final int read = this.read(b, 0, 1);
+		return read < 0 ? -1 : b[0] & 0xFF;
+	}
+
+	/**
+	 * @see java.io.InputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(final byte[] b, final int off, final int len)
+			throws IOException {
+		this.locateResult();
+		if (this.state != STATE_RESULT) {
+			return -1;
+		}
+		int count = 0;
+		while (count < len) {
+			if (this.position >= this.limit && !this.fill()) {
+				throw new IOException("Unterminated result string.");
+			}
+			final byte c = this.buffer[this.position++];
+			if (c == '"') {
+				this.state = STATE_DONE;
+				this.scanMembers();
+				break;
+			} else if (c == '\\') {
+				final int escaped = this.next();
+				if (escaped != '/') {
+					throw new IOException(String.format(
+							"Unexpected escape \\%s in base64 result.",
+							(char) escaped));
+				}
+				b[off + count++] = '/';
+			} else {
+				b[off + count++] = c;
+			}
+			if (count > 0 && this.position >= this.limit
+					&& this.in.available() <= 0) {
+				break;
+			}
+		}
+		return count == 0 && this.state == STATE_DONE ? -1 : count;
+	}
+
+	/**
+	 * @see java.io.InputStream#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+
+	private boolean fill() throws IOException {
+		final int read = this.in.read(this.buffer, 0, this.buffer.length);
+		this.position = 0;
+		this.limit = Math.max(read, 0);
+		return read > 0;
+	}
+
+	private int next() throws IOException {
+		if (this.position >= this.limit && !this.fill()) {
+			return -1;
+		}
+		return this.buffer[this.position++] & 0xFF;
+	}
+
+	private int nextNonWhitespace() throws IOException {
+		int c = this.next();
+		while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+			c = this.next();
+		}
+		return c;
+	}
+
+	private void locateResult() throws IOException {
+		if (this.state == STATE_INITIAL) {
+			if (this.nextNonWhitespace() != '{') {
+				throw new IOException("JSON-RPC response is not an object.");
+			}
+			this.state = STATE_DONE;
+			this.scanMembers();
+		}
+	}
+
+	/**
+	 * Scans the members of the envelope until the string value of the
+	 * <i>result</i> is reached or the envelope ends.
+	 */
+	private void scanMembers() throws IOException {
+		int c = this.nextNonWhitespace();
+		while (c != '}' && c != -1) {
+			if (c == ',') {
+				c = this.nextNonWhitespace();
+			}
+			if (c != '"') {
+				throw new IOException("Malformed JSON-RPC response.");
+			}
+			final String name = this.readString();
+			if (this.nextNonWhitespace() != ':') {
+				throw new IOException("Malformed JSON-RPC response.");
+			}
+			c = this.nextNonWhitespace();
+			if ("result".equals(name) && c == '"') {
+				this.state = STATE_RESULT;
+				return;
+			} else if ("result".equals(name) && c == '{') {
+				this.status = this.readStatus();
+			} else if ("error".equals(name) && c == '"') {
+				this.error = this.readString();
+			} else if ("id".equals(name) && c == '"') {
+				this.id = toId(this.readString(), false);
+			} else if ("id".equals(name) && c != 'n') {
+				this.id = toId(this.readLiteral(c), true);
+			} else {
+				this.skipValue(c);
+			}
+			c = this.nextNonWhitespace();
+		}
+	}
+
+	/**
+	 * Maps the <i>id</i> as Jackson maps it to an <code>int</code>: a number
+	 * with a fraction is truncated, a string needs to be an integer, an empty
+	 * string or <code>"null"</code> is <code>0</code>.
+	 *
+	 * @param number
+	 *            <code>true</code> for a number literal, <code>false</code>
+	 *            for the content of a string.
+	 */
+	private static int toId(final String text, final boolean number)
+			throws IOException {
+		final String value = text.trim();
+		if (value.isEmpty() || !number && "null".equals(value)) {
+			return 0;
+		}
+		try {
+			if (number && (value.indexOf('.') >= 0 || value.indexOf('e') >= 0
+					|| value.indexOf('E') >= 0)) {
+				return (int) Double.parseDouble(value);
+			}
+			return Integer.parseInt(value);
+		} catch (final NumberFormatException e) {
+			throw new IOException(
+					String.format("Invalid JSON-RPC id %s.", text), e);
+		}
+	}
+
+	private String readStatus() throws IOException {
+		String value = null;
+		int c = this.nextNonWhitespace();
+		while (c != '}' && c != -1) {
+			if (c == ',') {
+				c = this.nextNonWhitespace();
+			}
+			final String name = this.readString();
+			this.nextNonWhitespace();
+			c = this.nextNonWhitespace();
+			if (c == '"') {
+				final String text = this.readString();
+				if ("status".equals(name)) {
+					value = text;
+				}
+			} else {
+				this.skipValue(c);
+			}
+			c = this.nextNonWhitespace();
+		}
+		return value;
+	}
+
+	private String readLiteral(final int first) throws IOException {
+		final StringBuilder sb = new StringBuilder();
+		int c = first;
+		while (c != ',' && c != '}' && c != -1) {
+			sb.append((char) c);
+			c = this.next();
+		}
+		/* Leave the terminator to the member loop. */
+		if (c != -1) {
+			this.position--;
+		}
+		return sb.toString();
+	}
+
+	private String readString() throws IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		/* The high surrogate of an escaped surrogate pair. */
+		char high = 0;
+		int c = this.next();
+		while (c != '"' && c != -1) {
+			if (c == '\\') {
+				c = this.next();
+				switch (c) {
+				case 'b':
+					baos.write('\b');
+					break;
+				case 'f':
+					baos.write('\f');
+					break;
+				case 'n':
+					baos.write('\n');
+					break;
+				case 'r':
+					baos.write('\r');
+					break;
+				case 't':
+					baos.write('\t');
+					break;
+				case 'u':
+					final char[] hex = new char[4];
+					for (int i = 0; i < hex.length; i++) {
+						hex[i] = (char) this.next();
+					}
+					final char unescaped = (char) Integer
+							.parseInt(new String(hex), 16);
+					if (Character.isHighSurrogate(unescaped)) {
+						high = unescaped;
+					} else {
+						final String text = high != 0
+								&& Character.isLowSurrogate(unescaped)
+										? new String(
+												new char[] { high, unescaped })
+										: String.valueOf(unescaped);
+						high = 0;
+						final byte[] utf8 = text
+								.getBytes(StandardCharsets.UTF_8);
+						baos.write(utf8, 0, utf8.length);
+					}
+					break;
+				default:
+					baos.write(c);
+					break;
+				}
+			} else {
+				baos.write(c);
+			}
+			c = this.next();
+		}
+		return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private void skipValue(final int first) throws IOException {
+		if (first == '"') {
+			this.readString();
+		} else if (first == '{' || first == '[') {
+			int depth = 1;
+			while (depth > 0) {
+				final int c = this.next();
+				if (c == -1) {
+					throw new IOException("Malformed JSON-RPC response.");
+				} else if (c == '"') {
+					this.readString();
+				} else if (c == '{' || c == '[') {
+					depth++;
+				} else if (c == '}' || c == ']') {
+					depth--;
+				}
+			}
+		} else {
+			this.readLiteral(first);
+		}
+	}
+}
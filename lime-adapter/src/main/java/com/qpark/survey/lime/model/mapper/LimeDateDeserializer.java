@@ -0,0 +1,140 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Objects;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+/**
+ * Maps the lime survey dates <i>yyyy-MM-dd HH:mm:ss</i> (or <i>yyyy-MM-dd</i>)
+ * to {@link XMLGregorianCalendar}s without time zone, as the values are local
+ * times of the lime survey server. The usual <i>yyyy-MM-dd HH:mm:ss</i> is
+ * read directly from the parser buffer, other formats fall back to a
+ * {@link DateTimeFormatter}. The formatter and the {@link DatatypeFactory} are
+ * thread safe and shared by all instances.
+ *
+ * @author bhausen
+ */
+public class LimeDateDeserializer
+		extends JsonDeserializer<XMLGregorianCalendar> {
+	/** The shared {@link DateTimeFormatter}. */
+	private static final DateTimeFormatter FORMATTER = new DateTimeFormatterBuilder()
+			.appendPattern("uuuu-MM-dd").optionalStart().optionalStart()
+			.appendLiteral(' ').optionalEnd().optionalStart()
+			.appendLiteral('T').optionalEnd().appendPattern("HH:mm:ss")
+			.optionalEnd().toFormatter()
+			.withResolverStyle(ResolverStyle.STRICT);
+	/** The shared {@link DatatypeFactory}. */
+	private static final DatatypeFactory DATATYPE_FACTORY;
+	static {
+		try {
+			DATATYPE_FACTORY = DatatypeFactory.newInstance();
+		} catch (final DatatypeConfigurationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * @see com.fasterxml.jackson.databind.JsonDeserializer#deserialize(com.fasterxml.jackson.core.JsonParser,
+	 *      com.fasterxml.jackson.databind.DeserializationContext)
+	 */
+	@Override
+	public XMLGregorianCalendar deserialize(final JsonParser jp,
+			final DeserializationContext ctxt)
+			throws IOException, JsonProcessingException {
+		if (jp.getCurrentTokenId() != JsonTokenId.ID_STRING) {
+			return null;
+		}
+		final XMLGregorianCalendar value = parse(jp.getTextCharacters(),
+				jp.getTextOffset(), jp.getTextLength());
+		if (Objects.nonNull(value)) {
+			return value;
+		}
+		final String text = jp.getText().trim();
+		if (text.isEmpty()) {
+			return null;
+		}
+		try {
+			final TemporalAccessor parsed = FORMATTER.parse(text);
+			if (!parsed.isSupported(ChronoField.HOUR_OF_DAY)) {
+				return DATATYPE_FACTORY.newXMLGregorianCalendarDate(
+						parsed.get(ChronoField.YEAR),
+						parsed.get(ChronoField.MONTH_OF_YEAR),
+						parsed.get(ChronoField.DAY_OF_MONTH),
+						DatatypeConstants.FIELD_UNDEFINED);
+			}
+			return DATATYPE_FACTORY.newXMLGregorianCalendar(
+					parsed.get(ChronoField.YEAR),
+					parsed.get(ChronoField.MONTH_OF_YEAR),
+					parsed.get(ChronoField.DAY_OF_MONTH),
+					parsed.get(ChronoField.HOUR_OF_DAY),
+					parsed.get(ChronoField.MINUTE_OF_HOUR),
+					parsed.get(ChronoField.SECOND_OF_MINUTE),
+					DatatypeConstants.FIELD_UNDEFINED,
+					DatatypeConstants.FIELD_UNDEFINED);
+		} catch (final DateTimeParseException e) {
+			throw ctxt.weirdStringException(text, XMLGregorianCalendar.class,
+					e.getMessage());
+		}
+	}
+
+	/**
+	 * Fast path for the exact format <i>yyyy-MM-dd HH:mm:ss</i> read from the
+	 * parser buffer.
+	 *
+	 * @return the {@link XMLGregorianCalendar} or <code>null</code> if the
+	 *         text has another format or is not a valid date.
+	 */
+	static XMLGregorianCalendar parse(final char[] text, final int offset,
+			final int length) {
+		if (length != 19 || text[offset + 4] != '-' || text[offset + 7] != '-'
+				|| text[offset + 10] != ' ' && text[offset + 10] != 'T'
+				|| text[offset + 13] != ':' || text[offset + 16] != ':') {
+			return null;
+		}
+		final int year = digits(text, offset, 4);
+		final int month = digits(text, offset + 5, 2);
+		final int day = digits(text, offset + 8, 2);
+		final int hour = digits(text, offset + 11, 2);
+		final int minute = digits(text, offset + 14, 2);
+		final int second = digits(text, offset + 17, 2);
+		if (year < 0 || month < 1 || month > 12 || day < 1
+				|| day > YearMonth.of(year, month).lengthOfMonth() || hour < 0
+				|| hour > 23 || minute < 0 || minute > 59 || second < 0
+				|| second > 59) {
+			return null;
+		}
+		return DATATYPE_FACTORY.newXMLGregorianCalendar(year, month, day,
+				hour, minute, second, DatatypeConstants.FIELD_UNDEFINED,
+				DatatypeConstants.FIELD_UNDEFINED);
+	}
+
+	private static int digits(final char[] text, final int offset,
+			final int length) {
+		int value = 0;
+		for (int i = offset; i < offset + length; i++) {
+			final char c = text[i];
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + c - '0';
+		}
+		return value;
+	}
+}
@@ -0,0 +1,57 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.io.IOException;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+/**
+ * Writes {@link XMLGregorianCalendar}s as lime survey dates
+ * <i>yyyy-MM-dd HH:mm:ss</i> (or <i>yyyy-MM-dd</i> without time) of their
+ * fields, the counterpart of the {@link LimeDateDeserializer}. A time zone of
+ * the value is not converted, lime survey expects local times of its server.
+ *
+ * @author bhausen
+ */
+public class LimeDateSerializer extends JsonSerializer<XMLGregorianCalendar> {
+	/**
+	 * @see com.fasterxml.jackson.databind.JsonSerializer#serialize(java.lang.Object,
+	 *      com.fasterxml.jackson.core.JsonGenerator,
+	 *      com.fasterxml.jackson.databind.SerializerProvider)
+	 */
+	@Override
+	public void serialize(final XMLGregorianCalendar value,
+			final JsonGenerator gen, final SerializerProvider serializers)
+			throws IOException {
+		final char[] text = new char[19];
+		int length = 10;
+		digits(text, 0, 4, value.getYear());
+		text[4] = '-';
+		digits(text, 5, 2, value.getMonth());
+		text[7] = '-';
+		digits(text, 8, 2, value.getDay());
+		if (value.getHour() != DatatypeConstants.FIELD_UNDEFINED) {
+			text[10] = ' ';
+			digits(text, 11, 2, value.getHour());
+			text[13] = ':';
+			digits(text, 14, 2, Math.max(0, value.getMinute()));
+			text[16] = ':';
+			digits(text, 17, 2, Math.max(0, value.getSecond()));
+			length = 19;
+		}
+		gen.writeString(text, 0, length);
+	}
+
+	private static void digits(final char[] text, final int offset,
+			final int length, final int value) {
+		int rest = value;
+		for (int i = offset + length - 1; i >= offset; i--) {
+			text[i] = (char) ('0' + rest % 10);
+			rest /= 10;
+		}
+	}
+}
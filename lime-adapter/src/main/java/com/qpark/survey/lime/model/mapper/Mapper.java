@@ -1,24 +1,44 @@
 package com.qpark.survey.lime.model.mapper;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.springframework.beans.factory.annotation.Autowired;
-
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
- * Maps lime responses to model objects.
+ * Maps lime responses to model objects. The {@link ObjectReader}s are built
+ * once per value type and reused, as is the {@link ObjectWriter}.
  *
  * @author bhausen
  */
 public class Mapper {
 	/** The {@link ObjectMapper}. */
-	@Autowired
-	private ObjectMapper mapper;
+	private final ObjectMapper mapper;
+	/** The {@link ObjectReader}s by value type. */
+	private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+	/** The {@link ObjectWriter}. */
+	private volatile ObjectWriter writer;
+
+	/**
+	 * @param mapper
+	 *            the configured {@link ObjectMapper}, see
+	 *            {@link ObjectMapperFactory#create(ObjectMapperProperties)}.
+	 */
+	public Mapper(final ObjectMapper mapper) {
+		this.mapper = Objects.requireNonNull(mapper);
+	}
 
 	/**
 	 * @return the mapper
@@ -28,7 +48,53 @@ public class Mapper {
 	}
 
 	/**
-	 * Calls {@link ObjectMapper#readValue(byte[], Class)}
+	 * @param valueType
+	 *            the model {@link Class}.
+	 * @return the cached {@link ObjectReader} of the value type.
+	 */
+	public ObjectReader getReader(final Class<?> valueType) {
+		return this.readers.computeIfAbsent(valueType,
+				type -> this.mapper.readerFor(valueType));
+	}
+
+	/**
+	 * @param valueTypeRef
+	 *            the model {@link TypeReference}.
+	 * @return the cached {@link ObjectReader} of the value type.
+	 */
+	public ObjectReader getReader(final TypeReference<?> valueTypeRef) {
+		return this.readers.computeIfAbsent(valueTypeRef.getType(),
+				type -> this.mapper.readerFor(valueTypeRef));
+	}
+
+	/**
+	 * @return the cached {@link ObjectWriter}.
+	 */
+	public ObjectWriter getWriter() {
+		ObjectWriter value = this.writer;
+		if (Objects.isNull(value)) {
+			value = this.mapper.writer()
+					.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			this.writer = value;
+		}
+		return value;
+	}
+
+	/**
+	 * Builds the {@link ObjectReader}s of the value types in advance, moving
+	 * the annotation introspection out of the first request.
+	 *
+	 * @param valueTypes
+	 *            the model {@link Class}es.
+	 */
+	public void prepare(final Class<?>... valueTypes) {
+		for (final Class<?> valueType : valueTypes) {
+			this.getReader(valueType);
+		}
+	}
+
+	/**
+	 * Reads the value with the cached {@link ObjectReader}.
 	 *
 	 * @param src
 	 *            the byte array.
@@ -41,11 +107,28 @@ public class Mapper {
 	 */
 	public <T> T readValue(final byte[] src, final Class<T> valueType)
 			throws IOException, JsonParseException, JsonMappingException {
-		return this.mapper.readValue(src, valueType);
+		return this.getReader(valueType).readValue(src);
+	}
+
+	/**
+	 * Reads the value with the cached {@link ObjectReader}.
+	 *
+	 * @param src
+	 *            the {@link InputStream}.
+	 * @param valueType
+	 *            the model {@link Class} to parse the value in.
+	 * @return an object of {@link Class} valueType.
+	 * @throws IOException
+	 * @throws JsonParseException
+	 * @throws JsonMappingException
+	 */
+	public <T> T readValue(final InputStream src, final Class<T> valueType)
+			throws IOException, JsonParseException, JsonMappingException {
+		return this.getReader(valueType).readValue(src);
 	}
 
 	/**
-	 * Calls {@link ObjectMapper#readValue(byte[], TypeReference)}
+	 * Reads the value with the cached {@link ObjectReader}.
 	 *
 	 * @param src
 	 *            the byte array.
@@ -58,11 +141,11 @@ public class Mapper {
 	 */
 	public <T> T readValue(final byte[] src, final TypeReference valueTypeRef)
 			throws IOException, JsonParseException, JsonMappingException {
-		return this.mapper.readValue(src, valueTypeRef);
+		return this.getReader(valueTypeRef).readValue(src);
 	}
 
 	/**
-	 * Calls {@link ObjectMapper}{@link #writeValueAsString(Object)}.
+	 * Writes the value with the cached {@link ObjectWriter}.
 	 *
 	 * @param value
 	 *            the value to write.
@@ -71,6 +154,34 @@ public class Mapper {
 	 */
 	public String writeValueAsString(final Object value)
 			throws JsonProcessingException {
-		return this.mapper.writeValueAsString(value);
+		return this.getWriter().writeValueAsString(value);
+	}
+
+	/**
+	 * Writes the value with the cached {@link ObjectWriter}.
+	 *
+	 * @param value
+	 *            the value to write.
+	 * @return the resulting byte array.
+	 * @throws JsonProcessingException
+	 */
+	public byte[] writeValueAsBytes(final Object value)
+			throws JsonProcessingException {
+		return this.getWriter().writeValueAsBytes(value);
+	}
+
+	/**
+	 * Writes the value with the cached {@link ObjectWriter} into the stream.
+	 * The stream is not closed.
+	 *
+	 * @param out
+	 *            the {@link OutputStream}.
+	 * @param value
+	 *            the value to write.
+	 * @throws IOException
+	 */
+	public void writeValue(final OutputStream out, final Object value)
+			throws IOException {
+		this.getWriter().writeValue(out, value);
 	}
 }
@@ -0,0 +1,77 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.text.SimpleDateFormat;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
+import com.qpark.survey.lime.model.v25.ParticipantType;
+
+/**
+ * Creates the {@link ObjectMapper} of the lime adapter. The default profile
+ * maps the model with the {@link JaxbAnnotationIntrospector} and dates with a
+ * {@link SimpleDateFormat}. The tuned profile maps dates with the thread safe
+ * {@link LimeDateDeserializer} and {@link LimeDateSerializer} and takes only
+ * the element names of the JAXB annotations with the
+ * {@link XmlElementNameIntrospector}.
+ *
+ * @author bhausen
+ */
+public final class ObjectMapperFactory {
+	/** The class name of the afterburner module. */
+	private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+	private ObjectMapperFactory() {
+	}
+
+	/**
+	 * @param properties
+	 *            the {@link ObjectMapperProperties}.
+	 * @return the new {@link ObjectMapper}.
+	 */
+	public static ObjectMapper create(final ObjectMapperProperties properties) {
+		final ObjectMapper value = new ObjectMapper();
+		value.configure(
+				DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT,
+				true);
+		value.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
+				false);
+		final SimpleModule module = new SimpleModule();
+		module.addDeserializer(boolean.class, new CustomBooleanDeserializer());
+		module.addDeserializer(ParticipantType.class,
+				new ParticipantDeserializer());
+		module.addSerializer(ParticipantType.class, new ParticipantSerializer());
+		if (properties.isTuned()) {
+			module.addDeserializer(XMLGregorianCalendar.class,
+					new LimeDateDeserializer());
+			module.addSerializer(XMLGregorianCalendar.class,
+					new LimeDateSerializer());
+			value.setAnnotationIntrospector(new XmlElementNameIntrospector());
+		} else {
+			value.setDateFormat(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
+			value.setAnnotationIntrospector(
+					new JaxbAnnotationIntrospector(value.getTypeFactory()));
+		}
+		value.registerModule(module);
+		if (properties.isAfterburner()) {
+			registerAfterburner(value);
+		}
+		return value;
+	}
+
+	private static void registerAfterburner(final ObjectMapper mapper) {
+		try {
+			mapper.registerModule((Module) Class.forName(AFTERBURNER_MODULE)
+					.newInstance());
+		} catch (final ReflectiveOperationException | LinkageError e) {
+			LoggerFactory.getLogger(ObjectMapperFactory.class).warn(
+					"Afterburner module not available: {}", e.toString());
+		}
+	}
+}
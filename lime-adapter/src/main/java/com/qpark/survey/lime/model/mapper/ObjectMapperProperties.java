@@ -0,0 +1,54 @@
+package com.qpark.survey.lime.model.mapper;
+
+/**
+ * The settings of the {@link ObjectMapperFactory}.
+ *
+ * @author bhausen
+ */
+public class ObjectMapperProperties {
+	/**
+	 * Map dates with the thread safe {@link LimeDateDeserializer} and
+	 * {@link LimeDateSerializer} instead of the
+	 * {@link java.text.SimpleDateFormat} in the default time zone, and the
+	 * model with the {@link XmlElementNameIntrospector} instead of the JAXB
+	 * introspector.
+	 */
+	private boolean tuned = false;
+	/**
+	 * Register the Jackson afterburner module generating byte code accessors,
+	 * if it is on the class path.
+	 */
+	private boolean afterburner = false;
+
+	/**
+	 * @return <code>true</code> if dates are parsed with the
+	 *         {@link LimeDateDeserializer}.
+	 */
+	public boolean isTuned() {
+		return this.tuned;
+	}
+
+	/**
+	 * @param tuned
+	 *            <code>true</code> to parse dates with the
+	 *            {@link LimeDateDeserializer}.
+	 */
+	public void setTuned(final boolean tuned) {
+		this.tuned = tuned;
+	}
+
+	/**
+	 * @return <code>true</code> if the afterburner module is registered.
+	 */
+	public boolean isAfterburner() {
+		return this.afterburner;
+	}
+
+	/**
+	 * @param afterburner
+	 *            <code>true</code> to register the afterburner module.
+	 */
+	public void setAfterburner(final boolean afterburner) {
+		this.afterburner = afterburner;
+	}
+}
@@ -0,0 +1,143 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.qpark.survey.lime.model.v25.ParticipantType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * Maps a participant object of lime survey to the {@link ParticipantType}.
+ * The columns of the participants table are set to the properties, the
+ * <i>participant_info</i> of <i>list_participants</i> is flattened and all
+ * other keys, like <i>attribute_1</i>, are collected as
+ * {@link ParticipantType#getAttributes()}. The <i>errors</i> lime survey adds
+ * to a rejected participant are collected as {@link ParticipantType#getErrors()}
+ * with the messages of a field joined.
+ *
+ * @author bhausen
+ */
+public class ParticipantDeserializer extends JsonDeserializer<ParticipantType> {
+	/**
+	 * @see com.fasterxml.jackson.databind.JsonDeserializer#deserialize(com.fasterxml.jackson.core.JsonParser,
+	 *      com.fasterxml.jackson.databind.DeserializationContext)
+	 */
+	@Override
+	public ParticipantType deserialize(final JsonParser jp,
+			final DeserializationContext ctxt)
+			throws IOException, JsonProcessingException {
+		final JsonNode node = jp.readValueAsTree();
+		if (!node.isObject()) {
+			return null;
+		}
+		final ParticipantType value = new ParticipantType();
+		this.set(value, node);
+		return value;
+	}
+
+	private void set(final ParticipantType value, final JsonNode node) {
+		final Iterator<Entry<String, JsonNode>> fields = node.fields();
+		while (fields.hasNext()) {
+			final Entry<String, JsonNode> field = fields.next();
+			final JsonNode v = field.getValue();
+			if ("participant_info".equals(field.getKey()) && v.isObject()) {
+				this.set(value, v);
+			} else if ("errors".equals(field.getKey()) && v.isObject()) {
+				addProperties(value.getErrors(), v);
+			} else if (!v.isNull() && !v.isContainerNode()) {
+				set(value, field.getKey(), v);
+			}
+		}
+	}
+
+	private static void set(final ParticipantType value, final String key,
+			final JsonNode v) {
+		final String text = v.asText();
+		switch (key) {
+		case "tid":
+			value.setTid(v.asInt());
+			break;
+		case "participant_id":
+			value.setParticipantId(text);
+			break;
+		case "token":
+			value.setToken(text);
+			break;
+		case "firstname":
+			value.setFirstname(text);
+			break;
+		case "lastname":
+			value.setLastname(text);
+			break;
+		case "email":
+			value.setEmail(text);
+			break;
+		case "emailstatus":
+			value.setEmailstatus(text);
+			break;
+		case "language":
+			value.setLanguage(text);
+			break;
+		case "blacklisted":
+			value.setBlacklisted(text);
+			break;
+		case "sent":
+			value.setSent(text);
+			break;
+		case "remindersent":
+			value.setRemindersent(text);
+			break;
+		case "remindercount":
+			value.setRemindercount(text);
+			break;
+		case "completed":
+			value.setCompleted(text);
+			break;
+		case "usesleft":
+			value.setUsesleft(text);
+			break;
+		case "validfrom":
+			value.setValidfrom(text);
+			break;
+		case "validuntil":
+			value.setValiduntil(text);
+			break;
+		default:
+			final PropertyType pt = new PropertyType();
+			pt.setKey(key);
+			pt.setValue(text);
+			value.getAttributes().add(pt);
+			break;
+		}
+	}
+
+	private static void addProperties(final List<PropertyType> properties,
+			final JsonNode node) {
+		final Iterator<Entry<String, JsonNode>> fields = node.fields();
+		while (fields.hasNext()) {
+			final Entry<String, JsonNode> field = fields.next();
+			final PropertyType pt = new PropertyType();
+			pt.setKey(field.getKey());
+			if (field.getValue().isArray()) {
+				final StringBuilder sb = new StringBuilder();
+				for (final JsonNode message : field.getValue()) {
+					if (sb.length() > 0) {
+						sb.append(' ');
+					}
+					sb.append(message.asText());
+				}
+				pt.setValue(sb.toString());
+			} else {
+				pt.setValue(field.getValue().asText());
+			}
+			properties.add(pt);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.qpark.survey.lime.model.v25.ParticipantType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * Writes the {@link ParticipantType} as the flat participant data object of
+ * <i>add_participants</i>: the columns set, followed by the
+ * {@link ParticipantType#getAttributes()} as own keys. Unset columns are
+ * omitted, so lime survey applies its defaults. The
+ * {@link ParticipantType#getErrors()} are not written.
+ *
+ * @author bhausen
+ */
+public class ParticipantSerializer extends JsonSerializer<ParticipantType> {
+	/**
+	 * @see com.fasterxml.jackson.databind.JsonSerializer#serialize(java.lang.Object,
+	 *      com.fasterxml.jackson.core.JsonGenerator,
+	 *      com.fasterxml.jackson.databind.SerializerProvider)
+	 */
+	@Override
+	public void serialize(final ParticipantType value,
+			final JsonGenerator gen, final SerializerProvider serializers)
+			throws IOException {
+		gen.writeStartObject();
+		if (Objects.nonNull(value.getTid())) {
+			gen.writeNumberField("tid", value.getTid().intValue());
+		}
+		write(gen, "participant_id", value.getParticipantId());
+		write(gen, "token", value.getToken());
+		write(gen, "firstname", value.getFirstname());
+		write(gen, "lastname", value.getLastname());
+		write(gen, "email", value.getEmail());
+		write(gen, "emailstatus", value.getEmailstatus());
+		write(gen, "language", value.getLanguage());
+		write(gen, "blacklisted", value.getBlacklisted());
+		write(gen, "sent", value.getSent());
+		write(gen, "remindersent", value.getRemindersent());
+		write(gen, "remindercount", value.getRemindercount());
+		write(gen, "completed", value.getCompleted());
+		write(gen, "usesleft", value.getUsesleft());
+		write(gen, "validfrom", value.getValidfrom());
+		write(gen, "validuntil", value.getValiduntil());
+		for (final PropertyType attribute : value.getAttributes()) {
+			if (Objects.nonNull(attribute.getKey())) {
+				serializers.defaultSerializeField(attribute.getKey(),
+						attribute.getValue(), gen);
+			}
+		}
+		gen.writeEndObject();
+	}
+
+	private static void write(final JsonGenerator gen, final String key,
+			final String value) throws IOException {
+		if (Objects.nonNull(value)) {
+			gen.writeStringField(key, value);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.qpark.survey.lime.model.mapper;
+
+import java.util.Objects;
+
+import javax.xml.bind.annotation.XmlElement;
+
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+
+/**
+ * Jackson annotation introspector taking the property names of the model from
+ * {@link XmlElement#name()}, e.g. <i>surveyls_title</i>. All other JAXB
+ * annotations are ignored, the properties are found by the Jackson defaults.
+ * It replaces the full
+ * {@link com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector} of the
+ * default profile of the {@link ObjectMapperFactory}.
+ *
+ * @author bhausen
+ */
+public class XmlElementNameIntrospector extends JacksonAnnotationIntrospector {
+	private static final long serialVersionUID = 1L;
+	/** The name of an {@link XmlElement} without explicit name. */
+	private static final String DEFAULT_NAME = "##default";
+
+	private static PropertyName findName(final Annotated a) {
+		final XmlElement element = a.getAnnotation(XmlElement.class);
+		if (Objects.nonNull(element)
+				&& !DEFAULT_NAME.equals(element.name())) {
+			return PropertyName.construct(element.name());
+		}
+		return null;
+	}
+
+	/**
+	 * @see com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector#findNameForSerialization(com.fasterxml.jackson.databind.introspect.Annotated)
+	 */
+	@Override
+	public PropertyName findNameForSerialization(final Annotated a) {
+		final PropertyName value = findName(a);
+		return Objects.nonNull(value) ? value
+				: super.findNameForSerialization(a);
+	}
+
+	/**
+	 * @see com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector#findNameForDeserialization(com.fasterxml.jackson.databind.introspect.Annotated)
+	 */
+	@Override
+	public PropertyName findNameForDeserialization(final Annotated a) {
+		final PropertyName value = findName(a);
+		return Objects.nonNull(value) ? value
+				: super.findNameForDeserialization(a);
+	}
+}
@@ -0,0 +1,93 @@
+package com.qpark.survey.lime.participant;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of a chunked bulk operation of the
+ * {@link ParticipantBulkClient}. A failing chunk does not stop the others:
+ * its items are reported as {@link #getFailed()} to be submitted again.
+ *
+ * @param <T>
+ *            the type of the submitted items.
+ * @param <R>
+ *            the type of the results.
+ * @author bhausen
+ */
+public class BulkResult<T, R> {
+	/** The results of the succeeded chunks in submission order. */
+	private final List<R> results;
+	/** The items of the failed chunks. */
+	private final List<T> failed;
+	/** The failures of the failed chunks. */
+	private final List<Exception> failures;
+	/** The number of chunks. */
+	private final int chunkCount;
+	/** The nanoseconds of the whole operation. */
+	private final long elapsedNanos;
+
+	BulkResult(final List<R> results, final List<T> failed,
+			final List<Exception> failures, final int chunkCount,
+			final long elapsedNanos) {
+		this.results = Collections.unmodifiableList(results);
+		this.failed = Collections.unmodifiableList(failed);
+		this.failures = Collections.unmodifiableList(failures);
+		this.chunkCount = chunkCount;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * @return the results of the succeeded chunks in submission order.
+	 */
+	public List<R> getResults() {
+		return this.results;
+	}
+
+	/**
+	 * @return the items of the failed chunks in submission order.
+	 */
+	public List<T> getFailed() {
+		return this.failed;
+	}
+
+	/**
+	 * @return the failures of the failed chunks: the {@link java.io.IOException}
+	 *         or the {@link org.springframework.web.client.RestClientException}
+	 *         of the HTTP call.
+	 */
+	public List<Exception> getFailures() {
+		return this.failures;
+	}
+
+	/**
+	 * @return the number of chunks sent.
+	 */
+	public int getChunkCount() {
+		return this.chunkCount;
+	}
+
+	/**
+	 * @return <code>true</code> if all chunks succeeded.
+	 */
+	public boolean isSuccess() {
+		return this.failures.isEmpty();
+	}
+
+	/**
+	 * @return the milliseconds of the whole operation.
+	 */
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("results=%s failed=%s chunks=%s failedChunks=%s %sms",
+				this.results.size(), this.failed.size(), this.chunkCount,
+				this.failures.size(), this.getElapsedMillis());
+	}
+}
@@ -0,0 +1,313 @@
+package com.qpark.survey.lime.participant;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.concurrent.OwnedExecutor;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.v25.AddParticipantsResponseType;
+import com.qpark.survey.lime.model.v25.DeleteParticipantsResponseType;
+import com.qpark.survey.lime.model.v25.ListParticipantsResponseType;
+import com.qpark.survey.lime.model.v25.ParticipantType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * Adds, deletes and lists large numbers of survey participants with the
+ * {@link RestClient}. The participants are sent in chunks of
+ * {@link ParticipantProperties#getChunkSize()}, with up to
+ * {@link ParticipantProperties#getParallelism()} chunks in flight: the next
+ * chunk is sent as soon as one returns. The listing reads the pages ahead
+ * with the same parallelism while the consumer handles the current page.
+ * <p>
+ * A chunk is sent once. <i>add_participants</i> is not idempotent, a failed
+ * chunk may have been stored partly, so its participants are reported in
+ * the {@link BulkResult#getFailed()} for the caller to check and submit
+ * again.
+ *
+ * @author bhausen
+ */
+public class ParticipantBulkClient implements Closeable {
+	/** A call of one chunk. */
+	@FunctionalInterface
+	private interface ChunkCall<T, R> {
+		List<R> call(List<T> chunk) throws IOException;
+	}
+
+	/** The {@link Logger}. */
+	private static final Logger logger = LoggerFactory
+			.getLogger(ParticipantBulkClient.class);
+	/** The {@link RestClient}. */
+	private final RestClient client;
+	/** The {@link ParticipantProperties}. */
+	private final ParticipantProperties properties;
+	/** The executor of the chunk requests. */
+	private final OwnedExecutor executor = new OwnedExecutor(
+			"lime-participant");
+
+	/**
+	 * @param client
+	 *            the {@link RestClient}.
+	 * @param properties
+	 *            the {@link ParticipantProperties}.
+	 */
+	public ParticipantBulkClient(final RestClient client,
+			final ParticipantProperties properties) {
+		if (Objects.isNull(client)) {
+			throw new IllegalStateException("Client not provided.");
+		} else if (Objects.isNull(properties)) {
+			throw new IllegalStateException(
+					"Participant properties not provided.");
+		}
+		this.client = client;
+		this.properties = properties;
+	}
+
+	/**
+	 * Adds the participants in chunks.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param participants
+	 *            the {@link ParticipantType}s to add.
+	 * @return the {@link BulkResult} with the participants as stored, with
+	 *         <i>tid</i> and <i>token</i>, or with the
+	 *         {@link ParticipantType#getErrors()} if lime survey rejected
+	 *         them.
+	 * @throws IOException
+	 *             if interrupted.
+	 */
+	public BulkResult<ParticipantType, ParticipantType> addAll(
+			final LimeSurveySession session, final int surveyId,
+			final List<ParticipantType> participants) throws IOException {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (Objects.isNull(participants)) {
+			throw new IllegalStateException("Participants not provided.");
+		}
+		return this.dispatch(participants,
+				chunk -> this.client
+						.addParticipants(session, surveyId, chunk,
+								this.properties.isCreateToken())
+						.map(AddParticipantsResponseType::getResult)
+						.orElse(Collections.emptyList()));
+	}
+
+	/**
+	 * Deletes the participants in chunks.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param tids
+	 *            the <i>tid</i>s of the participants to delete.
+	 * @return the {@link BulkResult} with the status by <i>tid</i>, e.g.
+	 *         <i>Deleted</i>.
+	 * @throws IOException
+	 *             if interrupted.
+	 */
+	public BulkResult<Integer, PropertyType> deleteAll(
+			final LimeSurveySession session, final int surveyId,
+			final List<Integer> tids) throws IOException {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (Objects.isNull(tids)) {
+			throw new IllegalStateException("Participant ids not provided.");
+		}
+		return this.dispatch(tids,
+				chunk -> this.client.deleteParticipants(session, surveyId, chunk)
+						.map(DeleteParticipantsResponseType::getDeleted)
+						.orElse(Collections.emptyList()));
+	}
+
+	/**
+	 * Lists all participants page by page and passes them to the consumer in
+	 * the order of lime survey. The following pages are requested while the
+	 * consumer handles the current one. Participants added or deleted during
+	 * the listing may be missed or passed twice.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param unused
+	 *            <code>true</code> to list the participants with unused
+	 *            tokens only.
+	 * @param attributes
+	 *            the additional attributes to return, e.g.
+	 *            <i>attribute_1</i>.
+	 * @param consumer
+	 *            the {@link Consumer} of the participants, called on the
+	 *            calling thread.
+	 * @return the number of participants listed.
+	 * @throws IOException
+	 */
+	public long listAll(final LimeSurveySession session, final int surveyId,
+			final boolean unused, final List<String> attributes,
+			final Consumer<ParticipantType> consumer) throws IOException {
+		if (Objects.isNull(session)) {
+			throw new IllegalStateException("Session not provided.");
+		} else if (Objects.isNull(consumer)) {
+			throw new IllegalStateException("Consumer not provided.");
+		}
+		final int pageSize = Math.max(1, this.properties.getPageSize());
+		final int ahead = Math.max(1, this.properties.getParallelism());
+		final ExecutorService ex = this.getExecutor();
+		final Deque<CompletableFuture<List<ParticipantType>>> pages = new ArrayDeque<>();
+		long value = 0;
+		int start = 0;
+		try {
+			while (true) {
+				while (pages.size() < ahead) {
+					final int offset = start;
+					pages.add(CompletableFuture.supplyAsync(() -> {
+						try {
+							return this.client
+									.listParticipants(session, surveyId,
+											offset, pageSize, unused,
+											attributes)
+									.map(ListParticipantsResponseType::getResult)
+									.orElse(Collections.emptyList());
+						} catch (final IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}, ex));
+					start += pageSize;
+				}
+				final List<ParticipantType> page = join(pages.poll());
+				page.forEach(consumer);
+				value += page.size();
+				if (page.size() < pageSize) {
+					return value;
+				}
+			}
+		} finally {
+			pages.forEach(f -> f.cancel(false));
+		}
+	}
+
+	private <T, R> BulkResult<T, R> dispatch(final List<T> items,
+			final ChunkCall<T, R> call) throws IOException {
+		final long start = System.nanoTime();
+		final int chunkSize = Math.max(1, this.properties.getChunkSize());
+		final Semaphore permits = new Semaphore(
+				Math.max(1, this.properties.getParallelism()));
+		final ExecutorService ex = this.getExecutor();
+		final List<List<T>> chunks = new ArrayList<>();
+		for (int i = 0; i < items.size(); i += chunkSize) {
+			chunks.add(items.subList(i, Math.min(items.size(), i + chunkSize)));
+		}
+		final List<CompletableFuture<List<R>>> futures = new ArrayList<>(
+				chunks.size());
+		try {
+			for (final List<T> chunk : chunks) {
+				permits.acquire();
+				futures.add(CompletableFuture.supplyAsync(() -> {
+					try {
+						return call.call(chunk);
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					} finally {
+						permits.release();
+					}
+				}, ex));
+			}
+		} catch (final InterruptedException e) {
+			futures.forEach(f -> f.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(e.getMessage());
+		}
+		final List<R> results = new ArrayList<>(items.size());
+		final List<T> failed = new ArrayList<>();
+		final List<Exception> failures = new ArrayList<>();
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				results.addAll(join(futures.get(i)));
+			} catch (final InterruptedIOException e) {
+				throw e;
+			} catch (final IOException | RuntimeException e) {
+				/*
+				 * Includes the HTTP and connection failures of the
+				 * RestTemplate, the other chunks are still collected.
+				 */
+				logger.warn("Chunk {} of {} failed: {}", i + 1, chunks.size(),
+						e.getMessage());
+				failed.addAll(chunks.get(i));
+				failures.add(e);
+			}
+		}
+		return new BulkResult<>(results, failed, failures, chunks.size(),
+				System.nanoTime() - start);
+	}
+
+	/**
+	 * Waits for the future and throws the {@link IOException} of the call as
+	 * it is.
+	 */
+	private static <T> T join(final CompletableFuture<T> future)
+			throws IOException {
+		try {
+			return future.join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the {@link ParticipantProperties}.
+	 */
+	public ParticipantProperties getProperties() {
+		return this.properties;
+	}
+
+	/**
+	 * @return the executor of the chunk requests. If none is set, a pool of
+	 *         daemon threads is created and shut down by {@link #close()}.
+	 */
+	public ExecutorService getExecutor() {
+		return this.executor.get();
+	}
+
+	/**
+	 * @param executor
+	 *            the executor of the chunk requests. It is not shut down by
+	 *            {@link #close()}.
+	 */
+	public void setExecutor(final ExecutorService executor) {
+		this.executor.set(executor);
+	}
+
+	/**
+	 * Shuts the own executor down.
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		this.executor.close();
+	}
+}
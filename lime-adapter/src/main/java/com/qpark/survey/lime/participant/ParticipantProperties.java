@@ -0,0 +1,79 @@
+package com.qpark.survey.lime.participant;
+
+/**
+ * The settings of the {@link ParticipantBulkClient}.
+ *
+ * @author bhausen
+ */
+public class ParticipantProperties {
+	/** The number of participants sent in one request. */
+	private int chunkSize = 500;
+	/** The number of requests in flight. */
+	private int parallelism = 4;
+	/** The number of participants listed in one request. */
+	private int pageSize = 1000;
+	/** <code>true</code> to let lime survey create the tokens. */
+	private boolean createToken = true;
+
+	/**
+	 * @return the number of participants sent in one request.
+	 */
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	/**
+	 * @param chunkSize
+	 *            the number of participants sent in one request. Large
+	 *            chunks may exceed the execution time or memory limit of the
+	 *            lime survey PHP process.
+	 */
+	public void setChunkSize(final int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * @return the number of requests in flight.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+	/**
+	 * @param parallelism
+	 *            the number of requests in flight.
+	 */
+	public void setParallelism(final int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * @return the number of participants listed in one request.
+	 */
+	public int getPageSize() {
+		return this.pageSize;
+	}
+
+	/**
+	 * @param pageSize
+	 *            the number of participants listed in one request.
+	 */
+	public void setPageSize(final int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * @return <code>true</code> to let lime survey create the tokens.
+	 */
+	public boolean isCreateToken() {
+		return this.createToken;
+	}
+
+	/**
+	 * @param createToken
+	 *            <code>true</code> to let lime survey create the tokens.
+	 */
+	public void setCreateToken(final boolean createToken) {
+		this.createToken = createToken;
+	}
+}
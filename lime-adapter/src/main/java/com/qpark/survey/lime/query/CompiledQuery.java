@@ -0,0 +1,268 @@
+package com.qpark.survey.lime.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import com.qpark.survey.lime.LimeSurveyException;
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.concurrent.ChunkedTasks;
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.model.ExportResponsesOptions;
+import com.qpark.survey.lime.model.ExportResponsesOptions.CompletionStatus;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+
+/**
+ * A {@link ResponseQuery} compiled against the slots of a
+ * {@link SurveyColumnIndex}. Each response is read once into a row of the
+ * columns used by the condition and the selection, the condition is
+ * evaluated on the row positions without looking up column names again.
+ * <p>
+ * Against lime survey the query is pushed down into the
+ * {@link ExportResponsesOptions}: only the columns used are exported and a
+ * top level {@link Condition#completed()} becomes the completion status
+ * <i>complete</i>. Lists of responses are evaluated in parallel chunks of
+ * {@link #getChunkSize()} responses.
+ * <p>
+ * The query is thread safe.
+ *
+ * @author bhausen
+ */
+public class CompiledQuery {
+	/** The {@link SurveyColumnIndex}. */
+	private final SurveyColumnIndex index;
+	/** The {@link Condition}, <code>null</code> matches all. */
+	private final Condition condition;
+	/** The compiled condition. */
+	private final RowPredicate predicate;
+	/** The slots read, by row position. */
+	private final int[] slots;
+	/** The row positions of the selected columns. */
+	private final int[] projection;
+	/** The selected columns as named in the query. */
+	private final List<String> columns;
+	/** <code>true</code> if all columns of the index are selected. */
+	private final boolean selectAll;
+	/** The number of responses evaluated by one task. */
+	private int chunkSize = 4096;
+	/** The {@link ForkJoinPool} to evaluate in, the common pool if not set. */
+	private ForkJoinPool pool;
+
+	CompiledQuery(final SurveyColumnIndex index, final Condition condition,
+			final List<String> selected) {
+		this.index = index;
+		this.condition = condition;
+		this.selectAll = selected.isEmpty();
+		this.columns = Collections.unmodifiableList(new ArrayList<>(
+				this.selectAll ? index.getColumns() : selected));
+		final List<Integer> slotList = new ArrayList<>();
+		final Map<Integer, Integer> positions = new HashMap<>();
+		final ToIntFunction<String> position = column -> {
+			final int slot = index.slot(column);
+			if (slot < 0) {
+				throw new IllegalArgumentException(
+						String.format("Unknown column %s.", column));
+			}
+			return positions.computeIfAbsent(slot, s -> {
+				slotList.add(s);
+				return slotList.size() - 1;
+			});
+		};
+		this.projection = this.columns.stream().mapToInt(position).toArray();
+		this.predicate = Objects.isNull(condition) ? row -> true
+				: condition.compile(position);
+		this.slots = slotList.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * @param options
+	 *            the {@link ExportResponsesOptions}.
+	 * @return a copy of the options exporting only the columns used by the
+	 *         query, the fields of the options are replaced. A top level
+	 *         {@link Condition#completed()} sets the completion status
+	 *         <i>complete</i>, if none or <i>all</i> is set.
+	 */
+	public ExportResponsesOptions pushDown(
+			final ExportResponsesOptions options) {
+		final ExportResponsesOptions value = options.copy();
+		if (!this.selectAll) {
+			final List<String> fields = new ArrayList<>(this.slots.length);
+			for (final int slot : this.slots) {
+				fields.add(this.index.column(slot));
+			}
+			value.setFields(fields);
+		}
+		if (Objects.nonNull(this.condition) && this.condition.isCompletedOnly()
+				&& (Objects.isNull(value.getCompletionStatus())
+						|| value.getCompletionStatus() == CompletionStatus.ALL)) {
+			value.setCompletionStatus(CompletionStatus.COMPLETE);
+		}
+		return value;
+	}
+
+	/**
+	 * Evaluates the query against the responses of the survey, exported with
+	 * the {@link #pushDown(ExportResponsesOptions)} options and evaluated
+	 * while the HTTP response is read.
+	 *
+	 * @param client
+	 *            the {@link RestClient}.
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param options
+	 *            the {@link ExportResponsesOptions}, with heading type
+	 *            <i>code</i> or the default SGQA column names.
+	 * @return the {@link QueryResult}.
+	 * @throws IOException
+	 */
+	public QueryResult execute(final RestClient client,
+			final LimeSurveySession session, final int surveyId,
+			final ExportResponsesOptions options) throws IOException {
+		if (Objects.isNull(client)) {
+			throw new IllegalStateException("Client not provided.");
+		}
+		final long start = System.nanoTime();
+		final List<QueryRow> rows = new ArrayList<>();
+		final long[] scanned = new long[1];
+		final Consumer<ExportResponsesListEntryType> matching = this
+				.matching(rows::add);
+		final ExportResponsesResponseType envelope = client
+				.exportResponses(session, surveyId, this.pushDown(options),
+						matching.andThen(entry -> scanned[0]++))
+				.orElse(null);
+		LimeSurveyException.checkExport(envelope);
+		return new QueryResult(this.columns, rows, scanned[0],
+				System.nanoTime() - start);
+	}
+
+	/**
+	 * Evaluates the query against the responses, in parallel if there is
+	 * more than one chunk.
+	 *
+	 * @param entries
+	 *            the {@link ExportResponsesListEntryType}s, e.g. of
+	 *            {@link ExportResponsesResponseType#getResponses()}.
+	 * @return the {@link QueryResult} with the rows in the order of the
+	 *         entries.
+	 */
+	public QueryResult execute(
+			final List<ExportResponsesListEntryType> entries) {
+		if (Objects.isNull(entries)) {
+			throw new IllegalStateException("Entries not provided.");
+		}
+		final long start = System.nanoTime();
+		final int size = entries.size();
+		final List<List<QueryRow>> chunks = ChunkedTasks.invoke(this.pool,
+				size, this.chunkSize,
+				(from, to) -> this.evaluate(entries, from, to));
+		final List<QueryRow> rows;
+		if (chunks.size() == 1) {
+			rows = chunks.get(0);
+		} else {
+			rows = new ArrayList<>();
+			chunks.forEach(rows::addAll);
+		}
+		return new QueryResult(this.columns, rows, size,
+				System.nanoTime() - start);
+	}
+
+	private List<QueryRow> evaluate(
+			final List<ExportResponsesListEntryType> entries, final int from,
+			final int to) {
+		final List<QueryRow> value = new ArrayList<>();
+		final Consumer<ExportResponsesListEntryType> matching = this
+				.matching(value::add);
+		for (int i = from; i < to; i++) {
+			matching.accept(entries.get(i));
+		}
+		return value;
+	}
+
+	/**
+	 * Adapts a consumer of the matching rows to the streaming export, e.g.
+	 * <code>client.exportResponses(session, sid, query.pushDown(options), query.matching(consumer))</code>
+	 * . The returned consumer is not thread safe.
+	 *
+	 * @param consumer
+	 *            the {@link Consumer} of the {@link QueryRow}s of the matching
+	 *            responses.
+	 * @return the {@link Consumer} of {@link ExportResponsesListEntryType}s.
+	 */
+	public Consumer<ExportResponsesListEntryType> matching(
+			final Consumer<QueryRow> consumer) {
+		final RowReader reader = new RowReader(this.index, this.slots);
+		final Object[] row = new Object[this.slots.length];
+		return entry -> {
+			reader.read(entry, row);
+			if (this.predicate.test(row)) {
+				final Object[] values = new Object[this.projection.length];
+				for (int i = 0; i < values.length; i++) {
+					values[i] = row[this.projection[i]];
+				}
+				consumer.accept(new QueryRow(this.columns, values));
+			}
+		};
+	}
+
+	/**
+	 * @return the selected columns as named in the query.
+	 */
+	public List<String> getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * @return the number of responses evaluated by one task.
+	 */
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	/**
+	 * @param chunkSize
+	 *            the number of responses evaluated by one task.
+	 */
+	public void setChunkSize(final int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size needs to be > 0.");
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * @return the {@link ForkJoinPool} to evaluate in or <code>null</code> to
+	 *         use the common pool.
+	 */
+	public ForkJoinPool getPool() {
+		return this.pool;
+	}
+
+	/**
+	 * @param pool
+	 *            the {@link ForkJoinPool} to evaluate in or <code>null</code>
+	 *            to use the common pool.
+	 */
+	public void setPool(final ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("select %s where %s", this.columns,
+				Objects.isNull(this.condition) ? "true" : this.condition);
+	}
+}
@@ -0,0 +1,390 @@
+package com.qpark.survey.lime.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.DoublePredicate;
+import java.util.function.ToIntFunction;
+
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.store.Parsers;
+
+/**
+ * A condition on the columns of a survey response, e.g.
+ * <code>Condition.completed().and(Condition.eq("Q5", "A2"))</code>. The
+ * columns are named by SGQA or question code, see
+ * {@link SurveyColumnIndex#slot(String)}. Values are compared by their text,
+ * numeric conditions parse the text. An empty value is <code>null</code> or
+ * the empty string, it matches no comparison.
+ * <p>
+ * Conditions are immutable. They are compiled once by
+ * {@link ResponseQuery#compile()} into a predicate over the slots of the
+ * columns used.
+ *
+ * @author bhausen
+ */
+public abstract class Condition {
+	/**
+	 * @param column
+	 *            the column.
+	 * @param value
+	 *            the value.
+	 * @return the {@link Condition} matching responses with the column value.
+	 */
+	public static Condition eq(final String column, final Object value) {
+		if (Objects.isNull(value)) {
+			throw new IllegalStateException("Value not provided.");
+		}
+		final String expected = String.valueOf(value);
+		return new Condition() {
+			@Override
+			RowPredicate compile(final ToIntFunction<String> positions) {
+				final int p = positions.applyAsInt(column);
+				return row -> Objects.nonNull(row[p])
+						&& expected.equals(row[p].toString());
+			}
+
+			@Override
+			public String toString() {
+				return String.format("%s = %s", column, expected);
+			}
+		};
+	}
+
+	/**
+	 * @param column
+	 *            the column.
+	 * @param values
+	 *            the values.
+	 * @return the {@link Condition} matching responses with one of the
+	 *         column values.
+	 */
+	public static Condition in(final String column, final Object... values) {
+		final Set<String> expected = new HashSet<>();
+		for (final Object value : values) {
+			expected.add(String.valueOf(value));
+		}
+		return new Condition() {
+			@Override
+			RowPredicate compile(final ToIntFunction<String> positions) {
+				final int p = positions.applyAsInt(column);
+				return row -> Objects.nonNull(row[p])
+						&& expected.contains(row[p].toString());
+			}
+
+			@Override
+			public String toString() {
+				return String.format("%s in %s", column, expected);
+			}
+		};
+	}
+
+	/**
+	 * @param column
+	 *            the column.
+	 * @return the {@link Condition} matching responses without value in the
+	 *         column.
+	 */
+	public static Condition isEmpty(final String column) {
+		return new Condition() {
+			@Override
+			RowPredicate compile(final ToIntFunction<String> positions) {
+				final int p = positions.applyAsInt(column);
+				return row -> isEmptyValue(row[p]);
+			}
+
+			@Override
+			public String toString() {
+				return String.format("%s is empty", column);
+			}
+		};
+	}
+
+	/**
+	 * @param column
+	 *            the column.
+	 * @return the {@link Condition} matching responses with a value in the
+	 *         column.
+	 */
+	public static Condition notEmpty(final String column) {
+		return isEmpty(column).negate();
+	}
+
+	/**
+	 * @param column
+	 *            the column.
+	 * @param value
+	 *            the lower bound (exclusive).
+	 * @return the {@link Condition} matching responses with a numeric column
+	 *         value greater than the value.
+	 */
+	public static Condition gt(final String column, final double value) {
+		return numeric(column, ">", value, d -> d > value);
+	}
+
+	/**
+	 * @param column
+	 *            the column.
+	 * @param value
+	 *            the lower bound (inclusive).
+	 * @return the {@link Condition} matching responses with a numeric column
+	 *         value greater than or equal to the value.
+	 */
+	public static Condition ge(final String column, final double value) {
+		return numeric(column, ">=", value, d -> d >= value);
+	}
+
+	/**
+	 * @param column
+	 *            the column.
+	 * @param value
+	 *            the upper bound (exclusive).
+	 * @return the {@link Condition} matching responses with a numeric column
+	 *         value less than the value.
+	 */
+	public static Condition lt(final String column, final double value) {
+		return numeric(column, "<", value, d -> d < value);
+	}
+
+	/**
+	 * @param column
+	 *            the column.
+	 * @param value
+	 *            the upper bound (inclusive).
+	 * @return the {@link Condition} matching responses with a numeric column
+	 *         value less than or equal to the value.
+	 */
+	public static Condition le(final String column, final double value) {
+		return numeric(column, "<=", value, d -> d <= value);
+	}
+
+	/**
+	 * @return the {@link Condition} matching submitted responses. As the
+	 *         only or a top level {@link #and(Condition)} condition it is
+	 *         pushed down as completion status <i>complete</i>.
+	 */
+	public static Condition completed() {
+		return COMPLETED;
+	}
+
+	/**
+	 * @param language
+	 *            the language, e.g. <i>de</i>.
+	 * @return the {@link Condition} matching responses started in the
+	 *         language.
+	 */
+	public static Condition language(final String language) {
+		return eq("startlanguage", language);
+	}
+
+	/**
+	 * @param conditions
+	 *            the {@link Condition}s.
+	 * @return the {@link Condition} matching responses matching all
+	 *         conditions.
+	 */
+	public static Condition all(final Condition... conditions) {
+		return new And(conditions);
+	}
+
+	/**
+	 * @param conditions
+	 *            the {@link Condition}s.
+	 * @return the {@link Condition} matching responses matching any of the
+	 *         conditions.
+	 */
+	public static Condition any(final Condition... conditions) {
+		final Condition[] value = conditions.clone();
+		return new Condition() {
+			@Override
+			RowPredicate compile(final ToIntFunction<String> positions) {
+				final RowPredicate[] predicates = compileAll(value, positions);
+				return row -> {
+					for (final RowPredicate predicate : predicates) {
+						if (predicate.test(row)) {
+							return true;
+						}
+					}
+					return false;
+				};
+			}
+
+			@Override
+			public String toString() {
+				return String.format("any%s", Arrays.toString(value));
+			}
+		};
+	}
+
+	/** The {@link Condition} of {@link #completed()}. */
+	private static final Condition COMPLETED = new Condition() {
+		private final Condition submitted = isEmpty("submitdate").negate();
+
+		@Override
+		RowPredicate compile(final ToIntFunction<String> positions) {
+			return this.submitted.compile(positions);
+		}
+
+		@Override
+		public String toString() {
+			return "completed";
+		}
+	};
+
+	/**
+	 * Only the factory methods create conditions.
+	 */
+	Condition() {
+	}
+
+	/**
+	 * @param other
+	 *            the other {@link Condition}.
+	 * @return the {@link Condition} matching responses matching this and the
+	 *         other condition. The other condition is only evaluated, if this
+	 *         matches.
+	 */
+	public Condition and(final Condition other) {
+		return new And(this, other);
+	}
+
+	/**
+	 * @param other
+	 *            the other {@link Condition}.
+	 * @return the {@link Condition} matching responses matching this or the
+	 *         other condition.
+	 */
+	public Condition or(final Condition other) {
+		return any(this, other);
+	}
+
+	/**
+	 * @return the {@link Condition} matching responses not matching this.
+	 */
+	public Condition negate() {
+		final Condition negated = this;
+		return new Condition() {
+			@Override
+			RowPredicate compile(final ToIntFunction<String> positions) {
+				final RowPredicate predicate = negated.compile(positions);
+				return row -> !predicate.test(row);
+			}
+
+			@Override
+			public String toString() {
+				return String.format("not %s", negated);
+			}
+		};
+	}
+
+	/**
+	 * @return <code>true</code> if this condition only matches submitted
+	 *         responses, the completion status <i>complete</i> can be pushed
+	 *         down.
+	 */
+	boolean isCompletedOnly() {
+		return this == COMPLETED;
+	}
+
+	/**
+	 * Compiles the condition.
+	 *
+	 * @param positions
+	 *            gives the position in the row of a column and adds the
+	 *            column to the columns read, if not yet read.
+	 * @return the {@link RowPredicate}.
+	 */
+	abstract RowPredicate compile(ToIntFunction<String> positions);
+
+	private static RowPredicate[] compileAll(final Condition[] conditions,
+			final ToIntFunction<String> positions) {
+		final RowPredicate[] value = new RowPredicate[conditions.length];
+		for (int i = 0; i < conditions.length; i++) {
+			value[i] = Objects.requireNonNull(conditions[i]).compile(positions);
+		}
+		return value;
+	}
+
+	private static Condition numeric(final String column,
+			final String operator, final double bound,
+			final DoublePredicate test) {
+		return new Condition() {
+			@Override
+			RowPredicate compile(final ToIntFunction<String> positions) {
+				final int p = positions.applyAsInt(column);
+				return row -> {
+					final Object value = row[p];
+					if (value instanceof Number) {
+						return test.test(((Number) value).doubleValue());
+					}
+					/* NaN of empty or non numeric values never matches. */
+					return Objects.nonNull(value)
+							&& test.test(Parsers.parseDouble(value.toString()));
+				};
+			}
+
+			@Override
+			public String toString() {
+				return String.format("%s %s %s", column, operator, bound);
+			}
+		};
+	}
+
+	static boolean isEmptyValue(final Object value) {
+		return Objects.isNull(value)
+				|| value instanceof String && ((String) value).isEmpty();
+	}
+
+	/**
+	 * The conjunction, kept as class to find the top level
+	 * {@link #completed()} condition.
+	 */
+	private static final class And extends Condition {
+		private final Condition[] conditions;
+
+		/** Nested conjunctions are flattened. */
+		And(final Condition... conditions) {
+			final List<Condition> value = new ArrayList<>();
+			for (final Condition condition : conditions) {
+				if (condition instanceof And) {
+					value.addAll(Arrays.asList(((And) condition).conditions));
+				} else {
+					value.add(Objects.requireNonNull(condition));
+				}
+			}
+			this.conditions = value.toArray(new Condition[value.size()]);
+		}
+
+		@Override
+		RowPredicate compile(final ToIntFunction<String> positions) {
+			final RowPredicate[] predicates = compileAll(this.conditions,
+					positions);
+			return row -> {
+				for (final RowPredicate predicate : predicates) {
+					if (!predicate.test(row)) {
+						return false;
+					}
+				}
+				return true;
+			};
+		}
+
+		@Override
+		boolean isCompletedOnly() {
+			for (final Condition condition : this.conditions) {
+				if (condition.isCompletedOnly()) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("all%s", Arrays.toString(this.conditions));
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.qpark.survey.lime.query;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The responses matching a {@link CompiledQuery}.
+ *
+ * @author bhausen
+ */
+public class QueryResult {
+	private final List<String> columns;
+	private final List<QueryRow> rows;
+	private final long scanned;
+	private final long elapsedNanos;
+
+	QueryResult(final List<String> columns, final List<QueryRow> rows,
+			final long scanned, final long elapsedNanos) {
+		this.columns = columns;
+		this.rows = Collections.unmodifiableList(rows);
+		this.scanned = scanned;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * @return the selected columns as named in the query.
+	 */
+	public List<String> getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * @return the {@link QueryRow}s of the matching responses in the order of
+	 *         the responses.
+	 */
+	public List<QueryRow> getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * @return the number of responses evaluated.
+	 */
+	public long getScanned() {
+		return this.scanned;
+	}
+
+	/**
+	 * @return the milliseconds of the evaluation, including the export if
+	 *         the query ran against lime survey.
+	 */
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.elapsedNanos);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("%s of %s responses matched in %sms",
+				this.rows.size(), this.scanned, this.getElapsedMillis());
+	}
+}
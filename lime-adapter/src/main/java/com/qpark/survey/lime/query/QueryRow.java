@@ -0,0 +1,74 @@
+package com.qpark.survey.lime.query;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The selected column values of one response matching a
+ * {@link CompiledQuery}.
+ *
+ * @author bhausen
+ */
+public class QueryRow {
+	/** The selected columns, shared by all rows of a query. */
+	private final List<String> columns;
+	/** The values by selected column. */
+	private final Object[] values;
+
+	QueryRow(final List<String> columns, final Object[] values) {
+		this.columns = columns;
+		this.values = values;
+	}
+
+	/**
+	 * @return the selected columns as named in the query.
+	 */
+	public List<String> getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * @param position
+	 *            the position of the column in the selection.
+	 * @return the value.
+	 */
+	public Object get(final int position) {
+		return this.values[position];
+	}
+
+	/**
+	 * @param position
+	 *            the position of the column in the selection.
+	 * @return the value as {@link String} or <code>null</code>.
+	 */
+	public String getString(final int position) {
+		final Object value = this.values[position];
+		return Objects.isNull(value) ? null : value.toString();
+	}
+
+	/**
+	 * @param column
+	 *            the column as named in the query.
+	 * @return the value or <code>null</code> if the column is not selected.
+	 */
+	public Object get(final String column) {
+		final int position = this.columns.indexOf(column);
+		return position < 0 ? null : this.values[position];
+	}
+
+	/**
+	 * @return the number of selected columns.
+	 */
+	public int size() {
+		return this.values.length;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return Arrays.toString(this.values);
+	}
+}
@@ -0,0 +1,86 @@
+package com.qpark.survey.lime.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+
+/**
+ * Builds a query over the exported responses of a survey, e.g. the response
+ * id and answer of <i>Q7</i> of the completed responses in German with
+ * <i>Q5</i> answered <i>A2</i>:
+ *
+ * <pre>
+ * CompiledQuery query = ResponseQuery.on(index)
+ * 		.where(Condition.completed().and(Condition.language("de"))
+ * 				.and(Condition.eq("Q5", "A2")))
+ * 		.select("id", "Q7").compile();
+ * QueryResult result = query.execute(client, session, sid, options);
+ * </pre>
+ *
+ * The columns are resolved once by {@link #compile()} against the slots of
+ * the {@link SurveyColumnIndex}.
+ *
+ * @author bhausen
+ */
+public class ResponseQuery {
+	/** The {@link SurveyColumnIndex}. */
+	private final SurveyColumnIndex index;
+	/** The {@link Condition}, <code>null</code> matches all. */
+	private Condition condition;
+	/** The selected columns, empty selects all columns of the index. */
+	private final List<String> columns = new ArrayList<>();
+
+	/**
+	 * @param index
+	 *            the {@link SurveyColumnIndex} of the survey.
+	 * @return the {@link ResponseQuery}.
+	 */
+	public static ResponseQuery on(final SurveyColumnIndex index) {
+		return new ResponseQuery(index);
+	}
+
+	private ResponseQuery(final SurveyColumnIndex index) {
+		if (Objects.isNull(index)) {
+			throw new IllegalStateException("Column index not provided.");
+		}
+		this.index = index;
+	}
+
+	/**
+	 * @param condition
+	 *            the {@link Condition} of the responses. Called again, both
+	 *            conditions need to match.
+	 * @return this {@link ResponseQuery}.
+	 */
+	public ResponseQuery where(final Condition condition) {
+		if (Objects.isNull(condition)) {
+			throw new IllegalStateException("Condition not provided.");
+		}
+		this.condition = Objects.isNull(this.condition) ? condition
+				: this.condition.and(condition);
+		return this;
+	}
+
+	/**
+	 * @param selected
+	 *            the SGQA or question code columns to select. Without
+	 *            selection all columns of the index are selected.
+	 * @return this {@link ResponseQuery}.
+	 */
+	public ResponseQuery select(final String... selected) {
+		this.columns.addAll(Arrays.asList(selected));
+		return this;
+	}
+
+	/**
+	 * @return the {@link CompiledQuery}.
+	 * @throws IllegalArgumentException
+	 *             if a column is not known by the index.
+	 */
+	public CompiledQuery compile() {
+		return new CompiledQuery(this.index, this.condition, this.columns);
+	}
+}
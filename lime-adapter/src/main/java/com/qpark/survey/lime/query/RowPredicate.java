@@ -0,0 +1,17 @@
+package com.qpark.survey.lime.query;
+
+/**
+ * A {@link Condition} compiled against the positions of the values read by
+ * a {@link RowReader}.
+ *
+ * @author bhausen
+ */
+@FunctionalInterface
+interface RowPredicate {
+	/**
+	 * @param row
+	 *            the values of the columns read, by position.
+	 * @return <code>true</code> if the row matches.
+	 */
+	boolean test(Object[] row);
+}
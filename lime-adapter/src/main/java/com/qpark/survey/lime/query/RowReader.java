@@ -0,0 +1,117 @@
+package com.qpark.survey.lime.query;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * Reads the values of the compiled slots of a response into a row. The
+ * responses of an export share the column order, so the position of each
+ * column in the answers of the last response is remembered and checked by
+ * its key first. Only if the layout differs are the answers scanned and
+ * resolved by the {@link SurveyColumnIndex}.
+ * <p>
+ * A reader is not thread safe, each thread uses its own.
+ *
+ * @author bhausen
+ */
+final class RowReader {
+	/** The {@link SurveyColumnIndex}. */
+	private final SurveyColumnIndex index;
+	/** The row position by slot, -1 if the slot is not read. */
+	private final int[] positions;
+	/** The row position of the response id, -1 if not read. */
+	private final int idPosition;
+	/** The position of the column in the answers, -1 if missing. */
+	private final int[] hints;
+	/** The key of the column at the hinted position. */
+	private final String[] hintKeys;
+	/** The number of answers of the layout the hints belong to. */
+	private int hintAnswers = -1;
+	/** The flags of the row positions set by a scan. */
+	private final boolean[] found;
+
+	/**
+	 * @param index
+	 *            the {@link SurveyColumnIndex}.
+	 * @param slots
+	 *            the slots to read, by row position.
+	 */
+	RowReader(final SurveyColumnIndex index, final int[] slots) {
+		this.index = index;
+		this.positions = new int[index.size()];
+		Arrays.fill(this.positions, -1);
+		for (int i = 0; i < slots.length; i++) {
+			this.positions[slots[i]] = i;
+		}
+		this.idPosition = this.positions[SurveyColumnIndex.SLOT_ID];
+		this.hints = new int[slots.length];
+		this.hintKeys = new String[slots.length];
+		this.found = new boolean[slots.length];
+	}
+
+	/**
+	 * @param entry
+	 *            the {@link ExportResponsesListEntryType}.
+	 * @param row
+	 *            the row to fill.
+	 * @return the row.
+	 */
+	Object[] read(final ExportResponsesListEntryType entry,
+			final Object[] row) {
+		final List<PropertyType> answers = entry.getAnswers();
+		if (!this.readHinted(answers, row)) {
+			this.scan(answers, row);
+		}
+		if (this.idPosition >= 0 && Objects.isNull(row[this.idPosition])) {
+			row[this.idPosition] = entry.getId();
+		}
+		return row;
+	}
+
+	/**
+	 * @return <code>false</code> if the layout differs from the hints.
+	 */
+	private boolean readHinted(final List<PropertyType> answers,
+			final Object[] row) {
+		if (answers.size() != this.hintAnswers) {
+			return false;
+		}
+		for (int i = 0; i < row.length; i++) {
+			final int hint = this.hints[i];
+			if (hint < 0) {
+				row[i] = null;
+				continue;
+			}
+			final PropertyType answer = answers.get(hint);
+			final String key = answer.getKey();
+			if (key != this.hintKeys[i] && !this.hintKeys[i].equals(key)) {
+				return false;
+			}
+			row[i] = answer.getValue();
+		}
+		return true;
+	}
+
+	private void scan(final List<PropertyType> answers, final Object[] row) {
+		Arrays.fill(row, null);
+		Arrays.fill(this.hints, -1);
+		Arrays.fill(this.found, false);
+		for (int a = 0; a < answers.size(); a++) {
+			final String key = answers.get(a).getKey();
+			final int slot = Objects.isNull(key) ? -1 : this.index.slot(key);
+			final int position = slot < 0 ? -1 : this.positions[slot];
+			if (position >= 0 && !this.found[position]) {
+				this.found[position] = true;
+				row[position] = answers.get(a).getValue();
+				this.hints[position] = a;
+				this.hintKeys[position] = key;
+			}
+		}
+		this.hintAnswers = answers.size();
+	}
+}
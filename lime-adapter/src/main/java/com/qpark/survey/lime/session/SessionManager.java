@@ -0,0 +1,217 @@
+package com.qpark.survey.lime.session;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qpark.survey.lime.LimeSurveyException;
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.model.LimeSurveySession;
+
+/**
+ * Caches and reuses the {@link LimeSurveySession}s of a {@link RestClient} per
+ * end point and user. A session is reused until its TTL passed (each use
+ * extends it like lime survey does) or lime survey reports the session key as
+ * invalid. In the latter case {@link #execute(String, char[], SessionCallback)}
+ * logs in again and repeats the callback once. {@link #close()} releases all
+ * sessions.
+ * <p>
+ * The manager is thread safe. Concurrent callers of the same user share one
+ * login.
+ *
+ * @author bhausen
+ */
+public class SessionManager implements Closeable {
+	/**
+	 * Work done with a {@link LimeSurveySession}.
+	 */
+	@FunctionalInterface
+	public interface SessionCallback<T> {
+		/**
+		 * @param session
+		 *            the {@link LimeSurveySession}.
+		 * @return the result.
+		 * @throws IOException
+		 */
+		T doWithSession(LimeSurveySession session) throws IOException;
+	}
+
+	/** The cached session of one end point and user. */
+	private static class Entry {
+		private char[] password;
+		private LimeSurveySession session;
+	}
+
+	/** The {@link Logger}. */
+	private final Logger logger = LoggerFactory.getLogger(SessionManager.class);
+	/** The {@link RestClient} to log in with. */
+	private final RestClient client;
+	/** The cached sessions by end point and user name. */
+	private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+	/**
+	 * The time a session is used after its last use. Lime survey expires
+	 * sessions after 7200 seconds by default.
+	 */
+	private long sessionTtl = TimeUnit.HOURS.toMillis(1);
+
+	/**
+	 * @param client
+	 *            the {@link RestClient} to log in with.
+	 */
+	public SessionManager(final RestClient client) {
+		this.client = Objects.requireNonNull(client);
+	}
+
+	/**
+	 * Get the cached {@link LimeSurveySession} of the user or log in.
+	 *
+	 * @param userName
+	 *            the user name.
+	 * @param password
+	 *            the password.
+	 * @return the {@link LimeSurveySession}.
+	 * @throws IOException
+	 */
+	public LimeSurveySession getSession(final String userName,
+			final char[] password) throws IOException {
+		if (Objects.isNull(userName)) {
+			throw new IllegalStateException("User name not provided.");
+		}
+		final Entry entry = this.sessions.computeIfAbsent(
+				this.getKey(this.client.getEndPointUrl(), userName),
+				k -> new Entry());
+		synchronized (entry) {
+			final long now = System.currentTimeMillis();
+			if (Objects.nonNull(password)) {
+				entry.password = password.clone();
+			}
+			if (Objects.isNull(entry.session) || entry.session.isExpired(now)) {
+				entry.session = this.client
+						.getSessionKey(userName, entry.password)
+						.orElseThrow(() -> new LimeSurveyException(
+								"No session key returned."));
+			}
+			entry.session.setExpires(now + this.sessionTtl);
+			return entry.session;
+		}
+	}
+
+	/**
+	 * Run the callback with the cached session of the user. If lime survey
+	 * reports the session key as invalid, a new session is created and the
+	 * callback is called again.
+	 *
+	 * @param userName
+	 *            the user name.
+	 * @param password
+	 *            the password.
+	 * @param callback
+	 *            the {@link SessionCallback}.
+	 * @return the result of the callback.
+	 * @throws IOException
+	 */
+	public <T> T execute(final String userName, final char[] password,
+			final SessionCallback<T> callback) throws IOException {
+		final LimeSurveySession session = this.getSession(userName, password);
+		try {
+			return callback.doWithSession(session);
+		} catch (final LimeSurveyException e) {
+			if (!e.isInvalidSession()) {
+				throw e;
+			}
+			this.logger.debug("Renew invalid session of {} at {}", userName,
+					session.getEndPointUrl());
+			this.invalidate(session);
+			return callback.doWithSession(this.getSession(userName, null));
+		}
+	}
+
+	/**
+	 * Drop the session from the cache without releasing it.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 */
+	public void invalidate(final LimeSurveySession session) {
+		final Entry entry = this.sessions.get(
+				this.getKey(session.getEndPointUrl(), session.getUserName()));
+		if (Objects.nonNull(entry)) {
+			synchronized (entry) {
+				if (entry.session == session) {
+					entry.session = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Release all cached sessions.
+	 */
+	public void releaseAll() {
+		this.sessions.values().forEach(entry -> {
+			synchronized (entry) {
+				if (Objects.nonNull(entry.session)) {
+					try {
+						this.client.releaseSessionKey(entry.session);
+					} catch (final IOException | RuntimeException e) {
+						this.logger.warn("Release of session of {} failed: {}",
+								entry.session.getUserName(), e.getMessage());
+					}
+					entry.session = null;
+				}
+				if (Objects.nonNull(entry.password)) {
+					Arrays.fill(entry.password, ' ');
+					entry.password = null;
+				}
+			}
+		});
+		this.sessions.clear();
+	}
+
+	/**
+	 * Releases all cached sessions.
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		this.releaseAll();
+	}
+
+	/**
+	 * @return the number of cached sessions.
+	 */
+	public int getSessionCount() {
+		return (int) this.sessions.values().stream()
+				.filter(e -> Objects.nonNull(e.session)).count();
+	}
+
+	/**
+	 * @return the time a session is used after its last use in milliseconds.
+	 */
+	public long getSessionTtl() {
+		return this.sessionTtl;
+	}
+
+	/**
+	 * @param sessionTtl
+	 *            the time a session is used after its last use in
+	 *            milliseconds. Keep it below the session expiration time of
+	 *            the lime survey server.
+	 */
+	public void setSessionTtl(final long sessionTtl) {
+		this.sessionTtl = sessionTtl;
+	}
+
+	private String getKey(final String endPointUrl, final String userName) {
+		return new StringBuilder(64).append(endPointUrl).append('|')
+				.append(userName).toString();
+	}
+}
@@ -0,0 +1,112 @@
+package com.qpark.survey.lime.snapshot;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+
+/**
+ * Local persistent store of the exported responses with one
+ * {@link SurveySnapshot} directory per survey below the base directory. After
+ * a restart the responses are read from the memory mapped segments and only
+ * responses with an id above {@link SurveySnapshot#getLastResponseId()} need
+ * to be exported.
+ *
+ * @author bhausen
+ */
+public class ResponseSnapshotStore {
+	/** The default maximum number of data bytes of a segment (1 GiB). */
+	public static final long DEFAULT_MAX_SEGMENT_SIZE = 1L << 30;
+	/** The base directory. */
+	private final Path directory;
+	/** The maximum number of data bytes of a segment. */
+	private long maxSegmentSize = DEFAULT_MAX_SEGMENT_SIZE;
+	/** The open {@link SurveySnapshot}s by survey id. */
+	private final Map<Integer, SurveySnapshot> snapshots = new HashMap<>();
+
+	/**
+	 * @param directory
+	 *            the base directory.
+	 */
+	public ResponseSnapshotStore(final Path directory) {
+		this.directory = Objects.requireNonNull(directory);
+	}
+
+	/**
+	 * @return the maximum number of data bytes of a segment.
+	 */
+	public long getMaxSegmentSize() {
+		return this.maxSegmentSize;
+	}
+
+	/**
+	 * @param maxSegmentSize
+	 *            the maximum number of data bytes of a segment. Segments are
+	 *            memory mapped together with their header, the maximum is
+	 *            {@link Integer#MAX_VALUE} less the header.
+	 */
+	public void setMaxSegmentSize(final long maxSegmentSize) {
+		if (maxSegmentSize <= 0 || maxSegmentSize > Segment.MAX_DATA_LENGTH) {
+			throw new IllegalArgumentException(String.format(
+					"Segment size %s out of range.", maxSegmentSize));
+		}
+		this.maxSegmentSize = maxSegmentSize;
+	}
+
+	/**
+	 * Get the {@link SurveySnapshot} of the survey. A snapshot opened with
+	 * another column layout before is closed and reopened, a closed snapshot
+	 * is reopened.
+	 *
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param index
+	 *            the {@link SurveyColumnIndex} of the survey.
+	 * @return the {@link SurveySnapshot}.
+	 * @throws IOException
+	 */
+	public synchronized SurveySnapshot open(final int surveyId,
+			final SurveyColumnIndex index) throws IOException {
+		SurveySnapshot value = this.snapshots.get(surveyId);
+		if (Objects.isNull(value) || value.isClosed() || value.getIndex()
+				.getLayoutHash() != index.getLayoutHash()) {
+			if (Objects.nonNull(value)) {
+				value.close();
+			}
+			value = new SurveySnapshot(
+					this.directory.resolve(String.valueOf(surveyId)), surveyId,
+					index, this.maxSegmentSize);
+			this.snapshots.put(surveyId, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Close the snapshot and delete all stored responses of the survey.
+	 *
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @throws IOException
+	 */
+	public synchronized void delete(final int surveyId) throws IOException {
+		final SurveySnapshot value = this.snapshots.remove(surveyId);
+		if (Objects.nonNull(value)) {
+			value.close();
+		}
+		final Path survey = this.directory.resolve(String.valueOf(surveyId));
+		if (Files.isDirectory(survey)) {
+			try (DirectoryStream<Path> files = Files
+					.newDirectoryStream(survey)) {
+				for (final Path file : files) {
+					Files.deleteIfExists(file);
+				}
+			}
+			Files.deleteIfExists(survey);
+		}
+	}
+}
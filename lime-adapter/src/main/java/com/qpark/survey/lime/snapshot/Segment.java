@@ -0,0 +1,88 @@
+package com.qpark.survey.lime.snapshot;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A memory mapped, immutable segment file of a {@link SurveySnapshot}.
+ * Header and data are mapped as one buffer, addressed by <code>int</code>, so
+ * the data of a segment is at most {@link #MAX_DATA_LENGTH} bytes.
+ *
+ * @author bhausen
+ */
+final class Segment {
+	/** The maximum number of data bytes following the header. */
+	static final long MAX_DATA_LENGTH = Integer.MAX_VALUE - SegmentHeader.SIZE;
+	/** The sequence number of the segment. */
+	final long sequence;
+	/** The file of the segment. */
+	final Path file;
+	/** The {@link SegmentHeader}. */
+	final SegmentHeader header;
+	/** The mapped file including the header. */
+	private final MappedByteBuffer buffer;
+
+	private Segment(final long sequence, final Path file,
+			final SegmentHeader header, final MappedByteBuffer buffer) {
+		this.sequence = sequence;
+		this.file = file;
+		this.header = header;
+		this.buffer = buffer;
+	}
+
+	static Segment open(final long sequence, final Path file)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.READ)) {
+			final MappedByteBuffer buffer = channel
+					.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			final SegmentHeader header = SegmentHeader.read(buffer);
+			if (header.dataLength < 0
+					|| header.dataLength > MAX_DATA_LENGTH) {
+				throw new IOException(String.format(
+						"Snapshot segment %s with %s data bytes.", file,
+						header.dataLength));
+			} else if (SegmentHeader.SIZE + header.dataLength > channel
+					.size()) {
+				throw new IOException(
+						String.format("Truncated snapshot segment %s.", file));
+			}
+			return new Segment(sequence, file, header, buffer);
+		}
+	}
+
+	/**
+	 * @return a new read only view of the data area, positioned at the first
+	 *         record.
+	 */
+	ByteBuffer data() {
+		final ByteBuffer value = this.buffer.asReadOnlyBuffer();
+		value.position(SegmentHeader.SIZE);
+		value.limit((int) (SegmentHeader.SIZE + this.header.dataLength));
+		return value.slice();
+	}
+
+	/**
+	 * Unmaps the file. The buffers of {@link #data()} must not be read
+	 * afterwards. If the JVM does not allow to unmap, the mapping is released
+	 * by the garbage collector.
+	 */
+	void unmap() {
+		try {
+			final Method cleaner = this.buffer.getClass().getMethod("cleaner");
+			cleaner.setAccessible(true);
+			final Object value = cleaner.invoke(this.buffer);
+			if (Objects.nonNull(value)) {
+				value.getClass().getMethod("clean").invoke(value);
+			}
+		} catch (final ReflectiveOperationException | RuntimeException e) {
+			/* Released by the garbage collector. */
+		}
+	}
+}
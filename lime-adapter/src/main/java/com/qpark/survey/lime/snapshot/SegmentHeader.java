@@ -0,0 +1,84 @@
+package com.qpark.survey.lime.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The fixed size header at the start of each snapshot segment file.
+ *
+ * <pre>
+ *  0 int   magic
+ *  4 short version
+ *  6 byte  flags
+ *  8 long  layout hash of the SurveyColumnIndex
+ * 16 int   number of columns
+ * 20 int   survey id
+ * 24 long  highest response id
+ * 32 long  number of records
+ * 40 long  number of data bytes following the header
+ * </pre>
+ *
+ * @author bhausen
+ */
+final class SegmentHeader {
+	/** The size of the header in bytes. */
+	static final int SIZE = 64;
+	/** The magic number <i>LSNP</i>. */
+	static final int MAGIC = 0x4C534E50;
+	/** The format version. */
+	static final short VERSION = 1;
+	/** The records of the segment have unique response ids. */
+	static final byte FLAG_COMPACTED = 1;
+	/** The flags. */
+	byte flags;
+	/** The layout hash of the SurveyColumnIndex. */
+	long layoutHash;
+	/** The number of columns. */
+	int columnCount;
+	/** The survey id. */
+	int surveyId;
+	/** The highest response id. */
+	long lastResponseId = -1;
+	/** The number of records. */
+	long recordCount;
+	/** The number of data bytes following the header. */
+	long dataLength;
+
+	static SegmentHeader read(final ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() < SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a snapshot segment.");
+		}
+		if (buffer.getShort(4) != VERSION) {
+			throw new IOException(String.format(
+					"Unsupported snapshot segment version %s.",
+					buffer.getShort(4)));
+		}
+		final SegmentHeader value = new SegmentHeader();
+		value.flags = buffer.get(6);
+		value.layoutHash = buffer.getLong(8);
+		value.columnCount = buffer.getInt(16);
+		value.surveyId = buffer.getInt(20);
+		value.lastResponseId = buffer.getLong(24);
+		value.recordCount = buffer.getLong(32);
+		value.dataLength = buffer.getLong(40);
+		return value;
+	}
+
+	ByteBuffer write() {
+		final ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+		buffer.putInt(0, MAGIC);
+		buffer.putShort(4, VERSION);
+		buffer.put(6, this.flags);
+		buffer.putLong(8, this.layoutHash);
+		buffer.putInt(16, this.columnCount);
+		buffer.putInt(20, this.surveyId);
+		buffer.putLong(24, this.lastResponseId);
+		buffer.putLong(32, this.recordCount);
+		buffer.putLong(40, this.dataLength);
+		return buffer;
+	}
+
+	boolean isCompacted() {
+		return (this.flags & FLAG_COMPACTED) != 0;
+	}
+}
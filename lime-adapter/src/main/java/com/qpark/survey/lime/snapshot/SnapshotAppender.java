@@ -0,0 +1,290 @@
+package com.qpark.survey.lime.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.qpark.survey.lime.index.IndexedResponse;
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.store.Parsers;
+
+/**
+ * Appends responses to new segments of a {@link SurveySnapshot}. The written
+ * segments become visible to the readers when the appender is closed. Only
+ * one appender per snapshot is open at a time.
+ *
+ * @author bhausen
+ */
+public class SnapshotAppender
+		implements Consumer<ExportResponsesListEntryType>, Closeable {
+	/** The {@link SurveySnapshot}. */
+	private final SurveySnapshot snapshot;
+	/** The {@link SurveyColumnIndex}. */
+	private final SurveyColumnIndex index;
+	/** The flags of the written segments. */
+	private final byte flags;
+	/** The published segments. */
+	private final List<Segment> written = new ArrayList<>();
+	/** The record buffer. */
+	private ByteBuffer record = ByteBuffer.allocate(4096);
+	/** The write buffer. */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+	/** The temporary file of the current segment. */
+	private Path file;
+	/** The {@link FileChannel} of the current segment. */
+	private FileChannel channel;
+	/** The {@link SegmentHeader} of the current segment. */
+	private SegmentHeader header;
+	/** <code>true</code> if closed. */
+	private boolean closed;
+
+	SnapshotAppender(final SurveySnapshot snapshot, final byte flags) {
+		this.snapshot = snapshot;
+		this.index = snapshot.getIndex();
+		this.flags = flags;
+	}
+
+	/**
+	 * Appends the response. {@link IOException}s are thrown as
+	 * {@link UncheckedIOException}.
+	 *
+	 * @see java.util.function.Consumer#accept(java.lang.Object)
+	 */
+	@Override
+	public void accept(final ExportResponsesListEntryType entry) {
+		try {
+			this.append(this.index.index(entry));
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param response
+	 *            the {@link IndexedResponse} to append.
+	 * @throws IOException
+	 */
+	public void append(final IndexedResponse response) throws IOException {
+		if (response.getIndex() != this.index) {
+			throw new IllegalArgumentException(
+					"Response of a different column index.");
+		}
+		final long id = toId(response.get(SurveyColumnIndex.SLOT_ID));
+		final int columnCount = this.index.size();
+		if (this.record.capacity() < SnapshotRecord.OFFSETS + columnCount * 4) {
+			this.record = ByteBuffer.allocate(Math.max(
+					this.record.capacity() * 2,
+					SnapshotRecord.OFFSETS + columnCount * 8));
+		}
+		this.record.clear();
+		this.record.position(SnapshotRecord.OFFSETS + columnCount * 4);
+		for (int slot = 0; slot < columnCount; slot++) {
+			final Object value = response.get(slot);
+			int cell = 0;
+			if (Objects.nonNull(value)) {
+				cell = this.record.position();
+				this.encode(value);
+			}
+			this.record.putInt(SnapshotRecord.OFFSETS + slot * 4, cell);
+		}
+		this.record.putInt(0, this.record.position());
+		this.record.putLong(4, id);
+		this.record.flip();
+		this.write(this.record, id);
+	}
+
+	/**
+	 * Write an already encoded record of the same layout.
+	 */
+	void appendRaw(final ByteBuffer raw, final long id) throws IOException {
+		this.write(raw, id);
+	}
+
+	private static long toId(final Object value) {
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		} else if (Objects.nonNull(value)) {
+			final long id = Parsers.parseLong(value.toString());
+			if (id != Parsers.INVALID) {
+				return id;
+			}
+		}
+		return -1;
+	}
+
+	private void encode(final Object value) {
+		if (value instanceof Long || value instanceof Integer
+				|| value instanceof Short || value instanceof Byte) {
+			this.ensureCapacity(9);
+			this.record.put(SnapshotRecord.TAG_LONG);
+			this.record.putLong(((Number) value).longValue());
+		} else if (value instanceof Number) {
+			this.ensureCapacity(9);
+			this.record.put(SnapshotRecord.TAG_DOUBLE);
+			this.record.putDouble(((Number) value).doubleValue());
+		} else if (value instanceof Boolean) {
+			this.ensureCapacity(1);
+			this.record.put(((Boolean) value).booleanValue()
+					? SnapshotRecord.TAG_TRUE : SnapshotRecord.TAG_FALSE);
+		} else {
+			final byte[] bytes = value.toString()
+					.getBytes(StandardCharsets.UTF_8);
+			this.ensureCapacity(5 + bytes.length);
+			this.record.put(SnapshotRecord.TAG_STRING);
+			this.record.putInt(bytes.length);
+			this.record.put(bytes);
+		}
+	}
+
+	private void ensureCapacity(final int length) {
+		if (this.record.remaining() < length) {
+			final ByteBuffer grown = ByteBuffer.allocate(Math.max(
+					this.record.capacity() * 2,
+					this.record.position() + length));
+			this.record.flip();
+			grown.put(this.record);
+			this.record = grown;
+		}
+	}
+
+	private void write(final ByteBuffer data, final long id)
+			throws IOException {
+		if (this.closed) {
+			throw new IOException("Snapshot appender is closed.");
+		}
+		final int length = data.remaining();
+		if (length > this.snapshot.getMaxSegmentSize()) {
+			throw new IOException(String.format(
+					"Record of response %s with %s bytes exceeds the segment size.",
+					id, length));
+		}
+		if (Objects.nonNull(this.header)
+				&& this.header.dataLength + length > this.snapshot
+						.getMaxSegmentSize()
+				&& this.header.recordCount > 0) {
+			this.finishSegment();
+		}
+		if (Objects.isNull(this.header)) {
+			this.startSegment();
+		}
+		if (this.buffer.remaining() < length) {
+			this.flush();
+		}
+		if (this.buffer.remaining() < length) {
+			while (data.hasRemaining()) {
+				this.channel.write(data);
+			}
+		} else {
+			this.buffer.put(data);
+		}
+		this.header.dataLength += length;
+		this.header.recordCount++;
+		this.header.lastResponseId = Math.max(this.header.lastResponseId, id);
+	}
+
+	private void startSegment() throws IOException {
+		this.file = this.snapshot.newTemporaryFile();
+		this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		this.header = new SegmentHeader();
+		this.header.flags = this.flags;
+		this.header.layoutHash = this.index.getLayoutHash();
+		this.header.columnCount = this.index.size();
+		this.header.surveyId = this.snapshot.getSurveyId();
+		this.channel.position(SegmentHeader.SIZE);
+	}
+
+	private void flush() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining()) {
+			this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+
+	private void finishSegment() throws IOException {
+		try {
+			this.flush();
+			final ByteBuffer head = this.header.write();
+			while (head.hasRemaining()) {
+				this.channel.write(head, head.position());
+			}
+			this.channel.force(true);
+		} finally {
+			this.channel.close();
+		}
+		final long sequence = this.snapshot.nextSequence();
+		final Path target = this.snapshot.segmentFile(sequence);
+		Files.move(this.file, target, StandardCopyOption.ATOMIC_MOVE);
+		this.written.add(Segment.open(sequence, target));
+		this.header = null;
+		this.channel = null;
+		this.file = null;
+	}
+
+	/**
+	 * @return the number of records appended.
+	 */
+	public long getRecordCount() {
+		long value = Objects.isNull(this.header) ? 0
+				: this.header.recordCount;
+		for (final Segment segment : this.written) {
+			value += segment.header.recordCount;
+		}
+		return value;
+	}
+
+	/**
+	 * Discards the records appended since the last roll over to a new
+	 * segment and releases the snapshot for the next appender.
+	 */
+	public void abort() {
+		if (!this.closed) {
+			this.closed = true;
+			try {
+				if (Objects.nonNull(this.channel)) {
+					this.channel.close();
+					Files.deleteIfExists(this.file);
+				}
+			} catch (final IOException e) {
+				/* Left over temporary files are removed on open. */
+			} finally {
+				this.snapshot.publish(this.written, false);
+			}
+		}
+	}
+
+	/**
+	 * Writes the headers and publishes the segments to the readers.
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!this.closed) {
+			try {
+				if (Objects.nonNull(this.header)) {
+					this.finishSegment();
+				}
+			} catch (final IOException e) {
+				this.abort();
+				throw e;
+			}
+			this.closed = true;
+			this.snapshot.publish(this.written,
+					this.flags == SegmentHeader.FLAG_COMPACTED);
+		}
+	}
+}
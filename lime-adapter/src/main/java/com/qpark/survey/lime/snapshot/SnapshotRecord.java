@@ -0,0 +1,225 @@
+package com.qpark.survey.lime.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+import com.qpark.survey.lime.store.Parsers;
+
+/**
+ * A view on one response stored in a memory mapped snapshot segment. The
+ * values are decoded on access only.
+ * <p>
+ * The record passed to the consumer of {@link SurveySnapshot#forEach} is
+ * reused for the next response. Use {@link #copy()} to keep it.
+ *
+ * <pre>
+ * int    record length
+ * long   response id
+ * int[]  cell offsets by slot relative to the record start, 0 is null
+ * cells  byte tag followed by the value
+ * </pre>
+ *
+ * @author bhausen
+ */
+public class SnapshotRecord {
+	static final byte TAG_STRING = 1;
+	static final byte TAG_LONG = 2;
+	static final byte TAG_DOUBLE = 3;
+	static final byte TAG_TRUE = 4;
+	static final byte TAG_FALSE = 5;
+	/** The offset of the cell offsets within the record. */
+	static final int OFFSETS = 12;
+	/** The {@link SurveyColumnIndex}. */
+	private final SurveyColumnIndex index;
+	/** The data of the segment. */
+	private final ByteBuffer data;
+	/** The offset of the record within the data. */
+	private int offset;
+
+	SnapshotRecord(final SurveyColumnIndex index, final ByteBuffer data) {
+		this.index = index;
+		this.data = data;
+	}
+
+	void moveTo(final int offset) {
+		this.offset = offset;
+	}
+
+	int getOffset() {
+		return this.offset;
+	}
+
+	/**
+	 * @return the length of the record in bytes.
+	 */
+	int getLength() {
+		return this.data.getInt(this.offset);
+	}
+
+	/**
+	 * @return a view of the encoded record.
+	 */
+	ByteBuffer raw() {
+		final ByteBuffer value = this.data.duplicate();
+		value.limit(this.offset + this.getLength());
+		value.position(this.offset);
+		return value;
+	}
+
+	/**
+	 * @return a copy of this record which is not moved by the iteration.
+	 */
+	public SnapshotRecord copy() {
+		final SnapshotRecord value = new SnapshotRecord(this.index,
+				this.data);
+		value.offset = this.offset;
+		return value;
+	}
+
+	/**
+	 * @return the {@link SurveyColumnIndex}.
+	 */
+	public SurveyColumnIndex getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * @return the response id.
+	 */
+	public long getId() {
+		return this.data.getLong(this.offset + 4);
+	}
+
+	private int cell(final int slot) {
+		if (slot < 0 || slot >= this.index.size()) {
+			throw new IndexOutOfBoundsException(
+					String.format("Slot %s of %s.", slot, this.index.size()));
+		}
+		final int cell = this.data.getInt(this.offset + OFFSETS + slot * 4);
+		return cell == 0 ? -1 : this.offset + cell;
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return <code>true</code> if the value of the slot is <code>null</code>.
+	 */
+	public boolean isNull(final int slot) {
+		return this.cell(slot) < 0;
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return the value of the slot (String, Long, Double or Boolean) or
+	 *         <code>null</code>.
+	 */
+	public Object get(final int slot) {
+		final int cell = this.cell(slot);
+		if (cell < 0) {
+			return null;
+		}
+		switch (this.data.get(cell)) {
+		case TAG_LONG:
+			return this.data.getLong(cell + 1);
+		case TAG_DOUBLE:
+			return this.data.getDouble(cell + 1);
+		case TAG_TRUE:
+			return Boolean.TRUE;
+		case TAG_FALSE:
+			return Boolean.FALSE;
+		default:
+			return this.readString(cell);
+		}
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return the value of the slot as {@link String} or <code>null</code>.
+	 */
+	public String getString(final int slot) {
+		final int cell = this.cell(slot);
+		if (cell < 0) {
+			return null;
+		} else if (this.data.get(cell) == TAG_STRING) {
+			return this.readString(cell);
+		}
+		return String.valueOf(this.get(slot));
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return the integer value of the slot or
+	 *         {@link Parsers#INVALID} if it is <code>null</code> or not an
+	 *         integer.
+	 */
+	public long getLong(final int slot) {
+		final int cell = this.cell(slot);
+		if (cell < 0) {
+			return Parsers.INVALID;
+		}
+		switch (this.data.get(cell)) {
+		case TAG_LONG:
+			return this.data.getLong(cell + 1);
+		case TAG_STRING:
+			return Parsers.parseLong(this.readString(cell));
+		default:
+			return Parsers.INVALID;
+		}
+	}
+
+	/**
+	 * @param slot
+	 *            the slot.
+	 * @return the decimal value of the slot or {@link Double#NaN} if it is
+	 *         <code>null</code> or not a number.
+	 */
+	public double getDouble(final int slot) {
+		final int cell = this.cell(slot);
+		if (cell < 0) {
+			return Double.NaN;
+		}
+		switch (this.data.get(cell)) {
+		case TAG_LONG:
+			return this.data.getLong(cell + 1);
+		case TAG_DOUBLE:
+			return this.data.getDouble(cell + 1);
+		case TAG_STRING:
+			return Parsers.parseDouble(this.readString(cell));
+		default:
+			return Double.NaN;
+		}
+	}
+
+	private String readString(final int cell) {
+		final int length = this.data.getInt(cell + 1);
+		final byte[] bytes = new byte[length];
+		final ByteBuffer view = this.data.duplicate();
+		view.position(cell + 5);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the response as {@link ExportResponsesListEntryType} with the
+	 *         id and the not <code>null</code> columns as answers.
+	 */
+	public ExportResponsesListEntryType toEntry() {
+		final ExportResponsesListEntryType value = new ExportResponsesListEntryType();
+		value.setId(String.valueOf(this.getId()));
+		for (int slot = 0; slot < this.index.size(); slot++) {
+			if (!this.isNull(slot)) {
+				final PropertyType pt = new PropertyType();
+				pt.setKey(this.index.column(slot));
+				pt.setValue(this.get(slot));
+				value.getAnswers().add(pt);
+			}
+		}
+		return value;
+	}
+}
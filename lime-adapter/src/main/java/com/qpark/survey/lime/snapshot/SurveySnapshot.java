@@ -0,0 +1,398 @@
+package com.qpark.survey.lime.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.store.LongLongHashMap;
+
+/**
+ * The persisted responses of one survey. The responses are stored in
+ * append-only, immutable segment files which are memory mapped for reading.
+ * Each incremental synchronisation appends new segments via
+ * {@link #appender()}, a response changed later supersedes the earlier
+ * version. {@link #compact()} rewrites the latest versions into new segments
+ * and removes the old ones.
+ * <p>
+ * Each segment records the layout hash of the {@link SurveyColumnIndex} it
+ * was written with. Segments of another layout are ignored by the readers and
+ * dropped by the next compaction.
+ * <p>
+ * {@link #close()} waits for the open appender or compaction and the running
+ * readers, then unmaps the segments.
+ *
+ * @author bhausen
+ */
+public class SurveySnapshot implements Closeable {
+	/** The file suffix of the segments. */
+	private static final String SEGMENT_SUFFIX = ".seg";
+	/** The file suffix of segments being written. */
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	/** The {@link Logger}. */
+	private final Logger logger = LoggerFactory.getLogger(SurveySnapshot.class);
+	/** The directory of the segments. */
+	private final Path directory;
+	/** The survey id. */
+	private final int surveyId;
+	/** The {@link SurveyColumnIndex}. */
+	private final SurveyColumnIndex index;
+	/** The maximum number of data bytes of a segment. */
+	private final long maxSegmentSize;
+	/** The permit of the single writer. */
+	private final Semaphore writer = new Semaphore(1);
+	/** Held by the readers of the mapped segments, taken by close. */
+	private final ReadWriteLock mapping = new ReentrantReadWriteLock();
+	/** The last used segment sequence. */
+	private final AtomicLong sequence = new AtomicLong();
+	/** The readable segments in sequence order. */
+	private volatile List<Segment> segments = Collections.emptyList();
+	/** <code>true</code> if closed. */
+	private volatile boolean closed;
+
+	SurveySnapshot(final Path directory, final int surveyId,
+			final SurveyColumnIndex index, final long maxSegmentSize)
+			throws IOException {
+		this.directory = directory;
+		this.surveyId = surveyId;
+		this.index = Objects.requireNonNull(index);
+		this.maxSegmentSize = maxSegmentSize;
+		Files.createDirectories(directory);
+		final List<Segment> list = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files
+				.newDirectoryStream(directory)) {
+			for (final Path file : files) {
+				final String name = file.getFileName().toString();
+				if (name.endsWith(TEMPORARY_SUFFIX)) {
+					Files.deleteIfExists(file);
+				} else if (name.endsWith(SEGMENT_SUFFIX)) {
+					final long number = Long.parseLong(name.substring(0,
+							name.length() - SEGMENT_SUFFIX.length()));
+					this.sequence.accumulateAndGet(number, Math::max);
+					try {
+						list.add(Segment.open(number, file));
+					} catch (final IOException e) {
+						this.logger.warn("Skip segment {}: {}", file,
+								e.getMessage());
+					}
+				}
+			}
+		}
+		list.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+		this.segments = Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * @return the survey id.
+	 */
+	public int getSurveyId() {
+		return this.surveyId;
+	}
+
+	/**
+	 * @return the {@link SurveyColumnIndex}.
+	 */
+	public SurveyColumnIndex getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * @return the maximum number of data bytes of a segment.
+	 */
+	public long getMaxSegmentSize() {
+		return this.maxSegmentSize;
+	}
+
+	private List<Segment> getCompatibleSegments() {
+		final long layoutHash = this.index.getLayoutHash();
+		return this.segments.stream()
+				.filter(s -> s.header.layoutHash == layoutHash
+						&& s.header.surveyId == this.surveyId)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return the highest stored response id or <code>-1</code> if no response
+	 *         of the current layout is stored.
+	 */
+	public long getLastResponseId() {
+		return this.getCompatibleSegments().stream()
+				.mapToLong(s -> s.header.lastResponseId).max().orElse(-1);
+	}
+
+	/**
+	 * @return the number of stored records of the current layout, including
+	 *         superseded versions of changed responses.
+	 */
+	public long getRecordCount() {
+		return this.getCompatibleSegments().stream()
+				.mapToLong(s -> s.header.recordCount).sum();
+	}
+
+	/**
+	 * @return the number of segments, including those of other layouts.
+	 */
+	public int getSegmentCount() {
+		return this.segments.size();
+	}
+
+	/**
+	 * @return <code>true</code> if closed.
+	 */
+	public boolean isClosed() {
+		return this.closed;
+	}
+
+	/**
+	 * @return <code>true</code> if all segments have the current layout.
+	 */
+	public boolean isCompatible() {
+		return this.getCompatibleSegments().size() == this.segments.size();
+	}
+
+	/**
+	 * Passes the latest version of each stored response to the consumer. The
+	 * {@link SnapshotRecord} is reused for each response and must not be used
+	 * after the snapshot is closed.
+	 *
+	 * @param consumer
+	 *            the {@link Consumer} of the {@link SnapshotRecord}s.
+	 */
+	public void forEach(final Consumer<SnapshotRecord> consumer) {
+		final Lock lock = this.mapping.readLock();
+		lock.lock();
+		try {
+			if (this.closed) {
+				throw new IllegalStateException("Snapshot is closed.");
+			}
+			this.forEach(this.getCompatibleSegments(), consumer);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void forEach(final List<Segment> current,
+			final Consumer<SnapshotRecord> consumer) {
+		LongLongHashMap latest = null;
+		if (current.size() > 1 || current.size() == 1
+				&& !current.get(0).header.isCompacted()) {
+			latest = new LongLongHashMap(this.getLatestSize(current));
+			for (int i = 0; i < current.size(); i++) {
+				final ByteBuffer data = current.get(i).data();
+				final SnapshotRecord record = new SnapshotRecord(this.index,
+						data);
+				for (int offset = 0; offset < data.limit(); offset += record
+						.getLength()) {
+					record.moveTo(offset);
+					latest.put(record.getId(), position(i, offset));
+				}
+			}
+		}
+		for (int i = 0; i < current.size(); i++) {
+			final ByteBuffer data = current.get(i).data();
+			final SnapshotRecord record = new SnapshotRecord(this.index, data);
+			for (int offset = 0; offset < data.limit(); offset += record
+					.getLength()) {
+				record.moveTo(offset);
+				if (Objects.isNull(latest) || record.getId() < 0
+						|| latest.get(record.getId(), -1) == position(i,
+								offset)) {
+					consumer.accept(record);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the size of the map of the latest versions, the number of
+	 *         records or, with changed responses, at most the highest response
+	 *         id.
+	 */
+	private int getLatestSize(final List<Segment> current) {
+		final long records = current.stream()
+				.mapToLong(s -> s.header.recordCount).sum();
+		final long ids = current.stream()
+				.mapToLong(s -> s.header.lastResponseId).max().orElse(0);
+		final long value = Math.min(records, Math.max(0, ids) + 1);
+		if (value > LongLongHashMap.MAX_SIZE) {
+			throw new IllegalStateException(String.format(
+					"Snapshot of survey %s with %s responses exceeds %s.",
+					this.surveyId, value, LongLongHashMap.MAX_SIZE));
+		}
+		return (int) value;
+	}
+
+	private static long position(final int segment, final int offset) {
+		return (long) segment << 32 | offset;
+	}
+
+	/**
+	 * Passes the latest version of each stored response as
+	 * {@link ExportResponsesListEntryType} to the consumer.
+	 *
+	 * @param consumer
+	 *            the {@link Consumer} of the
+	 *            {@link ExportResponsesListEntryType}s.
+	 */
+	public void forEachEntry(
+			final Consumer<ExportResponsesListEntryType> consumer) {
+		this.forEach(record -> consumer.accept(record.toEntry()));
+	}
+
+	/**
+	 * Get the {@link SnapshotAppender} to store new and changed responses.
+	 * Waits until a concurrently open appender or compaction is finished. The
+	 * appender needs to be closed.
+	 *
+	 * @return the {@link SnapshotAppender}.
+	 * @throws IOException
+	 */
+	public SnapshotAppender appender() throws IOException {
+		this.acquireWriter();
+		return new SnapshotAppender(this, (byte) 0);
+	}
+
+	/**
+	 * Rewrites the latest version of each response into new segments and
+	 * removes the old segments, including those of other layouts.
+	 *
+	 * @throws IOException
+	 */
+	public void compact() throws IOException {
+		this.acquireWriter();
+		final SnapshotAppender appender = new SnapshotAppender(this,
+				SegmentHeader.FLAG_COMPACTED);
+		try {
+			final IOException[] failure = new IOException[1];
+			this.forEach(record -> {
+				if (Objects.isNull(failure[0])) {
+					try {
+						appender.appendRaw(record.raw(), record.getId());
+					} catch (final IOException e) {
+						failure[0] = e;
+					}
+				}
+			});
+			if (Objects.nonNull(failure[0])) {
+				throw failure[0];
+			}
+		} catch (final IOException | RuntimeException e) {
+			appender.abort();
+			throw e;
+		}
+		appender.close();
+	}
+
+	/**
+	 * Removes all segments.
+	 *
+	 * @throws IOException
+	 */
+	public void clear() throws IOException {
+		this.acquireWriter();
+		this.publish(Collections.emptyList(), true);
+	}
+
+	private void acquireWriter() throws IOException {
+		if (this.closed) {
+			throw new IllegalStateException("Snapshot is closed.");
+		}
+		try {
+			this.writer.acquire();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(e.getMessage());
+		}
+		if (this.closed) {
+			this.writer.release();
+			throw new IllegalStateException("Snapshot is closed.");
+		}
+	}
+
+	/**
+	 * Make the written segments visible and release the writer permit.
+	 */
+	synchronized void publish(final List<Segment> written,
+			final boolean replace) {
+		try {
+			final List<Segment> old = this.segments;
+			final List<Segment> list = new ArrayList<>();
+			if (!replace) {
+				list.addAll(old);
+			}
+			list.addAll(written);
+			this.segments = Collections.unmodifiableList(list);
+			if (replace) {
+				for (final Segment segment : old) {
+					try {
+						Files.deleteIfExists(segment.file);
+					} catch (final IOException e) {
+						this.logger.warn("Failed to delete segment {}: {}",
+								segment.file, e.getMessage());
+					}
+				}
+			}
+		} finally {
+			this.writer.release();
+		}
+	}
+
+	Path newTemporaryFile() throws IOException {
+		return Files.createTempFile(this.directory, "segment",
+				TEMPORARY_SUFFIX);
+	}
+
+	long nextSequence() {
+		return this.sequence.incrementAndGet();
+	}
+
+	Path segmentFile(final long number) {
+		return this.directory
+				.resolve(String.format("%016d%s", number, SEGMENT_SUFFIX));
+	}
+
+	/**
+	 * Waits for the open appender or compaction and the running readers, then
+	 * drops and unmaps the segments. New appenders and readers fail.
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+		}
+		this.writer.acquireUninterruptibly();
+		final Lock lock = this.mapping.writeLock();
+		lock.lock();
+		try {
+			final List<Segment> old = this.segments;
+			this.segments = Collections.emptyList();
+			old.forEach(Segment::unmap);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package com.qpark.survey.lime.store;
+
+import java.util.Arrays;
+
+/**
+ * A growable column of the {@link ColumnarResponseStore} with a null bitmap.
+ * Each row starts as <code>null</code>.
+ *
+ * @author bhausen
+ */
+abstract class Column {
+	/** The null bitmap, a set bit marks a <code>null</code> row. */
+	private long[] nulls = new long[1];
+	/** The capacity in rows. */
+	protected int capacity;
+
+	/**
+	 * @return the {@link ColumnType}.
+	 */
+	abstract ColumnType getType();
+
+	/**
+	 * Grow the value storage to the capacity.
+	 */
+	abstract void grow(int newCapacity);
+
+	/**
+	 * Store the value. Returns <code>false</code> if the value can not be
+	 * stored in this column type and the row stays <code>null</code>.
+	 */
+	abstract boolean setValue(int row, Object value);
+
+	/**
+	 * @return the value of the row as object.
+	 */
+	abstract Object getValue(int row);
+
+	/**
+	 * @return the estimated number of bytes used.
+	 */
+	abstract long getEstimatedSize();
+
+	/**
+	 * Add a <code>null</code> row.
+	 */
+	void addRow(final int row) {
+		if (row >= this.capacity) {
+			final int newCapacity = Math.max(16, this.capacity * 2);
+			this.grow(newCapacity);
+			this.capacity = newCapacity;
+		}
+		final int word = row >>> 6;
+		if (word >= this.nulls.length) {
+			this.nulls = Arrays.copyOf(this.nulls,
+					Math.max(word + 1, this.nulls.length * 2));
+		}
+		this.nulls[word] |= 1L << row;
+	}
+
+	/**
+	 * Set the value of the row.
+	 */
+	void set(final int row, final Object value) {
+		if (value != null && this.setValue(row, value)) {
+			this.nulls[row >>> 6] &= ~(1L << row);
+		}
+	}
+
+	boolean isNull(final int row) {
+		return (this.nulls[row >>> 6] & 1L << row) != 0;
+	}
+
+	Object get(final int row) {
+		return this.isNull(row) ? null : this.getValue(row);
+	}
+
+	long getNullBitmapSize() {
+		return 16 + this.nulls.length * 8L;
+	}
+
+	/** Integer and date values. */
+	static class LongColumn extends Column {
+		private final boolean date;
+		private long[] values = new long[0];
+
+		LongColumn(final boolean date) {
+			this.date = date;
+		}
+
+		@Override
+		ColumnType getType() {
+			return this.date ? ColumnType.DATE : ColumnType.LONG;
+		}
+
+		@Override
+		void grow(final int newCapacity) {
+			this.values = Arrays.copyOf(this.values, newCapacity);
+		}
+
+		@Override
+		boolean setValue(final int row, final Object value) {
+			final long parsed;
+			if (value instanceof Number && !this.date) {
+				parsed = ((Number) value).longValue();
+			} else {
+				final String s = value.toString();
+				parsed = this.date ? Parsers.parseDate(s)
+						: Parsers.parseLong(s);
+				if (parsed == Parsers.INVALID) {
+					return false;
+				}
+			}
+			this.values[row] = parsed;
+			return true;
+		}
+
+		long getLong(final int row) {
+			return this.values[row];
+		}
+
+		@Override
+		Object getValue(final int row) {
+			return this.values[row];
+		}
+
+		@Override
+		long getEstimatedSize() {
+			return 16 + this.values.length * 8L + this.getNullBitmapSize();
+		}
+	}
+
+	/** Decimal values. */
+	static class DoubleColumn extends Column {
+		private double[] values = new double[0];
+
+		@Override
+		ColumnType getType() {
+			return ColumnType.DOUBLE;
+		}
+
+		@Override
+		void grow(final int newCapacity) {
+			this.values = Arrays.copyOf(this.values, newCapacity);
+		}
+
+		@Override
+		boolean setValue(final int row, final Object value) {
+			if (value instanceof Number) {
+				this.values[row] = ((Number) value).doubleValue();
+				return true;
+			}
+			final double parsed = Parsers.parseDouble(value.toString());
+			if (Double.isNaN(parsed)) {
+				return false;
+			}
+			this.values[row] = parsed;
+			return true;
+		}
+
+		double getDouble(final int row) {
+			return this.values[row];
+		}
+
+		@Override
+		Object getValue(final int row) {
+			return this.values[row];
+		}
+
+		@Override
+		long getEstimatedSize() {
+			return 16 + this.values.length * 8L + this.getNullBitmapSize();
+		}
+	}
+
+	/** Answer codes encoded into a dictionary. */
+	static class DictionaryColumn extends Column {
+		private final StringDictionary dictionary = new StringDictionary();
+		private int[] codes = new int[0];
+
+		@Override
+		ColumnType getType() {
+			return ColumnType.DICTIONARY;
+		}
+
+		@Override
+		void grow(final int newCapacity) {
+			this.codes = Arrays.copyOf(this.codes, newCapacity);
+		}
+
+		@Override
+		boolean setValue(final int row, final Object value) {
+			final String s = value.toString();
+			if (s.isEmpty()) {
+				return false;
+			}
+			this.codes[row] = this.dictionary.encode(s);
+			return true;
+		}
+
+		int getCode(final int row) {
+			return this.codes[row];
+		}
+
+		StringDictionary getDictionary() {
+			return this.dictionary;
+		}
+
+		@Override
+		Object getValue(final int row) {
+			return this.dictionary.decode(this.codes[row]);
+		}
+
+		@Override
+		long getEstimatedSize() {
+			return 16 + this.codes.length * 4L + this.getNullBitmapSize()
+					+ this.dictionary.getEstimatedSize();
+		}
+	}
+
+	/** Free text. */
+	static class TextColumn extends Column {
+		private String[] values = new String[0];
+
+		@Override
+		ColumnType getType() {
+			return ColumnType.TEXT;
+		}
+
+		@Override
+		void grow(final int newCapacity) {
+			this.values = Arrays.copyOf(this.values, newCapacity);
+		}
+
+		@Override
+		boolean setValue(final int row, final Object value) {
+			final String s = value.toString();
+			if (s.isEmpty()) {
+				return false;
+			}
+			this.values[row] = s;
+			return true;
+		}
+
+		@Override
+		Object getValue(final int row) {
+			return this.values[row];
+		}
+
+		@Override
+		long getEstimatedSize() {
+			long value = 16 + this.values.length * 4L
+					+ this.getNullBitmapSize();
+			for (final String s : this.values) {
+				if (s != null) {
+					value += 40 + s.length() * 2L;
+				}
+			}
+			return value;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.qpark.survey.lime.store;
+
+import java.util.Objects;
+
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.index.SurveyColumnIndex.ColumnPart;
+import com.qpark.survey.lime.model.v25.ListQuestionsEntryType;
+
+/**
+ * The storage type of a column of the {@link ColumnarResponseStore}.
+ *
+ * @author bhausen
+ */
+public enum ColumnType {
+	/** Integer values stored in a <code>long[]</code>. */
+	LONG,
+	/** Decimal values stored in a <code>double[]</code>. */
+	DOUBLE,
+	/** Dates stored as epoch milliseconds (UTC) in a <code>long[]</code>. */
+	DATE,
+	/** Answer codes stored as <code>int[]</code> into a dictionary. */
+	DICTIONARY,
+	/** Free text stored as {@link String}s. */
+	TEXT;
+
+	/** Question types stored as decimal values. */
+	private static final String DOUBLE_TYPES = "NK:";
+	/** Question types stored as free text. */
+	private static final String TEXT_TYPES = "STUQ;*|X";
+
+	/**
+	 * Get the {@link ColumnType} of the column out of the lime survey question
+	 * type and the {@link ColumnPart} of the column. Comments and <i>other</i>
+	 * texts are free text, whatever the subquestion codes end with.
+	 *
+	 * @param index
+	 *            the {@link SurveyColumnIndex}.
+	 * @param slot
+	 *            the slot of the column.
+	 * @return the {@link ColumnType}.
+	 */
+	public static ColumnType of(final SurveyColumnIndex index,
+			final int slot) {
+		switch (slot) {
+		case SurveyColumnIndex.SLOT_ID:
+		case SurveyColumnIndex.SLOT_LASTPAGE:
+			return LONG;
+		case SurveyColumnIndex.SLOT_SUBMITDATE:
+		case SurveyColumnIndex.SLOT_STARTDATE:
+		case SurveyColumnIndex.SLOT_DATESTAMP:
+			return DATE;
+		case SurveyColumnIndex.SLOT_STARTLANGUAGE:
+			return DICTIONARY;
+		default:
+			break;
+		}
+		final ListQuestionsEntryType question = index.question(slot);
+		final String type = Objects.isNull(question)
+				|| Objects.isNull(question.getType()) ? ""
+						: question.getType();
+		final ColumnPart part = index.part(slot);
+		if (Objects.isNull(question) || part == ColumnPart.COMMENT
+				|| part == ColumnPart.OTHER) {
+			return TEXT;
+		} else if (part == ColumnPart.FILE_COUNT) {
+			return LONG;
+		} else if ("D".equals(type)) {
+			return DATE;
+		} else if (type.length() == 1 && DOUBLE_TYPES.contains(type)) {
+			return DOUBLE;
+		} else if (type.length() == 1 && TEXT_TYPES.contains(type)) {
+			return TEXT;
+		}
+		return DICTIONARY;
+	}
+}
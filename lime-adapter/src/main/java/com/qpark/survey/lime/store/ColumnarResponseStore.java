@@ -0,0 +1,271 @@
+package com.qpark.survey.lime.store;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.qpark.survey.lime.index.IndexedResponse;
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+import com.qpark.survey.lime.store.Column.DictionaryColumn;
+import com.qpark.survey.lime.store.Column.DoubleColumn;
+import com.qpark.survey.lime.store.Column.LongColumn;
+import com.qpark.survey.lime.store.Column.TextColumn;
+
+/**
+ * Column oriented in-memory store of the responses of one survey. Each slot
+ * of the {@link SurveyColumnIndex} is one column: numbers and dates are
+ * stored in primitive arrays, answer codes dictionary encoded as
+ * <code>int</code>s and free text as {@link String}s, each with a null bitmap.
+ * Values which do not fit the column type are stored as <code>null</code>.
+ * <p>
+ * The store has a single writer. Reading while appending is not thread safe.
+ *
+ * @author bhausen
+ */
+public class ColumnarResponseStore {
+	/** The {@link SurveyColumnIndex}. */
+	private final SurveyColumnIndex index;
+	/** The columns by slot. */
+	private final Column[] columns;
+	/** The number of rows. */
+	private int rowCount;
+
+	/**
+	 * @param index
+	 *            the {@link SurveyColumnIndex} of the survey.
+	 */
+	public ColumnarResponseStore(final SurveyColumnIndex index) {
+		this.index = Objects.requireNonNull(index);
+		this.columns = new Column[index.size()];
+		for (int slot = 0; slot < this.columns.length; slot++) {
+			this.columns[slot] = createColumn(index, slot);
+		}
+	}
+
+	private static Column createColumn(final SurveyColumnIndex index,
+			final int slot) {
+		switch (ColumnType.of(index, slot)) {
+		case LONG:
+			return new LongColumn(false);
+		case DATE:
+			return new LongColumn(true);
+		case DOUBLE:
+			return new DoubleColumn();
+		case DICTIONARY:
+			return new DictionaryColumn();
+		default:
+			return new TextColumn();
+		}
+	}
+
+	/**
+	 * Append the response.
+	 *
+	 * @param entry
+	 *            the {@link ExportResponsesListEntryType}.
+	 * @return the row of the response.
+	 */
+	public int append(final ExportResponsesListEntryType entry) {
+		final int row = this.addRow();
+		for (final PropertyType answer : entry.getAnswers()) {
+			final int slot = this.index.slot(answer.getKey());
+			if (slot >= 0) {
+				this.columns[slot].set(row, answer.getValue());
+			}
+		}
+		if (this.columns[SurveyColumnIndex.SLOT_ID].isNull(row)) {
+			this.columns[SurveyColumnIndex.SLOT_ID].set(row, entry.getId());
+		}
+		return row;
+	}
+
+	/**
+	 * Append the response.
+	 *
+	 * @param response
+	 *            the {@link IndexedResponse} of the same
+	 *            {@link SurveyColumnIndex}.
+	 * @return the row of the response.
+	 */
+	public int append(final IndexedResponse response) {
+		if (response.getIndex() != this.index) {
+			throw new IllegalArgumentException(
+					"Response of a different column index.");
+		}
+		final int row = this.addRow();
+		for (int slot = 0; slot < this.columns.length; slot++) {
+			this.columns[slot].set(row, response.get(slot));
+		}
+		return row;
+	}
+
+	/**
+	 * @return a {@link Consumer} appending the responses of the streaming
+	 *         export to this store.
+	 */
+	public Consumer<ExportResponsesListEntryType> appender() {
+		return this::append;
+	}
+
+	private int addRow() {
+		final int row = this.rowCount;
+		for (final Column column : this.columns) {
+			column.addRow(row);
+		}
+		this.rowCount++;
+		return row;
+	}
+
+	/**
+	 * @return the {@link SurveyColumnIndex}.
+	 */
+	public SurveyColumnIndex getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * @return the number of rows.
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * @param slot
+	 *            the slot of the column.
+	 * @return the {@link ColumnType} of the column.
+	 */
+	public ColumnType getColumnType(final int slot) {
+		return this.columns[slot].getType();
+	}
+
+	/**
+	 * @param slot
+	 *            the slot of the column.
+	 * @param row
+	 *            the row.
+	 * @return <code>true</code> if the cell is empty.
+	 */
+	public boolean isNull(final int slot, final int row) {
+		this.checkRow(row);
+		return this.columns[slot].isNull(row);
+	}
+
+	/**
+	 * @param slot
+	 *            the slot of a {@link ColumnType#LONG} or
+	 *            {@link ColumnType#DATE} column.
+	 * @param row
+	 *            the row.
+	 * @return the value, <code>0</code> if the cell is empty.
+	 */
+	public long getLong(final int slot, final int row) {
+		this.checkRow(row);
+		return this.column(slot, LongColumn.class).getLong(row);
+	}
+
+	/**
+	 * @param slot
+	 *            the slot of a {@link ColumnType#DOUBLE} column.
+	 * @param row
+	 *            the row.
+	 * @return the value, <code>0</code> if the cell is empty.
+	 */
+	public double getDouble(final int slot, final int row) {
+		this.checkRow(row);
+		return this.column(slot, DoubleColumn.class).getDouble(row);
+	}
+
+	/**
+	 * @param slot
+	 *            the slot of a {@link ColumnType#DICTIONARY} column.
+	 * @param row
+	 *            the row.
+	 * @return the dictionary code, <code>-1</code> if the cell is empty.
+	 */
+	public int getCode(final int slot, final int row) {
+		this.checkRow(row);
+		final DictionaryColumn column = this.column(slot,
+				DictionaryColumn.class);
+		return column.isNull(row) ? -1 : column.getCode(row);
+	}
+
+	/**
+	 * @param slot
+	 *            the slot of a {@link ColumnType#DICTIONARY} column.
+	 * @return the {@link StringDictionary} of the column.
+	 */
+	public StringDictionary getDictionary(final int slot) {
+		return this.column(slot, DictionaryColumn.class).getDictionary();
+	}
+
+	/**
+	 * @param slot
+	 *            the slot of the column.
+	 * @param row
+	 *            the row.
+	 * @return the value as boxed object (Long, Double or String) or
+	 *         <code>null</code>.
+	 */
+	public Object get(final int slot, final int row) {
+		this.checkRow(row);
+		return this.columns[slot].get(row);
+	}
+
+	/**
+	 * @param slot
+	 *            the slot of the column.
+	 * @param row
+	 *            the row.
+	 * @return the value as {@link String} or <code>null</code>.
+	 */
+	public String getString(final int slot, final int row) {
+		final Object value = this.get(slot, row);
+		return Objects.isNull(value) ? null : value.toString();
+	}
+
+	/**
+	 * @param slots
+	 *            the slots to read.
+	 * @param row
+	 *            the row.
+	 * @param target
+	 *            the list to add the values of the slots to.
+	 */
+	public void getRow(final int[] slots, final int row,
+			final List<Object> target) {
+		for (final int slot : slots) {
+			target.add(this.get(slot, row));
+		}
+	}
+
+	/**
+	 * @return the estimated number of heap bytes used by the columns.
+	 */
+	public long getEstimatedSize() {
+		long value = 16 + this.columns.length * 4L;
+		for (final Column column : this.columns) {
+			value += column.getEstimatedSize();
+		}
+		return value;
+	}
+
+	private void checkRow(final int row) {
+		if (row < 0 || row >= this.rowCount) {
+			throw new IndexOutOfBoundsException(
+					String.format("Row %s of %s.", row, this.rowCount));
+		}
+	}
+
+	private <C extends Column> C column(final int slot, final Class<C> type) {
+		final Column column = this.columns[slot];
+		if (!type.isInstance(column)) {
+			throw new IllegalArgumentException(String.format(
+					"Column %s is of type %s.", this.index.column(slot),
+					column.getType()));
+		}
+		return type.cast(column);
+	}
+}
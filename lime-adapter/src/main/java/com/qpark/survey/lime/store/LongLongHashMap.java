@@ -0,0 +1,248 @@
+package com.qpark.survey.lime.store;
+
+import java.util.Arrays;
+
+/**
+ * Map of primitive <code>long</code> keys to <code>long</code> values with
+ * open addressing and linear probing. Keys and values are kept in one
+ * <code>long[]</code> of alternating key and value, 32 to 64 bytes per entry
+ * at a load of at most one half, instead of about 80 bytes of a
+ * {@link java.util.HashMap} of boxed {@link Long}s, and without an object per
+ * entry for the garbage collector.
+ * <p>
+ * The key 0 marks a free slot and is kept apart. The map is not thread safe,
+ * concurrent reads without writes are safe.
+ *
+ * @author bhausen
+ */
+public class LongLongHashMap {
+	/** Receives the entries of the map. */
+	@FunctionalInterface
+	public interface EntryConsumer {
+		/**
+		 * @param key
+		 *            the key.
+		 * @param value
+		 *            the value.
+		 */
+		void accept(long key, long value);
+	}
+
+	/** The maximum number of entries with a key other than 0. */
+	public static final int MAX_SIZE = 1 << 28;
+	/** The maximum share of used slots before the table grows. */
+	private static final double LOAD_FACTOR = 0.5;
+	/** The alternating keys and values. */
+	private long[] table;
+	/** The mask of a slot index. */
+	private int mask;
+	/** The number of entries with a key other than 0. */
+	private int size;
+	/** The number of entries at which the table grows. */
+	private int threshold;
+	/** <code>true</code> if the key 0 is contained. */
+	private boolean hasZeroKey;
+	/** The value of the key 0. */
+	private long zeroValue;
+
+	/**
+	 * An empty map.
+	 */
+	public LongLongHashMap() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize
+	 *            the number of entries the map holds without growing, at most
+	 *            {@link #MAX_SIZE}.
+	 */
+	public LongLongHashMap(final int expectedSize) {
+		if (expectedSize > MAX_SIZE) {
+			throw new IllegalStateException(
+					String.format("Size %s not supported.", expectedSize));
+		}
+		final long slots = Math.max(4,
+				Long.highestOneBit((long) (Math.max(1, expectedSize)
+						/ LOAD_FACTOR) * 2 - 1));
+		this.allocate((int) slots);
+	}
+
+	private LongLongHashMap(final LongLongHashMap other) {
+		this.table = other.table.clone();
+		this.mask = other.mask;
+		this.size = other.size;
+		this.threshold = other.threshold;
+		this.hasZeroKey = other.hasZeroKey;
+		this.zeroValue = other.zeroValue;
+	}
+
+	private void allocate(final int slots) {
+		this.table = new long[slots * 2];
+		this.mask = slots - 1;
+		this.threshold = (int) (slots * LOAD_FACTOR);
+	}
+
+	/** Spreads the key bits, multiplying with the golden ratio. */
+	private int slot(final long key) {
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ h >>> 32) & this.mask;
+	}
+
+	/**
+	 * @param key
+	 *            the key.
+	 * @param defaultValue
+	 *            the value if the key is not contained.
+	 * @return the value of the key.
+	 */
+	public long get(final long key, final long defaultValue) {
+		if (key == 0) {
+			return this.hasZeroKey ? this.zeroValue : defaultValue;
+		}
+		int slot = this.slot(key);
+		while (true) {
+			final long k = this.table[slot << 1];
+			if (k == key) {
+				return this.table[(slot << 1) + 1];
+			} else if (k == 0) {
+				return defaultValue;
+			}
+			slot = slot + 1 & this.mask;
+		}
+	}
+
+	/**
+	 * @param key
+	 *            the key.
+	 * @return <code>true</code> if the key is contained.
+	 */
+	public boolean containsKey(final long key) {
+		if (key == 0) {
+			return this.hasZeroKey;
+		}
+		int slot = this.slot(key);
+		while (true) {
+			final long k = this.table[slot << 1];
+			if (k == key) {
+				return true;
+			} else if (k == 0) {
+				return false;
+			}
+			slot = slot + 1 & this.mask;
+		}
+	}
+
+	/**
+	 * @param key
+	 *            the key.
+	 * @param value
+	 *            the value.
+	 * @return <code>true</code> if the key was not contained before.
+	 */
+	public boolean put(final long key, final long value) {
+		if (key == 0) {
+			final boolean added = !this.hasZeroKey;
+			this.hasZeroKey = true;
+			this.zeroValue = value;
+			return added;
+		}
+		int slot = this.slot(key);
+		while (true) {
+			final long k = this.table[slot << 1];
+			if (k == key) {
+				this.table[(slot << 1) + 1] = value;
+				return false;
+			} else if (k == 0) {
+				this.table[slot << 1] = key;
+				this.table[(slot << 1) + 1] = value;
+				if (++this.size > this.threshold) {
+					this.grow();
+				}
+				return true;
+			}
+			slot = slot + 1 & this.mask;
+		}
+	}
+
+	private void grow() {
+		final long[] old = this.table;
+		if (this.size > MAX_SIZE) {
+			throw new IllegalStateException("Map is full.");
+		}
+		this.allocate(old.length);
+		for (int i = 0; i < old.length; i += 2) {
+			final long key = old[i];
+			if (key != 0) {
+				int slot = this.slot(key);
+				while (this.table[slot << 1] != 0) {
+					slot = slot + 1 & this.mask;
+				}
+				this.table[slot << 1] = key;
+				this.table[(slot << 1) + 1] = old[i + 1];
+			}
+		}
+	}
+
+	/**
+	 * @param consumer
+	 *            the {@link EntryConsumer} of all entries, in no particular
+	 *            order.
+	 */
+	public void forEach(final EntryConsumer consumer) {
+		if (this.hasZeroKey) {
+			consumer.accept(0, this.zeroValue);
+		}
+		for (int i = 0; i < this.table.length; i += 2) {
+			if (this.table[i] != 0) {
+				consumer.accept(this.table[i], this.table[i + 1]);
+			}
+		}
+	}
+
+	/**
+	 * @return the keys in ascending order.
+	 */
+	public long[] keys() {
+		final long[] value = new long[this.size()];
+		int i = 0;
+		if (this.hasZeroKey) {
+			value[i++] = 0;
+		}
+		for (int j = 0; j < this.table.length; j += 2) {
+			if (this.table[j] != 0) {
+				value[i++] = this.table[j];
+			}
+		}
+		Arrays.sort(value);
+		return value;
+	}
+
+	/**
+	 * @return the number of entries.
+	 */
+	public int size() {
+		return this.size + (this.hasZeroKey ? 1 : 0);
+	}
+
+	/**
+	 * @return <code>true</code> if the map has no entries.
+	 */
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * @return the bytes of the table.
+	 */
+	public long getTableBytes() {
+		return this.table.length * 8L;
+	}
+
+	/**
+	 * @return an independent copy of the map.
+	 */
+	public LongLongHashMap copy() {
+		return new LongLongHashMap(this);
+	}
+}
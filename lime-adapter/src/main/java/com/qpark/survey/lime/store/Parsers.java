@@ -0,0 +1,125 @@
+package com.qpark.survey.lime.store;
+
+/**
+ * Allocation free parsers of the lime survey cell values.
+ *
+ * @author bhausen
+ */
+public final class Parsers {
+	/** Marks a value which could not be parsed. */
+	public static final long INVALID = Long.MIN_VALUE;
+
+	private Parsers() {
+	}
+
+	/**
+	 * @return the parsed long or {@link #INVALID}.
+	 */
+	public static long parseLong(final String s) {
+		final int length = s.length();
+		int i = 0;
+		while (i < length && s.charAt(i) == ' ') {
+			i++;
+		}
+		boolean negative = false;
+		if (i < length && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+			negative = s.charAt(i) == '-';
+			i++;
+		}
+		if (i >= length) {
+			return INVALID;
+		}
+		final int start = i;
+		long value = 0;
+		for (; i < length; i++) {
+			final char c = s.charAt(i);
+			if (c == '.') {
+				if (i == start) {
+					return INVALID;
+				}
+				/* Accept a zero fraction like 12.0000000000 */
+				for (int j = i + 1; j < length; j++) {
+					if (s.charAt(j) != '0') {
+						return INVALID;
+					}
+				}
+				break;
+			} else if (c < '0' || c > '9' || i - start >= 18) {
+				return INVALID;
+			}
+			value = value * 10 + c - '0';
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @return the parsed double or {@link Double#NaN}.
+	 */
+	public static double parseDouble(final String s) {
+		final long asLong = parseLong(s);
+		if (asLong != INVALID) {
+			return asLong;
+		}
+		try {
+			return Double.parseDouble(s.trim());
+		} catch (final NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Parses <i>yyyy-MM-dd[ HH:mm:ss]</i> as UTC.
+	 *
+	 * @return the epoch milliseconds or {@link #INVALID}.
+	 */
+	public static long parseDate(final String s) {
+		final int length = s.length();
+		if (length < 10 || s.charAt(4) != '-' || s.charAt(7) != '-') {
+			return INVALID;
+		}
+		final int year = digits(s, 0, 4);
+		final int month = digits(s, 5, 2);
+		final int day = digits(s, 8, 2);
+		int hour = 0;
+		int minute = 0;
+		int second = 0;
+		if (length >= 19) {
+			hour = digits(s, 11, 2);
+			minute = digits(s, 14, 2);
+			second = digits(s, 17, 2);
+		}
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+				|| hour < 0 || minute < 0 || second < 0) {
+			return INVALID;
+		}
+		return ((daysFromCivil(year, month, day) * 24 + hour) * 60 + minute)
+				* 60_000L + second * 1000L;
+	}
+
+	private static int digits(final String s, final int offset,
+			final int count) {
+		int value = 0;
+		for (int i = offset; i < offset + count; i++) {
+			final char c = s.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + c - '0';
+		}
+		return value;
+	}
+
+	/**
+	 * Days since 1970-01-01 of the proleptic gregorian date.
+	 */
+	private static long daysFromCivil(final int year, final int month,
+			final int day) {
+		final int y = month <= 2 ? year - 1 : year;
+		final long era = (y >= 0 ? y : y - 399) / 400;
+		final long yoe = y - era * 400;
+		final long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day
+				- 1;
+		final long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+		return era * 146097 + doe - 719468;
+	}
+}
@@ -0,0 +1,75 @@
+package com.qpark.survey.lime.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes distinct {@link String}s to dense <code>int</code> codes.
+ *
+ * @author bhausen
+ */
+public class StringDictionary {
+	/** The codes by value. */
+	private final Map<String, Integer> codes = new HashMap<>();
+	/** The values by code. */
+	private final List<String> values = new ArrayList<>();
+
+	/**
+	 * @param value
+	 *            the value.
+	 * @return the code of the value, added if new.
+	 */
+	public int encode(final String value) {
+		Integer code = this.codes.get(value);
+		if (code == null) {
+			code = this.values.size();
+			this.values.add(value);
+			this.codes.put(value, code);
+		}
+		return code.intValue();
+	}
+
+	/**
+	 * @param value
+	 *            the value.
+	 * @return the code of the value or <code>-1</code> if unknown.
+	 */
+	public int lookup(final String value) {
+		final Integer code = this.codes.get(value);
+		return code == null ? -1 : code.intValue();
+	}
+
+	/**
+	 * @param code
+	 *            the code.
+	 * @return the value of the code.
+	 */
+	public String decode(final int code) {
+		return this.values.get(code);
+	}
+
+	/**
+	 * @return the number of distinct values.
+	 */
+	public int size() {
+		return this.values.size();
+	}
+
+	/**
+	 * @return the values in code order.
+	 */
+	public List<String> getValues() {
+		return Collections.unmodifiableList(this.values);
+	}
+
+	long getEstimatedSize() {
+		long value = 64;
+		for (final String s : this.values) {
+			value += 2 * (40 + s.length() * 2L) + 48;
+		}
+		return value;
+	}
+}
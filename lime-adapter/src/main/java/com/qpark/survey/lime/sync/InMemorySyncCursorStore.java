@@ -0,0 +1,40 @@
+package com.qpark.survey.lime.sync;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SyncCursorStore} keeping the {@link SyncCursor}s in memory.
+ *
+ * @author bhausen
+ */
+public class InMemorySyncCursorStore implements SyncCursorStore {
+	/** The {@link SyncCursor}s by survey id. */
+	private final Map<Integer, SyncCursor> cursors = new ConcurrentHashMap<>();
+
+	/**
+	 * @see com.qpark.survey.lime.sync.SyncCursorStore#get(int)
+	 */
+	@Override
+	public Optional<SyncCursor> get(final int surveyId) {
+		return Optional.ofNullable(this.cursors.get(surveyId))
+				.map(SyncCursor::copy);
+	}
+
+	/**
+	 * @see com.qpark.survey.lime.sync.SyncCursorStore#put(com.qpark.survey.lime.sync.SyncCursor)
+	 */
+	@Override
+	public void put(final SyncCursor cursor) {
+		this.cursors.put(cursor.getSurveyId(), cursor.copy());
+	}
+
+	/**
+	 * @see com.qpark.survey.lime.sync.SyncCursorStore#remove(int)
+	 */
+	@Override
+	public void remove(final int surveyId) {
+		this.cursors.remove(surveyId);
+	}
+}
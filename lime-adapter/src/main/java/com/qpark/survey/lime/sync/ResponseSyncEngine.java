@@ -0,0 +1,373 @@
+package com.qpark.survey.lime.sync;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import com.qpark.survey.lime.LimeSurveyException;
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.model.ExportResponsesOptions;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+
+/**
+ * Incremental synchronisation of survey responses. The engine remembers the
+ * highest response id and <i>datestamp</i> seen per survey in a
+ * {@link SyncCursorStore}. The next run only requests responses above the
+ * lowest response id which may still change (not submitted yet) using
+ * response id ranges of {@link #getPageSize()} and passes only new or changed
+ * responses to the consumer. An empty range above the highest known response
+ * id is followed by up to {@link #getMaxEmptyPages()} probes of the
+ * <i>id</i> only, each over four times the ids of the one before, so gaps of
+ * deleted responses are passed while every call stays bounded.
+ * <p>
+ * Changed responses can only be detected, if the survey is
+ * <i>datestamped</i>: the <i>id</i> and <i>datestamp</i> of the responses
+ * below the re-read range are requested in ranges of
+ * {@link #getPageSize()} and the responses changed since the last run are
+ * read again (see {@link #setDetectChanges(boolean)}). A <i>datestamp</i> has
+ * a resolution of one second, so the ids seen with the highest
+ * <i>datestamp</i> are kept in the cursor and a response with the same
+ * <i>datestamp</i> but another id is passed as changed. Without datestamp
+ * every response in the re-read range is passed as changed. The
+ * synchronisation of one survey must not run concurrently.
+ *
+ * @author bhausen
+ */
+public class ResponseSyncEngine {
+	/** The {@link RestClient} to call. */
+	private final RestClient client;
+	/** The {@link SyncCursorStore}. */
+	private final SyncCursorStore store;
+	/** The number of response ids requested per call. */
+	private int pageSize = 500;
+	/**
+	 * The number of growing <i>id</i> probes after an empty page above the
+	 * highest known response id.
+	 */
+	private int maxEmptyPages = 3;
+	/**
+	 * <code>true</code> to read submitted responses changed since the last
+	 * run again.
+	 */
+	private boolean detectChanges = true;
+
+	/**
+	 * @param client
+	 *            the {@link RestClient} to call.
+	 * @param store
+	 *            the {@link SyncCursorStore}.
+	 */
+	public ResponseSyncEngine(final RestClient client,
+			final SyncCursorStore store) {
+		this.client = Objects.requireNonNull(client);
+		this.store = Objects.requireNonNull(store);
+	}
+
+	/**
+	 * Synchronise the responses of the survey.
+	 *
+	 * @param session
+	 *            the {@link LimeSurveySession}.
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @param template
+	 *            the {@link ExportResponsesOptions} used for each page. The
+	 *            response id range is set by the engine.
+	 * @param consumer
+	 *            the {@link Consumer} of new or changed responses.
+	 * @return the {@link SyncResult}.
+	 * @throws IOException
+	 */
+	public SyncResult sync(final LimeSurveySession session, final int surveyId,
+			final ExportResponsesOptions template,
+			final Consumer<ExportResponsesListEntryType> consumer)
+			throws IOException {
+		final SyncCursor previous = this.store.get(surveyId).orElseGet(() -> {
+			final SyncCursor c = new SyncCursor();
+			c.setSurveyId(surveyId);
+			return c;
+		});
+		final PageState state = new PageState(previous);
+		long from = previous.getLastResponseId() + 1;
+		if (previous.getLowestOpenResponseId() > 0) {
+			from = Math.min(from, previous.getLowestOpenResponseId());
+		}
+		int pages = 0;
+		if (this.detectChanges && previous.getLastDatestamp() >= 0
+				&& from > 1) {
+			pages += this.syncChanged(session, surveyId, template, from - 1,
+					state, consumer);
+		}
+		while (from > 0) {
+			final long to = from + this.pageSize - 1;
+			final ExportResponsesOptions options = template.copy();
+			options.setFromResponseId(from);
+			options.setToResponseId(to);
+			state.pageCount = 0;
+			this.export(session, surveyId, options, state, consumer);
+			pages++;
+			if (state.pageCount > 0 || to < previous.getLastResponseId()) {
+				from = to + 1;
+			} else {
+				/*
+				 * An empty range above the known ids: the survey ends here
+				 * or continues after a gap of deleted responses.
+				 */
+				final long[] probe = this.probe(session, surveyId, template,
+						to + 1);
+				pages += probe[1];
+				from = probe[0];
+			}
+		}
+		final SyncCursor cursor = state.toCursor();
+		cursor.setLastSyncTime(System.currentTimeMillis());
+		this.store.put(cursor);
+		return new SyncResult(cursor, state.newResponses,
+				state.changedResponses, pages);
+	}
+
+	/**
+	 * Requests the <i>id</i> only in up to {@link #getMaxEmptyPages()}
+	 * consecutive ranges, the first of two pages, each following one four
+	 * times as large, until a response is found.
+	 *
+	 * @return the lowest response id found or <code>0</code> and the number
+	 *         of <i>export_responses</i> calls.
+	 */
+	private long[] probe(final LimeSurveySession session, final int surveyId,
+			final ExportResponsesOptions template, final long fromResponseId)
+			throws IOException {
+		final long[] value = new long[2];
+		long from = fromResponseId;
+		long span = 2L * this.pageSize;
+		while (value[0] == 0 && value[1] < this.maxEmptyPages) {
+			final ExportResponsesOptions options = template.copy();
+			options.setFromResponseId(from);
+			options.setToResponseId(from + span - 1);
+			options.setFields(Collections.singletonList("id"));
+			final ExportResponsesResponseType envelope = this.client
+					.exportResponses(session, surveyId, options, entry -> {
+						final long id = PageState.toLong(entry.getId());
+						if (id > 0 && (value[0] == 0 || id < value[0])) {
+							value[0] = id;
+						}
+					}).orElse(null);
+			LimeSurveyException.checkExport(envelope);
+			value[1]++;
+			from += span;
+			span *= 4;
+		}
+		return value;
+	}
+
+	/**
+	 * Reads the <i>id</i> and <i>datestamp</i> of the responses up to the
+	 * response id in ranges of {@link #getPageSize()} response ids and reads
+	 * those changed since the last run again.
+	 *
+	 * @return the number of <i>export_responses</i> calls.
+	 */
+	private int syncChanged(final LimeSurveySession session,
+			final int surveyId, final ExportResponsesOptions template,
+			final long toResponseId, final PageState state,
+			final Consumer<ExportResponsesListEntryType> consumer)
+			throws IOException {
+		int pages = 0;
+		for (long from = 1; from <= toResponseId; from += this.pageSize) {
+			final ExportResponsesOptions scan = template.copy();
+			scan.setFromResponseId(from);
+			scan.setToResponseId(
+					Math.min(from + this.pageSize - 1, toResponseId));
+			scan.setFields(Arrays.asList("id", "datestamp"));
+			final long[] changed = new long[2];
+			final ExportResponsesResponseType envelope = this.client
+					.exportResponses(session, surveyId, scan, entry -> {
+						final long id = PageState.toLong(entry.getId());
+						if (state.isChanged(id,
+								PageState.toMillis(entry.getDatestamp()))) {
+							changed[0] = changed[0] == 0 ? id
+									: Math.min(changed[0], id);
+							changed[1] = Math.max(changed[1], id);
+						}
+					}).orElse(null);
+			LimeSurveyException.checkExport(envelope);
+			pages++;
+			if (changed[0] > 0) {
+				final ExportResponsesOptions options = template.copy();
+				options.setFromResponseId(changed[0]);
+				options.setToResponseId(changed[1]);
+				this.export(session, surveyId, options, state, consumer);
+				pages++;
+			}
+		}
+		return pages;
+	}
+
+	private void export(final LimeSurveySession session, final int surveyId,
+			final ExportResponsesOptions options, final PageState state,
+			final Consumer<ExportResponsesListEntryType> consumer)
+			throws IOException {
+		final ExportResponsesResponseType envelope = this.client
+				.exportResponses(session, surveyId, options,
+						entry -> state.accept(entry, consumer))
+				.orElse(null);
+		LimeSurveyException.checkExport(envelope);
+	}
+
+	/**
+	 * @return the number of response ids requested per call.
+	 */
+	public int getPageSize() {
+		return this.pageSize;
+	}
+
+	/**
+	 * @param pageSize
+	 *            the number of response ids requested per call.
+	 */
+	public void setPageSize(final int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size needs to be > 0.");
+		}
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * @return the number of growing <i>id</i> probes after an empty page
+	 *         above the highest known response id. The probes cover 2, 8, 32,
+	 *         ... pages, a gap of up to 42 pages of deleted responses with
+	 *         the default of 3. A run without new responses costs one call
+	 *         per probe.
+	 */
+	public int getMaxEmptyPages() {
+		return this.maxEmptyPages;
+	}
+
+	/**
+	 * @param maxEmptyPages
+	 *            the number of growing <i>id</i> probes after an empty page
+	 *            above the highest known response id.
+	 */
+	public void setMaxEmptyPages(final int maxEmptyPages) {
+		if (maxEmptyPages < 1) {
+			throw new IllegalArgumentException(
+					"Max empty pages needs to be > 0.");
+		}
+		this.maxEmptyPages = maxEmptyPages;
+	}
+
+	/**
+	 * @return <code>true</code> if submitted responses of a
+	 *         <i>datestamped</i> survey changed since the last run are read
+	 *         again.
+	 */
+	public boolean isDetectChanges() {
+		return this.detectChanges;
+	}
+
+	/**
+	 * @param detectChanges
+	 *            <code>true</code> to read submitted responses of a
+	 *            <i>datestamped</i> survey changed since the last run again.
+	 *            It costs one request of the <i>id</i> and <i>datestamp</i>
+	 *            per {@link #getPageSize()} response ids per run.
+	 */
+	public void setDetectChanges(final boolean detectChanges) {
+		this.detectChanges = detectChanges;
+	}
+
+	/**
+	 * Collects the cursor values while the pages are read.
+	 */
+	private static class PageState {
+		private final SyncCursor previous;
+		private long lastResponseId;
+		private long lastDatestamp;
+		/** The ids of the responses with the {@link #lastDatestamp}. */
+		private final Set<Long> lastDatestampIds = new TreeSet<>();
+		private long lowestOpenResponseId;
+		private int pageCount;
+		private int newResponses;
+		private int changedResponses;
+
+		PageState(final SyncCursor previous) {
+			this.previous = previous;
+			this.lastResponseId = previous.getLastResponseId();
+			this.lastDatestamp = previous.getLastDatestamp();
+			for (final long id : previous.getLastDatestampIds()) {
+				this.lastDatestampIds.add(id);
+			}
+		}
+
+		/**
+		 * @return <code>true</code> if the response changed since the last
+		 *         run: it has no <i>datestamp</i>, a later one or the same
+		 *         one without being seen with it.
+		 */
+		boolean isChanged(final long id, final long datestamp) {
+			final long last = this.previous.getLastDatestamp();
+			return datestamp < 0 || datestamp > last || datestamp == last
+					&& Arrays.binarySearch(
+							this.previous.getLastDatestampIds(), id) < 0;
+		}
+
+		void accept(final ExportResponsesListEntryType entry,
+				final Consumer<ExportResponsesListEntryType> consumer) {
+			this.pageCount++;
+			final long id = toLong(entry.getId());
+			final long datestamp = toMillis(entry.getDatestamp());
+			if (id > this.previous.getLastResponseId()) {
+				this.newResponses++;
+				consumer.accept(entry);
+			} else if (this.isChanged(id, datestamp)) {
+				this.changedResponses++;
+				consumer.accept(entry);
+			}
+			if (Objects.isNull(entry.getSubmitdate()) && id > 0
+					&& (this.lowestOpenResponseId == 0
+							|| id < this.lowestOpenResponseId)) {
+				this.lowestOpenResponseId = id;
+			}
+			this.lastResponseId = Math.max(this.lastResponseId, id);
+			if (datestamp > this.lastDatestamp) {
+				this.lastDatestamp = datestamp;
+				this.lastDatestampIds.clear();
+			}
+			if (datestamp == this.lastDatestamp && datestamp >= 0) {
+				this.lastDatestampIds.add(id);
+			}
+		}
+
+		SyncCursor toCursor() {
+			final SyncCursor value = new SyncCursor();
+			value.setSurveyId(this.previous.getSurveyId());
+			value.setLastResponseId(this.lastResponseId);
+			value.setLastDatestamp(this.lastDatestamp);
+			value.setLastDatestampIds(this.lastDatestampIds.stream()
+					.mapToLong(Long::longValue).toArray());
+			value.setLowestOpenResponseId(this.lowestOpenResponseId);
+			return value;
+		}
+
+		private static long toLong(final String id) {
+			try {
+				return Objects.isNull(id) ? 0 : Long.parseLong(id.trim());
+			} catch (final NumberFormatException e) {
+				return 0;
+			}
+		}
+
+		private static long toMillis(final XMLGregorianCalendar date) {
+			return Objects.isNull(date) ? -1
+					: date.toGregorianCalendar().getTimeInMillis();
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.qpark.survey.lime.sync;
+
+import java.util.Objects;
+
+/**
+ * The state of the incremental response synchronisation of one survey.
+ *
+ * @author bhausen
+ */
+public class SyncCursor {
+	private int surveyId;
+	private long lastResponseId;
+	private long lastDatestamp = -1;
+	private long[] lastDatestampIds = new long[0];
+	private long lowestOpenResponseId;
+	private long lastSyncTime;
+
+	/**
+	 * @return a copy of this {@link SyncCursor}.
+	 */
+	public SyncCursor copy() {
+		final SyncCursor value = new SyncCursor();
+		value.setSurveyId(this.surveyId);
+		value.setLastResponseId(this.lastResponseId);
+		value.setLastDatestamp(this.lastDatestamp);
+		value.setLastDatestampIds(this.lastDatestampIds.clone());
+		value.setLowestOpenResponseId(this.lowestOpenResponseId);
+		value.setLastSyncTime(this.lastSyncTime);
+		return value;
+	}
+
+	/**
+	 * @return the surveyId
+	 */
+	public int getSurveyId() {
+		return this.surveyId;
+	}
+
+	/**
+	 * @param surveyId
+	 *            the surveyId to set
+	 */
+	public void setSurveyId(final int surveyId) {
+		this.surveyId = surveyId;
+	}
+
+	/**
+	 * @return the highest response id seen.
+	 */
+	public long getLastResponseId() {
+		return this.lastResponseId;
+	}
+
+	/**
+	 * @param lastResponseId
+	 *            the highest response id seen.
+	 */
+	public void setLastResponseId(final long lastResponseId) {
+		this.lastResponseId = lastResponseId;
+	}
+
+	/**
+	 * @return the highest <i>datestamp</i> seen in epoch milliseconds or
+	 *         <code>-1</code>.
+	 */
+	public long getLastDatestamp() {
+		return this.lastDatestamp;
+	}
+
+	/**
+	 * @param lastDatestamp
+	 *            the highest <i>datestamp</i> seen in epoch milliseconds.
+	 */
+	public void setLastDatestamp(final long lastDatestamp) {
+		this.lastDatestamp = lastDatestamp;
+	}
+
+	/**
+	 * @return the ascending ids of the responses seen with the
+	 *         {@link #getLastDatestamp()}.
+	 */
+	public long[] getLastDatestampIds() {
+		return this.lastDatestampIds;
+	}
+
+	/**
+	 * @param lastDatestampIds
+	 *            the ascending ids of the responses seen with the
+	 *            {@link #getLastDatestamp()}.
+	 */
+	public void setLastDatestampIds(final long[] lastDatestampIds) {
+		this.lastDatestampIds = Objects.isNull(lastDatestampIds) ? new long[0]
+				: lastDatestampIds;
+	}
+
+	/**
+	 * @return the lowest id of a response not yet submitted, which still may
+	 *         change, or <code>0</code>.
+	 */
+	public long getLowestOpenResponseId() {
+		return this.lowestOpenResponseId;
+	}
+
+	/**
+	 * @param lowestOpenResponseId
+	 *            the lowest id of a response not yet submitted.
+	 */
+	public void setLowestOpenResponseId(final long lowestOpenResponseId) {
+		this.lowestOpenResponseId = lowestOpenResponseId;
+	}
+
+	/**
+	 * @return the time of the last synchronisation in epoch milliseconds.
+	 */
+	public long getLastSyncTime() {
+		return this.lastSyncTime;
+	}
+
+	/**
+	 * @param lastSyncTime
+	 *            the time of the last synchronisation in epoch milliseconds.
+	 */
+	public void setLastSyncTime(final long lastSyncTime) {
+		this.lastSyncTime = lastSyncTime;
+	}
+}
@@ -0,0 +1,32 @@
+package com.qpark.survey.lime.sync;
+
+import java.util.Optional;
+
+/**
+ * Stores the {@link SyncCursor}s of the {@link ResponseSyncEngine}.
+ *
+ * @author bhausen
+ */
+public interface SyncCursorStore {
+	/**
+	 * @param surveyId
+	 *            the sid of the survey.
+	 * @return the {@link SyncCursor} of the survey, if already synchronised.
+	 */
+	Optional<SyncCursor> get(int surveyId);
+
+	/**
+	 * @param cursor
+	 *            the {@link SyncCursor} to store.
+	 */
+	void put(SyncCursor cursor);
+
+	/**
+	 * Forget the {@link SyncCursor} of the survey. The next synchronisation
+	 * starts from the first response.
+	 *
+	 * @param surveyId
+	 *            the sid of the survey.
+	 */
+	void remove(int surveyId);
+}
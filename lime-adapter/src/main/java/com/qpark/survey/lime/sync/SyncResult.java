@@ -0,0 +1,59 @@
+package com.qpark.survey.lime.sync;
+
+/**
+ * The outcome of one {@link ResponseSyncEngine#sync} run.
+ *
+ * @author bhausen
+ */
+public class SyncResult {
+	private final SyncCursor cursor;
+	private final int newResponses;
+	private final int changedResponses;
+	private final int pages;
+
+	/**
+	 * @param cursor
+	 *            the updated {@link SyncCursor}.
+	 * @param newResponses
+	 *            the number of responses not seen before.
+	 * @param changedResponses
+	 *            the number of responses changed since the last run.
+	 * @param pages
+	 *            the number of <i>export_responses</i> calls.
+	 */
+	public SyncResult(final SyncCursor cursor, final int newResponses,
+			final int changedResponses, final int pages) {
+		this.cursor = cursor;
+		this.newResponses = newResponses;
+		this.changedResponses = changedResponses;
+		this.pages = pages;
+	}
+
+	/**
+	 * @return the updated {@link SyncCursor}.
+	 */
+	public SyncCursor getCursor() {
+		return this.cursor;
+	}
+
+	/**
+	 * @return the number of responses not seen before.
+	 */
+	public int getNewResponses() {
+		return this.newResponses;
+	}
+
+	/**
+	 * @return the number of responses changed since the last run.
+	 */
+	public int getChangedResponses() {
+		return this.changedResponses;
+	}
+
+	/**
+	 * @return the number of <i>export_responses</i> calls.
+	 */
+	public int getPages() {
+		return this.pages;
+	}
+}
@@ -0,0 +1,18 @@
+package com.qpark.survey.lime.transport;
+
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * A {@link ClientHttpResponse} a reader can stop early without reading the
+ * rest of the body.
+ *
+ * @author bhausen
+ */
+public interface AbortableClientHttpResponse extends ClientHttpResponse {
+	/**
+	 * Abort the HTTP exchange. The connection is closed instead of reading the
+	 * remaining body to reuse it, a read blocked on the body fails. This may
+	 * be called from any thread.
+	 */
+	void abort();
+}
@@ -0,0 +1,173 @@
+package com.qpark.survey.lime.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * {@link HttpComponentsClientHttpRequestFactory} creating
+ * {@link AbortableClientHttpResponse}s. Closing the response of the Spring
+ * factory consumes the rest of the body to keep the connection alive, a
+ * compressed body is even decompressed up to its end. Aborting the response
+ * aborts the {@link HttpUriRequest}, the connection is closed and not
+ * returned to the pool.
+ *
+ * @author bhausen
+ */
+public class AbortableRequestFactory
+		extends HttpComponentsClientHttpRequestFactory {
+	/** The {@link HttpUriRequest} of the current {@link #createRequest}. */
+	private final ThreadLocal<HttpUriRequest> created = new ThreadLocal<>();
+
+	/**
+	 * @param httpClient
+	 *            the {@link HttpClient}.
+	 */
+	public AbortableRequestFactory(final HttpClient httpClient) {
+		super(httpClient);
+	}
+
+	/**
+	 * @see org.springframework.http.client.HttpComponentsClientHttpRequestFactory#createRequest(java.net.URI,
+	 *      org.springframework.http.HttpMethod)
+	 */
+	@Override
+	public ClientHttpRequest createRequest(final URI uri,
+			final HttpMethod httpMethod) throws IOException {
+		try {
+			final ClientHttpRequest request = super.createRequest(uri,
+					httpMethod);
+			return new AbortableRequest(request, this.created.get());
+		} finally {
+			this.created.remove();
+		}
+	}
+
+	/**
+	 * @see org.springframework.http.client.HttpComponentsClientHttpRequestFactory#createHttpUriRequest(org.springframework.http.HttpMethod,
+	 *      java.net.URI)
+	 */
+	@Override
+	protected HttpUriRequest createHttpUriRequest(final HttpMethod httpMethod,
+			final URI uri) {
+		final HttpUriRequest value = super.createHttpUriRequest(httpMethod,
+				uri);
+		this.created.set(value);
+		return value;
+	}
+
+	/** The request returning an {@link AbortableResponse}. */
+	private static class AbortableRequest
+			implements ClientHttpRequest, StreamingHttpOutputMessage {
+		private final ClientHttpRequest request;
+		private final HttpUriRequest httpRequest;
+
+		AbortableRequest(final ClientHttpRequest request,
+				final HttpUriRequest httpRequest) {
+			this.request = request;
+			this.httpRequest = httpRequest;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return this.request.getMethod();
+		}
+
+		@Override
+		public URI getURI() {
+			return this.request.getURI();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.request.getHeaders();
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			return this.request.getBody();
+		}
+
+		@Override
+		public void setBody(final Body body) {
+			if (this.request instanceof StreamingHttpOutputMessage) {
+				((StreamingHttpOutputMessage) this.request).setBody(body);
+			} else {
+				try {
+					body.writeTo(this.request.getBody());
+				} catch (final IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+
+		@Override
+		public ClientHttpResponse execute() throws IOException {
+			return new AbortableResponse(this.request.execute(),
+					this.httpRequest);
+		}
+	}
+
+	/** The response aborting the {@link HttpUriRequest}. */
+	private static class AbortableResponse
+			implements AbortableClientHttpResponse {
+		private final ClientHttpResponse response;
+		private final HttpUriRequest httpRequest;
+		private volatile boolean aborted;
+
+		AbortableResponse(final ClientHttpResponse response,
+				final HttpUriRequest httpRequest) {
+			this.response = response;
+			this.httpRequest = httpRequest;
+		}
+
+		@Override
+		public void abort() {
+			this.aborted = true;
+			this.httpRequest.abort();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return this.response.getBody();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.response.getHeaders();
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return this.response.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return this.response.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return this.response.getStatusText();
+		}
+
+		@Override
+		public void close() {
+			if (!this.aborted) {
+				this.response.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.qpark.survey.lime.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Objects;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+
+/**
+ * The non-blocking HTTP transport of the lime adapter: an Apache
+ * HttpAsyncClient (NIO) with a bounded connection pool, timeouts and keep
+ * alive configured by the {@link HttpTransportProperties}. A few I/O dispatch
+ * threads serve all connections.
+ *
+ * @author bhausen
+ */
+public class AsyncHttpTransport implements Closeable {
+	/** The {@link HttpTransportProperties}. */
+	private final HttpTransportProperties properties;
+	/** The pool. */
+	private final PoolingNHttpClientConnectionManager connectionManager;
+	/** The {@link CloseableHttpAsyncClient}. */
+	private final CloseableHttpAsyncClient httpClient;
+
+	/**
+	 * @param properties
+	 *            the {@link HttpTransportProperties}.
+	 * @throws IOReactorException
+	 */
+	public AsyncHttpTransport(final HttpTransportProperties properties)
+			throws IOReactorException {
+		this.properties = Objects.requireNonNull(properties);
+		this.connectionManager = new PoolingNHttpClientConnectionManager(
+				new DefaultConnectingIOReactor(IOReactorConfig.custom()
+						.setConnectTimeout(properties.getConnectTimeout())
+						.setSoTimeout(properties.getReadTimeout())
+						.setSoKeepAlive(true).build()));
+		this.connectionManager.setMaxTotal(properties.getMaxTotal());
+		this.connectionManager
+				.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+		this.httpClient = HttpAsyncClientBuilder.create()
+				.setConnectionManager(this.connectionManager)
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectTimeout(properties.getConnectTimeout())
+						.setSocketTimeout(properties.getReadTimeout())
+						.setConnectionRequestTimeout(
+								properties.getConnectionRequestTimeout())
+						.build())
+				.setKeepAliveStrategy((response, context) -> {
+					final long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+							.getKeepAliveDuration(response, context);
+					return keepAlive > 0 ? keepAlive
+							: properties.getKeepAlive();
+				}).build();
+	}
+
+	/**
+	 * @return a new {@link AsyncClientHttpRequestFactory} using the pool of
+	 *         this transport.
+	 */
+	public AsyncClientHttpRequestFactory createRequestFactory() {
+		return new HttpComponentsAsyncClientHttpRequestFactory(
+				this.httpClient);
+	}
+
+	/**
+	 * @return the {@link HttpTransportProperties}.
+	 */
+	public HttpTransportProperties getProperties() {
+		return this.properties;
+	}
+
+	/**
+	 * @return the {@link PoolStats} over all routes.
+	 */
+	public PoolStats getTotalStats() {
+		return this.connectionManager.getTotalStats();
+	}
+
+	/**
+	 * Closes the pool, all its connections and the I/O reactor.
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		this.httpClient.close();
+	}
+}
@@ -0,0 +1,219 @@
+package com.qpark.survey.lime.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipCompressingEntity;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * The HTTP transport of the lime adapter: an Apache HttpClient with a bounded
+ * connection pool, connect and read timeouts, keep alive, idle connection
+ * eviction and optional gzip compression. The default SSL context is only
+ * initialised when the first <i>https</i> connection is opened, so plain
+ * <i>http</i> end points do not pay for it at start up.
+ *
+ * @author bhausen
+ */
+public class HttpTransport implements Closeable {
+	/** The {@link HttpTransportProperties}. */
+	private final HttpTransportProperties properties;
+	/** The pool. */
+	private final PoolingHttpClientConnectionManager connectionManager;
+	/** The {@link CloseableHttpClient}. */
+	private final CloseableHttpClient httpClient;
+
+	/**
+	 * @param properties
+	 *            the {@link HttpTransportProperties}.
+	 */
+	public HttpTransport(final HttpTransportProperties properties) {
+		this.properties = Objects.requireNonNull(properties);
+		this.connectionManager = new PoolingHttpClientConnectionManager(
+				RegistryBuilder.<ConnectionSocketFactory> create()
+						.register("http",
+								PlainConnectionSocketFactory.getSocketFactory())
+						.register("https", new LazySslSocketFactory()).build());
+		this.connectionManager.setMaxTotal(properties.getMaxTotal());
+		this.connectionManager
+				.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+		this.connectionManager.setValidateAfterInactivity(
+				properties.getValidateAfterInactivity());
+		final RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout(properties.getConnectTimeout())
+				.setSocketTimeout(properties.getReadTimeout())
+				.setConnectionRequestTimeout(
+						properties.getConnectionRequestTimeout())
+				.build();
+		final HttpClientBuilder builder = HttpClientBuilder.create()
+				.setConnectionManager(this.connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.setKeepAliveStrategy((response, context) -> {
+					final long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+							.getKeepAliveDuration(response, context);
+					return keepAlive > 0 ? keepAlive
+							: properties.getKeepAlive();
+				}).evictExpiredConnections()
+				.evictIdleConnections(properties.getIdleTimeout(),
+						TimeUnit.MILLISECONDS);
+		if (!properties.isResponseCompression()) {
+			builder.disableContentCompression();
+		}
+		if (properties.isRequestCompression()) {
+			final HttpRequestInterceptor gzip = (request, context) -> {
+				if (request instanceof HttpEntityEnclosingRequest) {
+					final HttpEntityEnclosingRequest r = (HttpEntityEnclosingRequest) request;
+					if (Objects.nonNull(r.getEntity())) {
+						r.setEntity(new GzipCompressingEntity(r.getEntity()));
+						r.removeHeaders("Content-Length");
+					}
+				}
+			};
+			/*
+			 * First, so that RequestContent sets Content-Encoding and the
+			 * chunked Transfer-Encoding of the compressed entity.
+			 */
+			builder.addInterceptorFirst(gzip);
+		}
+		this.httpClient = builder.build();
+	}
+
+	/**
+	 * @return a new {@link ClientHttpRequestFactory} using the pool of this
+	 *         transport. With
+	 *         {@link HttpTransportProperties#isStreamRequestBody()} the
+	 *         request bodies are not buffered, they are written while they are
+	 *         sent, with chunked transfer encoding. The responses are
+	 *         {@link AbortableClientHttpResponse}s.
+	 */
+	public ClientHttpRequestFactory createRequestFactory() {
+		final AbortableRequestFactory value = new AbortableRequestFactory(
+				this.httpClient);
+		value.setBufferRequestBody(!this.properties.isStreamRequestBody());
+		return value;
+	}
+
+	/**
+	 * @return a new {@link RestTemplate} using the pool of this transport. It
+	 *         only converts byte arrays, the
+	 *         {@link com.qpark.survey.lime.RestClient} writes and reads the
+	 *         bodies itself, so the default converters are not created.
+	 */
+	public RestTemplate createRestTemplate() {
+		final RestTemplate value = new RestTemplate(Collections
+				.singletonList(new ByteArrayHttpMessageConverter()));
+		value.setRequestFactory(this.createRequestFactory());
+		return value;
+	}
+
+	/**
+	 * @return the {@link HttpTransportProperties}.
+	 */
+	public HttpTransportProperties getProperties() {
+		return this.properties;
+	}
+
+	/**
+	 * @return the {@link PoolStats} over all routes: leased, pending,
+	 *         available connections and the maximum.
+	 */
+	public PoolStats getTotalStats() {
+		return this.connectionManager.getTotalStats();
+	}
+
+	/**
+	 * @param url
+	 *            the end point URL.
+	 * @return the {@link PoolStats} of the route to the end point URL.
+	 */
+	public PoolStats getStats(final String url) {
+		final URI uri = URI.create(url);
+		final boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+		final int port = uri.getPort() > 0 ? uri.getPort()
+				: secure ? 443 : 80;
+		return this.connectionManager.getStats(new HttpRoute(
+				new HttpHost(uri.getHost(), port, uri.getScheme()), null,
+				secure));
+	}
+
+	/**
+	 * Closes the pool and all its connections.
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		this.httpClient.close();
+	}
+
+	/**
+	 * The default {@link SSLConnectionSocketFactory}, created on first use.
+	 */
+	private static class LazySslSocketFactory
+			implements LayeredConnectionSocketFactory {
+		/** The delegate, <code>null</code> before the first use. */
+		private volatile LayeredConnectionSocketFactory delegate;
+
+		private LayeredConnectionSocketFactory getDelegate() {
+			LayeredConnectionSocketFactory value = this.delegate;
+			if (Objects.isNull(value)) {
+				synchronized (this) {
+					value = this.delegate;
+					if (Objects.isNull(value)) {
+						value = SSLConnectionSocketFactory.getSocketFactory();
+						this.delegate = value;
+					}
+				}
+			}
+			return value;
+		}
+
+		@Override
+		public Socket createSocket(final HttpContext context)
+				throws IOException {
+			return this.getDelegate().createSocket(context);
+		}
+
+		@Override
+		public Socket connectSocket(final int connectTimeout,
+				final Socket sock, final HttpHost host,
+				final InetSocketAddress remoteAddress,
+				final InetSocketAddress localAddress, final HttpContext context)
+				throws IOException {
+			return this.getDelegate().connectSocket(connectTimeout, sock, host,
+					remoteAddress, localAddress, context);
+		}
+
+		@Override
+		public Socket createLayeredSocket(final Socket socket,
+				final String target, final int port, final HttpContext context)
+				throws IOException {
+			return this.getDelegate().createLayeredSocket(socket, target,
+					port, context);
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package com.qpark.survey.lime.transport;
+
+/**
+ * The settings of the {@link HttpTransport}. All times are in milliseconds.
+ *
+ * @author bhausen
+ */
+public class HttpTransportProperties {
+	/** The maximum number of pooled connections. */
+	private int maxTotal = 50;
+	/** The maximum number of pooled connections per route. */
+	private int maxPerRoute = 20;
+	/** The timeout to establish a connection. */
+	private int connectTimeout = 5000;
+	/** The socket read timeout. */
+	private int readTimeout = 120000;
+	/** The timeout to lease a connection from the pool. */
+	private int connectionRequestTimeout = 10000;
+	/** Idle connections are closed after this time. */
+	private long idleTimeout = 30000;
+	/** The keep alive used if the server does not send one. */
+	private long keepAlive = 30000;
+	/** Connections idle longer than this are validated before reuse. */
+	private int validateAfterInactivity = 2000;
+	/** Request and accept gzip compressed response bodies. */
+	private boolean responseCompression = true;
+	/** Send gzip compressed request bodies. */
+	private boolean requestCompression = false;
+	/** Write the request bodies while they are sent, chunked. */
+	private boolean streamRequestBody = true;
+
+	/**
+	 * @return the maximum number of pooled connections.
+	 */
+	public int getMaxTotal() {
+		return this.maxTotal;
+	}
+
+	/**
+	 * @param maxTotal
+	 *            the maximum number of pooled connections.
+	 */
+	public void setMaxTotal(final int maxTotal) {
+		this.maxTotal = maxTotal;
+	}
+
+	/**
+	 * @return the maximum number of pooled connections per route.
+	 */
+	public int getMaxPerRoute() {
+		return this.maxPerRoute;
+	}
+
+	/**
+	 * @param maxPerRoute
+	 *            the maximum number of pooled connections per route.
+	 */
+	public void setMaxPerRoute(final int maxPerRoute) {
+		this.maxPerRoute = maxPerRoute;
+	}
+
+	/**
+	 * @return the timeout to establish a connection.
+	 */
+	public int getConnectTimeout() {
+		return this.connectTimeout;
+	}
+
+	/**
+	 * @param connectTimeout
+	 *            the timeout to establish a connection.
+	 */
+	public void setConnectTimeout(final int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * @return the socket read timeout.
+	 */
+	public int getReadTimeout() {
+		return this.readTimeout;
+	}
+
+	/**
+	 * @param readTimeout
+	 *            the socket read timeout.
+	 */
+	public void setReadTimeout(final int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * @return the timeout to lease a connection from the pool.
+	 */
+	public int getConnectionRequestTimeout() {
+		return this.connectionRequestTimeout;
+	}
+
+	/**
+	 * @param connectionRequestTimeout
+	 *            the timeout to lease a connection from the pool.
+	 */
+	public void setConnectionRequestTimeout(
+			final int connectionRequestTimeout) {
+		this.connectionRequestTimeout = connectionRequestTimeout;
+	}
+
+	/**
+	 * @return the time after which idle connections are closed.
+	 */
+	public long getIdleTimeout() {
+		return this.idleTimeout;
+	}
+
+	/**
+	 * @param idleTimeout
+	 *            the time after which idle connections are closed.
+	 */
+	public void setIdleTimeout(final long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * @return the keep alive used if the server does not send one.
+	 */
+	public long getKeepAlive() {
+		return this.keepAlive;
+	}
+
+	/**
+	 * @param keepAlive
+	 *            the keep alive used if the server does not send one.
+	 */
+	public void setKeepAlive(final long keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	/**
+	 * @return the inactivity after which connections are validated.
+	 */
+	public int getValidateAfterInactivity() {
+		return this.validateAfterInactivity;
+	}
+
+	/**
+	 * @param validateAfterInactivity
+	 *            the inactivity after which connections are validated.
+	 */
+	public void setValidateAfterInactivity(final int validateAfterInactivity) {
+		this.validateAfterInactivity = validateAfterInactivity;
+	}
+
+	/**
+	 * @return <code>true</code> if gzip responses are accepted.
+	 */
+	public boolean isResponseCompression() {
+		return this.responseCompression;
+	}
+
+	/**
+	 * @param responseCompression
+	 *            <code>true</code> to accept gzip responses.
+	 */
+	public void setResponseCompression(final boolean responseCompression) {
+		this.responseCompression = responseCompression;
+	}
+
+	/**
+	 * @return <code>true</code> if request bodies are gzip compressed.
+	 */
+	public boolean isRequestCompression() {
+		return this.requestCompression;
+	}
+
+	/**
+	 * @param requestCompression
+	 *            <code>true</code> to gzip compress request bodies. The server
+	 *            needs to support <i>Content-Encoding: gzip</i>.
+	 */
+	public void setRequestCompression(final boolean requestCompression) {
+		this.requestCompression = requestCompression;
+	}
+
+	/**
+	 * @return <code>true</code> if the request bodies are written while they
+	 *         are sent, with chunked transfer encoding.
+	 */
+	public boolean isStreamRequestBody() {
+		return this.streamRequestBody;
+	}
+
+	/**
+	 * @param streamRequestBody
+	 *            <code>true</code> to write the request bodies while they are
+	 *            sent, with chunked transfer encoding. <code>false</code>
+	 *            buffers each body and sends it with a
+	 *            <i>Content-Length</i>, for servers or proxies not accepting
+	 *            chunked requests.
+	 */
+	public void setStreamRequestBody(final boolean streamRequestBody) {
+		this.streamRequestBody = streamRequestBody;
+	}
+}
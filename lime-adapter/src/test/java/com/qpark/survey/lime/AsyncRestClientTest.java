@@ -0,0 +1,146 @@
+package com.qpark.survey.lime;
+
+import static com.qpark.survey.lime.JsonRpcServer.result;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import com.qpark.survey.lime.JsonRpcServer.Answer;
+import com.qpark.survey.lime.limit.ConcurrencyLimiters;
+import com.qpark.survey.lime.limit.LimitProperties;
+import com.qpark.survey.lime.limit.RetryPolicy;
+import com.qpark.survey.lime.limit.RetryProperties;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.mapper.ObjectMapperFactory;
+import com.qpark.survey.lime.model.mapper.ObjectMapperProperties;
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+import com.qpark.survey.lime.transport.AsyncHttpTransport;
+import com.qpark.survey.lime.transport.HttpTransportProperties;
+
+/**
+ * Tests the {@link AsyncRestClient} against a local {@link JsonRpcServer}.
+ *
+ * @author bhausen
+ */
+public class AsyncRestClientTest {
+	private static final String SURVEYS = "[{\"sid\":1,\"surveyls_title\":\"One\","
+			+ "\"startdate\":null,\"expires\":null,\"active\":\"Y\"}]";
+	private final LimeSurveySession session = new LimeSurveySession();
+	private JsonRpcServer server;
+	private AsyncHttpTransport transport;
+	private RestClient restClient;
+	private AsyncRestClient client;
+
+	/**
+	 * @throws IOException
+	 */
+	@Before
+	public void setUp() throws IOException {
+		this.server = new JsonRpcServer();
+		this.transport = new AsyncHttpTransport(new HttpTransportProperties());
+		this.restClient = new RestClient(this.server.getUrl(),
+				new RestTemplate(), new Mapper(ObjectMapperFactory
+						.create(new ObjectMapperProperties())));
+		final LimitProperties limit = new LimitProperties();
+		limit.setEnabled(true);
+		this.restClient.setConcurrencyLimiters(new ConcurrencyLimiters(limit));
+		final RetryProperties retry = new RetryProperties();
+		retry.setMaxAttempts(3);
+		retry.setInitialBackoff(10);
+		this.restClient.setRetryPolicy(new RetryPolicy(retry));
+		this.client = new AsyncRestClient(
+				new AsyncRestTemplate(this.transport.createRequestFactory()),
+				this.restClient);
+		this.session.setSessionKey("key");
+		this.session.setUserName("user");
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@After
+	public void tearDown() throws IOException {
+		this.transport.close();
+		this.server.close();
+	}
+
+	/** The session is bound to the end point of the {@link RestClient}. */
+	@Test
+	public void testSessionKey() throws Exception {
+		this.server.setHandler(request -> result(request, "\"abc\""));
+		final LimeSurveySession value = this.client
+				.getSessionKey("user", "secret".toCharArray())
+				.get(10, TimeUnit.SECONDS).get();
+		assertEquals("abc", value.getSessionKey());
+		assertEquals(this.server.getUrl(), value.getEndPointUrl());
+	}
+
+	/** A status instead of a result fails as {@link LimeSurveyException}. */
+	@Test
+	public void testStatus() throws InterruptedException, TimeoutException {
+		this.server.setHandler(
+				request -> result(request, "{\"status\":\"No permission\"}"));
+		try {
+			this.client.listSurveys(this.session).get(10, TimeUnit.SECONDS);
+			fail("Status not mapped.");
+		} catch (final ExecutionException e) {
+			assertTrue(e.getCause() instanceof UncheckedIOException);
+			assertTrue(
+					e.getCause().getCause() instanceof LimeSurveyException);
+			assertEquals("No permission",
+					e.getCause().getCause().getMessage());
+		}
+	}
+
+	/**
+	 * Server errors of an idempotent method are retried, the limiter slots
+	 * are returned.
+	 */
+	@Test
+	public void testRetry() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+		this.server.setHandler(request -> calls.incrementAndGet() < 3
+				? new Answer(503, "Service Unavailable")
+				: result(request, SURVEYS));
+		final Optional<ListSurveysResponseType> value = this.client
+				.listSurveys(this.session).get(10, TimeUnit.SECONDS);
+		assertEquals(1, value.get().getResult().size());
+		assertEquals(3, calls.get());
+		assertEquals(0, this.restClient.getConcurrencyLimiters()
+				.getLimiter(this.server.getUrl(), "list_surveys").get()
+				.getInFlight());
+		assertEquals(0, this.client.getInFlight(this.server.getUrl()));
+	}
+
+	/** A method not idempotent is not sent again. */
+	@Test
+	public void testNoRetry() throws InterruptedException, TimeoutException {
+		final AtomicInteger calls = new AtomicInteger();
+		this.server.setHandler(request -> {
+			calls.incrementAndGet();
+			return new Answer(503, "Service Unavailable");
+		});
+		try {
+			this.client.releaseSessionKey(this.session).get(10,
+					TimeUnit.SECONDS);
+			fail("Server error not passed.");
+		} catch (final ExecutionException e) {
+			assertEquals(1, calls.get());
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.qpark.survey.lime;
+
+import static com.qpark.survey.lime.JsonRpcServer.each;
+import static com.qpark.survey.lime.JsonRpcServer.result;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.qpark.survey.lime.JsonRpcServer.Answer;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.mapper.ObjectMapperFactory;
+import com.qpark.survey.lime.model.mapper.ObjectMapperProperties;
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+
+/**
+ * Tests the {@link BatchRequest} against a local {@link JsonRpcServer}.
+ *
+ * @author bhausen
+ */
+public class BatchRequestTest {
+	private static final String SURVEYS = "[{\"sid\":1,\"surveyls_title\":\"One\","
+			+ "\"startdate\":null,\"expires\":null,\"active\":\"Y\"}]";
+	private final LimeSurveySession session = new LimeSurveySession();
+	private JsonRpcServer server;
+	private RestClient client;
+
+	/**
+	 * @throws IOException
+	 */
+	@Before
+	public void setUp() throws IOException {
+		this.server = new JsonRpcServer();
+		this.client = new RestClient(this.server.getUrl(), new RestTemplate(),
+				new Mapper(ObjectMapperFactory
+						.create(new ObjectMapperProperties())));
+		this.session.setSessionKey("key");
+		this.session.setUserName("user");
+	}
+
+	/** Stops the server. */
+	@After
+	public void tearDown() {
+		this.server.close();
+	}
+
+	/** The results of a batch are routed by id. */
+	@Test
+	public void testBatch() throws IOException {
+		this.server.setHandler(request -> each(request, r -> SURVEYS));
+		final BatchRequest batch = this.client.newBatch();
+		final BatchResult<ListSurveysResponseType> first = batch
+				.listSurveys(this.session);
+		final BatchResult<ListSurveysResponseType> second = batch
+				.listSurveys(this.session);
+		batch.execute();
+		assertEquals(1, this.server.getReceived().size());
+		assertTrue(this.server.getReceived().get(0).isArray());
+		assertEquals(1, first.get().get().getResult().size());
+		assertEquals(1, second.get().get().getResult().size());
+	}
+
+	/** A status instead of a result fails as {@link LimeSurveyException}. */
+	@Test
+	public void testStatus() throws IOException {
+		this.server.setHandler(request -> each(request,
+				r -> r.path("id").asInt() % 2 == 0 ? SURVEYS
+						: "{\"status\":\"No surveys found\"}"));
+		final BatchRequest batch = this.client.newBatch();
+		final List<BatchResult<ListSurveysResponseType>> results = new ArrayList<>();
+		results.add(batch.listSurveys(this.session));
+		results.add(batch.listSurveys(this.session));
+		batch.execute();
+		int failed = 0;
+		for (final BatchResult<ListSurveysResponseType> result : results) {
+			try {
+				assertEquals(1, result.get().get().getResult().size());
+			} catch (final LimeSurveyException e) {
+				assertEquals("No surveys found", e.getMessage());
+				failed++;
+			}
+		}
+		assertEquals(1, failed);
+	}
+
+	/** A rejected batch disables batching, the requests are sent single. */
+	@Test
+	public void testRejected() throws IOException {
+		this.server.setHandler(request -> request.isArray()
+				? new Answer(400, "Bad Request")
+				: result(request, SURVEYS));
+		final BatchRequest batch = this.client.newBatch();
+		final BatchResult<ListSurveysResponseType> first = batch
+				.listSurveys(this.session);
+		final BatchResult<ListSurveysResponseType> second = batch
+				.listSurveys(this.session);
+		batch.execute();
+		assertFalse(this.client.isBatchSupported());
+		assertEquals(3, this.server.getReceived().size());
+		assertEquals(1, first.get().get().getResult().size());
+		assertEquals(1, second.get().get().getResult().size());
+	}
+
+	/**
+	 * A server error falls back to serial single calls, stopping at the
+	 * first server error.
+	 */
+	@Test
+	public void testServerError() throws IOException {
+		final int[] singles = new int[1];
+		this.server.setHandler(request -> {
+			if (request.isArray()) {
+				return new Answer(500, "Internal Server Error");
+			}
+			return ++singles[0] == 1 ? result(request, SURVEYS)
+					: new Answer(503, "Service Unavailable");
+		});
+		final BatchRequest batch = this.client.newBatch();
+		final List<BatchResult<ListSurveysResponseType>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(batch.listSurveys(this.session));
+		}
+		batch.execute(command -> fail("No parallel fall back expected."));
+		assertTrue(this.client.isBatchSupported());
+		/* The batch, the first single call and the failing one. */
+		assertEquals(3, this.server.getReceived().size());
+		assertEquals(1, results.get(0).get().get().getResult().size());
+		for (int i = 1; i < 4; i++) {
+			try {
+				results.get(i).get();
+				fail("Request " + i + " not failed.");
+			} catch (final IOException e) {
+				assertFalse(e instanceof LimeSurveyException);
+			}
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.qpark.survey.lime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server answering the JSON-RPC requests with the status and
+ * body returned by the handler.
+ *
+ * @author bhausen
+ */
+@SuppressWarnings("restriction")
+class JsonRpcServer implements Closeable {
+	/** The status code and body of an answer. */
+	static class Answer {
+		final int status;
+		final String body;
+
+		Answer(final int status, final String body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	/** The received request bodies. */
+	private final List<JsonNode> received = new ArrayList<>();
+	private final HttpServer server;
+	private volatile Function<JsonNode, Answer> handler;
+
+	/**
+	 * @throws IOException
+	 */
+	JsonRpcServer() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0),
+				0);
+		this.server.createContext("/", exchange -> {
+			final JsonNode request;
+			try (InputStream in = exchange.getRequestBody()) {
+				request = this.objectMapper.readTree(in);
+			}
+			synchronized (this.received) {
+				this.received.add(request);
+			}
+			final Answer answer = this.handler.apply(request);
+			final byte[] body = answer.body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type",
+					"application/json");
+			exchange.sendResponseHeaders(answer.status, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		this.server.start();
+	}
+
+	/**
+	 * @return the URL of the server.
+	 */
+	String getUrl() {
+		return String.format("http://127.0.0.1:%s/",
+				this.server.getAddress().getPort());
+	}
+
+	/**
+	 * @param handler
+	 *            the handler answering the requests.
+	 */
+	void setHandler(final Function<JsonNode, Answer> handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * @return the received request bodies.
+	 */
+	List<JsonNode> getReceived() {
+		synchronized (this.received) {
+			return new ArrayList<>(this.received);
+		}
+	}
+
+	/**
+	 * @return the answer with the result for the request.
+	 */
+	static Answer result(final JsonNode request, final String result) {
+		return new Answer(200,
+				String.format("{\"id\":%s,\"result\":%s,\"error\":null}",
+						request.path("id").asInt(), result));
+	}
+
+	/**
+	 * @return the answer of a single call or of each request of a batch.
+	 */
+	static Answer each(final JsonNode request,
+			final Function<JsonNode, String> result) {
+		if (!request.isArray()) {
+			return result(request, result.apply(request));
+		}
+		final StringBuilder sb = new StringBuilder("[");
+		request.forEach(r -> sb.append(sb.length() > 1 ? "," : "")
+				.append(result(r, result.apply(r)).body));
+		return new Answer(200, sb.append(']').toString());
+	}
+
+	/**
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		this.server.stop(0);
+	}
+}
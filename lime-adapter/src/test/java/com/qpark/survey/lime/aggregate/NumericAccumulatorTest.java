@@ -0,0 +1,69 @@
+package com.qpark.survey.lime.aggregate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link NumericAccumulator}.
+ *
+ * @author bhausen
+ */
+public class NumericAccumulatorTest {
+	/** Removing a value gives the statistics of the remaining values. */
+	@Test
+	public void testRemove() {
+		final NumericAccumulator changed = new NumericAccumulator();
+		final NumericAccumulator expected = new NumericAccumulator();
+		for (int i = 1; i <= 100; i++) {
+			changed.accept(i);
+			expected.accept(i == 42 ? 420 : i);
+		}
+		changed.accept(Double.NaN);
+		expected.accept(Double.NaN);
+		/* Response changed the value 42 to 420. */
+		changed.remove(42);
+		changed.accept(420);
+		assertEquals(expected.getCount(), changed.getCount());
+		assertEquals(expected.getMissing(), changed.getMissing());
+		assertEquals(expected.getSum(), changed.getSum(), 1e-9);
+		assertEquals(expected.getMean(), changed.getMean(), 1e-9);
+		assertEquals(expected.getVariance(), changed.getVariance(), 1e-6);
+		assertEquals(420, changed.getMax(), 0);
+		assertEquals(expected.getMedian(), changed.getMedian(), 0);
+	}
+
+	/** Removing the extremes keeps min and max within the accuracy. */
+	@Test
+	public void testRemoveExtremes() {
+		final NumericAccumulator value = new NumericAccumulator();
+		for (int i = 1; i <= 100; i++) {
+			value.accept(i);
+		}
+		value.remove(1);
+		value.remove(100);
+		assertEquals(2, value.getMin(), 2 * QuantileSketch.DEFAULT_ACCURACY);
+		assertEquals(99, value.getMax(), 99 * QuantileSketch.DEFAULT_ACCURACY);
+		value.remove(Double.NaN);
+		assertEquals(0, value.getMissing());
+		for (int i = 2; i <= 99; i++) {
+			value.remove(i);
+		}
+		assertEquals(0, value.getCount());
+		assertTrue(Double.isNaN(value.getMedian()));
+	}
+
+	/** The percentiles are estimated within the relative accuracy. */
+	@Test
+	public void testPercentile() {
+		final NumericAccumulator value = new NumericAccumulator();
+		for (int i = 0; i <= 1000; i++) {
+			value.accept(i);
+		}
+		assertEquals(0, value.getPercentile(0), 0);
+		assertEquals(1000, value.getPercentile(100), 0);
+		assertEquals(900, value.getPercentile(90),
+				900 * QuantileSketch.DEFAULT_ACCURACY);
+	}
+}
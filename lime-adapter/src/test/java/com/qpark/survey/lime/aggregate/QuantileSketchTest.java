@@ -0,0 +1,95 @@
+package com.qpark.survey.lime.aggregate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link QuantileSketch}.
+ *
+ * @author bhausen
+ */
+public class QuantileSketchTest {
+	private static double exact(final double[] sorted, final double quantile) {
+		return sorted[(int) (quantile * (sorted.length - 1))];
+	}
+
+	private static void assertRelative(final double expected,
+			final double actual, final double accuracy) {
+		assertEquals(expected, actual, Math.abs(expected) * accuracy + 1e-9);
+	}
+
+	/** The quantiles are estimated within the relative accuracy. */
+	@Test
+	public void testAccuracy() {
+		final Random random = new Random(42);
+		final QuantileSketch sketch = new QuantileSketch();
+		final double[] values = new double[100000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Math.exp(random.nextGaussian() * 3)
+					* (random.nextInt(4) == 0 ? -1 : 1);
+			sketch.add(values[i]);
+		}
+		Arrays.sort(values);
+		for (final double q : new double[] { 0, 0.01, 0.25, 0.5, 0.75, 0.99,
+				1 }) {
+			assertRelative(exact(values, q), sketch.getQuantile(q),
+					QuantileSketch.DEFAULT_ACCURACY);
+		}
+		assertEquals(values.length, sketch.getCount());
+	}
+
+	/** Removed values are no longer counted. */
+	@Test
+	public void testRemove() {
+		final QuantileSketch sketch = new QuantileSketch();
+		for (int i = 1; i <= 100; i++) {
+			sketch.add(i);
+		}
+		sketch.add(0);
+		for (int i = 51; i <= 100; i++) {
+			assertTrue(sketch.remove(i));
+		}
+		assertTrue(sketch.remove(0));
+		assertFalse(sketch.remove(0));
+		assertFalse(sketch.remove(1000));
+		assertEquals(50, sketch.getCount());
+		assertRelative(50, sketch.getMax(), QuantileSketch.DEFAULT_ACCURACY);
+		assertRelative(25, sketch.getQuantile(0.5),
+				QuantileSketch.DEFAULT_ACCURACY);
+	}
+
+	/** A merged sketch estimates the quantiles of both. */
+	@Test
+	public void testMerge() {
+		final QuantileSketch lower = new QuantileSketch();
+		final QuantileSketch upper = new QuantileSketch();
+		for (int i = 1; i <= 1000; i++) {
+			(i <= 500 ? lower : upper).add(i);
+		}
+		lower.merge(upper);
+		assertEquals(1000, lower.getCount());
+		assertRelative(500, lower.getQuantile(0.5),
+				QuantileSketch.DEFAULT_ACCURACY);
+		assertRelative(1000, lower.getMax(), QuantileSketch.DEFAULT_ACCURACY);
+	}
+
+	/** The buckets stay bounded, the upper quantiles stay accurate. */
+	@Test
+	public void testBucketBound() {
+		final QuantileSketch sketch = new QuantileSketch(0.01, 64);
+		for (int e = -300; e <= 300; e++) {
+			sketch.add(Math.pow(10, e / 10d));
+		}
+		assertTrue(sketch.getBucketCount() <= 64);
+		assertEquals(601, sketch.getCount());
+		assertRelative(1e30, sketch.getMax(), 0.01);
+		assertRelative(Math.pow(10, 29.9), sketch.getQuantile(599 / 600d),
+				0.01);
+	}
+}
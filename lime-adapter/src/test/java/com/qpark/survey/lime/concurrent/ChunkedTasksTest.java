@@ -0,0 +1,40 @@
+package com.qpark.survey.lime.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link ChunkedTasks}.
+ *
+ * @author bhausen
+ */
+public class ChunkedTasksTest {
+	/** The chunks cover the range and are returned in index order. */
+	@Test
+	public void testChunks() {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final List<String> value = ChunkedTasks.invoke(pool, 10, 4,
+					(from, to) -> from + "-" + to);
+			assertEquals(Arrays.asList("0-4", "4-8", "8-10"), value);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/** A single chunk runs on the calling thread. */
+	@Test
+	public void testSingleChunk() {
+		final Thread caller = Thread.currentThread();
+		final List<Thread> value = ChunkedTasks.invoke(null, 4, 4,
+				(from, to) -> Thread.currentThread());
+		assertEquals(1, value.size());
+		assertSame(caller, value.get(0));
+	}
+}
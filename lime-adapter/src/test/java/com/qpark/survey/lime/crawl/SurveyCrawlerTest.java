@@ -0,0 +1,104 @@
+package com.qpark.survey.lime.crawl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.ListQuestionsResponseType;
+import com.qpark.survey.lime.model.v25.ListSurveysEntryType;
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+
+/**
+ * Tests the request slots of the {@link SurveyCrawler}.
+ *
+ * @author bhausen
+ */
+public class SurveyCrawlerTest {
+	/** {@link RestClient} of two surveys with three responses each. */
+	private static class SurveysClient extends RestClient {
+		SurveysClient() {
+			super(new RestTemplate(), new Mapper(new ObjectMapper()));
+		}
+
+		@Override
+		public Optional<ListSurveysResponseType> listSurveys(
+				final LimeSurveySession session) {
+			final ListSurveysResponseType value = new ListSurveysResponseType();
+			for (int sid = 1; sid <= 2; sid++) {
+				final ListSurveysEntryType survey = new ListSurveysEntryType();
+				survey.setSid(sid);
+				survey.setActive(true);
+				value.getResult().add(survey);
+			}
+			return Optional.of(value);
+		}
+
+		@Override
+		public Optional<ListQuestionsResponseType> getListQuestions(
+				final LimeSurveySession session, final int surveyId,
+				final Optional<String> language) {
+			return Optional.of(new ListQuestionsResponseType());
+		}
+
+		@Override
+		public Optional<ExportResponsesResponseType> getExportResponses(
+				final LimeSurveySession session, final int surveyId,
+				final Optional<String> language) {
+			final ExportResponsesResponseType value = new ExportResponsesResponseType();
+			for (int id = 1; id <= 3; id++) {
+				final ExportResponsesListEntryType entry = new ExportResponsesListEntryType();
+				entry.setId(String.valueOf(id));
+				value.getResponses().add(entry);
+			}
+			return Optional.of(value);
+		}
+	}
+
+	/** The handlers consume concurrently with a single request slot. */
+	@Test
+	public void testSlotReleasedBeforeHandler() throws IOException {
+		final SurveyCrawler crawler = new SurveyCrawler(new SurveysClient());
+		crawler.setMaxConcurrentRequests(1);
+		crawler.setParallelism(2);
+		final CountDownLatch consuming = new CountDownLatch(2);
+		final CrawlReport report = crawler.crawl(new LimeSurveySession(),
+				new CrawlHandler() {
+					@Override
+					public Consumer<ExportResponsesListEntryType> begin(
+							final ListSurveysEntryType survey,
+							final Optional<ListQuestionsResponseType> questions) {
+						return entry -> {
+							consuming.countDown();
+							try {
+								/* Both handlers run while one holds no slot. */
+								if (!consuming.await(10, TimeUnit.SECONDS)) {
+									throw new IllegalStateException(
+											"Handlers did not run concurrently.");
+								}
+							} catch (final InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+						};
+					}
+				});
+		assertEquals(2, report.getResults().size());
+		for (final SurveyCrawlResult result : report.getResults()) {
+			assertFalse(result.getFailure().isPresent());
+			assertEquals(3, result.getResponseCount());
+		}
+	}
+}
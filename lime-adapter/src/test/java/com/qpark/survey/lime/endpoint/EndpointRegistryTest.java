@@ -0,0 +1,150 @@
+package com.qpark.survey.lime.endpoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.mapper.ObjectMapperFactory;
+import com.qpark.survey.lime.model.mapper.ObjectMapperProperties;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the {@link EndpointRegistry} with one end point answering and one
+ * failing with a server error.
+ *
+ * @author bhausen
+ */
+@SuppressWarnings("restriction")
+public class EndpointRegistryTest {
+	private static final String SURVEYS = "[{\"sid\":1,\"surveyls_title\":\"One\","
+			+ "\"startdate\":null,\"expires\":null,\"active\":\"Y\"}]";
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private HttpServer server;
+	private EndpointRegistry registry;
+
+	/**
+	 * @throws IOException
+	 */
+	@Before
+	public void setUp() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0),
+				0);
+		this.server.createContext("/good/", exchange -> {
+			final JsonNode request;
+			try (InputStream in = exchange.getRequestBody()) {
+				request = this.objectMapper.readTree(in);
+			}
+			final String result = "list_surveys"
+					.equals(request.path("method").asText()) ? SURVEYS
+							: "\"key\"";
+			final byte[] body = String
+					.format("{\"id\":%s,\"result\":%s,\"error\":null}",
+							request.path("id").asInt(), result)
+					.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type",
+					"application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		this.server.createContext("/bad/", exchange -> {
+			exchange.getRequestBody().close();
+			exchange.sendResponseHeaders(500, -1);
+			exchange.close();
+		});
+		this.server.start();
+		this.registry = new EndpointRegistry(
+				new Mapper(ObjectMapperFactory
+						.create(new ObjectMapperProperties())),
+				null);
+	}
+
+	/**
+	 * Closes the registry and stops the server.
+	 */
+	@After
+	public void tearDown() {
+		this.registry.close();
+		this.server.stop(0);
+	}
+
+	private LimeEndpoint register(final String name) {
+		final EndpointProperties properties = new EndpointProperties();
+		properties.setName(name);
+		properties.setUrl(String.format("http://127.0.0.1:%s/%s/",
+				this.server.getAddress().getPort(), name));
+		properties.setUserName("user");
+		properties.setPassword("secret");
+		properties.setMaxConcurrentRequests(1);
+		return this.registry.register(properties);
+	}
+
+	/** A failing end point does not fail the listing of the others. */
+	@Test
+	public void testPartialListing() throws IOException {
+		this.register("bad");
+		final LimeEndpoint good = this.register("good");
+		final SurveyListing value = this.registry.listSurveys();
+		assertFalse(value.isComplete());
+		assertTrue(value.getFailures().containsKey("bad"));
+		assertEquals(1, value.getResponse().getResult().size());
+		assertEquals(Optional.of(good), this.registry.forSurvey(1));
+	}
+
+	/** A sid is located while another end point fails. */
+	@Test
+	public void testLocatePartial() throws IOException {
+		this.register("bad");
+		final LimeEndpoint good = this.register("good");
+		assertEquals(Optional.of(good), this.registry.locateSurvey(1));
+	}
+
+	/** A sid not listed is not unknown while an end point fails. */
+	@Test
+	public void testLocateNotListed() throws IOException {
+		this.register("bad");
+		this.register("good");
+		for (int i = 0; i < 2; i++) {
+			try {
+				this.registry.locateSurvey(2);
+				fail("Failure of the end point not reported.");
+			} catch (final IOException e) {
+				/* Expected, the sid may be hosted by the failing one. */
+			}
+		}
+	}
+
+	/** The listing fails if all end points fail. */
+	@Test(expected = IOException.class)
+	public void testAllFailed() throws IOException {
+		this.register("bad");
+		this.registry.listSurveys();
+	}
+
+	/** The request slot is taken per call, not for the whole callback. */
+	@Test
+	public void testSlotPerCall() throws IOException {
+		final LimeEndpoint good = this.register("good");
+		final int available = good.execute(session -> {
+			good.getClient().listSurveys(session);
+			return good.getAvailableRequests();
+		});
+		assertEquals(1, available);
+	}
+}
@@ -0,0 +1,98 @@
+package com.qpark.survey.lime.index;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.qpark.survey.lime.model.v25.ListQuestionsEntryType;
+
+/**
+ * Tests the column names of the {@link SurveyColumnIndex} against the lime
+ * survey field map.
+ *
+ * @author bhausen
+ */
+public class SurveyColumnIndexTest {
+	private final List<ListQuestionsEntryType> questions = new ArrayList<>();
+
+	private ListQuestionsEntryType question(final String qid,
+			final String parentQid, final String type, final String title,
+			final String scaleId) {
+		final ListQuestionsEntryType value = new ListQuestionsEntryType();
+		value.setSid("11");
+		value.setGid("2");
+		value.setQid(qid);
+		value.setParentQid(parentQid);
+		value.setType(type);
+		value.setTitle(title);
+		value.setScaleId(scaleId);
+		value.setQuestionOrder(qid);
+		value.setOther("N");
+		this.questions.add(value);
+		return value;
+	}
+
+	private List<String> columns(final SurveyColumnIndex index,
+			final String qid) {
+		final List<String> value = new ArrayList<>();
+		for (final int slot : index.questionSlots(qid)) {
+			value.add(index.column(slot) + "=" + index.code(slot));
+		}
+		return value;
+	}
+
+	/** The dual scale array has the scales #0 and #1, coded [1] and [2]. */
+	@Test
+	public void testDualScale() {
+		this.question("3", "0", "1", "DS", "0");
+		this.question("31", "3", "T", "SQ001", "0");
+		this.question("32", "3", "T", "SQ002", "0");
+		final SurveyColumnIndex index = SurveyColumnIndex.of(this.questions);
+		assertEquals(Arrays.asList("11X2X3SQ001#0=DS[SQ001][1]",
+				"11X2X3SQ001#1=DS[SQ001][2]", "11X2X3SQ002#0=DS[SQ002][1]",
+				"11X2X3SQ002#1=DS[SQ002][2]"), this.columns(index, "3"));
+		assertEquals(index.slot("11X2X3SQ002#1"), index.slot("DS[SQ002][2]"));
+	}
+
+	/** The file upload has the files and the file count column. */
+	@Test
+	public void testFileUpload() {
+		this.question("4", "0", "|", "UP", "0");
+		final SurveyColumnIndex index = SurveyColumnIndex.of(this.questions);
+		assertEquals(
+				Arrays.asList("11X2X4=UP", "11X2X4_filecount=UP[filecount]"),
+				this.columns(index, "4"));
+	}
+
+	/** The array by column has one column per pair of subquestions. */
+	@Test
+	public void testArrayNumbers() {
+		this.question("5", "0", ":", "AN", "0");
+		this.question("51", "5", "T", "Y1", "0");
+		this.question("52", "5", "T", "X1", "1");
+		this.question("53", "5", "T", "X2", "1");
+		final SurveyColumnIndex index = SurveyColumnIndex.of(this.questions);
+		assertEquals(
+				Arrays.asList("11X2X5Y1_X1=AN[Y1_X1]", "11X2X5Y1_X2=AN[Y1_X2]"),
+				this.columns(index, "5"));
+	}
+
+	/** The list with comment and the multiple choice with comments. */
+	@Test
+	public void testComments() {
+		this.question("6", "0", "O", "LC", "0");
+		this.question("7", "0", "P", "MC", "0").setOther("Y");
+		this.question("71", "7", "T", "SQ001", "0");
+		final SurveyColumnIndex index = SurveyColumnIndex.of(this.questions);
+		assertEquals(Arrays.asList("11X2X6=LC", "11X2X6comment=LC[comment]"),
+				this.columns(index, "6"));
+		assertEquals(Arrays.asList("11X2X7SQ001=MC[SQ001]",
+				"11X2X7SQ001comment=MC[SQ001comment]", "11X2X7other=MC[other]",
+				"11X2X7othercomment=MC[othercomment]"),
+				this.columns(index, "7"));
+	}
+}
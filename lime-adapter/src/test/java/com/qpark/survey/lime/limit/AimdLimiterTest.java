@@ -0,0 +1,122 @@
+package com.qpark.survey.lime.limit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.qpark.survey.lime.limit.AimdLimiter.Outcome;
+
+/**
+ * Tests the {@link AimdLimiter} and the limiters of the
+ * {@link ConcurrencyLimiters}.
+ *
+ * @author bhausen
+ */
+public class AimdLimiterTest {
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static LimitProperties properties(final int initialLimit) {
+		final LimitProperties value = new LimitProperties();
+		value.setEnabled(true);
+		value.setInitialLimit(initialLimit);
+		value.setAcquireTimeout(10);
+		return value;
+	}
+
+	/** Sends one request with the latency and outcome. */
+	private static void request(final AimdLimiter limiter, final long latency,
+			final Outcome outcome) throws InterruptedException {
+		assertTrue(limiter.acquire());
+		final long start = System.nanoTime();
+		limiter.release(start, start + latency, outcome);
+	}
+
+	/** No slot is taken above the limit within the acquire timeout. */
+	@Test
+	public void testAcquireTimeout() throws InterruptedException {
+		final AimdLimiter limiter = new AimdLimiter("test", properties(1));
+		assertTrue(limiter.acquire());
+		assertFalse(limiter.acquire());
+		assertEquals(1, limiter.getInFlight());
+	}
+
+	/** Successful requests raise the limit only while it is used. */
+	@Test
+	public void testIncrease() throws InterruptedException {
+		final AimdLimiter used = new AimdLimiter("test", properties(1));
+		request(used, MILLIS, Outcome.SUCCESS);
+		assertEquals(2, used.getLimit());
+		assertEquals(0, used.getInFlight());
+		final AimdLimiter unused = new AimdLimiter("test", properties(8));
+		request(unused, MILLIS, Outcome.SUCCESS);
+		assertEquals(8, unused.getLimit());
+	}
+
+	/** A burst of overloaded requests backs off once. */
+	@Test
+	public void testDecreaseOnce() throws InterruptedException {
+		final AimdLimiter limiter = new AimdLimiter("test", properties(8));
+		assertTrue(limiter.acquire());
+		final long first = System.nanoTime();
+		assertTrue(limiter.acquire());
+		final long second = System.nanoTime();
+		limiter.release(first, Outcome.OVERLOAD);
+		limiter.release(second, Outcome.OVERLOAD);
+		assertEquals(6, limiter.getLimit());
+		request(limiter, MILLIS, Outcome.OVERLOAD);
+		assertEquals(4, limiter.getLimit());
+	}
+
+	/** A latency above the tolerance backs off. */
+	@Test
+	public void testLatency() throws InterruptedException {
+		final AimdLimiter limiter = new AimdLimiter("test", properties(4));
+		request(limiter, MILLIS, Outcome.SUCCESS);
+		assertEquals(1, limiter.getBaselineMillis());
+		request(limiter, 10 * MILLIS, Outcome.SUCCESS);
+		assertEquals(3, limiter.getLimit());
+	}
+
+	/** A limiter of an error only method ignores the latency. */
+	@Test
+	public void testErrorOnly() throws InterruptedException {
+		final ConcurrencyLimiters limiters = new ConcurrencyLimiters(
+				properties(4));
+		final AimdLimiter export = limiters
+				.getLimiter("http://lime/", "export_responses").get();
+		request(export, MILLIS, Outcome.SUCCESS);
+		request(export, 100 * MILLIS, Outcome.SUCCESS);
+		assertEquals(4, export.getLimit());
+		request(export, MILLIS, Outcome.OVERLOAD);
+		assertEquals(3, export.getLimit());
+		final AimdLimiter list = limiters
+				.getLimiter("http://lime/", "list_surveys").get();
+		request(list, MILLIS, Outcome.SUCCESS);
+		request(list, 100 * MILLIS, Outcome.SUCCESS);
+		assertEquals(3, list.getLimit());
+	}
+
+	/** A released slot is handed to the waiting non-blocking acquirer. */
+	@Test
+	public void testAcquireAsync() throws InterruptedException {
+		final AimdLimiter limiter = new AimdLimiter("test", properties(1));
+		assertTrue(limiter.acquire());
+		final CompletableFuture<Void> waiting = limiter.acquireAsync();
+		assertFalse(waiting.isDone());
+		limiter.release(System.nanoTime(), Outcome.IGNORE);
+		assertTrue(waiting.isDone());
+		assertEquals(1, limiter.getInFlight());
+	}
+
+	/** The limiters are disabled by default. */
+	@Test
+	public void testDisabledByDefault() {
+		assertFalse(new ConcurrencyLimiters(new LimitProperties())
+				.getLimiter("http://lime/", "list_surveys").isPresent());
+	}
+}
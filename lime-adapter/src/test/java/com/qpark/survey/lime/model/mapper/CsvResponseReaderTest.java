@@ -0,0 +1,163 @@
+package com.qpark.survey.lime.model.mapper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link CsvResponseReader}.
+ *
+ * @author bhausen
+ */
+public class CsvResponseReaderTest {
+	/** The UTF-8 byte order mark written by lime survey. */
+	private static final String BOM = "\ufeff";
+
+	private static CsvResponseReader reader(final String document) {
+		return new CsvResponseReader(new ByteArrayInputStream(
+				document.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/** Returns one byte per read, as a slow network does. */
+	private static InputStream trickle(final String document) {
+		return new FilterInputStream(new ByteArrayInputStream(
+				document.getBytes(StandardCharsets.UTF_8))) {
+			@Override
+			public int read(final byte[] b, final int off, final int len)
+					throws IOException {
+				return super.read(b, off, Math.min(1, len));
+			}
+		};
+	}
+
+	/** The document as lime survey writes it. */
+	@Test
+	public void testLimeDocument() throws IOException {
+		try (CsvResponseReader reader = reader(BOM
+				+ "\"id\",\"submitdate\",\"123X4X5\"\n"
+				+ "\"1\",\"2016-10-01 12:30:00\",\"A1\"\n"
+				+ "\"2\",\"\",\"say \"\"hi\"\"\"\n")) {
+			assertArrayEquals(new String[] { "id", "submitdate", "123X4X5" },
+					reader.getColumns());
+			assertEquals(2, reader.getColumnIndex("123X4X5"));
+			assertEquals(-1, reader.getColumnIndex("token"));
+			assertTrue(reader.next());
+			assertEquals(3, reader.getCellCount());
+			assertEquals("2016-10-01 12:30:00", reader.getValue(1));
+			assertEquals("A1", reader.getValue(2));
+			assertTrue(reader.next());
+			assertTrue(reader.isEmpty(1));
+			assertEquals("", reader.getValue(1));
+			assertEquals("say \"hi\"", reader.getValue(2));
+			assertFalse(reader.next());
+			assertEquals(2, reader.getRowCount());
+		}
+	}
+
+	/** Unquoted values, CRLF, empty lines and line breaks in quotes. */
+	@Test
+	public void testLineBreaks() throws IOException {
+		try (CsvResponseReader reader = reader(
+				"id,text\r\n1,plain\r\n\r\n2,\"two\r\nlines\"\r\n3,last")) {
+			assertEquals(2, reader.getColumns().length);
+			assertTrue(reader.next());
+			assertEquals("plain", reader.getValue(1));
+			assertTrue(reader.next());
+			assertEquals("two\r\nlines", reader.getValue(1));
+			assertTrue(reader.next());
+			assertEquals("last", reader.getValue(1));
+			assertFalse(reader.next());
+			assertEquals(3, reader.getRowCount());
+		}
+	}
+
+	/** Non ASCII values are decoded as UTF-8, also split across reads. */
+	@Test
+	public void testUtf8() throws IOException {
+		try (CsvResponseReader reader = new CsvResponseReader(
+				trickle(BOM + "\"id\",\"Stra\u00dfe\"\n"
+						+ "\"1\",\"\u00fcber \u20ac\"\n"))) {
+			assertEquals(1, reader.getColumnIndex("Stra\u00dfe"));
+			assertTrue(reader.next());
+			assertEquals("\u00fcber \u20ac", reader.getValue(1));
+		}
+	}
+
+	/** A row larger than the read buffer. */
+	@Test
+	public void testLongRow() throws IOException {
+		final StringBuilder sb = new StringBuilder("\"a\",\"b\"\n\"");
+		for (int i = 0; i < 20000; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		final String value = sb.substring(9);
+		try (CsvResponseReader reader = reader(
+				sb.append("\",\"x\"\n").toString())) {
+			assertTrue(reader.next());
+			assertEquals(value, reader.getValue(0));
+			assertEquals("x", reader.getValue(1));
+		}
+	}
+
+	/** Short ASCII values are taken from the cache. */
+	@Test
+	public void testCache() throws IOException {
+		try (CsvResponseReader reader = reader("a\nA1\nA1\n")) {
+			assertTrue(reader.next());
+			final String first = reader.getValue(0);
+			assertTrue(reader.next());
+			assertSame(first, reader.getValue(0));
+		}
+	}
+
+	/** Numbers are parsed without a string, others take the default. */
+	@Test
+	public void testGetLong() throws IOException {
+		try (CsvResponseReader reader = reader(
+				"a,b,c,d,e\n42,-7,,1.5,99999999999999999999\n")) {
+			assertTrue(reader.next());
+			assertEquals(42, reader.getLong(0, 0));
+			assertEquals(-7, reader.getLong(1, 0));
+			assertEquals(-1, reader.getLong(2, -1));
+			assertEquals(-1, reader.getLong(3, -1));
+			assertEquals(-1, reader.getLong(4, -1));
+			assertEquals(-1, reader.getLong(5, -1));
+		}
+	}
+
+	/** Missing cells of a short row and another separator. */
+	@Test
+	public void testShortRow() throws IOException {
+		try (CsvResponseReader reader = new CsvResponseReader(
+				new ByteArrayInputStream(
+						"a;b;c\n1;2\n".getBytes(StandardCharsets.UTF_8)),
+				';')) {
+			assertEquals(3, reader.getColumns().length);
+			assertTrue(reader.next());
+			assertEquals(2, reader.getCellCount());
+			assertEquals("2", reader.getValue(1));
+			assertNull(reader.getValue(2));
+			assertTrue(reader.isEmpty(2));
+		}
+	}
+
+	/** An empty document has no columns and rows. */
+	@Test
+	public void testEmpty() throws IOException {
+		try (CsvResponseReader reader = reader("")) {
+			assertEquals(0, reader.getColumns().length);
+			assertFalse(reader.next());
+		}
+	}
+}
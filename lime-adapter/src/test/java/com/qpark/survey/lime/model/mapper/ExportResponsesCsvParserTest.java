@@ -0,0 +1,103 @@
+package com.qpark.survey.lime.model.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+
+/**
+ * Tests the {@link ExportResponsesCsvParser}.
+ *
+ * @author bhausen
+ */
+public class ExportResponsesCsvParserTest {
+	private static final String DOCUMENT = "\ufeff"
+			+ "\"id\",\"submitdate\",\"lastpage\",\"startlanguage\",\"123X4X5\"\n"
+			+ "\"1\",\"2016-10-01 12:30:00\",\"2\",\"en\",\"A1\"\n"
+			+ "\"2\",\"\",\"1\",\"de\",\"\u00fcber \"\"q\"\"\"\n";
+	private final ExportResponsesCsvParser parser = new ExportResponsesCsvParser();
+
+	/**
+	 * @return the JSON-RPC response with the document base64 encoded and the
+	 *         <code>/</code> escaped as PHP writes it.
+	 */
+	private static InputStream envelope(final String document) {
+		final String result = Base64.getEncoder()
+				.encodeToString(document.getBytes(StandardCharsets.UTF_8))
+				.replace("/", "\\/");
+		return new ByteArrayInputStream(String
+				.format("{\"id\":1,\"result\":\"%s\",\"error\":null}", result)
+				.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/** Entries with the fixed columns and the answers of the header. */
+	@Test
+	public void testRead() throws IOException {
+		final ExportResponsesResponseType value = this.parser
+				.read(envelope(DOCUMENT));
+		assertEquals(1, value.getId());
+		assertNull(value.getError());
+		assertEquals(2, value.getResponses().size());
+		final ExportResponsesListEntryType first = value.getResponses().get(0);
+		assertEquals("1", first.getId());
+		assertEquals("2", first.getLastpage());
+		assertEquals("en", first.getStartlanguage());
+		assertEquals(2016, first.getSubmitdate().getYear());
+		assertEquals(5, first.getAnswers().size());
+		assertEquals("A1", first.getAnswers().get(4).getValue());
+		final ExportResponsesListEntryType second = value.getResponses()
+				.get(1);
+		assertNull(second.getSubmitdate());
+		assertEquals("\u00fcber \"q\"", second.getAnswers().get(4).getValue());
+		assertSame(first.getAnswers().get(4).getKey(),
+				second.getAnswers().get(4).getKey());
+	}
+
+	/** The rows are passed to the callback. */
+	@Test
+	public void testParseRows() throws IOException {
+		final List<String> ids = new ArrayList<>();
+		final ExportResponsesResponseType value = this.parser.parseRows(
+				envelope(DOCUMENT), row -> ids.add(row.getValue(0)));
+		assertEquals(2, ids.size());
+		assertEquals("2", ids.get(1));
+		assertTrue(value.getResponses().isEmpty());
+	}
+
+	/** A status is reported as error without entries. */
+	@Test
+	public void testStatus() throws IOException {
+		final ExportResponsesResponseType value = this.parser.read(
+				new ByteArrayInputStream(("{\"id\":4,\"result\":{\"status\":"
+						+ "\"No Response found for Token\"},\"error\":null}")
+								.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(4, value.getId());
+		assertEquals("No Response found for Token", value.getError());
+		assertTrue(value.getResponses().isEmpty());
+	}
+
+	/** A decoded document, e.g. a file of the lime survey export. */
+	@Test
+	public void testParseDocument() throws IOException {
+		final List<ExportResponsesListEntryType> entries = new ArrayList<>();
+		assertEquals(2,
+				this.parser.parseDocument(
+						new ByteArrayInputStream(
+								DOCUMENT.getBytes(StandardCharsets.UTF_8)),
+						entries::add));
+		assertEquals("de", entries.get(1).getStartlanguage());
+	}
+}
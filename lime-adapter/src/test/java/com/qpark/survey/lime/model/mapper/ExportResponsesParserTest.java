@@ -0,0 +1,204 @@
+package com.qpark.survey.lime.model.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qpark.survey.lime.model.mapper.ExportResponsesParser.ExportResponsesIterator;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * Tests the streaming {@link ExportResponsesParser}.
+ *
+ * @author bhausen
+ */
+public class ExportResponsesParserTest {
+	private final ExportResponsesParser parser = new ExportResponsesParser(
+			new ObjectMapper());
+
+	/**
+	 * @return the JSON-RPC response with the document base64 encoded and the
+	 *         <code>/</code> escaped as PHP writes it.
+	 */
+	private static InputStream envelope(final String document,
+			final String members) {
+		final String result = Base64.getEncoder()
+				.encodeToString(document.getBytes(StandardCharsets.UTF_8))
+				.replace("/", "\\/");
+		return new ByteArrayInputStream(
+				String.format(members, "\"" + result + "\"")
+						.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static InputStream envelope(final String document) {
+		return envelope(document, "{\"id\":1,\"result\":%s,\"error\":null}");
+	}
+
+	private static Object answer(final ExportResponsesListEntryType entry,
+			final String key) {
+		return entry.getAnswers().stream().filter(p -> key.equals(p.getKey()))
+				.findFirst().map(PropertyType::getValue).orElse(null);
+	}
+
+	/** Entries wrapped by their response id, fixed columns and answers. */
+	@Test
+	public void testRead() throws IOException {
+		final ExportResponsesResponseType value = this.parser
+				.read(envelope("{\"responses\":["
+						+ "{\"1\":{\"id\":\"1\",\"submitdate\":\"2016-10-01 12:30:00\",\"lastpage\":\"2\",\"startlanguage\":\"en\",\"datestamp\":\"2016-10-01 12:30:00\",\"123X4X5\":\"A1\",\"123X4X6SQ001\":\"Y\"}},"
+						+ "{\"2\":{\"id\":\"2\",\"submitdate\":null,\"123X4X5\":\"\\u00fcber \\/ \\\"q\\\"\",\"123X4X6SQ001\":null}}"
+						+ "]}"));
+		assertEquals(1, value.getId());
+		assertNull(value.getError());
+		assertEquals(2, value.getResponses().size());
+		final ExportResponsesListEntryType first = value.getResponses().get(0);
+		assertEquals("1", first.getId());
+		assertEquals("2", first.getLastpage());
+		assertEquals("en", first.getStartlanguage());
+		assertEquals(2016, first.getSubmitdate().getYear());
+		assertEquals(30, first.getDatestamp().getMinute());
+		assertEquals(7, first.getAnswers().size());
+		assertEquals("123X4X5", first.getAnswers().get(5).getKey());
+		assertEquals("A1", answer(first, "123X4X5"));
+		final ExportResponsesListEntryType second = value.getResponses()
+				.get(1);
+		assertEquals("2", second.getId());
+		assertNull(second.getSubmitdate());
+		assertEquals("\u00fcber / \"q\"", answer(second, "123X4X5"));
+		assertNull(answer(second, "123X4X6SQ001"));
+		assertEquals(4, second.getAnswers().size());
+	}
+
+	/** Entries without the response id wrapper and non string values. */
+	@Test
+	public void testFlatEntries() throws IOException {
+		final List<ExportResponsesListEntryType> entries = new ArrayList<>();
+		this.parser.parse(
+				envelope("{\"responses\":[{\"id\":3,\"n\":1.5,\"b\":true,"
+						+ "\"o\":{\"x\":[1,2]}},{\"id\":4}]}"),
+				entries::add);
+		assertEquals(2, entries.size());
+		assertEquals("3", entries.get(0).getId());
+		assertEquals(1.5, ((Number) answer(entries.get(0), "n")).doubleValue(),
+				0);
+		assertEquals(Boolean.TRUE, answer(entries.get(0), "b"));
+		assertTrue(answer(entries.get(0), "o") instanceof java.util.Map);
+		assertEquals("4", entries.get(1).getId());
+	}
+
+	/** Members before the responses array are skipped. */
+	@Test
+	public void testMembersBeforeResponses() throws IOException {
+		final List<ExportResponsesListEntryType> entries = new ArrayList<>();
+		this.parser.parse(envelope(
+				"{\"meta\":{\"a\":[1,{\"b\":2}]},\"count\":1,\"responses\":[{\"5\":{\"id\":\"5\"}}]}"),
+				entries::add);
+		assertEquals(1, entries.size());
+		assertEquals("5", entries.get(0).getId());
+	}
+
+	/** Many entries spanning several read buffers. */
+	@Test
+	public void testLargeExport() throws IOException {
+		final StringBuilder sb = new StringBuilder("{\"responses\":[");
+		for (int i = 1; i <= 5000; i++) {
+			sb.append(i > 1 ? "," : "").append("{\"").append(i)
+					.append("\":{\"id\":\"").append(i)
+					.append("\",\"1X2X3\":\"??>>??>>\"}}");
+		}
+		sb.append("]}");
+		final int[] count = new int[1];
+		final ExportResponsesResponseType envelope = this.parser
+				.parse(envelope(sb.toString()), entry -> {
+					count[0]++;
+					assertEquals(String.valueOf(count[0]), entry.getId());
+					assertEquals("??>>??>>", answer(entry, "1X2X3"));
+				});
+		assertEquals(5000, count[0]);
+		assertEquals(1, envelope.getId());
+	}
+
+	/** A status is reported as error without entries. */
+	@Test
+	public void testStatus() throws IOException {
+		final ExportResponsesResponseType value = this.parser.read(
+				new ByteArrayInputStream(("{\"id\":4,\"result\":{\"status\":"
+						+ "\"No Response found for Token\"},\"error\":null}")
+								.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(4, value.getId());
+		assertEquals("No Response found for Token", value.getError());
+		assertTrue(value.getResponses().isEmpty());
+	}
+
+	/** An error with a <code>null</code> result. */
+	@Test
+	public void testError() throws IOException {
+		final ExportResponsesResponseType value = this.parser
+				.read(new ByteArrayInputStream(
+						"{\"id\":\"6\",\"result\":null,\"error\":\"Invalid session key\"}"
+								.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(6, value.getId());
+		assertEquals("Invalid session key", value.getError());
+		assertTrue(value.getResponses().isEmpty());
+	}
+
+	/** The id and error written after the result. */
+	@Test
+	public void testMembersAfterResult() throws IOException {
+		for (final String document : new String[] { "{\"responses\":[]}",
+				"{\"responses\":[{\"1\":{\"id\":\"1\"}}]}",
+				"{\"responses\":[{\"1\":{\"id\":\"12\"}}]}" }) {
+			final ExportResponsesResponseType value = this.parser
+					.read(envelope(document,
+							"{\"result\":%s,\"error\":null,\"id\":\"42\"}"));
+			assertEquals(document, 42, value.getId());
+		}
+	}
+
+	/** The iterator reads on demand and can be closed early. */
+	@Test
+	public void testIterator() throws IOException {
+		try (ExportResponsesIterator iterator = this.parser
+				.iterator(envelope("{\"responses\":[{\"1\":{\"id\":\"1\"}},"
+						+ "{\"2\":{\"id\":\"2\"}},{\"3\":{\"id\":\"3\"}}]}"))) {
+			assertTrue(iterator.hasNext());
+			assertTrue(iterator.hasNext());
+			assertEquals("1", iterator.next().getId());
+			assertEquals("2", iterator.next().getId());
+		}
+		try (ExportResponsesIterator iterator = this.parser
+				.iterator(envelope("{\"responses\":[]}"))) {
+			assertFalse(iterator.hasNext());
+			try {
+				iterator.next();
+			} catch (final NoSuchElementException e) {
+				return;
+			}
+		}
+		throw new AssertionError("NoSuchElementException expected.");
+	}
+
+	/** A document without responses array has no entries. */
+	@Test
+	public void testNoResponsesArray() throws IOException {
+		final ExportResponsesResponseType value = this.parser
+				.read(envelope("{\"other\":[1,2]}"));
+		assertTrue(value.getResponses().isEmpty());
+		assertNull(value.getError());
+	}
+}
@@ -0,0 +1,156 @@
+package com.qpark.survey.lime.model.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests the envelope scanner {@link ExportResultInputStream}.
+ *
+ * @author bhausen
+ */
+public class ExportResultInputStreamTest {
+	private static ExportResultInputStream of(final String envelope) {
+		return new ExportResultInputStream(new ByteArrayInputStream(
+				envelope.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static String readAll(final InputStream in) throws IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[7];
+		int read = in.read(buffer);
+		while (read >= 0) {
+			baos.write(buffer, 0, read);
+			read = in.read(buffer);
+		}
+		return new String(baos.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	/** The result string is streamed with <code>\/</code> unescaped. */
+	@Test
+	public void testResultUnescaped() throws IOException {
+		final ExportResultInputStream in = of(
+				"{\"id\":1,\"result\":\"ab\\/c+d\\/\\/e==\",\"error\":null}");
+		assertTrue(in.hasResult());
+		assertEquals("ab/c+d//e==", readAll(in));
+		assertEquals(1, in.getId());
+		assertNull(in.getError());
+		assertNull(in.getStatus());
+	}
+
+	/** A result longer than the read buffer, escapes across the border. */
+	@Test
+	public void testResultAcrossBuffer() throws IOException {
+		final StringBuilder expected = new StringBuilder();
+		final StringBuilder escaped = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			final char c = i % 3 == 0 ? '/' : (char) ('A' + i % 26);
+			expected.append(c);
+			escaped.append(c == '/' ? "\\/" : String.valueOf(c));
+		}
+		final ExportResultInputStream in = of(
+				"{\"id\":3,\"result\":\"" + escaped + "\",\"error\":null}");
+		assertEquals(expected.toString(), readAll(in));
+		assertEquals(3, in.getId());
+	}
+
+	/** A status object instead of the result string. */
+	@Test
+	public void testStatus() throws IOException {
+		final ExportResultInputStream in = of(
+				"{\"id\":2,\"result\":{\"status\":\"No Data, survey table does not exist.\"},\"error\":null}");
+		assertFalse(in.hasResult());
+		assertEquals(-1, in.read());
+		assertEquals("No Data, survey table does not exist.", in.getStatus());
+		assertEquals(2, in.getId());
+	}
+
+	/** The error string is unescaped, including surrogate pairs. */
+	@Test
+	public void testErrorUnescaped() throws IOException {
+		final ExportResultInputStream in = of(
+				"{\"id\":1,\"result\":null,\"error\":\"Invalid \\\"key\\\"\\n\\u00e4\\ud83d\\ude00\"}");
+		assertFalse(in.hasResult());
+		assertEquals("Invalid \"key\"\n\u00e4\ud83d\ude00", in.getError());
+	}
+
+	/** Members before the result are skipped, whatever their type. */
+	@Test
+	public void testUnknownMembersSkipped() throws IOException {
+		final ExportResultInputStream in = of(
+				" {\"jsonrpc\":\"2.0\",\"x\":{\"a\":[1,{\"b\":\"}\"}]},\"y\":[],\"z\":true,\"id\":5,\"result\":\"QQ==\"}");
+		assertEquals("QQ==", readAll(in));
+		assertEquals(5, in.getId());
+	}
+
+	/** The id given as number, string, null or with a fraction. */
+	@Test
+	public void testIdForms() throws IOException {
+		final String[] ids = { "7", "\"7\"", "null", "\" 8 \"", "\"\"",
+				"3.0", "\"null\"", "-4" };
+		final int[] expected = { 7, 7, 0, 8, 0, 3, 0, -4 };
+		for (int i = 0; i < ids.length; i++) {
+			final ExportResultInputStream first = of(
+					"{\"id\":" + ids[i] + ",\"result\":\"QQ==\"}");
+			readAll(first);
+			assertEquals(ids[i], expected[i], first.getId());
+			final ExportResultInputStream last = of(
+					"{\"result\":\"QQ==\",\"error\":null,\"id\":" + ids[i]
+							+ "}");
+			readAll(last);
+			assertEquals(ids[i], expected[i], last.getId());
+		}
+	}
+
+	/** The id not being a number is rejected. */
+	@Test(expected = IOException.class)
+	public void testIdInvalid() throws IOException {
+		of("{\"id\":\"abc\",\"result\":\"QQ==\"}").hasResult();
+	}
+
+	/** The skipped result reveals the members written after it. */
+	@Test
+	public void testSkipResult() throws IOException {
+		final ExportResultInputStream in = of(
+				"{\"result\":\"QUJD\",\"error\":\"late\",\"id\":9}");
+		assertTrue(in.hasResult());
+		assertEquals('Q', in.read());
+		assertNull(in.getError());
+		in.skipResult();
+		assertEquals("late", in.getError());
+		assertEquals(9, in.getId());
+	}
+
+	/** An envelope ending inside the result string. */
+	@Test
+	public void testUnterminatedResult() throws IOException {
+		try {
+			readAll(of("{\"id\":1,\"result\":\"QUJD"));
+			fail("Unterminated result not detected.");
+		} catch (final IOException e) {
+			assertEquals("Unterminated result string.", e.getMessage());
+		}
+	}
+
+	/** The response is not a JSON object. */
+	@Test(expected = IOException.class)
+	public void testNoObject() throws IOException {
+		of("[1]").hasResult();
+	}
+
+	/** Other escapes than <code>\/</code> can not be part of base64. */
+	@Test(expected = IOException.class)
+	public void testInvalidEscape() throws IOException {
+		readAll(of("{\"result\":\"QU\\nJD\"}"));
+	}
+}
@@ -0,0 +1,117 @@
+package com.qpark.survey.lime.model.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qpark.survey.lime.model.v25.ListGroupsResponseType;
+import com.qpark.survey.lime.model.v25.ListQuestionsEntryType;
+import com.qpark.survey.lime.model.v25.ListQuestionsResponseType;
+import com.qpark.survey.lime.model.v25.ListSurveysEntryType;
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+import com.qpark.survey.lime.model.v25.RequestType;
+
+/**
+ * Tests the default and the tuned profile of the {@link ObjectMapperFactory}
+ * map the model alike.
+ *
+ * @author bhausen
+ */
+public class ObjectMapperFactoryTest {
+	private static final String SURVEYS = "{\"id\":1,\"result\":[{\"sid\":11,"
+			+ "\"surveyls_title\":\"Title\",\"startdate\":\"2016-10-01 12:30:45\","
+			+ "\"expires\":null,\"active\":\"Y\"},{\"sid\":12,"
+			+ "\"surveyls_title\":\"Other\",\"active\":false}],\"error\":null}";
+	private static final String QUESTIONS = "{\"id\":1,\"result\":[{\"qid\":\"3\","
+			+ "\"parent_qid\":\"0\",\"sid\":\"11\",\"gid\":\"2\",\"type\":\"L\","
+			+ "\"title\":\"Q1\",\"question_order\":\"4\",\"scale_id\":\"1\","
+			+ "\"same_default\":\"0\"}],\"error\":null}";
+	private static final String GROUPS = "{\"id\":1,\"result\":[{\"gid\":\"2\","
+			+ "\"group_name\":\"G\",\"group_order\":\"1\","
+			+ "\"randomization_group\":\"R\"}],\"error\":null}";
+
+	private static ObjectMapper mapper(final boolean tuned) {
+		final ObjectMapperProperties properties = new ObjectMapperProperties();
+		properties.setTuned(tuned);
+		return ObjectMapperFactory.create(properties);
+	}
+
+	/** The element names of the JAXB annotations are used by both. */
+	@Test
+	public void testNames() throws IOException {
+		for (final boolean tuned : new boolean[] { false, true }) {
+			final ObjectMapper mapper = mapper(tuned);
+			final ListSurveysEntryType survey = mapper
+					.readValue(SURVEYS, ListSurveysResponseType.class)
+					.getResult().get(0);
+			assertEquals("Title", survey.getSurveylsTitle());
+			final ListQuestionsEntryType question = mapper
+					.readValue(QUESTIONS, ListQuestionsResponseType.class)
+					.getResult().get(0);
+			assertEquals("0", question.getParentQid());
+			assertEquals("4", question.getQuestionOrder());
+			assertEquals("1", question.getScaleId());
+			assertEquals("0", question.getSameDefault());
+			assertEquals("R",
+					mapper.readValue(GROUPS, ListGroupsResponseType.class)
+							.getResult().get(0).getRandomizationGroup());
+		}
+	}
+
+	/** Both read the booleans and dates alike. */
+	@Test
+	public void testValues() throws IOException {
+		final ListSurveysResponseType expected = mapper(false)
+				.readValue(SURVEYS, ListSurveysResponseType.class);
+		final ListSurveysResponseType tuned = mapper(true)
+				.readValue(SURVEYS, ListSurveysResponseType.class);
+		for (int i = 0; i < 2; i++) {
+			assertEquals(expected.getResult().get(i).isActive(),
+					tuned.getResult().get(i).isActive());
+		}
+		assertTrue(tuned.getResult().get(0).isActive());
+		assertFalse(tuned.getResult().get(1).isActive());
+		assertEquals(12, tuned.getResult().get(0).getStartdate().getHour());
+		assertEquals(
+				expected.getResult().get(0).getStartdate().toGregorianCalendar()
+						.getTimeInMillis(),
+				tuned.getResult().get(0).getStartdate().toGregorianCalendar()
+						.getTimeInMillis());
+	}
+
+	/** Both write the same request. */
+	@Test
+	public void testRequest() throws IOException {
+		final RequestType request = new RequestType();
+		request.setId(7);
+		request.setMethod("list_questions");
+		request.getParams().add("key");
+		request.getParams().add(11);
+		final ObjectMapper expected = mapper(false);
+		final ObjectMapper tuned = mapper(true);
+		assertEquals(expected.readTree(expected.writeValueAsString(request)),
+				tuned.readTree(tuned.writeValueAsString(request)));
+	}
+
+	/** The tuned profile writes dates in the lime survey format. */
+	@Test
+	public void testWriteDate() throws Exception {
+		final DatatypeFactory factory = DatatypeFactory.newInstance();
+		final ObjectMapper mapper = mapper(true);
+		assertEquals("\"2016-10-01 09:05:03\"",
+				mapper.writeValueAsString(factory.newXMLGregorianCalendar(2016,
+						10, 1, 9, 5, 3, DatatypeConstants.FIELD_UNDEFINED,
+						DatatypeConstants.FIELD_UNDEFINED)));
+		assertEquals("\"2016-10-01\"",
+				mapper.writeValueAsString(factory.newXMLGregorianCalendarDate(
+						2016, 10, 1, DatatypeConstants.FIELD_UNDEFINED)));
+	}
+}
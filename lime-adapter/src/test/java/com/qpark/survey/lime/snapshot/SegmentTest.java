@@ -0,0 +1,85 @@
+package com.qpark.survey.lime.snapshot;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests opening a {@link Segment}.
+ *
+ * @author bhausen
+ */
+public class SegmentTest {
+	/** The temporary snapshot directory. */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private Path file;
+
+	/**
+	 * Writes one segment of three responses.
+	 *
+	 * @throws IOException
+	 */
+	@Before
+	public void setUp() throws IOException {
+		final Path directory = this.folder.newFolder().toPath();
+		final SurveySnapshot snapshot = new SurveySnapshot(directory, 11,
+				SurveySnapshotTest.index(),
+				ResponseSnapshotStore.DEFAULT_MAX_SEGMENT_SIZE);
+		try (SnapshotAppender appender = snapshot.appender()) {
+			for (long id = 1; id <= 3; id++) {
+				appender.accept(SurveySnapshotTest.entry(id, "a" + id));
+			}
+		}
+		snapshot.close();
+		this.file = snapshot.segmentFile(1);
+	}
+
+	private void putLong(final int position, final long value)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(this.file,
+				StandardOpenOption.WRITE)) {
+			final ByteBuffer buffer = ByteBuffer.allocate(8);
+			buffer.putLong(0, value);
+			channel.write(buffer, position);
+		}
+	}
+
+	/** The header and the data are read. */
+	@Test
+	public void testOpen() throws IOException {
+		final Segment segment = Segment.open(1, this.file);
+		assertEquals(3, segment.header.recordCount);
+		assertEquals(3, segment.header.lastResponseId);
+		assertEquals(Files.size(this.file) - SegmentHeader.SIZE,
+				segment.data().limit());
+		segment.unmap();
+	}
+
+	/** A segment shorter than its header tells is rejected. */
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		try (FileChannel channel = FileChannel.open(this.file,
+				StandardOpenOption.WRITE)) {
+			channel.truncate(Files.size(this.file) - 1);
+		}
+		Segment.open(1, this.file);
+	}
+
+	/** A data length beyond the int addressed mapping is rejected. */
+	@Test(expected = IOException.class)
+	public void testDataLength() throws IOException {
+		this.putLong(40, Segment.MAX_DATA_LENGTH + 1);
+		Segment.open(1, this.file);
+	}
+}
@@ -0,0 +1,148 @@
+package com.qpark.survey.lime.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ListQuestionsEntryType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * Tests the {@link SurveySnapshot} of the {@link ResponseSnapshotStore}.
+ *
+ * @author bhausen
+ */
+public class SurveySnapshotTest {
+	/** The SGQA column of the single question. */
+	static final String COLUMN = "11X2X3";
+	/** The temporary store directory. */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private SurveyColumnIndex index;
+	private ResponseSnapshotStore store;
+
+	static SurveyColumnIndex index() {
+		final ListQuestionsEntryType question = new ListQuestionsEntryType();
+		question.setSid("11");
+		question.setGid("2");
+		question.setQid("3");
+		question.setParentQid("0");
+		question.setType("S");
+		question.setTitle("Q1");
+		question.setScaleId("0");
+		question.setQuestionOrder("1");
+		question.setOther("N");
+		return SurveyColumnIndex.of(Arrays.asList(question));
+	}
+
+	static ExportResponsesListEntryType entry(final long id,
+			final String answer) {
+		final ExportResponsesListEntryType value = new ExportResponsesListEntryType();
+		value.setId(String.valueOf(id));
+		final PropertyType pt = new PropertyType();
+		pt.setKey(COLUMN);
+		pt.setValue(answer);
+		value.getAnswers().add(pt);
+		return value;
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@Before
+	public void setUp() throws IOException {
+		this.index = index();
+		this.store = new ResponseSnapshotStore(this.folder.newFolder().toPath());
+	}
+
+	private Map<Long, String> read(final SurveySnapshot snapshot) {
+		final int slot = this.index.slot(COLUMN);
+		final Map<Long, String> value = new LinkedHashMap<>();
+		snapshot.forEach(record -> value.put(record.getId(),
+				record.getString(slot)));
+		return value;
+	}
+
+	private void append(final SurveySnapshot snapshot, final long from,
+			final long to, final String prefix) throws IOException {
+		try (SnapshotAppender appender = snapshot.appender()) {
+			for (long id = from; id <= to; id++) {
+				appender.accept(entry(id, prefix + id));
+			}
+		}
+	}
+
+	/** A changed response supersedes the earlier version, also reopened. */
+	@Test
+	public void testSupersede() throws IOException {
+		final SurveySnapshot snapshot = this.store.open(11, this.index);
+		this.append(snapshot, 1, 10, "a");
+		this.append(snapshot, 3, 3, "b");
+		this.append(snapshot, 11, 11, "a");
+		Map<Long, String> responses = this.read(snapshot);
+		assertEquals(11, responses.size());
+		assertEquals("b3", responses.get(3L));
+		assertEquals(12, snapshot.getRecordCount());
+		assertEquals(11, snapshot.getLastResponseId());
+		snapshot.close();
+		final SurveySnapshot reopened = this.store.open(11, index());
+		responses = this.read(reopened);
+		assertEquals(11, responses.size());
+		assertEquals("b3", responses.get(3L));
+		reopened.compact();
+		assertEquals(1, reopened.getSegmentCount());
+		assertEquals(11, reopened.getRecordCount());
+		assertEquals(responses, this.read(reopened));
+	}
+
+	/** An appender rolls over to a new segment at the maximum size. */
+	@Test
+	public void testRollOver() throws IOException {
+		this.store.setMaxSegmentSize(256);
+		final SurveySnapshot snapshot = this.store.open(11, this.index);
+		this.append(snapshot, 1, 100, "a");
+		assertTrue(snapshot.getSegmentCount() > 1);
+		assertEquals(100, this.read(snapshot).size());
+	}
+
+	/** The maximum segment size leaves room for the header. */
+	@Test(expected = IllegalArgumentException.class)
+	public void testMaxSegmentSize() {
+		this.store.setMaxSegmentSize(Segment.MAX_DATA_LENGTH);
+		this.store.setMaxSegmentSize(Integer.MAX_VALUE);
+	}
+
+	/** Close waits for the open appender, then readers fail. */
+	@Test
+	public void testCloseWaitsForAppender()
+			throws IOException, InterruptedException {
+		final SurveySnapshot snapshot = this.store.open(11, this.index);
+		final SnapshotAppender appender = snapshot.appender();
+		appender.accept(entry(1, "a"));
+		final Thread closing = new Thread(snapshot::close);
+		closing.start();
+		closing.join(200);
+		assertTrue(closing.isAlive());
+		appender.close();
+		closing.join();
+		assertEquals(0, snapshot.getSegmentCount());
+		try {
+			snapshot.forEach(record -> {
+			});
+		} catch (final IllegalStateException e) {
+			return;
+		}
+		throw new AssertionError("Read a closed snapshot.");
+	}
+}
@@ -0,0 +1,76 @@
+package com.qpark.survey.lime.store;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.qpark.survey.lime.index.SurveyColumnIndex;
+import com.qpark.survey.lime.model.v25.ListQuestionsEntryType;
+
+/**
+ * Tests the classification of the {@link ColumnType}.
+ *
+ * @author bhausen
+ */
+public class ColumnTypeTest {
+	private final List<ListQuestionsEntryType> questions = new ArrayList<>();
+
+	private ListQuestionsEntryType question(final String qid,
+			final String parentQid, final String type, final String title,
+			final String other) {
+		final ListQuestionsEntryType value = new ListQuestionsEntryType();
+		value.setSid("11");
+		value.setGid("2");
+		value.setQid(qid);
+		value.setParentQid(parentQid);
+		value.setType(type);
+		value.setTitle(title);
+		value.setScaleId("0");
+		value.setQuestionOrder(qid);
+		value.setOther(other);
+		this.questions.add(value);
+		return value;
+	}
+
+	private ColumnType type(final SurveyColumnIndex index,
+			final String column) {
+		return ColumnType.of(index, index.slot(column));
+	}
+
+	/** Subquestion codes ending in comment or other are answer codes. */
+	@Test
+	public void testSubquestionCodes() {
+		this.question("3", "0", "M", "MC", "Y");
+		this.question("31", "3", "T", "nocomment", "N");
+		this.question("32", "3", "T", "another", "N");
+		final SurveyColumnIndex index = SurveyColumnIndex.of(this.questions);
+		assertEquals(ColumnType.DICTIONARY,
+				this.type(index, "11X2X3nocomment"));
+		assertEquals(ColumnType.DICTIONARY, this.type(index, "11X2X3another"));
+		assertEquals(ColumnType.TEXT, this.type(index, "11X2X3other"));
+	}
+
+	/** Comments, other texts and the file count of their question types. */
+	@Test
+	public void testParts() {
+		this.question("4", "0", "P", "MP", "Y");
+		this.question("41", "4", "T", "SQ1", "N");
+		this.question("5", "0", "O", "LC", "N");
+		this.question("6", "0", "|", "UP", "N");
+		this.question("7", "0", "N", "NU", "N");
+		final SurveyColumnIndex index = SurveyColumnIndex.of(this.questions);
+		assertEquals(ColumnType.DICTIONARY, this.type(index, "11X2X4SQ1"));
+		assertEquals(ColumnType.TEXT, this.type(index, "11X2X4SQ1comment"));
+		assertEquals(ColumnType.TEXT, this.type(index, "11X2X4othercomment"));
+		assertEquals(ColumnType.DICTIONARY, this.type(index, "11X2X5"));
+		assertEquals(ColumnType.TEXT, this.type(index, "11X2X5comment"));
+		assertEquals(ColumnType.TEXT, this.type(index, "11X2X6"));
+		assertEquals(ColumnType.LONG, this.type(index, "11X2X6_filecount"));
+		assertEquals(ColumnType.DOUBLE, this.type(index, "11X2X7"));
+		assertEquals(ColumnType.LONG, this.type(index, "id"));
+		assertEquals(ColumnType.DATE, this.type(index, "submitdate"));
+	}
+}
@@ -0,0 +1,77 @@
+package com.qpark.survey.lime.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link LongLongHashMap}.
+ *
+ * @author bhausen
+ */
+public class LongLongHashMapTest {
+	/** The map grows and agrees with a {@link HashMap}. */
+	@Test
+	public void testAgainstHashMap() {
+		final Random random = new Random(7);
+		final LongLongHashMap map = new LongLongHashMap();
+		final Map<Long, Long> expected = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			final long key = random.nextInt(50000) - 25000;
+			final long value = random.nextLong();
+			assertEquals(!expected.containsKey(key), map.put(key, value));
+			expected.put(key, value);
+		}
+		assertEquals(expected.size(), map.size());
+		expected.forEach((key, value) -> {
+			assertTrue(map.containsKey(key));
+			assertEquals(value.longValue(), map.get(key, -1));
+		});
+		final Map<Long, Long> entries = new HashMap<>();
+		map.forEach(entries::put);
+		assertEquals(expected, entries);
+		assertFalse(map.containsKey(25000));
+		assertEquals(-1, map.get(25000, -1));
+	}
+
+	/** The key 0 is kept apart from the free slots. */
+	@Test
+	public void testZeroKey() {
+		final LongLongHashMap map = new LongLongHashMap(4);
+		assertFalse(map.containsKey(0));
+		assertEquals(-1, map.get(0, -1));
+		assertTrue(map.put(0, 5));
+		assertFalse(map.put(0, 6));
+		map.put(-3, 1);
+		map.put(9, 2);
+		assertEquals(3, map.size());
+		assertEquals(6, map.get(0, -1));
+		assertArrayEquals(new long[] { -3, 0, 9 }, map.keys());
+	}
+
+	/** A copy is independent of the original. */
+	@Test
+	public void testCopy() {
+		final LongLongHashMap map = new LongLongHashMap();
+		map.put(1, 1);
+		final LongLongHashMap copy = map.copy();
+		copy.put(1, 2);
+		copy.put(2, 2);
+		assertEquals(1, map.get(1, -1));
+		assertEquals(1, map.size());
+		assertEquals(2, copy.size());
+	}
+
+	/** The expected size is limited to {@link LongLongHashMap#MAX_SIZE}. */
+	@Test(expected = IllegalStateException.class)
+	public void testMaxSize() {
+		new LongLongHashMap(LongLongHashMap.MAX_SIZE + 1);
+	}
+}
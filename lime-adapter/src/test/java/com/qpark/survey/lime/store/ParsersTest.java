@@ -0,0 +1,54 @@
+package com.qpark.survey.lime.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link Parsers}.
+ *
+ * @author bhausen
+ */
+public class ParsersTest {
+	/** Integers with sign, leading blanks and a zero fraction. */
+	@Test
+	public void testParseLong() {
+		assertEquals(12, Parsers.parseLong("12"));
+		assertEquals(-12, Parsers.parseLong(" -12"));
+		assertEquals(12, Parsers.parseLong("+12.0000000000"));
+		assertEquals(12, Parsers.parseLong("12."));
+		assertEquals(0, Parsers.parseLong("0"));
+		assertEquals(999_999_999_999_999_999L,
+				Parsers.parseLong("999999999999999999"));
+	}
+
+	/** Values without integer digits or with a fraction are rejected. */
+	@Test
+	public void testParseLongInvalid() {
+		for (final String s : new String[] { "", " ", "-", ".", "-.", ".0",
+				"12.5", "1e3", "A1", "1 ", "1000000000000000000" }) {
+			assertEquals(s, Parsers.INVALID, Parsers.parseLong(s));
+		}
+	}
+
+	/** Decimals fall back to {@link Double#parseDouble(String)}. */
+	@Test
+	public void testParseDouble() {
+		assertEquals(12.5, Parsers.parseDouble("12.5"), 0);
+		assertEquals(0.5, Parsers.parseDouble(".5"), 0);
+		assertEquals(-3, Parsers.parseDouble("-3.000"), 0);
+		assertTrue(Double.isNaN(Parsers.parseDouble(".")));
+		assertTrue(Double.isNaN(Parsers.parseDouble("abc")));
+	}
+
+	/** Dates with and without time as UTC epoch milliseconds. */
+	@Test
+	public void testParseDate() {
+		assertEquals(0, Parsers.parseDate("1970-01-01"));
+		assertEquals(1475325000000L, Parsers.parseDate("2016-10-01 12:30:00"));
+		assertEquals(951782400000L, Parsers.parseDate("2000-02-29"));
+		assertEquals(Parsers.INVALID, Parsers.parseDate("2016-13-01"));
+		assertEquals(Parsers.INVALID, Parsers.parseDate("01.10.2016"));
+	}
+}
@@ -0,0 +1,218 @@
+package com.qpark.survey.lime.sync;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.model.ExportResponsesOptions;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+
+/**
+ * Tests the {@link ResponseSyncEngine} against an in memory survey.
+ *
+ * @author bhausen
+ */
+public class ResponseSyncEngineTest {
+	/** {@link RestClient} exporting the responses of one in memory survey. */
+	private static class SurveyClient extends RestClient {
+		private final TreeMap<Long, ExportResponsesListEntryType> responses = new TreeMap<>();
+		private final List<ExportResponsesOptions> calls = new ArrayList<>();
+
+		SurveyClient() {
+			super(new RestTemplate(), new Mapper(new ObjectMapper()));
+		}
+
+		@Override
+		public Optional<ExportResponsesResponseType> exportResponses(
+				final LimeSurveySession session, final int surveyId,
+				final ExportResponsesOptions options,
+				final Consumer<ExportResponsesListEntryType> consumer)
+				throws IOException {
+			this.calls.add(options);
+			final long from = Optional.ofNullable(options.getFromResponseId())
+					.orElse(1L);
+			final long to = Optional.ofNullable(options.getToResponseId())
+					.orElse(Long.MAX_VALUE);
+			final ExportResponsesResponseType value = new ExportResponsesResponseType();
+			value.setId(1);
+			this.responses.subMap(from, true, to, true).values()
+					.forEach(entry -> {
+						if (Objects.isNull(options.getFields())) {
+							consumer.accept(entry);
+						} else {
+							final ExportResponsesListEntryType e = new ExportResponsesListEntryType();
+							e.setId(entry.getId());
+							if (options.getFields().contains("datestamp")) {
+								e.setDatestamp(entry.getDatestamp());
+							}
+							consumer.accept(e);
+						}
+					});
+			if (this.responses.subMap(from, true, to, true).isEmpty()) {
+				value.setError("No Data, could not get max id.");
+			}
+			return Optional.of(value);
+		}
+	}
+
+	private static final long T0 = 1475318400000L;
+	private final LimeSurveySession session = new LimeSurveySession();
+	private SurveyClient client;
+	private ResponseSyncEngine engine;
+	private DatatypeFactory datatypeFactory;
+
+	/**
+	 * @throws DatatypeConfigurationException
+	 */
+	@Before
+	public void setUp() throws DatatypeConfigurationException {
+		this.datatypeFactory = DatatypeFactory.newInstance();
+		this.client = new SurveyClient();
+		this.engine = new ResponseSyncEngine(this.client,
+				new InMemorySyncCursorStore());
+	}
+
+	private XMLGregorianCalendar date(final long millis) {
+		final GregorianCalendar calendar = new GregorianCalendar(
+				TimeZone.getTimeZone("UTC"));
+		calendar.setTimeInMillis(millis);
+		return this.datatypeFactory.newXMLGregorianCalendar(calendar);
+	}
+
+	private void put(final long id, final long datestamp) {
+		final ExportResponsesListEntryType entry = new ExportResponsesListEntryType();
+		entry.setId(String.valueOf(id));
+		entry.setDatestamp(this.date(datestamp));
+		entry.setSubmitdate(this.date(datestamp));
+		this.client.responses.put(id, entry);
+	}
+
+	private List<String> sync() throws IOException {
+		final List<String> ids = new ArrayList<>();
+		this.client.calls.clear();
+		this.engine.sync(this.session, 1, new ExportResponsesOptions(),
+				entry -> ids.add(entry.getId()));
+		return ids;
+	}
+
+	/** Every call requests a bounded range of response ids. */
+	private void assertBounded() {
+		for (final ExportResponsesOptions options : this.client.calls) {
+			assertNotNull(options.getFromResponseId());
+			assertNotNull(options.getToResponseId());
+			assertTrue(options.getToResponseId()
+					- options.getFromResponseId() < 32
+							* this.engine.getPageSize());
+		}
+	}
+
+	/** New responses are passed once, an unchanged survey passes nothing. */
+	@Test
+	public void testNewResponses() throws IOException {
+		for (long id = 1; id <= 10; id++) {
+			this.put(id, T0 + id * 1000);
+		}
+		assertEquals(10, this.sync().size());
+		assertBounded();
+		assertEquals(10,
+				this.engine.sync(this.session, 1, new ExportResponsesOptions(),
+						entry -> {
+						}).getCursor().getLastResponseId());
+		assertEquals(0, this.sync().size());
+		assertBounded();
+		/* One page, the scan of the known ids and the probes. */
+		assertEquals(1 + 1 + this.engine.getMaxEmptyPages(),
+				this.client.calls.size());
+	}
+
+	/** A gap of deleted responses larger than a page is passed. */
+	@Test
+	public void testGap() throws IOException {
+		for (long id = 1; id <= 10; id++) {
+			this.put(id, T0 + id * 1000);
+		}
+		this.sync();
+		for (long id = 2010; id <= 2015; id++) {
+			this.put(id, T0 + id * 1000);
+		}
+		assertEquals(
+				Arrays.asList("2010", "2011", "2012", "2013", "2014", "2015"),
+				this.sync());
+		assertBounded();
+		for (long id = 12000; id <= 12001; id++) {
+			this.put(id, T0 + id * 1000);
+		}
+		assertEquals(Arrays.asList("12000", "12001"), this.sync());
+		assertBounded();
+	}
+
+	/** A response changed within the second of the last datestamp. */
+	@Test
+	public void testChangeInSameSecond() throws IOException {
+		for (long id = 1; id <= 10; id++) {
+			this.put(id, T0 + 1000);
+		}
+		assertEquals(10, this.sync().size());
+		assertEquals(0, this.sync().size());
+		this.put(11, T0 + 2000);
+		assertEquals(Arrays.asList("11"), this.sync());
+		/* Response 3 edited in the same second as response 11. */
+		this.put(3, T0 + 2000);
+		assertEquals(Arrays.asList("3"), this.sync());
+		assertEquals(0, this.sync().size());
+		final SyncCursor cursor = this.engine
+				.sync(this.session, 1, new ExportResponsesOptions(), entry -> {
+				}).getCursor();
+		assertEquals(T0 + 2000, cursor.getLastDatestamp());
+		assertArrayEquals(new long[] { 3, 11 }, cursor.getLastDatestampIds());
+	}
+
+	/** The datestamps of the known responses are scanned page by page. */
+	@Test
+	public void testChangeScanPaged() throws IOException {
+		this.engine.setPageSize(4);
+		for (long id = 1; id <= 10; id++) {
+			this.put(id, T0 + id * 1000);
+		}
+		this.sync();
+		this.put(2, T0 + 20000);
+		this.put(7, T0 + 20000);
+		assertEquals(Arrays.asList("2", "7"), this.sync());
+		int scans = 0;
+		for (final ExportResponsesOptions options : this.client.calls) {
+			if (Objects.nonNull(options.getFields())
+					&& options.getFields().contains("datestamp")) {
+				scans++;
+				assertTrue(options.getToResponseId()
+						- options.getFromResponseId() < 4);
+			}
+		}
+		assertEquals(3, scans);
+		assertBounded();
+	}
+}
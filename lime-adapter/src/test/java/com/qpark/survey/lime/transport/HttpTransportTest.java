@@ -0,0 +1,90 @@
+package com.qpark.survey.lime.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the request body encoding of the {@link HttpTransport}.
+ *
+ * @author bhausen
+ */
+@SuppressWarnings("restriction")
+public class HttpTransportTest {
+	private HttpServer server;
+	/** The headers of the last request. */
+	private volatile Headers received;
+
+	/**
+	 * @throws IOException
+	 */
+	@Before
+	public void setUp() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0),
+				0);
+		this.server.createContext("/", exchange -> {
+			this.received = exchange.getRequestHeaders();
+			try (InputStream in = exchange.getRequestBody()) {
+				while (in.read() >= 0) {
+					/* Drain the body. */
+				}
+			}
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+		});
+		this.server.start();
+	}
+
+	/** Stops the server. */
+	@After
+	public void tearDown() {
+		this.server.stop(0);
+	}
+
+	private void post(final HttpTransportProperties properties)
+			throws IOException {
+		try (HttpTransport transport = new HttpTransport(properties)) {
+			/* Written as the RestClient writes, length unknown. */
+			transport.createRestTemplate().execute(
+					String.format("http://127.0.0.1:%s/",
+							this.server.getAddress().getPort()),
+					HttpMethod.POST,
+					request -> ((StreamingHttpOutputMessage) request)
+							.setBody(out -> out.write("{\"id\":1}"
+									.getBytes(StandardCharsets.UTF_8))),
+					response -> null);
+		}
+	}
+
+	/** By default the body is streamed chunked. */
+	@Test
+	public void testStreamed() throws IOException {
+		this.post(new HttpTransportProperties());
+		assertEquals("chunked",
+				this.received.getFirst("Transfer-Encoding"));
+		assertNull(this.received.getFirst("Content-Length"));
+	}
+
+	/** The buffered body is sent with its length. */
+	@Test
+	public void testBuffered() throws IOException {
+		final HttpTransportProperties properties = new HttpTransportProperties();
+		properties.setStreamRequestBody(false);
+		this.post(properties);
+		assertEquals("8", this.received.getFirst("Content-Length"));
+		assertNull(this.received.getFirst("Transfer-Encoding"));
+	}
+}
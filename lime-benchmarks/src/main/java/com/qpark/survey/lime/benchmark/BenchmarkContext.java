@@ -0,0 +1,49 @@
+package com.qpark.survey.lime.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import com.qpark.survey.lime.config.SpringConfig;
+
+/**
+ * Creates the lime adapter {@link SpringConfig} context the benchmarks run
+ * against, so the measured beans are wired as in production.
+ *
+ * @author bhausen
+ */
+public final class BenchmarkContext {
+	/** The mapper profile without tuning. */
+	public static final String PROFILE_DEFAULT = "default";
+	/** The mapper profile with <i>lime.mapper.tuned</i>. */
+	public static final String PROFILE_TUNED = "tuned";
+	/** The tuned mapper profile with <i>lime.mapper.afterburner</i>. */
+	public static final String PROFILE_AFTERBURNER = "afterburner";
+
+	private BenchmarkContext() {
+	}
+
+	/**
+	 * @param profile
+	 *            the mapper profile: {@value #PROFILE_DEFAULT},
+	 *            {@value #PROFILE_TUNED} or {@value #PROFILE_AFTERBURNER}.
+	 * @return the refreshed {@link ConfigurableApplicationContext}. The caller
+	 *         needs to close it.
+	 */
+	public static ConfigurableApplicationContext open(final String profile) {
+		final Map<String, Object> properties = new HashMap<>();
+		properties.put("lime.mapper.tuned",
+				String.valueOf(!PROFILE_DEFAULT.equals(profile)));
+		properties.put("lime.mapper.afterburner",
+				String.valueOf(PROFILE_AFTERBURNER.equals(profile)));
+		final AnnotationConfigApplicationContext value = new AnnotationConfigApplicationContext();
+		value.getEnvironment().getPropertySources()
+				.addFirst(new MapPropertySource("benchmark", properties));
+		value.register(SpringConfig.class);
+		value.refresh();
+		return value;
+	}
+}
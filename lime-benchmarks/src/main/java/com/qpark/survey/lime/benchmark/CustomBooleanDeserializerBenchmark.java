@@ -0,0 +1,107 @@
+package com.qpark.survey.lime.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.JsonTokenId;
+import com.qpark.survey.lime.model.mapper.CustomBooleanDeserializer;
+
+/**
+ * {@link CustomBooleanDeserializer} on the boolean spellings of lime survey,
+ * compared with the former evaluation creating a {@link String} per value.
+ * Both include the tokenizing of the array, measured alone as
+ * <i>tokens</i>.
+ *
+ * @author bhausen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class CustomBooleanDeserializerBenchmark {
+	/** The number of values. */
+	@Param({ "1000" })
+	public int count;
+
+	private final JsonFactory factory = new JsonFactory();
+	private final CustomBooleanDeserializer deserializer = new CustomBooleanDeserializer();
+	private byte[] payload;
+
+	/**
+	 * Creates the payload.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.payload = LimeFixtures.booleans(this.count);
+	}
+
+	/**
+	 * @param blackhole
+	 *            consumes the tokens.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public void tokens(final Blackhole blackhole) throws IOException {
+		try (JsonParser parser = this.factory.createParser(this.payload)) {
+			parser.nextToken();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				blackhole.consume(parser.getCurrentTokenId());
+			}
+		}
+	}
+
+	/**
+	 * @param blackhole
+	 *            consumes the values.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public void deserialize(final Blackhole blackhole) throws IOException {
+		try (JsonParser parser = this.factory.createParser(this.payload)) {
+			parser.nextToken();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				blackhole.consume(this.deserializer.deserialize(parser, null));
+			}
+		}
+	}
+
+	/**
+	 * @param blackhole
+	 *            consumes the values.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public void text(final Blackhole blackhole) throws IOException {
+		try (JsonParser parser = this.factory.createParser(this.payload)) {
+			parser.nextToken();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				boolean value = parser
+						.getCurrentTokenId() == JsonTokenId.ID_TRUE;
+				if (parser.getCurrentTokenId() == JsonTokenId.ID_STRING) {
+					final String text = parser.getText();
+					value = Boolean.valueOf(text) || text.trim().equals("Y");
+				}
+				blackhole.consume(value);
+			}
+		}
+	}
+}
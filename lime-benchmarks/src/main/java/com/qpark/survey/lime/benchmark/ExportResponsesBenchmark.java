@@ -0,0 +1,193 @@
+package com.qpark.survey.lime.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.qpark.survey.lime.model.mapper.CsvResponseReader;
+import com.qpark.survey.lime.model.mapper.ExportResponsesCsvParser;
+import com.qpark.survey.lime.model.mapper.ExportResponsesParser;
+import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.v25.ExportResponsesListEntryType;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.PropertyType;
+
+/**
+ * The decode and flatten path of <i>export_responses</i>: streaming the
+ * entries to a consumer, collecting them as
+ * {@link com.qpark.survey.lime.RestClient#getExportResponses} does, and the
+ * former decoding into a {@link Map} tree as baseline. The <i>csv</i>
+ * benchmarks decode the same responses from the CSV document, into entries
+ * and as rows read through the {@link CsvResponseReader} only.
+ *
+ * @author bhausen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class ExportResponsesBenchmark {
+	/** The type of the decoded document of the former path. */
+	private static final TypeReference<Map<String, Object>> DOCUMENT = new TypeReference<Map<String, Object>>() {
+	};
+	/** The number of responses. */
+	@Param({ "100", "10000" })
+	public int responses;
+	/** The number of answer columns. */
+	@Param({ "10", "200" })
+	public int columns;
+
+	private ConfigurableApplicationContext context;
+	private Mapper mapper;
+	private ExportResponsesParser parser;
+	private byte[] payload;
+	private ExportResponsesCsvParser csvParser;
+	private byte[] csvPayload;
+
+	/**
+	 * Creates the context and the payload.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.context = BenchmarkContext
+				.open(BenchmarkContext.PROFILE_DEFAULT);
+		this.mapper = this.context.getBean(Mapper.class);
+		this.parser = new ExportResponsesParser(this.mapper.getMapper());
+		this.payload = LimeFixtures.exportResponses(this.responses,
+				this.columns);
+		this.csvParser = new ExportResponsesCsvParser();
+		this.csvPayload = LimeFixtures.exportResponsesCsv(this.responses,
+				this.columns);
+	}
+
+	/**
+	 * Closes the context.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.context.close();
+	}
+
+	/**
+	 * @param blackhole
+	 *            consumes the entries.
+	 * @return the envelope.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public ExportResponsesResponseType parse(final Blackhole blackhole)
+			throws IOException {
+		return this.parser.parse(new ByteArrayInputStream(this.payload),
+				blackhole::consume);
+	}
+
+	/**
+	 * @return the response with all entries.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public ExportResponsesResponseType read() throws IOException {
+		return this.parser.read(new ByteArrayInputStream(this.payload));
+	}
+
+	/**
+	 * The decoding before the streaming parser: the envelope is bound with
+	 * the base64 <i>result</i>, the result is read into a {@link Map} tree
+	 * and flattened into the entries.
+	 *
+	 * @return the response with all entries.
+	 * @throws IOException
+	 */
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public ExportResponsesResponseType mapTree() throws IOException {
+		final ExportResponsesResponseType value = this.mapper
+				.readValue(this.payload, ExportResponsesResponseType.class);
+		if (Objects.nonNull(value.getResult())) {
+			final Map<String, Object> document = this.mapper
+					.readValue(value.getResult(), DOCUMENT);
+			final List<Map<String, Map<String, Object>>> list = (List<Map<String, Map<String, Object>>>) document
+					.get("responses");
+			list.stream().forEach(rxm -> {
+				final ExportResponsesListEntryType entry = new ExportResponsesListEntryType();
+				value.getResponses().add(entry);
+				rxm.values().stream().findFirst().ifPresent(rm -> {
+					entry.setId(String.valueOf(rm.get("id")));
+					entry.setLastpage(String.valueOf(rm.get("lastpage")));
+					entry.setStartlanguage(
+							String.valueOf(rm.get("startlanguage")));
+					rm.entrySet().stream().forEach(e -> {
+						final PropertyType pt = new PropertyType();
+						pt.setKey(e.getKey());
+						pt.setValue(e.getValue());
+						entry.getAnswers().add(pt);
+					});
+				});
+			});
+		}
+		return value;
+	}
+
+	/**
+	 * @param blackhole
+	 *            consumes the entries.
+	 * @return the envelope.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public ExportResponsesResponseType parseCsv(final Blackhole blackhole)
+			throws IOException {
+		return this.csvParser.parse(new ByteArrayInputStream(this.csvPayload),
+				blackhole::consume);
+	}
+
+	/**
+	 * @return the response with all entries.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public ExportResponsesResponseType readCsv() throws IOException {
+		return this.csvParser.read(new ByteArrayInputStream(this.csvPayload));
+	}
+
+	/**
+	 * Reads all cells of each row without creating entries.
+	 *
+	 * @param blackhole
+	 *            consumes the cells.
+	 * @return the envelope.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public ExportResponsesResponseType rowsCsv(final Blackhole blackhole)
+			throws IOException {
+		return this.csvParser.parseRows(
+				new ByteArrayInputStream(this.csvPayload), row -> {
+					for (int i = 0; i < row.getCellCount(); i++) {
+						blackhole.consume(row.getValue(i));
+					}
+				});
+	}
+}
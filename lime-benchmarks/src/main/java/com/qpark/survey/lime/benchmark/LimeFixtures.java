@@ -0,0 +1,269 @@
+package com.qpark.survey.lime.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Generates JSON-RPC response payloads as lime survey 2.5 writes them. The
+ * payloads are deterministic for the same arguments, so benchmark runs are
+ * comparable.
+ *
+ * @author bhausen
+ */
+public final class LimeFixtures {
+	/** The sid of the generated survey. */
+	public static final int SURVEY_ID = 123456;
+	/** The answer options of the list questions. */
+	private static final String[] CODES = { "A1", "A2", "A3", "A4", "A5" };
+
+	private LimeFixtures() {
+	}
+
+	/**
+	 * @param sessionKey
+	 *            the session key.
+	 * @return the <i>get_session_key</i> response.
+	 */
+	public static byte[] getSessionKey(final String sessionKey) {
+		return String
+				.format("{\"id\":1,\"result\":\"%s\",\"error\":null}",
+						sessionKey)
+				.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param count
+	 *            the number of surveys.
+	 * @return the <i>list_surveys</i> response.
+	 */
+	public static byte[] listSurveys(final int count) {
+		final StringBuilder sb = new StringBuilder(count * 160);
+		sb.append("{\"id\":1,\"result\":[");
+		for (int i = 1; i <= count; i++) {
+			if (i > 1) {
+				sb.append(',');
+			}
+			sb.append("{\"sid\":").append(SURVEY_ID + i - 1)
+					.append(",\"surveyls_title\":\"Customer survey ")
+					.append(i)
+					.append("\",\"startdate\":\"2016-10-01 08:00:00\"")
+					.append(",\"expires\":")
+					.append(i % 3 == 0 ? "null" : "\"2017-03-31 23:59:59\"")
+					.append(",\"active\":\"").append(i % 2 == 0 ? 'N' : 'Y')
+					.append("\"}");
+		}
+		sb.append("],\"error\":null}");
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The questions alternate between numeric (<i>N</i>) and list
+	 * (<i>L</i>) questions.
+	 *
+	 * @param count
+	 *            the number of questions.
+	 * @return the <i>list_questions</i> response.
+	 */
+	public static byte[] listQuestions(final int count) {
+		final StringBuilder sb = new StringBuilder(count * 400);
+		sb.append("{\"id\":1,\"result\":[");
+		for (int i = 1; i <= count; i++) {
+			if (i > 1) {
+				sb.append(',');
+			}
+			sb.append("{\"id\":{\"qid\":\"").append(i)
+					.append("\",\"language\":\"en\"},\"qid\":\"").append(i)
+					.append("\",\"parent_qid\":\"0\",\"sid\":\"")
+					.append(SURVEY_ID).append("\",\"gid\":\"")
+					.append(1 + i / 50).append("\",\"type\":\"")
+					.append(isNumeric(i) ? 'N' : 'L').append("\",\"title\":\"Q")
+					.append(i)
+					.append("\",\"question\":\"How satisfied are you with item ")
+					.append(i)
+					.append("?\",\"preg\":\"\",\"help\":\"\",\"other\":\"N\"")
+					.append(",\"mandatory\":\"Y\",\"question_order\":\"")
+					.append(i % 20)
+					.append("\",\"language\":\"en\",\"scale_id\":\"0\"")
+					.append(",\"same_default\":\"0\",\"relevance\":\"1\"")
+					.append(",\"modulename\":null}");
+		}
+		sb.append("],\"error\":null}");
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The decoded <i>export_responses</i> document in the <i>json</i> format
+	 * with response type <i>short</i> and heading type <i>code</i>. Answer
+	 * columns are named <code>SIDXGIDXQID</code> matching
+	 * {@link #listQuestions(int)}, about one in ten answers is empty.
+	 *
+	 * @param responses
+	 *            the number of responses.
+	 * @param columns
+	 *            the number of answer columns.
+	 * @return the decoded document.
+	 */
+	public static byte[] exportDocument(final int responses,
+			final int columns) {
+		final Random random = new Random(responses * 31L + columns);
+		final String[] names = new String[columns];
+		for (int q = 1; q <= columns; q++) {
+			names[q - 1] = String.format("\"%sX%sX%s\":", SURVEY_ID,
+					1 + q / 50, q);
+		}
+		final StringBuilder sb = new StringBuilder(
+				responses * (240 + columns * 24));
+		sb.append("{\"responses\":[");
+		for (int r = 1; r <= responses; r++) {
+			if (r > 1) {
+				sb.append(',');
+			}
+			final String date = String.format(
+					"\"2016-%02d-%02d %02d:%02d:%02d\"", 1 + r % 12,
+					1 + r % 28, r % 24, r % 60, (r * 7) % 60);
+			sb.append("{\"").append(r).append("\":{\"id\":\"").append(r)
+					.append("\",\"submitdate\":").append(date)
+					.append(",\"lastpage\":\"").append(1 + r % 3)
+					.append("\",\"startlanguage\":\"")
+					.append(r % 4 == 0 ? "de" : "en")
+					.append("\",\"token\":null,\"startdate\":").append(date)
+					.append(",\"datestamp\":").append(date)
+					.append(",\"ipaddr\":\"10.0.").append(r / 256 % 256)
+					.append('.').append(r % 256)
+					.append("\",\"refurl\":\"\"");
+			for (int q = 1; q <= columns; q++) {
+				sb.append(',').append(names[q - 1]);
+				if (random.nextInt(10) == 0) {
+					sb.append("\"\"");
+				} else if (isNumeric(q)) {
+					sb.append('"').append(random.nextInt(100)).append('"');
+				} else {
+					sb.append('"').append(CODES[random.nextInt(CODES.length)])
+							.append('"');
+				}
+			}
+			sb.append("}}");
+		}
+		sb.append("]}");
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The <i>export_responses</i> JSON-RPC response: the base64
+	 * {@link #exportDocument(int, int)} with the <code>\/</code> escapes PHP
+	 * writes into JSON strings.
+	 *
+	 * @param responses
+	 *            the number of responses.
+	 * @param columns
+	 *            the number of answer columns.
+	 * @return the <i>export_responses</i> response.
+	 */
+	public static byte[] exportResponses(final int responses,
+			final int columns) {
+		return envelope(exportDocument(responses, columns));
+	}
+
+	private static byte[] envelope(final byte[] document) {
+		final String result = Base64.getEncoder().encodeToString(document)
+				.replace("/", "\\/");
+		return new StringBuilder(result.length() + 40)
+				.append("{\"id\":1,\"result\":\"").append(result)
+				.append("\",\"error\":null}").toString()
+				.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The decoded <i>export_responses</i> document in the <i>csv</i> format
+	 * with the same responses as {@link #exportDocument(int, int)}: a byte
+	 * order mark, the header and the rows with all values quoted, null
+	 * values are empty.
+	 *
+	 * @param responses
+	 *            the number of responses.
+	 * @param columns
+	 *            the number of answer columns.
+	 * @return the decoded document.
+	 */
+	public static byte[] exportCsvDocument(final int responses,
+			final int columns) {
+		final Random random = new Random(responses * 31L + columns);
+		final StringBuilder sb = new StringBuilder(
+				responses * (120 + columns * 6));
+		sb.append('\uFEFF').append("\"id\",\"submitdate\",\"lastpage\"")
+				.append(",\"startlanguage\",\"token\",\"startdate\"")
+				.append(",\"datestamp\",\"ipaddr\",\"refurl\"");
+		for (int q = 1; q <= columns; q++) {
+			sb.append(",\"").append(SURVEY_ID).append('X').append(1 + q / 50)
+					.append('X').append(q).append('"');
+		}
+		sb.append('\n');
+		for (int r = 1; r <= responses; r++) {
+			final String date = String.format(
+					"\"2016-%02d-%02d %02d:%02d:%02d\"", 1 + r % 12,
+					1 + r % 28, r % 24, r % 60, (r * 7) % 60);
+			sb.append('"').append(r).append("\",").append(date)
+					.append(",\"").append(1 + r % 3).append("\",\"")
+					.append(r % 4 == 0 ? "de" : "en").append("\",\"\",")
+					.append(date).append(',').append(date)
+					.append(",\"10.0.").append(r / 256 % 256).append('.')
+					.append(r % 256).append("\",\"\"");
+			for (int q = 1; q <= columns; q++) {
+				sb.append(',');
+				if (random.nextInt(10) == 0) {
+					sb.append("\"\"");
+				} else if (isNumeric(q)) {
+					sb.append('"').append(random.nextInt(100)).append('"');
+				} else {
+					sb.append('"').append(CODES[random.nextInt(CODES.length)])
+							.append('"');
+				}
+			}
+			sb.append('\n');
+		}
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The <i>export_responses</i> JSON-RPC response of the document type
+	 * <i>csv</i>: the base64 {@link #exportCsvDocument(int, int)} with the
+	 * <code>\/</code> escapes PHP writes into JSON strings.
+	 *
+	 * @param responses
+	 *            the number of responses.
+	 * @param columns
+	 *            the number of answer columns.
+	 * @return the <i>export_responses</i> response.
+	 */
+	public static byte[] exportResponsesCsv(final int responses,
+			final int columns) {
+		return envelope(exportCsvDocument(responses, columns));
+	}
+
+	/**
+	 * @param count
+	 *            the number of values.
+	 * @return a JSON array of the boolean spellings lime survey uses:
+	 *         <i>Y</i>, <i>N</i>, <i>true</i>, <i>false</i>, padded and
+	 *         empty strings and JSON literals.
+	 */
+	public static byte[] booleans(final int count) {
+		final String[] values = { "\"Y\"", "\"N\"", "\"true\"", "\"false\"",
+				"\" Y \"", "\"\"", "true", "false", "\"TRUE\"", "null" };
+		final StringBuilder sb = new StringBuilder(count * 8);
+		sb.append('[');
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(values[i % values.length]);
+		}
+		sb.append(']');
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static boolean isNumeric(final int qid) {
+		return qid % 2 == 1;
+	}
+}
@@ -0,0 +1,120 @@
+package com.qpark.survey.lime.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.qpark.survey.lime.model.mapper.Mapper;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.GetSessionKeyResponseType;
+import com.qpark.survey.lime.model.v25.ListQuestionsResponseType;
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+
+/**
+ * {@link Mapper#readValue(byte[], Class)} of each JSON-RPC response type.
+ * The <i>list_surveys</i> and <i>list_questions</i> payloads contain
+ * <i>count</i> entries, the <i>export_responses</i> payload <i>count</i>
+ * responses of 20 answer columns, which is bound to the base64
+ * <i>result</i> only.
+ *
+ * @author bhausen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+	/** The mapper profile. */
+	@Param({ BenchmarkContext.PROFILE_DEFAULT, BenchmarkContext.PROFILE_TUNED,
+			BenchmarkContext.PROFILE_AFTERBURNER })
+	public String profile;
+	/** The number of entries. */
+	@Param({ "100", "10000" })
+	public int count;
+
+	private ConfigurableApplicationContext context;
+	private Mapper mapper;
+	private byte[] getSessionKey;
+	private byte[] listSurveys;
+	private byte[] listQuestions;
+	private byte[] exportResponses;
+
+	/**
+	 * Creates the context and the payloads.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.context = BenchmarkContext.open(this.profile);
+		this.mapper = this.context.getBean(Mapper.class);
+		this.getSessionKey = LimeFixtures
+				.getSessionKey("0123456789abcdef0123456789abcdef");
+		this.listSurveys = LimeFixtures.listSurveys(this.count);
+		this.listQuestions = LimeFixtures.listQuestions(this.count);
+		this.exportResponses = LimeFixtures.exportResponses(this.count, 20);
+	}
+
+	/**
+	 * Closes the context.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.context.close();
+	}
+
+	/**
+	 * @return the <i>get_session_key</i> response.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public GetSessionKeyResponseType getSessionKey() throws IOException {
+		return this.mapper.readValue(this.getSessionKey,
+				GetSessionKeyResponseType.class);
+	}
+
+	/**
+	 * @return the <i>list_surveys</i> response.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public ListSurveysResponseType listSurveys() throws IOException {
+		return this.mapper.readValue(this.listSurveys,
+				ListSurveysResponseType.class);
+	}
+
+	/**
+	 * @return the <i>list_questions</i> response.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public ListQuestionsResponseType listQuestions() throws IOException {
+		return this.mapper.readValue(this.listQuestions,
+				ListQuestionsResponseType.class);
+	}
+
+	/**
+	 * @return the <i>export_responses</i> response with the decoded
+	 *         <i>result</i>.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public ExportResponsesResponseType exportResponses() throws IOException {
+		return this.mapper.readValue(this.exportResponses,
+				ExportResponsesResponseType.class);
+	}
+}
@@ -0,0 +1,144 @@
+package com.qpark.survey.lime.benchmark;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.metrics.SimpleMetricsRegistry;
+import com.qpark.survey.lime.model.LimeSurveySession;
+import com.qpark.survey.lime.model.v25.ExportResponsesResponseType;
+import com.qpark.survey.lime.model.v25.ListQuestionsResponseType;
+import com.qpark.survey.lime.model.v25.ListSurveysResponseType;
+import com.qpark.survey.lime.stub.LimeStubProperties;
+import com.qpark.survey.lime.stub.LimeStubServer;
+import com.qpark.survey.lime.stub.StubSurvey;
+
+/**
+ * End to end calls of the {@link RestClient} against the
+ * {@link LimeStubServer} on the loopback interface: request serialisation,
+ * the pooled HTTP transport and the response mapping. The survey has
+ * <i>columns</i> questions and <i>responses</i> responses. With
+ * <i>metrics</i> the calls are measured into a {@link SimpleMetricsRegistry}.
+ *
+ * @author bhausen
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class RestClientBenchmark {
+	/** The number of responses. */
+	@Param({ "100", "10000" })
+	public int responses;
+	/** The number of answer columns. */
+	@Param({ "10", "200" })
+	public int columns;
+	/** <code>true</code> to record the {@link SimpleMetricsRegistry}. */
+	@Param({ "false", "true" })
+	public boolean metrics;
+
+	private LimeStubServer server;
+	private ConfigurableApplicationContext context;
+	private RestClient client;
+	private LimeSurveySession session;
+
+	/**
+	 * Starts the stub server and logs in.
+	 *
+	 * @throws IOException
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		final LimeStubProperties properties = new LimeStubProperties();
+		properties.setThreads(4);
+		this.server = new LimeStubServer(properties);
+		for (int i = 0; i < 100; i++) {
+			this.server.addSurvey(new StubSurvey(LimeFixtures.SURVEY_ID + i,
+					this.columns, i == 0 ? this.responses : 0));
+		}
+		this.server.start();
+		this.context = BenchmarkContext.open(BenchmarkContext.PROFILE_TUNED);
+		this.client = this.context.getBean(RestClient.class);
+		this.client.setEndPointUrl(this.server.getEndPointUrl());
+		if (this.metrics) {
+			this.client.setMetricsRegistry(new SimpleMetricsRegistry());
+		}
+		this.session = this.client
+				.getSessionKey("benchmark", "benchmark".toCharArray())
+				.orElseThrow(() -> new IllegalStateException(
+						"Session not provided."));
+	}
+
+	/**
+	 * Closes the context and stops the stub server.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.context.close();
+		this.server.close();
+	}
+
+	/**
+	 * @return the <i>list_surveys</i> response.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public Optional<ListSurveysResponseType> listSurveys() throws IOException {
+		return this.client.listSurveys(this.session);
+	}
+
+	/**
+	 * @return the <i>list_questions</i> response.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public Optional<ListQuestionsResponseType> getListQuestions()
+			throws IOException {
+		return this.client.getListQuestions(this.session,
+				LimeFixtures.SURVEY_ID);
+	}
+
+	/**
+	 * @return the <i>export_responses</i> response with all entries.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public Optional<ExportResponsesResponseType> getExportResponses()
+			throws IOException {
+		return this.client.getExportResponses(this.session,
+				LimeFixtures.SURVEY_ID, Optional.of("en"));
+	}
+
+	/**
+	 * @param blackhole
+	 *            consumes the entries.
+	 * @return the <i>export_responses</i> envelope.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public Optional<ExportResponsesResponseType> exportResponses(
+			final Blackhole blackhole) throws IOException {
+		return this.client.exportResponses(this.session,
+				LimeFixtures.SURVEY_ID, Optional.of("en"),
+				blackhole::consume);
+	}
+}
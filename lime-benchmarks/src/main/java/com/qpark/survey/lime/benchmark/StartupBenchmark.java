@@ -0,0 +1,110 @@
+package com.qpark.survey.lime.benchmark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.qpark.survey.lime.RestClient;
+import com.qpark.survey.lime.bootstrap.LimeAdapter;
+import com.qpark.survey.lime.bootstrap.LimeAdapterProperties;
+import com.qpark.survey.lime.model.mapper.ObjectMapperProperties;
+
+/**
+ * The cold start of a ready {@link RestClient}, assembled by the plain
+ * {@link LimeAdapter} or by the {@link BenchmarkContext} spring context. Each
+ * fork measures one start of a fresh JVM, including the class loading.
+ * <p>
+ * The footprint of one path is printed by the main method, run in a fresh
+ * JVM: <code>java -cp benchmarks.jar
+ * com.qpark.survey.lime.benchmark.StartupBenchmark plain|spring</code>.
+ *
+ * @author bhausen
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 10, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+	/** The plain java bootstrap. */
+	public static final String BOOTSTRAP_PLAIN = "plain";
+	/** The spring context bootstrap. */
+	public static final String BOOTSTRAP_SPRING = "spring";
+	/** The bootstrap: {@value #BOOTSTRAP_PLAIN} or {@value #BOOTSTRAP_SPRING}. */
+	@Param({ BOOTSTRAP_PLAIN, BOOTSTRAP_SPRING })
+	public String bootstrap;
+
+	/**
+	 * @param bootstrap
+	 *            {@value #BOOTSTRAP_PLAIN} or {@value #BOOTSTRAP_SPRING}.
+	 * @return the started adapter, to be closed by the caller.
+	 */
+	static Closeable start(final String bootstrap) {
+		final String url = "http://localhost/index.php/admin/remotecontrol";
+		if (BOOTSTRAP_SPRING.equals(bootstrap)) {
+			final ConfigurableApplicationContext context = BenchmarkContext
+					.open(BenchmarkContext.PROFILE_TUNED);
+			context.getBean(RestClient.class).setEndPointUrl(url);
+			return context;
+		}
+		final LimeAdapterProperties properties = new LimeAdapterProperties();
+		properties.setUrl(url);
+		final ObjectMapperProperties mapper = new ObjectMapperProperties();
+		mapper.setTuned(true);
+		properties.setMapper(mapper);
+		return new LimeAdapter(properties);
+	}
+
+	/**
+	 * @return the started adapter.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public Closeable start() throws IOException {
+		try (Closeable value = start(this.bootstrap)) {
+			return value;
+		}
+	}
+
+	/**
+	 * Prints the start time, the loaded classes and the heap used of one
+	 * start.
+	 *
+	 * @param args
+	 *            {@value #BOOTSTRAP_PLAIN} or {@value #BOOTSTRAP_SPRING}.
+	 * @throws IOException
+	 */
+	public static void main(final String[] args) throws IOException {
+		final String bootstrap = args.length > 0 ? args[0] : BOOTSTRAP_PLAIN;
+		final long start = System.nanoTime();
+		try (Closeable value = start(bootstrap)) {
+			final long millis = TimeUnit.NANOSECONDS
+					.toMillis(System.nanoTime() - start);
+			System.gc();
+			final MemoryUsage heap = ManagementFactory.getMemoryMXBean()
+					.getHeapMemoryUsage();
+			System.out.println(String.format(
+					"%s: start=%sms jvmUptime=%sms classes=%s heapUsed=%sKB",
+					bootstrap, millis,
+					ManagementFactory.getRuntimeMXBean().getUptime(),
+					ManagementFactory.getClassLoadingMXBean()
+							.getLoadedClassCount(),
+					heap.getUsed() / 1024));
+		}
+	}
+}
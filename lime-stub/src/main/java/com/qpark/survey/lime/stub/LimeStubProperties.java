@@ -0,0 +1,165 @@
+package com.qpark.survey.lime.stub;
+
+/**
+ * The settings of the {@link LimeStubServer}. All times are in milliseconds.
+ *
+ * @author bhausen
+ */
+public class LimeStubProperties {
+	/** The port to listen on, 0 for an ephemeral port. */
+	private int port = 0;
+	/** The number of request threads. */
+	private int threads = 16;
+	/** The accepted user name, <code>null</code> accepts any. */
+	private String userName;
+	/** The accepted password, <code>null</code> accepts any. */
+	private String password;
+	/** The fixed latency added to each HTTP request. */
+	private long latency = 0;
+	/** The maximum random latency added on top of {@link #latency}. */
+	private long latencyJitter = 0;
+	/** The share of HTTP requests answered with status 500. */
+	private double errorRate = 0;
+	/** Sessions not used for this time expire, 0 never expires them. */
+	private long sessionTimeout = 0;
+	/** <code>false</code> rejects JSON-RPC batch arrays. */
+	private boolean batchSupported = true;
+
+	/**
+	 * @return the port to listen on, 0 for an ephemeral port.
+	 */
+	public int getPort() {
+		return this.port;
+	}
+
+	/**
+	 * @param port
+	 *            the port to listen on, 0 for an ephemeral port.
+	 */
+	public void setPort(final int port) {
+		this.port = port;
+	}
+
+	/**
+	 * @return the number of request threads.
+	 */
+	public int getThreads() {
+		return this.threads;
+	}
+
+	/**
+	 * @param threads
+	 *            the number of request threads.
+	 */
+	public void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * @return the accepted user name, <code>null</code> accepts any.
+	 */
+	public String getUserName() {
+		return this.userName;
+	}
+
+	/**
+	 * @param userName
+	 *            the accepted user name, <code>null</code> accepts any.
+	 */
+	public void setUserName(final String userName) {
+		this.userName = userName;
+	}
+
+	/**
+	 * @return the accepted password, <code>null</code> accepts any.
+	 */
+	public String getPassword() {
+		return this.password;
+	}
+
+	/**
+	 * @param password
+	 *            the accepted password, <code>null</code> accepts any.
+	 */
+	public void setPassword(final String password) {
+		this.password = password;
+	}
+
+	/**
+	 * @return the fixed latency added to each HTTP request.
+	 */
+	public long getLatency() {
+		return this.latency;
+	}
+
+	/**
+	 * @param latency
+	 *            the fixed latency added to each HTTP request.
+	 */
+	public void setLatency(final long latency) {
+		this.latency = latency;
+	}
+
+	/**
+	 * @return the maximum random latency added on top of the latency.
+	 */
+	public long getLatencyJitter() {
+		return this.latencyJitter;
+	}
+
+	/**
+	 * @param latencyJitter
+	 *            the maximum random latency added on top of the latency.
+	 */
+	public void setLatencyJitter(final long latencyJitter) {
+		this.latencyJitter = latencyJitter;
+	}
+
+	/**
+	 * @return the share (0 to 1) of HTTP requests answered with status 500.
+	 */
+	public double getErrorRate() {
+		return this.errorRate;
+	}
+
+	/**
+	 * @param errorRate
+	 *            the share (0 to 1) of HTTP requests answered with status
+	 *            500.
+	 */
+	public void setErrorRate(final double errorRate) {
+		this.errorRate = errorRate;
+	}
+
+	/**
+	 * @return the idle time after which sessions expire, 0 never expires
+	 *         them.
+	 */
+	public long getSessionTimeout() {
+		return this.sessionTimeout;
+	}
+
+	/**
+	 * @param sessionTimeout
+	 *            the idle time after which sessions expire, 0 never expires
+	 *            them.
+	 */
+	public void setSessionTimeout(final long sessionTimeout) {
+		this.sessionTimeout = sessionTimeout;
+	}
+
+	/**
+	 * @return <code>false</code> if JSON-RPC batch arrays are rejected.
+	 */
+	public boolean isBatchSupported() {
+		return this.batchSupported;
+	}
+
+	/**
+	 * @param batchSupported
+	 *            <code>false</code> to reject JSON-RPC batch arrays.
+	 */
+	public void setBatchSupported(final boolean batchSupported) {
+		this.batchSupported = batchSupported;
+	}
+}
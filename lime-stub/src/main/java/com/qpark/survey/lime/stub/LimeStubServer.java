@@ -0,0 +1,715 @@
+package com.qpark.survey.lime.stub;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded lime survey remote control server implementing the JSON-RPC
+ * methods the lime adapter uses: <i>get_session_key</i>,
+ * <i>release_session_key</i>, <i>list_surveys</i>, <i>list_groups</i>,
+ * <i>list_questions</i>, <i>get_survey_properties</i>,
+ * <i>export_responses</i> (document type <i>json</i> or <i>csv</i>, with
+ * response id range and field list), <i>add_participants</i>,
+ * <i>list_participants</i>, <i>delete_participants</i> and
+ * <i>get_participant_properties</i>, single and as batch array. It serves
+ * the {@link StubSurvey}s, adds the configured latency, answers a share of
+ * the requests with HTTP 500 and expires idle sessions as set in the
+ * {@link LimeStubProperties}. The requests are counted per method.
+ * <p>
+ * The <i>export_responses</i> result is streamed: the document is base64
+ * encoded and escaped while it is written, so surveys of any size are served
+ * in constant memory.
+ *
+ * @author bhausen
+ */
+public class LimeStubServer implements Closeable {
+	static {
+		/* Without TCP_NODELAY the separately written headers and body wait
+		 * for the delayed ACK of the client, adding 40ms to each call. */
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+	/** The status of an unknown or expired session key. */
+	public static final String INVALID_SESSION_KEY = "Invalid session key";
+	/** The status of an unknown sid. */
+	public static final String INVALID_SURVEY_ID = "Error: Invalid survey ID";
+	/** The status of an export without responses. */
+	public static final String NO_RESPONSE = "No Response found.";
+	/** The status of a participant listing without participants. */
+	public static final String NO_PARTICIPANTS = "No survey participants found.";
+	/** The key the HTTP requests are counted under. */
+	public static final String HTTP_REQUESTS = "http";
+	/** The key the injected HTTP 500 errors are counted under. */
+	public static final String HTTP_ERRORS = "http_500";
+	/** The {@link Logger}. */
+	private static final Logger logger = LoggerFactory
+			.getLogger(LimeStubServer.class);
+	/** The settings. */
+	private final LimeStubProperties properties;
+	/** The {@link ObjectMapper} reading the requests and writing results. */
+	private final ObjectMapper mapper = new ObjectMapper();
+	/** The surveys by sid. */
+	private final Map<Integer, StubSurvey> surveys = new ConcurrentSkipListMap<>();
+	/** The last use of the sessions in nanos by session key. */
+	private final Map<String, Long> sessions = new ConcurrentHashMap<>();
+	/** The request counts by method. */
+	private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+	/** The {@link HttpServer}, <code>null</code> until started. */
+	private HttpServer server;
+	/** The request threads. */
+	private ExecutorService executor;
+
+	/**
+	 * @param properties
+	 *            the {@link LimeStubProperties}.
+	 */
+	public LimeStubServer(final LimeStubProperties properties) {
+		if (Objects.isNull(properties)) {
+			throw new IllegalStateException("Properties not provided.");
+		}
+		this.properties = properties;
+	}
+
+	/**
+	 * Runs a stub server until the process is stopped.
+	 *
+	 * @param args
+	 *            the port, the number of surveys, questions per survey and
+	 *            responses per survey.
+	 * @throws IOException
+	 */
+	public static void main(final String[] args) throws IOException {
+		final LimeStubProperties properties = new LimeStubProperties();
+		properties.setPort(args.length > 0 ? Integer.parseInt(args[0]) : 8090);
+		final int surveys = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		final int questions = args.length > 2 ? Integer.parseInt(args[2])
+				: 50;
+		final int responses = args.length > 3 ? Integer.parseInt(args[3])
+				: 1000;
+		final LimeStubServer server = new LimeStubServer(properties);
+		for (int i = 0; i < surveys; i++) {
+			server.addSurvey(new StubSurvey(100001 + i, questions, responses));
+		}
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		logger.info("Lime stub serving {} surveys at {}", surveys,
+				server.getEndPointUrl());
+	}
+
+	/**
+	 * Starts listening on the loopback interface.
+	 *
+	 * @return this {@link LimeStubServer}.
+	 * @throws IOException
+	 */
+	public synchronized LimeStubServer start() throws IOException {
+		if (Objects.isNull(this.server)) {
+			this.server = HttpServer.create(new InetSocketAddress(
+					InetAddress.getLoopbackAddress(),
+					this.properties.getPort()), 0);
+			this.executor = Executors
+					.newFixedThreadPool(this.properties.getThreads());
+			this.server.setExecutor(this.executor);
+			this.server.createContext("/", this::handle);
+			this.server.start();
+		}
+		return this;
+	}
+
+	/**
+	 * Stops the server.
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public synchronized void close() {
+		if (Objects.nonNull(this.server)) {
+			this.server.stop(0);
+			this.executor.shutdownNow();
+			this.server = null;
+		}
+	}
+
+	/**
+	 * @return the URL of the JSON-RPC endpoint.
+	 */
+	public String getEndPointUrl() {
+		if (Objects.isNull(this.server)) {
+			throw new IllegalStateException("Server not started.");
+		}
+		return String.format("http://%s:%s/index.php/admin/remotecontrol",
+				this.server.getAddress().getHostString(),
+				this.server.getAddress().getPort());
+	}
+
+	/**
+	 * @param survey
+	 *            the {@link StubSurvey} to serve.
+	 * @return this {@link LimeStubServer}.
+	 */
+	public LimeStubServer addSurvey(final StubSurvey survey) {
+		this.surveys.put(survey.getSid(), survey);
+		return this;
+	}
+
+	/**
+	 * @param sid
+	 *            the sid.
+	 * @return the {@link StubSurvey}.
+	 */
+	public Optional<StubSurvey> getSurvey(final int sid) {
+		return Optional.ofNullable(this.surveys.get(sid));
+	}
+
+	/**
+	 * @return the served {@link StubSurvey}s.
+	 */
+	public Collection<StubSurvey> getSurveys() {
+		return this.surveys.values();
+	}
+
+	/**
+	 * @param sid
+	 *            the sid of the survey not to serve anymore.
+	 */
+	public void removeSurvey(final int sid) {
+		this.surveys.remove(sid);
+	}
+
+	/**
+	 * @return the number of open sessions.
+	 */
+	public int getSessionCount() {
+		return this.sessions.size();
+	}
+
+	/**
+	 * Expires all sessions, the next call of each client gets
+	 * {@value #INVALID_SESSION_KEY}.
+	 */
+	public void invalidateSessions() {
+		this.sessions.clear();
+	}
+
+	/**
+	 * @param method
+	 *            the JSON-RPC method name, {@value #HTTP_REQUESTS} or
+	 *            {@value #HTTP_ERRORS}.
+	 * @return the number of requests.
+	 */
+	public long getRequestCount(final String method) {
+		return Optional.ofNullable(this.counts.get(method))
+				.map(LongAdder::sum).orElse(0L);
+	}
+
+	/**
+	 * @return the number of requests by JSON-RPC method name,
+	 *         {@value #HTTP_REQUESTS} and {@value #HTTP_ERRORS}.
+	 */
+	public Map<String, Long> getRequestCounts() {
+		final Map<String, Long> value = new TreeMap<>();
+		this.counts.forEach((method, count) -> value.put(method, count.sum()));
+		return value;
+	}
+
+	/**
+	 * Sets all request counts to 0.
+	 */
+	public void resetRequestCounts() {
+		this.counts.clear();
+	}
+
+	private void count(final String method) {
+		this.counts.computeIfAbsent(method, m -> new LongAdder()).increment();
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+		try {
+			this.count(HTTP_REQUESTS);
+			final JsonNode request;
+			try (InputStream in = "gzip".equalsIgnoreCase(exchange
+					.getRequestHeaders().getFirst("Content-Encoding"))
+							? new GZIPInputStream(exchange.getRequestBody())
+							: exchange.getRequestBody()) {
+				request = this.mapper.readTree(in);
+			}
+			this.delay();
+			if (ThreadLocalRandom.current().nextDouble() < this.properties
+					.getErrorRate()) {
+				this.count(HTTP_ERRORS);
+				exchange.sendResponseHeaders(500, -1);
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Type",
+					"application/json");
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream out = new BufferedOutputStream(
+					exchange.getResponseBody(), 16384)) {
+				if (Objects.nonNull(request) && request.isArray()
+						&& this.properties.isBatchSupported()) {
+					out.write('[');
+					for (int i = 0; i < request.size(); i++) {
+						if (i > 0) {
+							out.write(',');
+						}
+						this.call(request.get(i), out);
+					}
+					out.write(']');
+				} else if (Objects.nonNull(request) && request.isObject()) {
+					this.call(request, out);
+				} else {
+					this.write(out, null, "null", "Invalid request");
+				}
+			}
+		} catch (final IOException | RuntimeException e) {
+			logger.debug("Request failed: {}", e.getMessage());
+			throw e;
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void delay() {
+		final long jitter = this.properties.getLatencyJitter();
+		final long millis = this.properties.getLatency() + (jitter > 0
+				? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+		if (millis > 0) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(millis);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Writes the JSON-RPC response of the call.
+	 */
+	private void call(final JsonNode call, final OutputStream out)
+			throws IOException {
+		final String method = call.path("method").asText();
+		final JsonNode params = call.path("params");
+		final JsonNode id = call.get("id");
+		this.count(method);
+		if ("get_session_key".equals(method)) {
+			this.getSessionKey(out, id, params);
+		} else if (!this.isSession(params.path(0).asText())) {
+			this.writeStatus(out, id, INVALID_SESSION_KEY);
+		} else if ("release_session_key".equals(method)) {
+			this.sessions.remove(params.path(0).asText());
+			this.write(out, id, "\"OK\"", null);
+		} else if ("list_surveys".equals(method)) {
+			this.listSurveys(out, id);
+		} else if ("list_groups".equals(method)) {
+			this.listGroups(out, id, params);
+		} else if ("list_questions".equals(method)) {
+			this.listQuestions(out, id, params);
+		} else if ("get_survey_properties".equals(method)) {
+			this.getSurveyProperties(out, id, params);
+		} else if ("export_responses".equals(method)) {
+			this.exportResponses(out, id, params);
+		} else if ("add_participants".equals(method)) {
+			this.addParticipants(out, id, params);
+		} else if ("list_participants".equals(method)) {
+			this.listParticipants(out, id, params);
+		} else if ("delete_participants".equals(method)) {
+			this.deleteParticipants(out, id, params);
+		} else if ("get_participant_properties".equals(method)) {
+			this.getParticipantProperties(out, id, params);
+		} else {
+			this.write(out, id, "null",
+					String.format("Method %s not supported.", method));
+		}
+	}
+
+	private boolean isSession(final String sessionKey) {
+		final long now = System.nanoTime();
+		final long timeout = TimeUnit.MILLISECONDS
+				.toNanos(this.properties.getSessionTimeout());
+		final Long lastUse = this.sessions.computeIfPresent(sessionKey,
+				(key, last) -> timeout > 0 && now - last > timeout ? null
+						: now);
+		return Objects.nonNull(lastUse);
+	}
+
+	private void getSessionKey(final OutputStream out, final JsonNode id,
+			final JsonNode params) throws IOException {
+		final String userName = this.properties.getUserName();
+		final String password = this.properties.getPassword();
+		if (Objects.nonNull(userName)
+				&& !userName.equals(params.path(0).asText())
+				|| Objects.nonNull(password)
+						&& !password.equals(params.path(1).asText())) {
+			this.writeStatus(out, id, "Invalid user name or password");
+		} else {
+			final String sessionKey = UUID.randomUUID().toString()
+					.replace("-", "");
+			this.sessions.put(sessionKey, System.nanoTime());
+			this.write(out, id, this.mapper.writeValueAsString(sessionKey),
+					null);
+		}
+	}
+
+	private void listSurveys(final OutputStream out, final JsonNode id)
+			throws IOException {
+		if (this.surveys.isEmpty()) {
+			this.writeStatus(out, id, "No surveys found");
+			return;
+		}
+		this.writeHead(out, id);
+		final JsonGenerator generator = this.createGenerator(out);
+		generator.writeStartArray();
+		for (final StubSurvey survey : this.surveys.values()) {
+			survey.writeSurvey(generator);
+		}
+		generator.writeEndArray();
+		generator.close();
+		this.writeTail(out, null);
+	}
+
+	private void listGroups(final OutputStream out, final JsonNode id,
+			final JsonNode params) throws IOException {
+		final StubSurvey survey = this.surveys.get(params.path(1).asInt());
+		if (Objects.isNull(survey)) {
+			this.writeStatus(out, id, INVALID_SURVEY_ID);
+			return;
+		}
+		this.writeHead(out, id);
+		final JsonGenerator generator = this.createGenerator(out);
+		survey.writeGroups(generator);
+		generator.close();
+		this.writeTail(out, null);
+	}
+
+	private void listQuestions(final OutputStream out, final JsonNode id,
+			final JsonNode params) throws IOException {
+		final StubSurvey survey = this.surveys.get(params.path(1).asInt());
+		if (Objects.isNull(survey)) {
+			this.writeStatus(out, id, INVALID_SURVEY_ID);
+			return;
+		}
+		this.writeHead(out, id);
+		final JsonGenerator generator = this.createGenerator(out);
+		survey.writeQuestions(generator, params.path(3).asText("en"));
+		generator.close();
+		this.writeTail(out, null);
+	}
+
+	private void getSurveyProperties(final OutputStream out,
+			final JsonNode id, final JsonNode params) throws IOException {
+		final StubSurvey survey = this.surveys.get(params.path(1).asInt());
+		if (Objects.isNull(survey)) {
+			this.writeStatus(out, id, INVALID_SURVEY_ID);
+			return;
+		}
+		this.writeHead(out, id);
+		final JsonGenerator generator = this.createGenerator(out);
+		generator.writeStartObject();
+		for (int i = 2; i < params.size(); i++) {
+			final String name = params.get(i).asText();
+			if ("sid".equals(name)) {
+				generator.writeNumberField(name, survey.getSid());
+			} else if ("active".equals(name)) {
+				generator.writeStringField(name, survey.isActive() ? "Y" : "N");
+			} else if ("language".equals(name)) {
+				generator.writeStringField(name, "en");
+			} else {
+				generator.writeNullField(name);
+			}
+		}
+		generator.writeEndObject();
+		generator.close();
+		this.writeTail(out, null);
+	}
+
+	/**
+	 * The parameters are the session key, sid, document type, language,
+	 * completion status, heading type, response type, from response id, to
+	 * response id and fields.
+	 */
+	private void exportResponses(final OutputStream out, final JsonNode id,
+			final JsonNode params) throws IOException {
+		final StubSurvey survey = this.surveys.get(params.path(1).asInt());
+		if (Objects.isNull(survey)) {
+			this.writeStatus(out, id, INVALID_SURVEY_ID);
+			return;
+		} else if (!"json".equals(params.path(2).asText())
+				&& !"csv".equals(params.path(2).asText())) {
+			this.writeStatus(out, id, "Invalid extension");
+			return;
+		}
+		final String completionStatus = params.path(4).asText("all");
+		final int from = params.path(7).asInt(1);
+		final int to = params.path(8).isNumber() ? params.path(8).asInt()
+				: Integer.MAX_VALUE;
+		Set<String> fields = null;
+		if (params.path(9).isArray() && params.path(9).size() > 0) {
+			fields = new HashSet<>();
+			for (final JsonNode field : params.path(9)) {
+				fields.add(field.asText());
+			}
+		}
+		if (survey.countResponses(completionStatus, from, to) == 0) {
+			this.writeStatus(out, id, NO_RESPONSE);
+			return;
+		}
+		this.writeHead(out, id);
+		out.write('"');
+		final OutputStream base64 = Base64.getEncoder()
+				.wrap(new SlashEscapingOutputStream(out));
+		if ("csv".equals(params.path(2).asText())) {
+			final Writer writer = new BufferedWriter(
+					new OutputStreamWriter(base64, StandardCharsets.UTF_8));
+			survey.writeResponsesCsv(writer, completionStatus, from, to,
+					fields);
+			writer.flush();
+		} else {
+			final JsonGenerator generator = this.mapper.getFactory()
+					.createGenerator(base64, JsonEncoding.UTF8);
+			survey.writeResponses(generator, completionStatus, from, to,
+					fields);
+			generator.close();
+		}
+		/* Closing writes the padding, the escaping stream keeps out open. */
+		base64.close();
+		out.write('"');
+		this.writeTail(out, null);
+	}
+
+	/**
+	 * The parameters are the session key, sid, participant data and the
+	 * create token flag. Participants with an email address without
+	 * <code>@</code> are rejected with <i>errors</i>.
+	 */
+	private void addParticipants(final OutputStream out, final JsonNode id,
+			final JsonNode params) throws IOException {
+		final StubSurvey survey = this.surveys.get(params.path(1).asInt());
+		if (Objects.isNull(survey)) {
+			this.writeStatus(out, id, INVALID_SURVEY_ID);
+			return;
+		} else if (!params.path(2).isArray()) {
+			this.writeStatus(out, id, "No participant data");
+			return;
+		}
+		final boolean createToken = params.path(3).asBoolean(true);
+		final ArrayNode result = this.mapper.createArrayNode();
+		for (final JsonNode participant : params.path(2)) {
+			final Map<String, String> data = new LinkedHashMap<>();
+			participant.fields().forEachRemaining(field -> data.put(
+					field.getKey(), field.getValue().isNull() ? null
+							: field.getValue().asText()));
+			final String email = data.get("email");
+			if (Objects.nonNull(email) && !email.isEmpty()
+					&& email.indexOf('@') < 0) {
+				final ObjectNode rejected = participant.deepCopy();
+				rejected.putObject("errors").putArray("email")
+						.add("Invalid email address.");
+				result.add(rejected);
+			} else {
+				final ObjectNode added = result.addObject();
+				survey.addParticipant(data, createToken).forEach((k, v) -> {
+					if ("tid".equals(k)) {
+						added.put(k, Integer.parseInt(v));
+					} else {
+						added.put(k, v);
+					}
+				});
+			}
+		}
+		this.write(out, id, result.toString(), null);
+	}
+
+	/**
+	 * The parameters are the session key, sid, start, limit, unused flag and
+	 * the attributes to add.
+	 */
+	private void listParticipants(final OutputStream out, final JsonNode id,
+			final JsonNode params) throws IOException {
+		final StubSurvey survey = this.surveys.get(params.path(1).asInt());
+		if (Objects.isNull(survey)) {
+			this.writeStatus(out, id, INVALID_SURVEY_ID);
+			return;
+		}
+		final List<Map<String, String>> page = survey.getParticipants(
+				params.path(2).asInt(0), params.path(3).asInt(10),
+				params.path(4).asBoolean(false));
+		if (page.isEmpty()) {
+			this.writeStatus(out, id, NO_PARTICIPANTS);
+			return;
+		}
+		final ArrayNode result = this.mapper.createArrayNode();
+		for (final Map<String, String> participant : page) {
+			final ObjectNode entry = result.addObject();
+			entry.put("tid", participant.get("tid"));
+			entry.put("token", participant.get("token"));
+			entry.putObject("participant_info")
+					.put("firstname", participant.get("firstname"))
+					.put("lastname", participant.get("lastname"))
+					.put("email", participant.get("email"));
+			for (final JsonNode attribute : params.path(5)) {
+				entry.put(attribute.asText(),
+						participant.get(attribute.asText()));
+			}
+		}
+		this.write(out, id, result.toString(), null);
+	}
+
+	/**
+	 * The parameters are the session key, sid and the tids.
+	 */
+	private void deleteParticipants(final OutputStream out,
+			final JsonNode id, final JsonNode params) throws IOException {
+		final StubSurvey survey = this.surveys.get(params.path(1).asInt());
+		if (Objects.isNull(survey)) {
+			this.writeStatus(out, id, INVALID_SURVEY_ID);
+			return;
+		}
+		final ObjectNode result = this.mapper.createObjectNode();
+		for (final JsonNode tid : params.path(2)) {
+			result.put(tid.asText(), survey.deleteParticipant(tid.asInt())
+					? "Deleted" : "Invalid token ID");
+		}
+		this.write(out, id, result.toString(), null);
+	}
+
+	/**
+	 * The parameters are the session key, sid, tid and the properties.
+	 */
+	private void getParticipantProperties(final OutputStream out,
+			final JsonNode id, final JsonNode params) throws IOException {
+		final StubSurvey survey = this.surveys.get(params.path(1).asInt());
+		if (Objects.isNull(survey)) {
+			this.writeStatus(out, id, INVALID_SURVEY_ID);
+			return;
+		}
+		final Optional<Map<String, String>> participant = survey
+				.getParticipant(params.path(2).asInt());
+		if (!participant.isPresent()) {
+			this.writeStatus(out, id, "Error: Invalid tokenid");
+			return;
+		}
+		final ObjectNode result = this.mapper.createObjectNode();
+		if (params.path(3).isArray() && params.path(3).size() > 0) {
+			for (final JsonNode property : params.path(3)) {
+				result.put(property.asText(),
+						participant.get().get(property.asText()));
+			}
+		} else {
+			participant.get().forEach(result::put);
+		}
+		this.write(out, id, result.toString(), null);
+	}
+
+	private JsonGenerator createGenerator(final OutputStream out)
+			throws IOException {
+		return this.mapper.getFactory().createGenerator(out)
+				.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+
+	private void writeStatus(final OutputStream out, final JsonNode id,
+			final String status) throws IOException {
+		this.write(out, id, this.mapper.createObjectNode()
+				.put("status", status).toString(), null);
+	}
+
+	private void write(final OutputStream out, final JsonNode id,
+			final String result, final String error) throws IOException {
+		this.writeHead(out, id);
+		out.write(result.getBytes(StandardCharsets.UTF_8));
+		this.writeTail(out, error);
+	}
+
+	private void writeHead(final OutputStream out, final JsonNode id)
+			throws IOException {
+		out.write(("{\"id\":" + (Objects.isNull(id) ? "null" : id.toString())
+				+ ",\"result\":").getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void writeTail(final OutputStream out, final String error)
+			throws IOException {
+		out.write((",\"error\":"
+				+ (Objects.isNull(error) ? "null"
+						: this.mapper.writeValueAsString(error))
+				+ "}").getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes <code>/</code> as <code>\/</code>, as PHP does in JSON strings.
+	 * Closing flushes but does not close the underlying stream.
+	 */
+	private static class SlashEscapingOutputStream extends FilterOutputStream {
+		private static final byte[] ESCAPED = { '\\', '/' };
+
+		SlashEscapingOutputStream(final OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			if (b == '/') {
+				this.out.write(ESCAPED);
+			} else {
+				this.out.write(b);
+			}
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len)
+				throws IOException {
+			int start = off;
+			for (int i = off; i < off + len; i++) {
+				if (b[i] == '/') {
+					this.out.write(b, start, i - start);
+					this.out.write(ESCAPED);
+					start = i + 1;
+				}
+			}
+			this.out.write(b, start, off + len - start);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.flush();
+		}
+	}
+}
@@ -0,0 +1,517 @@
+package com.qpark.survey.lime.stub;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * A synthetic survey of the {@link LimeStubServer}. Questions and responses
+ * are not stored but generated while they are written, deterministic for
+ * the sid and response id. Odd questions are numeric (<i>N</i>), even
+ * questions single choice lists (<i>L</i>), about one in ten answers is
+ * empty and every seventh response is incomplete. The participants are
+ * stored in memory.
+ *
+ * @author bhausen
+ */
+public class StubSurvey {
+	/** Receives the cells of a response. */
+	@FunctionalInterface
+	private interface CellWriter {
+		void cell(String column, String value) throws IOException;
+	}
+
+	/** The answer options of the list questions. */
+	private static final String[] CODES = { "A1", "A2", "A3", "A4", "A5" };
+	/** The fixed columns preceding the answer columns of a response. */
+	private static final String[] HEADER_COLUMNS = { "id", "submitdate", "lastpage",
+			"startlanguage", "token", "startdate", "datestamp", "ipaddr",
+			"refurl" };
+	/** The characters of the created tokens. */
+	private static final String TOKEN_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_";
+	/** The sid. */
+	private final int sid;
+	/** The title. */
+	private String title;
+	/** <code>true</code> if the survey is active. */
+	private boolean active = true;
+	/** The number of questions. */
+	private volatile int questionCount;
+	/** The number of responses, the response ids are 1 to this count. */
+	private volatile int responseCount;
+	/** The participants by tid. */
+	private final ConcurrentSkipListMap<Integer, Map<String, String>> participants = new ConcurrentSkipListMap<>();
+	/** The last tid assigned. */
+	private final AtomicInteger lastTid = new AtomicInteger();
+
+	/**
+	 * @param sid
+	 *            the sid.
+	 * @param questionCount
+	 *            the number of questions.
+	 * @param responseCount
+	 *            the number of responses.
+	 */
+	public StubSurvey(final int sid, final int questionCount,
+			final int responseCount) {
+		this.sid = sid;
+		this.title = String.format("Survey %s", sid);
+		this.questionCount = questionCount;
+		this.responseCount = responseCount;
+	}
+
+	/**
+	 * @return the sid.
+	 */
+	public int getSid() {
+		return this.sid;
+	}
+
+	/**
+	 * @return the title.
+	 */
+	public String getTitle() {
+		return this.title;
+	}
+
+	/**
+	 * @param title
+	 *            the title.
+	 */
+	public void setTitle(final String title) {
+		this.title = title;
+	}
+
+	/**
+	 * @return <code>true</code> if the survey is active.
+	 */
+	public boolean isActive() {
+		return this.active;
+	}
+
+	/**
+	 * @param active
+	 *            <code>true</code> if the survey is active.
+	 */
+	public void setActive(final boolean active) {
+		this.active = active;
+	}
+
+	/**
+	 * @return the number of questions.
+	 */
+	public int getQuestionCount() {
+		return this.questionCount;
+	}
+
+	/**
+	 * @param questionCount
+	 *            the number of questions.
+	 */
+	public void setQuestionCount(final int questionCount) {
+		this.questionCount = questionCount;
+	}
+
+	/**
+	 * @return the number of responses.
+	 */
+	public int getResponseCount() {
+		return this.responseCount;
+	}
+
+	/**
+	 * Raising the count simulates new responses arriving.
+	 *
+	 * @param responseCount
+	 *            the number of responses.
+	 */
+	public void setResponseCount(final int responseCount) {
+		this.responseCount = responseCount;
+	}
+
+	/**
+	 * @param qid
+	 *            the question id, 1 to {@link #getQuestionCount()}.
+	 * @return the response column of the question in the heading type
+	 *         <i>code</i>, <code>SIDXGIDXQID</code>.
+	 */
+	public String getColumn(final int qid) {
+		return new StringBuilder(20).append(this.sid).append('X')
+				.append(getGid(qid)).append('X').append(qid).toString();
+	}
+
+	/**
+	 * Stores the participant with the defaults of lime survey.
+	 *
+	 * @param data
+	 *            the columns of the participant.
+	 * @param createToken
+	 *            <code>true</code> to create a token if none is given.
+	 * @return the stored participant including <i>tid</i>.
+	 */
+	public Map<String, String> addParticipant(final Map<String, String> data,
+			final boolean createToken) {
+		final Map<String, String> value = new LinkedHashMap<>();
+		value.put("tid", String.valueOf(this.lastTid.incrementAndGet()));
+		value.put("emailstatus", "OK");
+		value.put("language", "en");
+		value.put("sent", "N");
+		value.put("remindersent", "N");
+		value.put("remindercount", "0");
+		value.put("completed", "N");
+		value.put("usesleft", "1");
+		data.forEach((k, v) -> {
+			if (!"tid".equals(k)) {
+				value.put(k, v);
+			}
+		});
+		if (createToken && Objects.isNull(value.get("token"))) {
+			final ThreadLocalRandom random = ThreadLocalRandom.current();
+			final StringBuilder token = new StringBuilder(15);
+			for (int i = 0; i < 15; i++) {
+				token.append(TOKEN_CHARACTERS
+						.charAt(random.nextInt(TOKEN_CHARACTERS.length())));
+			}
+			value.put("token", token.toString());
+		}
+		this.participants.put(Integer.valueOf(value.get("tid")), value);
+		return value;
+	}
+
+	/**
+	 * @param tid
+	 *            the tid.
+	 * @return the participant.
+	 */
+	public Optional<Map<String, String>> getParticipant(final int tid) {
+		return Optional.ofNullable(this.participants.get(tid));
+	}
+
+	/**
+	 * @param start
+	 *            the offset in tid order.
+	 * @param limit
+	 *            the maximum number of participants.
+	 * @param unused
+	 *            <code>true</code> for the participants not completed only.
+	 * @return the page of participants.
+	 */
+	public List<Map<String, String>> getParticipants(final int start,
+			final int limit, final boolean unused) {
+		final List<Map<String, String>> value = new ArrayList<>();
+		int skip = start;
+		for (final Map<String, String> participant : this.participants
+				.values()) {
+			if (value.size() >= limit) {
+				break;
+			} else if (unused && !"N".equals(participant.get("completed"))) {
+				continue;
+			} else if (skip > 0) {
+				skip--;
+			} else {
+				value.add(Collections.unmodifiableMap(participant));
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * @param tid
+	 *            the tid.
+	 * @return <code>true</code> if the participant existed.
+	 */
+	public boolean deleteParticipant(final int tid) {
+		return Objects.nonNull(this.participants.remove(tid));
+	}
+
+	/**
+	 * @return the number of participants.
+	 */
+	public int getParticipantCount() {
+		return this.participants.size();
+	}
+
+	/**
+	 * Writes the <i>list_surveys</i> entry.
+	 */
+	void writeSurvey(final JsonGenerator generator) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("sid", this.sid);
+		generator.writeStringField("surveyls_title", this.title);
+		generator.writeStringField("startdate", "2016-01-01 00:00:00");
+		generator.writeStringField("expires", null);
+		generator.writeStringField("active", this.active ? "Y" : "N");
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes the <i>list_groups</i> result, one group per 50 questions.
+	 */
+	void writeGroups(final JsonGenerator generator) throws IOException {
+		final int count = getGid(this.questionCount);
+		generator.writeStartArray();
+		for (int gid = 1; gid <= count; gid++) {
+			generator.writeStartObject();
+			generator.writeObjectFieldStart("id");
+			generator.writeStringField("gid", String.valueOf(gid));
+			generator.writeStringField("language", "en");
+			generator.writeEndObject();
+			generator.writeStringField("gid", String.valueOf(gid));
+			generator.writeStringField("sid", String.valueOf(this.sid));
+			generator.writeStringField("group_name", "Group " + gid);
+			generator.writeStringField("group_order",
+					String.valueOf(gid - 1));
+			generator.writeStringField("description", "");
+			generator.writeStringField("language", "en");
+			generator.writeStringField("randomization_group", "");
+			generator.writeStringField("grelevance", "");
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+	}
+
+	/**
+	 * Writes the <i>list_questions</i> result.
+	 */
+	void writeQuestions(final JsonGenerator generator, final String language)
+			throws IOException {
+		final int count = this.questionCount;
+		generator.writeStartArray();
+		for (int qid = 1; qid <= count; qid++) {
+			generator.writeStartObject();
+			generator.writeObjectFieldStart("id");
+			generator.writeStringField("qid", String.valueOf(qid));
+			generator.writeStringField("language", language);
+			generator.writeEndObject();
+			generator.writeStringField("qid", String.valueOf(qid));
+			generator.writeStringField("parent_qid", "0");
+			generator.writeStringField("sid", String.valueOf(this.sid));
+			generator.writeStringField("gid", String.valueOf(getGid(qid)));
+			generator.writeStringField("type", isNumeric(qid) ? "N" : "L");
+			generator.writeStringField("title", "Q" + qid);
+			generator.writeStringField("question",
+					String.format("Question %s of survey %s?", qid, this.sid));
+			generator.writeStringField("preg", "");
+			generator.writeStringField("help", "");
+			generator.writeStringField("other", "N");
+			generator.writeStringField("mandatory", "N");
+			generator.writeStringField("question_order",
+					String.valueOf(qid));
+			generator.writeStringField("language", language);
+			generator.writeStringField("scale_id", "0");
+			generator.writeStringField("same_default", "0");
+			generator.writeStringField("relevance", "1");
+			generator.writeStringField("modulename", null);
+			generator.writeEndObject();
+		}
+		generator.writeEndArray();
+	}
+
+	/**
+	 * @return the number of responses in the id range matching the completion
+	 *         status.
+	 */
+	int countResponses(final String completionStatus,
+			final int fromResponseId, final int toResponseId) {
+		final int from = Math.max(1, fromResponseId);
+		final int to = Math.min(this.responseCount, toResponseId);
+		if (from > to) {
+			return 0;
+		}
+		final int incomplete = to / 7 - (from - 1) / 7;
+		if ("complete".equals(completionStatus)) {
+			return to - from + 1 - incomplete;
+		} else if ("incomplete".equals(completionStatus)) {
+			return incomplete;
+		}
+		return to - from + 1;
+	}
+
+	/**
+	 * Writes the decoded <i>export_responses</i> document of the responses in
+	 * the id range matching the completion status.
+	 *
+	 * @param fields
+	 *            the columns to write, <code>null</code> writes all.
+	 * @return the number of responses written.
+	 */
+	int writeResponses(final JsonGenerator generator,
+			final String completionStatus, final int fromResponseId,
+			final int toResponseId, final Set<String> fields)
+			throws IOException {
+		final String[] columns = this.getColumns(fields);
+		final int from = Math.max(1, fromResponseId);
+		final int to = Math.min(this.responseCount, toResponseId);
+		int written = 0;
+		generator.writeStartObject();
+		generator.writeArrayFieldStart("responses");
+		for (int id = from; id <= to; id++) {
+			final boolean complete = id % 7 != 0;
+			if (this.isFiltered(completionStatus, complete)) {
+				continue;
+			}
+			generator.writeStartObject();
+			generator.writeObjectFieldStart(String.valueOf(id));
+			this.writeResponse(generator::writeStringField, id, complete,
+					columns, fields);
+			generator.writeEndObject();
+			generator.writeEndObject();
+			written++;
+		}
+		generator.writeEndArray();
+		generator.writeEndObject();
+		return written;
+	}
+
+	/**
+	 * Writes the decoded <i>export_responses</i> document of the type
+	 * <i>csv</i> as lime survey does: a byte order mark, the header and the
+	 * rows with all values quoted, separated by <code>,</code>.
+	 *
+	 * @param fields
+	 *            the columns to write, <code>null</code> writes all.
+	 * @return the number of responses written.
+	 */
+	int writeResponsesCsv(final Writer writer, final String completionStatus,
+			final int fromResponseId, final int toResponseId,
+			final Set<String> fields) throws IOException {
+		final String[] columns = this.getColumns(fields);
+		final int from = Math.max(1, fromResponseId);
+		final int to = Math.min(this.responseCount, toResponseId);
+		final boolean[] first = new boolean[1];
+		final CellWriter csv = (column, value) -> {
+			if (!first[0]) {
+				writer.write(',');
+			}
+			first[0] = false;
+			writer.write('"');
+			if (Objects.nonNull(value)) {
+				writer.write(value.replace("\"", "\"\""));
+			}
+			writer.write('"');
+		};
+		int written = 0;
+		writer.write('\uFEFF');
+		first[0] = true;
+		for (final String header : HEADER_COLUMNS) {
+			if (Objects.isNull(fields) || "id".equals(header)
+					|| fields.contains(header)) {
+				csv.cell(header, header);
+			}
+		}
+		for (int qid = 1; qid < columns.length; qid++) {
+			if (Objects.nonNull(columns[qid])) {
+				csv.cell(columns[qid], columns[qid]);
+			}
+		}
+		writer.write('\n');
+		for (int id = from; id <= to; id++) {
+			final boolean complete = id % 7 != 0;
+			if (this.isFiltered(completionStatus, complete)) {
+				continue;
+			}
+			first[0] = true;
+			this.writeResponse(csv, id, complete, columns, fields);
+			writer.write('\n');
+			written++;
+		}
+		return written;
+	}
+
+	/**
+	 * @return the answer columns to write by qid.
+	 */
+	private String[] getColumns(final Set<String> fields) {
+		final int questions = this.questionCount;
+		final String[] columns = new String[questions + 1];
+		for (int qid = 1; qid <= questions; qid++) {
+			if (Objects.isNull(fields) || fields.contains(this.getColumn(qid))) {
+				columns[qid] = this.getColumn(qid);
+			}
+		}
+		return columns;
+	}
+
+	private boolean isFiltered(final String completionStatus,
+			final boolean complete) {
+		return "complete".equals(completionStatus) && !complete
+				|| "incomplete".equals(completionStatus) && complete;
+	}
+
+	private void writeResponse(final CellWriter writer, final int id,
+			final boolean complete, final String[] columns,
+			final Set<String> fields) throws IOException {
+		final Random random = new Random(this.sid * 1000003L + id);
+		final String date = String.format("2016-%02d-%02d %02d:%02d:%02d",
+				1 + id % 12, 1 + id % 28, id % 24, id % 60, id * 7 % 60);
+		for (final String header : HEADER_COLUMNS) {
+			if (Objects.nonNull(fields) && !"id".equals(header)
+					&& !fields.contains(header)) {
+				continue;
+			}
+			switch (header) {
+			case "id":
+				writer.cell(header, String.valueOf(id));
+				break;
+			case "submitdate":
+				writer.cell(header, complete ? date : null);
+				break;
+			case "lastpage":
+				writer.cell(header, String.valueOf(complete ? 3 : 1 + id % 2));
+				break;
+			case "startlanguage":
+				writer.cell(header, id % 4 == 0 ? "de" : "en");
+				break;
+			case "token":
+				writer.cell(header, null);
+				break;
+			case "startdate":
+			case "datestamp":
+				writer.cell(header, date);
+				break;
+			case "ipaddr":
+				writer.cell(header, String.format("10.0.%s.%s", id / 256 % 256,
+						id % 256));
+				break;
+			default:
+				writer.cell(header, "");
+				break;
+			}
+		}
+		for (int qid = 1; qid < columns.length; qid++) {
+			/* Draw for all questions, the values do not depend on fields. */
+			final int draw = random.nextInt(1000);
+			if (Objects.isNull(columns[qid])) {
+				continue;
+			}
+			if (draw < 100) {
+				writer.cell(columns[qid], "");
+			} else if (isNumeric(qid)) {
+				writer.cell(columns[qid], String.valueOf(draw % 100));
+			} else {
+				writer.cell(columns[qid], CODES[draw % CODES.length]);
+			}
+		}
+	}
+
+	private static int getGid(final int qid) {
+		return 1 + qid / 50;
+	}
+
+	private static boolean isNumeric(final int qid) {
+		return qid % 2 == 1;
+	}
+}